@@ -270,6 +270,9 @@ public final class YoungAndroidFormUpgrader {
       } else if (componentType.equals("Chart")) {
         srcCompVersion = upgradeChartProperties(componentProperties, srcCompVersion);
 
+      } else if (componentType.equals("ChartData2D")) {
+        srcCompVersion = upgradeChartData2DProperties(componentProperties, srcCompVersion);
+
       } else if (componentType.equals("ChatBot")) {
         srcCompVersion = upgradeChatBotProperties(componentProperties, srcCompVersion);
 
@@ -835,6 +838,11 @@ public final class YoungAndroidFormUpgrader {
       // Assets helper block was added.
       srcCompVersion = 15;
     }
+    if (srcCompVersion < 16) {
+      // The GameLoop, FrameInterval, FramesPerSecond and TickDuration properties were added.
+      // No properties need to be modified to upgrade to version 16.
+      srcCompVersion = 16;
+    }
     return srcCompVersion;
   }
 
@@ -847,6 +855,16 @@ public final class YoungAndroidFormUpgrader {
     return srcCompVersion;
   }
 
+  private static int upgradeChartData2DProperties(Map<String, JSONValue> componentProperties,
+      int srcCompVersion) {
+    if (srcCompVersion < 2) {
+      // The MaximumRenderedEntries property was added.
+      // No properties need to be modified to upgrade to version 2.
+      srcCompVersion = 2;
+    }
+    return srcCompVersion;
+  }
+
   private static int upgradeChatBotProperties(Map<String, JSONValue> componentProperties,
       int srcCompVersion) {
     if (srcCompVersion < 2) {
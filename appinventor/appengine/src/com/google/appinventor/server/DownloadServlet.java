@@ -22,6 +22,7 @@ import com.google.appinventor.shared.storage.StorageUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Formatter;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletOutputStream;
@@ -134,7 +136,7 @@ public class DownloadServlet extends OdeServlet {
 
       } else if (downloadKind.equals(ServerLayout.DOWNLOAD_PROJECT_SOURCE)) {
         // Download project source files as a zip.
-        long projectId = Long.parseLong(uriComponents[PROJECT_ID_INDEX]);
+        final long projectId = Long.parseLong(uriComponents[PROJECT_ID_INDEX]);
         uriComponents = uri.split("/", SPLIT_LIMIT_PROJECT_SOURCE);
         String projectTitle = (uriComponents.length > PROJECT_TITLE_INDEX) ?
             uriComponents[PROJECT_TITLE_INDEX] : null;
@@ -143,13 +145,26 @@ public class DownloadServlet extends OdeServlet {
             StringUtils.normalizeForFilename(projectTitle) + ".aia";
         // If the requester is an Admin, we include any Yail files in the
         // project in the export
-        boolean includeYail = userInfoProvider.getIsAdmin();
-        boolean includeScreenShots = includeYail;
-        StorageIoInstanceHolder.getInstance().assertUserHasProject(userId, projectId);
-        ProjectSourceZip zipFile = fileExporter.exportProjectSourceZip(userId,
-          projectId, includeProjectHistory, false, zipName, includeYail,
-          includeScreenShots, false, false);
-        downloadableFile = zipFile.getRawFile();
+        final boolean includeYail = userInfoProvider.getIsAdmin();
+        final boolean includeScreenShots = includeYail;
+        StorageIo storageIo = StorageIoInstanceHolder.getInstance();
+        storageIo.assertUserHasProject(userId, projectId);
+        if (storageIo.getProjectSourceFiles(userId, projectId).isEmpty()) {
+          throw new IllegalArgumentException("No files to download");
+        }
+        if (zipName == null) {
+          zipName = storageIo.getProjectName(userId, projectId) + ".aia";
+        }
+        final String finalUserId = userId;
+        final String finalZipName = zipName;
+        streamZip(req, resp, zipName, new ZipExport() {
+          @Override
+          public void writeTo(OutputStream out) throws IOException {
+            fileExporter.exportProjectSourceZip(finalUserId, projectId, includeProjectHistory,
+              false, finalZipName, includeYail, includeScreenShots, false, false, out);
+          }
+        });
+        return;
 
       } else if (downloadKind.equals(ServerLayout.DOWNLOAD_USER_PROJECT_SOURCE)) {
         if (!userInfoProvider.getIsAdmin()) {
@@ -207,18 +222,30 @@ public class DownloadServlet extends OdeServlet {
         downloadableFile = zipFile.getRawFile();
       } else if (downloadKind.equals(ServerLayout.DOWNLOAD_SELECTED_PROJECTS_SOURCE)) {
         String[] projectIdStrings = uriComponents[PROJECT_ID_INDEX].split("-");
-        List<Long> projectIds = new ArrayList<Long>();
+        final List<Long> projectIds = new ArrayList<Long>();
         for (String projectId : projectIdStrings) {
           projectIds.add(Long.valueOf(projectId));
         }
-        ProjectSourceZip zipFile = fileExporter.exportSelectedProjectsSourceZip(
-          userId, "selected-projects.zip", projectIds);
-        downloadableFile = zipFile.getRawFile();
+        final String finalUserId = userId;
+        streamZip(req, resp, "selected-projects.zip", new ZipExport() {
+          @Override
+          public void writeTo(OutputStream out) throws IOException {
+            fileExporter.exportSelectedProjectsSourceZip(
+              finalUserId, "selected-projects.zip", projectIds, out);
+          }
+        });
+        return;
       } else if (downloadKind.equals(ServerLayout.DOWNLOAD_ALL_PROJECTS_SOURCE)) {
-        // Download all project source files as a zip of zips.
-        ProjectSourceZip zipFile = fileExporter.exportAllProjectsSourceZip(
-            userId, "all-projects.zip");
-        downloadableFile = zipFile.getRawFile();
+        // Download all project source files as a zip of zips, streamed to the
+        // client one project at a time.
+        final String finalUserId = userId;
+        streamZip(req, resp, "all-projects.zip", new ZipExport() {
+          @Override
+          public void writeTo(OutputStream out) throws IOException {
+            fileExporter.exportAllProjectsSourceZip(finalUserId, "all-projects.zip", out);
+          }
+        });
+        return;
 
       } else if (downloadKind.equals(ServerLayout.DOWNLOAD_FILE)) {
         // Download a specific file.
@@ -277,10 +304,7 @@ public class DownloadServlet extends OdeServlet {
       String fileName = downloadableFile.getFileName();
       byte[] content = downloadableFile.getContent();
       // Set http response information
-      resp.setHeader(
-        "content-disposition",
-        req.getParameter("inline") != null ? "inline" : "attachment" + "; filename=\"" + fileName + "\"");
-      resp.setContentType(StorageUtil.getContentTypeForFilePath(fileName));
+      setDownloadHeaders(req, resp, fileName);
       resp.setContentLength(content.length);
 
       // Attach download data
@@ -295,6 +319,95 @@ public class DownloadServlet extends OdeServlet {
     }
   }
 
+  /**
+   * Writes a zip to an output stream.
+   */
+  private interface ZipExport {
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  /**
+   * Streams a zip to the client as it is written, rather than building it in
+   * memory first. The response is only committed when the first byte is
+   * written, so that an export that fails before then is still reported as
+   * an error. A failure after that is rethrown without finishing the
+   * response, which makes the container abort the connection instead of
+   * ending a truncated zip as if it were complete.
+   */
+  private static void streamZip(HttpServletRequest req, HttpServletResponse resp,
+      String fileName, ZipExport export) throws IOException {
+    DownloadOutputStream out = new DownloadOutputStream(req, resp, fileName);
+    try {
+      export.writeTo(out);
+    } catch (IOException | RuntimeException e) {
+      if (out.isCommitted()) {
+        LOG.log(Level.WARNING, "Aborting download of " + fileName, e);
+      }
+      throw e;
+    }
+    out.close();
+  }
+
+  /**
+   * Sets the status and download headers of the response when the first
+   * byte is written to it.
+   */
+  private static class DownloadOutputStream extends OutputStream {
+    private final HttpServletRequest req;
+    private final HttpServletResponse resp;
+    private final String fileName;
+    private ServletOutputStream out = null;
+
+    DownloadOutputStream(HttpServletRequest req, HttpServletResponse resp, String fileName) {
+      this.req = req;
+      this.resp = resp;
+      this.fileName = fileName;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      commit().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      commit().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (out != null) {
+        out.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      commit().close();
+    }
+
+    boolean isCommitted() {
+      return out != null;
+    }
+
+    private ServletOutputStream commit() throws IOException {
+      if (out == null) {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        setDownloadHeaders(req, resp, fileName);
+        out = resp.getOutputStream();
+      }
+      return out;
+    }
+  }
+
+  private static void setDownloadHeaders(HttpServletRequest req, HttpServletResponse resp,
+      String fileName) {
+    resp.setHeader(
+      "content-disposition",
+      req.getParameter("inline") != null ? "inline" : "attachment" + "; filename=\"" + fileName + "\"");
+    resp.setContentType(StorageUtil.getContentTypeForFilePath(fileName));
+  }
+
   private static String byteArray2Hex(final byte[] hash) {
     Formatter formatter = new Formatter();
     for (byte b : hash) {
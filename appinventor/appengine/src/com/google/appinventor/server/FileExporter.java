@@ -10,6 +10,7 @@ import com.google.appinventor.shared.rpc.project.ProjectSourceZip;
 import com.google.appinventor.shared.rpc.project.RawFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -58,6 +59,30 @@ public interface FileExporter {
     boolean includeScreenShots,
     boolean fatalError, boolean forGallery) throws IOException;
 
+  /**
+   * Exports the project source files as a zip written to a stream, without
+   * holding the files or the zip in memory.
+   *
+   * @param userId the userId
+   * @param projectId the project id belonging to the userId
+   * @param includeProjectHistory indicates whether to include a file
+   *        containing the project's history in the zip
+   * @param includeAndroidKeystore indicates whether to include the user's android.keystore file
+   * @param zipName the desired name for the zip, or null for a name to be generated
+   * @param fatalError set to true to cause missing GCS file to throw exception
+   * @param out the stream the zip is written to; it is not closed
+   * @return the name, file count and metadata of the zip; its content is null
+   * @throws IllegalArgumentException if download request cannot be fulfilled
+   *         (no source files)
+   * @throws IOException if files cannot be written
+   */
+  ProjectSourceZip exportProjectSourceZip(String userId, long projectId,
+    boolean includeProjectHistory,
+    boolean includeAndroidKeystore, @Nullable String zipName,
+    boolean includeYail,
+    boolean includeScreenShots,
+    boolean fatalError, boolean forGallery, OutputStream out) throws IOException;
+
   /**
    * Exports projects selected by the user as a zip of zips.
    *
@@ -71,6 +96,23 @@ public interface FileExporter {
    */
   ProjectSourceZip exportSelectedProjectsSourceZip(String userId, String zipName, List<Long> projectIds) throws IOException;
 
+  /**
+   * Exports projects selected by the user as a zip of zips written to a
+   * stream, one project at a time. The zip ends with a manifest listing the
+   * projects that were exported and those that failed.
+   *
+   * @param userId the userId
+   * @param zipName the desired name for the zip
+   * @param projectIds the list of project ids corresponding to selected projects
+   * @param out the stream the zip is written to; it is not closed
+   * @return the name, number of files and metadata of the zip; its content is null
+   * @throws IllegalArgumentException if download request cannot be fulfilled
+   *         (no projects)
+   * @throws IOException if files cannot be written
+   */
+  ProjectSourceZip exportSelectedProjectsSourceZip(String userId, String zipName,
+      List<Long> projectIds, OutputStream out) throws IOException;
+
   /**
    * Exports all of the user's projects' source files as a zip of zips.
    *
@@ -83,6 +125,22 @@ public interface FileExporter {
    */
   ProjectSourceZip exportAllProjectsSourceZip(String userId, String zipName) throws IOException;
 
+  /**
+   * Exports all of the user's projects' source files as a zip of zips
+   * written to a stream, one project at a time. The zip ends with a manifest
+   * listing the projects that were exported and those that failed.
+   *
+   * @param userId the userId
+   * @param zipName the desired name for the zip
+   * @param out the stream the zip is written to; it is not closed
+   * @return the name, number of files and metadata of the zip; its content is null
+   * @throws IllegalArgumentException if download request cannot be fulfilled
+   *         (no projects)
+   * @throws IOException if files cannot be written
+   */
+  ProjectSourceZip exportAllProjectsSourceZip(String userId, String zipName, OutputStream out)
+      throws IOException;
+
   /**
    * Exports a specific project file.
    *
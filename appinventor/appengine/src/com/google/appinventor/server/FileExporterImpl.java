@@ -8,6 +8,7 @@ package com.google.appinventor.server;
 
 import com.google.appinventor.server.storage.StorageIo;
 import com.google.appinventor.server.storage.StorageIoInstanceHolder;
+import com.google.appinventor.server.util.NonClosingOutputStream;
 import com.google.appinventor.shared.rpc.project.ProjectSourceZip;
 import com.google.appinventor.shared.rpc.project.RawFile;
 import com.google.appinventor.shared.storage.StorageUtil;
@@ -15,8 +16,11 @@ import com.google.appinventor.shared.storage.StorageUtil;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -28,6 +32,13 @@ import javax.annotation.Nullable;
  */
 public final class FileExporterImpl implements FileExporter {
 
+  // Lists the projects in a zip of zips, one per line, with their status
+  // ("exported", "empty" or "failed"), project id and entry name.
+  static final String MANIFEST_FILE_NAME = "export-manifest.txt";
+  private static final String MANIFEST_HEADER =
+      "# status\tproject id\tfile name\n"
+      + "# Projects that failed can be exported again by downloading them as selected projects.\n";
+
   private final StorageIo storageIo = StorageIoInstanceHolder.getInstance();
 
   @Override
@@ -70,121 +81,108 @@ public final class FileExporterImpl implements FileExporter {
       includeProjectHistory, includeAndroidKeystore, zipName, includeYail, includeScreenShots, forGallery, fatalError);
   }
 
+  @Override
+  public ProjectSourceZip exportProjectSourceZip(String userId, long projectId,
+    boolean includeProjectHistory,
+    boolean includeAndroidKeystore,
+    @Nullable String zipName,
+    boolean includeYail,
+    boolean includeScreenShots,
+    boolean fatalError,
+    boolean forGallery,
+    OutputStream out) throws IOException {
+    // Stream project source files as a zip.
+    return storageIo.exportProjectSourceZip(userId, projectId,
+      includeProjectHistory, includeAndroidKeystore, zipName, includeYail, includeScreenShots, forGallery, fatalError,
+      out);
+  }
+
   @Override
   public ProjectSourceZip exportSelectedProjectsSourceZip(String userId,
       String zipName, List<Long> projectIds) throws IOException {
-      // Create a zip file for each project's sources.
-    if (projectIds.size() == 0) {
-      throw new IllegalArgumentException("No projects to download");
-    }
-
     ByteArrayOutputStream zipFile = new ByteArrayOutputStream();
-    ZipOutputStream out = new ZipOutputStream(zipFile);
-    int count = 0;
-    String metadata = "";
-    for (Long projectId : projectIds) {
-      try {
-        ProjectSourceZip projectSourceZip =
-            exportProjectSourceZip(userId, projectId, false, false, null, false, false, false, false);
-        byte[] data = projectSourceZip.getContent();
-        String name = projectSourceZip.getFileName();
-
-        // If necessary, renae duplicate projects
-        while (true) {
-          try {
-            out.putNextEntry(new ZipEntry(name));
-            break;
-          } catch (IOException e) {
-            name = "duplicate-" + name;
-          }
-        }
-        metadata += projectSourceZip.getMetadata() + "\n";
-
-        out.write(data, 0, data.length);
-        out.closeEntry();
-        count++;
-      } catch (IllegalArgumentException e) {
-        System.err.println("No files found for userid: " + userId +
-            " for projectid: " + projectId);
-      } catch (IOException e) {
-        System.err.println("IOException while reading files found for userid: " +
-            userId + " for projectid: " + projectId);
-        continue;
-      }
-    }
-    if (count == 0) {
-      throw new IllegalArgumentException("No files to download");
-    }
-
-    List<String> userFiles = storageIo.getUserFiles(userId);
-    if (userFiles.contains(StorageUtil.ANDROID_KEYSTORE_FILENAME)) {
-      byte[] androidKeystoreBytes =
-          storageIo.downloadRawUserFile(userId, StorageUtil.ANDROID_KEYSTORE_FILENAME);
-      if (androidKeystoreBytes.length > 0) {
-        out.putNextEntry(new ZipEntry(StorageUtil.ANDROID_KEYSTORE_FILENAME));
-        out.write(androidKeystoreBytes, 0, androidKeystoreBytes.length);
-        out.closeEntry();
-        count++;
-      }
-    }
-
-    out.close();
+    ProjectSourceZip exported =
+        exportSelectedProjectsSourceZip(userId, zipName, projectIds, zipFile);
+    return withContent(exported, zipFile.toByteArray());
+  }
 
-    // Package the big zip file up as a ProjectSourceZip and return it.
-    byte[] content = zipFile.toByteArray();
-    ProjectSourceZip projectSourceZip = new ProjectSourceZip(zipName, content, count);
-    projectSourceZip.setMetadata(metadata);
-    return projectSourceZip;
+  @Override
+  public ProjectSourceZip exportSelectedProjectsSourceZip(String userId,
+      String zipName, List<Long> projectIds, OutputStream out) throws IOException {
+    return exportProjectsSourceZip(userId, zipName, projectIds, out);
   }
 
   @Override
   public ProjectSourceZip exportAllProjectsSourceZip(String userId,
       String zipName) throws IOException {
+    ByteArrayOutputStream zipFile = new ByteArrayOutputStream();
+    ProjectSourceZip exported = exportAllProjectsSourceZip(userId, zipName, zipFile);
+    return withContent(exported, zipFile.toByteArray());
+  }
+
+  @Override
+  public ProjectSourceZip exportAllProjectsSourceZip(String userId,
+      String zipName, OutputStream out) throws IOException {
+    return exportProjectsSourceZip(userId, zipName, storageIo.getProjects(userId), out);
+  }
+
+  /**
+   * Writes a zip of zips of the given projects to {@code destination}, one
+   * project at a time, so that memory use does not grow with the number of
+   * projects. Each project's zip is completed before its entry is written,
+   * so that a project whose export fails is left out rather than truncated.
+   * A manifest at the end of the zip records which projects were exported,
+   * so that the projects that failed can be exported again as selected
+   * projects. Nothing is written if no project could be exported.
+   */
+  private ProjectSourceZip exportProjectsSourceZip(String userId, String zipName,
+      List<Long> projectIds, OutputStream destination) throws IOException {
     // Create a zip file for each project's sources.
-    List<Long> projectIds = storageIo.getProjects(userId);
     if (projectIds.size() == 0) {
       throw new IllegalArgumentException("No projects to download");
     }
 
-    ByteArrayOutputStream zipFile = new ByteArrayOutputStream();
-    ZipOutputStream out = new ZipOutputStream(zipFile);
+    ZipOutputStream out = new ZipOutputStream(new NonClosingOutputStream(destination));
     int count = 0;
-    String metadata = "";
+    StringBuilder metadata = new StringBuilder();
+    StringBuilder manifest = new StringBuilder(MANIFEST_HEADER);
+    Set<String> names = new HashSet<String>();
+    ByteArrayOutputStream projectZip = new ByteArrayOutputStream();
     for (Long projectId : projectIds) {
+      String name = storageIo.getProjectName(userId, projectId) + ".aia";
+      // If necessary, rename duplicate projects
+      while (names.contains(name)) {
+        name = "duplicate-" + name;
+      }
+      projectZip.reset();
+      ProjectSourceZip projectSourceZip;
       try {
         // Note: We never include Yail files when exporting all source projects
         // even for Admins. If you are an admin and want to debug a project, download
         // it explicitly.
-        ProjectSourceZip projectSourceZip =
-          exportProjectSourceZip(userId, projectId, false, false, null, false, false, false, false);
-        byte[] data = projectSourceZip.getContent();
-        String name = projectSourceZip.getFileName();
-
-        // If necessary, rename duplicate projects
-        while (true) {
-          try {
-            out.putNextEntry(new ZipEntry(name));
-            break;
-          } catch (IOException e) {
-            name = "duplicate-" + name;
-          }
-        }
-        metadata += projectSourceZip.getMetadata() + "\n";
-
-        out.write(data, 0, data.length);
-        out.closeEntry();
-        count++;
+        projectSourceZip = exportProjectSourceZip(userId, projectId,
+            false, false, name, false, false, false, false, projectZip);
       } catch (IllegalArgumentException e) {
         System.err.println("No files found for userid: " + userId +
             " for projectid: " + projectId);
+        appendManifestLine(manifest, "empty", projectId, name);
         continue;
       } catch (IOException e) {
         System.err.println("IOException while reading files found for userid: " +
             userId + " for projectid: " + projectId);
+        appendManifestLine(manifest, "failed", projectId, name);
         continue;
       }
+      out.putNextEntry(new ZipEntry(name));
+      projectZip.writeTo(out);
+      out.closeEntry();
+      names.add(name);
+      metadata.append(projectSourceZip.getMetadata()).append("\n");
+      appendManifestLine(manifest, "exported", projectId, name);
+      count++;
     }
     if (count == 0) {
+      // Nothing has been written, so the caller can still report the error.
       throw new IllegalArgumentException("No files to download");
     }
 
@@ -200,12 +198,29 @@ public final class FileExporterImpl implements FileExporter {
       }
     }
 
+    byte[] manifestBytes = manifest.toString().getBytes(StorageUtil.DEFAULT_CHARSET);
+    out.putNextEntry(new ZipEntry(MANIFEST_FILE_NAME));
+    out.write(manifestBytes, 0, manifestBytes.length);
+    out.closeEntry();
+
+    // Closes the zip, but not the destination, which belongs to the caller.
     out.close();
 
-    // Package the big zip file up as a ProjectSourceZip and return it.
-    byte[] content = zipFile.toByteArray();
-    ProjectSourceZip projectSourceZip = new ProjectSourceZip(zipName, content, count);
-    projectSourceZip.setMetadata(metadata);
+    ProjectSourceZip projectSourceZip = new ProjectSourceZip(zipName, null, count);
+    projectSourceZip.setMetadata(metadata.toString());
+    return projectSourceZip;
+  }
+
+  private static void appendManifestLine(StringBuilder manifest, String status, long projectId,
+      String name) {
+    manifest.append(status).append('\t').append(projectId).append('\t').append(name)
+        .append('\n');
+  }
+
+  private static ProjectSourceZip withContent(ProjectSourceZip exported, byte[] content) {
+    ProjectSourceZip projectSourceZip =
+        new ProjectSourceZip(exported.getFileName(), content, exported.getFileCount());
+    projectSourceZip.setMetadata(exported.getMetadata());
     return projectSourceZip;
   }
 
@@ -26,8 +26,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.io.ByteStreams;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -163,37 +163,89 @@ public final class FileImporterImpl implements FileImporter {
     int maxAssetSizeBytes = (int) (maxAssetSizeMegs.get() * 1024 * 1024);
     int maxSizeBytes = Math.min(maxAssetSizeBytes, storageIo.getMaxJobSizeBytes());
 
-    BufferedInputStream bis = new BufferedInputStream(uploadedFileStream);
-    ByteArrayOutputStream os = new ByteArrayOutputStream();
-    BufferedOutputStream bos = new BufferedOutputStream(os);
-
-    // Alledgedly since it is buffered, reading in units of one byte
-    // should be as fast as many bytes, but we can always adjust this.
-    int bytes = 0;
-    long fileLength = 0;
-    byte[] buffer = new byte[1];
-    while ((bytes = bis.read(buffer, 0, buffer.length)) != -1) {
-      bos.write(buffer, 0, bytes);
-      fileLength += bytes;
-      if (fileLength > maxSizeBytes) {
-        // Read the rest of the stream, but throw it away
-        // and throw an error, so we do not consume memory storing
-        // a large object
-        while((bytes = bis.read(buffer, 0, buffer.length)) != -1) {
-        }
-        throw new FileImporterException(UploadResponse.Status.FILE_TOO_LARGE);
+    // If the file already exists, we will overwrite the content.
+    List<String> sourceFiles = storageIo.getProjectSourceFiles(userId, projectId);
+    boolean newFile = !sourceFiles.contains(fileName);
+    if (newFile) {
+      storageIo.addSourceFilesToProject(userId, projectId, false, fileName);
+    }
+    // The content is streamed to storage, so the size limit is enforced as it is read.
+    SizeLimitedInputStream content = new SizeLimitedInputStream(
+        new BufferedInputStream(uploadedFileStream), maxSizeBytes);
+    boolean uploaded = false;
+    try {
+      long modifiedDate = storageIo.uploadRawFileForce(projectId, fileName, userId, content);
+      uploaded = true;
+      return modifiedDate;
+    } catch (IOException e) {
+      if (!content.isLimitExceeded()) {
+        throw e;
+      }
+      // Read the rest of the stream, but throw it away and throw an error. The previous
+      // content of the file, if any, has not been replaced.
+      ByteStreams.copy(uploadedFileStream, ByteStreams.nullOutputStream());
+      throw new FileImporterException(UploadResponse.Status.FILE_TOO_LARGE);
+    } finally {
+      if (newFile && !uploaded) {
+        // Whatever the failure, don't leave an entry for a file without content.
+        storageIo.removeSourceFilesFromProject(userId, projectId, false, fileName);
       }
     }
-    bos.flush();
+  }
 
-    byte[] content = os.toByteArray();
+  /**
+   * Input stream that fails with an {@link IOException} once more than a given number of
+   * bytes have been read from it.
+   */
+  private static class SizeLimitedInputStream extends FilterInputStream {
+    private final long limit;
+    private long count = 0;
 
-    // If the file already exists, we will overwrite the content.
-    List<String> sourceFiles = storageIo.getProjectSourceFiles(userId, projectId);
-    if (!sourceFiles.contains(fileName)) {
-      storageIo.addSourceFilesToProject(userId, projectId, false, fileName);
+    SizeLimitedInputStream(InputStream in, long limit) {
+      super(in);
+      this.limit = limit;
+    }
+
+    boolean isLimitExceeded() {
+      return count > limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count(skipped);
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void count(long n) throws IOException {
+      count += n;
+      if (count > limit) {
+        throw new IOException("File is larger than " + limit + " bytes");
+      }
     }
-    return storageIo.uploadRawFileForce(projectId, fileName, userId, content);
   }
 
   @Override
@@ -211,7 +263,7 @@ public final class FileImporterImpl implements FileImporter {
 
   @Override
   public String importTempFile(InputStream inStream) throws IOException {
-    return storageIo.uploadTempFile(ByteStreams.toByteArray(inStream));
+    return storageIo.uploadTempFile(inStream);
   }
 
   @Override
@@ -45,6 +45,8 @@ import java.io.FileReader;
 import java.io.IOException;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -694,13 +696,29 @@ public class ProjectServiceImpl extends OdeRemoteServiceServlet implements Proje
       BlocksTruncatedException {
     validateSessionId(sessionId);
     final String userId = userInfoProvider.getUserId();
-    long date = 0;
+    // Group the files by project, so that each project is written in one batch. A file that
+    // appears more than once keeps its last content, as if the files were saved in order.
+    Map<Long, Map<String, String>> contentsByProject =
+        new LinkedHashMap<Long, Map<String, String>>();
     for (FileDescriptorWithContent fileAndContent : filesAndContent) {
-     long projectId = fileAndContent.getProjectId();
-     date = getProjectRpcImpl(userId, projectId).
-         save(userId, projectId, fileAndContent.getFileId(), fileAndContent.getContent());
+      Map<String, String> contents = contentsByProject.get(fileAndContent.getProjectId());
+      if (contents == null) {
+        contents = new LinkedHashMap<String, String>();
+        contentsByProject.put(fileAndContent.getProjectId(), contents);
+      }
+      contents.put(fileAndContent.getFileId(), fileAndContent.getContent());
+    }
+    Map<Long, Long> dates = new HashMap<Long, Long>();
+    for (Map.Entry<Long, Map<String, String>> entry : contentsByProject.entrySet()) {
+      long projectId = entry.getKey();
+      dates.put(projectId,
+          getProjectRpcImpl(userId, projectId).save(userId, projectId, entry.getValue()));
+    }
+    if (filesAndContent.isEmpty()) {
+      return 0;
     }
-    return date;
+    // The date of the project the last file belongs to, as when the files were saved one by one.
+    return dates.get(filesAndContent.get(filesAndContent.size() - 1).getProjectId());
   }
 
   @Override
@@ -13,6 +13,7 @@ import com.google.appinventor.server.storage.StorageIoInstanceHolder;
 import com.google.appinventor.shared.storage.StorageUtil;
 import com.google.common.io.ByteStreams;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
@@ -62,19 +63,20 @@ public class ReceiveBuildServlet extends OdeServlet {
     odeFilter.setUserFromUserId(userId, false, false);
     try {
       String buildFileDirPath = uriComponents[4];
-      ZipInputStream zipInputStream = new ZipInputStream(req.getInputStream());
+      ZipInputStream zipInputStream =
+          new ZipInputStream(new BufferedInputStream(req.getInputStream()));
       while (true) {
         ZipEntry zipEntry = zipInputStream.getNextEntry();
         if (zipEntry == null) {
           break;
         }
         String fileName = zipEntry.getName();
-        byte[] fileBytes = ByteStreams.toByteArray(zipInputStream);
         if (StorageUtil.ANDROID_KEYSTORE_FILENAME.equals(fileName)) {
           LOG.info("Saving android.keystore for user: " + userId);
           storageIo.addFilesToUser(userId, StorageUtil.ANDROID_KEYSTORE_FILENAME);
-          storageIo.uploadRawUserFile(userId, fileName, fileBytes);
+          storageIo.uploadRawUserFile(userId, fileName, ByteStreams.toByteArray(zipInputStream));
         } else if (fileName.equals("build.status")) {
+          byte[] fileBytes = ByteStreams.toByteArray(zipInputStream);
           int progress = Integer.parseInt((new String(fileBytes)).trim());
           LOG.info("Received a build.status file contents = " + progress);
           storageIo.storeBuildStatus(userId, projectId, progress);
@@ -82,7 +84,9 @@ public class ReceiveBuildServlet extends OdeServlet {
           String filePath = buildFileDirPath + "/" + fileName;
           LOG.info("Saving build output files: " + filePath);
           storageIo.addOutputFilesToProject(userId, projectId, filePath);
-          storageIo.uploadRawFileForce(projectId, filePath, userId, fileBytes);
+          // Build outputs can be tens of megabytes, so they are streamed to storage
+          // straight from the request rather than read into memory first.
+          storageIo.uploadRawFileForce(projectId, filePath, userId, zipInputStream);
           storageIo.storeBuildStatus(userId, projectId, 0); // Reset for the next build
         }
       }
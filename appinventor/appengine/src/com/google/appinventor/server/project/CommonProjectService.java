@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The base class for classes that provide project services for a specific
@@ -288,6 +289,19 @@ public abstract class CommonProjectService {
     }
   }
 
+  /**
+   * Saves the content of several files of a project at once, forcing the save
+   * of trivial (empty) blocks workspaces.
+   *
+   * @param userId the user id
+   * @param projectId  project root node ID
+   * @param contents  project node IDs mapped to the content to be saved
+   * @return modification date for project
+   */
+  public long save(String userId, long projectId, Map<String, String> contents) {
+    return storageIo.uploadFilesForce(projectId, userId, contents, StorageUtil.DEFAULT_CHARSET);
+  }
+
   /**
    * Saves the content of the file associated with a node in the project tree.
    * if force is false, an error is thrown if an attempt is made to save a
@@ -65,9 +65,11 @@ import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.ConnectException;
@@ -507,7 +509,8 @@ public final class YoungAndroidProjectService extends CommonProjectService {
       storageIo.deleteFile(userId, projectId, buildOutputFile);
     }
     URL buildServerUrl = null;
-    ProjectSourceZip zipFile = null;
+    HttpURLConnection connection = null;
+    SizeLimitedOutputStream zipOutputStream = null;
     try {
       buildServerUrl = new URL(getBuildServerUrlStr(
           user.getUserEmail(),
@@ -516,27 +519,27 @@ public final class YoungAndroidProjectService extends CommonProjectService {
           secondBuildserver,
           outputFileDir,
           isAab));
-      HttpURLConnection connection = (HttpURLConnection) buildServerUrl.openConnection();
+      connection = (HttpURLConnection) buildServerUrl.openConnection();
       connection.setDoOutput(true);
       connection.setRequestMethod("POST");
+      // Send the project as it is zipped instead of buffering the request body.
+      connection.setChunkedStreamingMode(0);
 
       BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(connection.getOutputStream());
-      FileExporter fileExporter = new FileExporterImpl();
-      zipFile = fileExporter.exportProjectSourceZip(userId, projectId, false,
-          /* includeAndroidKeystore */ true,
-        projectName + ".aia", true, false, true, false);
-      // The code below tests the size of the compressed project before
-      // we send it off to the buildserver. When using URLFetch we know that
+      // The stream below limits the size of the compressed project we send
+      // off to the buildserver. When using URLFetch we know that
       // this size is limited to 10MB based on Google's documentation.
       // It isn't clear if this is also enforced in the Java 8 environment
       // when not using URLFetch. However we are being conservative for now.
       // Keep in mind that large projects can lead to large APK files which
       // may not be loadable into many memory restricted devices, so we
       // may not want to encourage large projects...
-      if (zipFile.getContent().length > MAX_PROJECT_SIZE.get() * MB) {
-        return fileTooBigResult(zipFile.getContent().length);
-      }
-      bufferedOutputStream.write(zipFile.getContent());
+      zipOutputStream = new SizeLimitedOutputStream(bufferedOutputStream,
+          (long) MAX_PROJECT_SIZE.get() * MB);
+      FileExporter fileExporter = new FileExporterImpl();
+      fileExporter.exportProjectSourceZip(userId, projectId, false,
+          /* includeAndroidKeystore */ true,
+        projectName + ".aia", true, false, true, false, zipOutputStream);
       bufferedOutputStream.flush();
       bufferedOutputStream.close();
 
@@ -590,9 +593,14 @@ public final class YoungAndroidProjectService extends CommonProjectService {
           buildErrorMsg("MalformedURLException", buildServerUrl, userId, projectId), e);
       return new RpcResult(false, "", e.getMessage());
     } catch (IOException e) {
-      // As of App Engine 1.9.0 we get these when UrlFetch is asked to send too much data
-      int zipFileLength = zipFile == null ? -1 : zipFile.getContent().length;
-      if (zipFileLength >= MAX_PROJECT_SIZE.get() * MB) {
+      // As of App Engine 1.9.0 we get these when UrlFetch is asked to send too much data.
+      // SizeLimitedOutputStream also fails the export as soon as the project is too large.
+      long zipFileLength = zipOutputStream == null ? -1 : zipOutputStream.getCount();
+      if (zipOutputStream != null && zipOutputStream.isOverLimit()) {
+        // Abandon the partially sent request.
+        connection.disconnect();
+        return fileTooBigResult(zipFileLength);
+      } else if (zipFileLength >= MAX_PROJECT_SIZE.get() * MB) {
         return fileTooBigResult(zipFileLength);
       } else {
         return new RpcResult(false, "", e.getMessage());
@@ -605,8 +613,8 @@ public final class YoungAndroidProjectService extends CommonProjectService {
       // In particular, we often see RequestTooLargeException (if the zip is too
       // big) and ApiProxyException. There may be others.
       Throwable wrappedException = e;
-      if (e instanceof ApiProxy.RequestTooLargeException && zipFile != null) {
-        int zipFileLength = zipFile.getContent().length;
+      if (e instanceof ApiProxy.RequestTooLargeException && zipOutputStream != null) {
+        long zipFileLength = zipOutputStream.getCount();
         if (zipFileLength >= MAX_PROJECT_SIZE.get() * MB) {
           return fileTooBigResult(zipFileLength);
         } else {
@@ -623,6 +631,49 @@ public final class YoungAndroidProjectService extends CommonProjectService {
     return new RpcResult(true, "Building " + projectName, "");
   }
 
+  /**
+   * Counts the bytes written through it and fails as soon as more than a
+   * limit have been written, so that the export of a project that is too
+   * large stops early and its size can still be reported.
+   */
+  private static class SizeLimitedOutputStream extends FilterOutputStream {
+    private final long limit;
+    private long count = 0;
+
+    SizeLimitedOutputStream(OutputStream out, long limit) {
+      super(out);
+      this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      count++;
+      checkLimit();
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      count += len;
+      checkLimit();
+      out.write(b, off, len);
+    }
+
+    private void checkLimit() throws IOException {
+      if (count > limit) {
+        throw new IOException("Project is larger than " + limit + " bytes");
+      }
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    boolean isOverLimit() {
+      return count > limit;
+    }
+  }
+
   public RpcResult loginToGallery(String userId) {
     String token = GalleryToken.makeToken(userId, 0, "");
     if (galleryId.isEmpty()) {
@@ -6,6 +6,7 @@
 
 package com.google.appinventor.server.storage;
 
+import com.google.appengine.api.ThreadManager;
 import com.google.appengine.api.appidentity.AppIdentityService;
 import com.google.appengine.api.appidentity.AppIdentityServiceFactory;
 import com.google.appengine.api.appidentity.AppIdentityServiceFailureException;
@@ -44,6 +45,7 @@ import com.google.appinventor.shared.properties.json.JSONArray;
 import com.google.appinventor.shared.properties.json.JSONParser;
 import com.google.appinventor.shared.properties.json.JSONValue;
 import com.google.appinventor.server.properties.json.ServerJsonParser;
+import com.google.appinventor.server.util.NonClosingOutputStream;
 import com.google.appinventor.shared.rpc.AdminInterfaceException;
 import com.google.appinventor.shared.rpc.BlocksTruncatedException;
 import com.google.appinventor.shared.rpc.Motd;
@@ -74,19 +76,24 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 
 // GCS imports
+import com.google.appengine.tools.cloudstorage.GcsFileMetadata;
 import com.google.appengine.tools.cloudstorage.GcsFileOptions;
 import com.google.appengine.tools.cloudstorage.GcsFilename;
 import com.google.appengine.tools.cloudstorage.GcsInputChannel;
 import com.google.appengine.tools.cloudstorage.GcsOutputChannel;
 import com.google.appengine.tools.cloudstorage.GcsService;
 import com.google.appengine.tools.cloudstorage.GcsServiceFactory;
+import com.google.appengine.tools.cloudstorage.ListOptions;
+import com.google.appengine.tools.cloudstorage.ListResult;
 import com.google.appengine.tools.cloudstorage.RetryParams;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -94,6 +101,7 @@ import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.NoSuchElementException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -101,6 +109,12 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.annotation.Nullable;
 
@@ -136,6 +150,18 @@ public class ObjectifyStorageIo implements  StorageIo {
 
   private static final long TWENTYFOURHOURS = 24*3600*1000; // 24 hours in milliseconds
 
+  // Number of GCS files fetched ahead of the zip writer when exporting a project,
+  // and the size of the block fetched for each of them.
+  private static final int EXPORT_READ_AHEAD_FILES = 4;
+  private static final int EXPORT_READ_AHEAD_BLOCK_SIZE = 256 * 1024;
+
+  // Size of the chunks streamed uploads are copied to GCS in, a multiple of the
+  // 256 KB GCS upload granularity.
+  private static final int GCS_WRITE_CHUNK_SIZE = 256 * 1024;
+
+  // Maximum number of GCS files written concurrently when several files are saved at once.
+  private static final int MAX_PARALLEL_GCS_WRITES = 4;
+
   private static final boolean DEBUG = Flag.createFlag("appinventor.debugging", false).get();
 
   // Use this class to define the work of a job that can be
@@ -1351,6 +1377,170 @@ public class ObjectifyStorageIo implements  StorageIo {
     }
   }
 
+  @Override
+  public long uploadFilesForce(final long projectId, final String userId,
+      final Map<String, String> contents, final String encoding) {
+    validateGCS();
+    final Map<String, byte[]> rawContents = new LinkedHashMap<String, byte[]>();
+    for (Map.Entry<String, String> entry : contents.entrySet()) {
+      try {
+        rawContents.put(entry.getKey(), entry.getValue().getBytes(encoding));
+      } catch (UnsupportedEncodingException e) {
+        throw CrashReport.createAndLogError(LOG, null, "Unsupported file content encoding,"
+            + collectProjectErrorInfo(null, projectId, entry.getKey()), e);
+      }
+    }
+    final Result<Long> modTime = new Result<Long>();
+    final Map<String, FileData> saved = new HashMap<String, FileData>();
+    final List<GcsFilename> gcsDeletes = new ArrayList<GcsFilename>();
+    JobRetryHelper job = new JobRetryHelper() {
+      // GCS is not part of the transaction, so a retry only repeats the datastore update.
+      boolean written = false;
+
+      @Override
+      public void run(Objectify datastore) throws ObjectifyException, IOException {
+        saved.clear();
+        gcsDeletes.clear();
+        Key<ProjectData> projectKey = projectKey(projectId);
+        List<Key<FileData>> keys = new ArrayList<Key<FileData>>();
+        for (String fileName : rawContents.keySet()) {
+          keys.add(projectFileKey(projectKey, fileName));
+        }
+        // One batch get for all files. Memcache is not consulted inside the transaction.
+        Map<Key<FileData>, FileData> existing = datastore.get(keys);
+        Map<GcsFilename, byte[]> gcsFiles = new LinkedHashMap<GcsFilename, byte[]>();
+        for (Map.Entry<String, byte[]> entry : rawContents.entrySet()) {
+          String fileName = entry.getKey();
+          byte[] content = entry.getValue();
+          Key<FileData> key = projectFileKey(projectKey, fileName);
+          FileData fd = existing.get(key);
+          // <Screen>.yail files are missing when user converts AI1 project to AI2
+          if (fd == null && (fileName.endsWith(".yail") || fileName.endsWith(".png"))) {
+            fd = createProjectFile(datastore, projectKey, FileData.RoleEnum.SOURCE, fileName);
+            fd.userId = userId;
+          }
+
+          Preconditions.checkState(fd != null);
+
+          if (fd.userId != null && !fd.userId.equals("") && !fd.userId.equals(userId)) {
+            throw CrashReport.createAndLogError(LOG, null,
+                collectUserProjectErrorInfo(userId, projectId),
+                new UnauthorizedAccessException(userId, projectId, null));
+          }
+
+          if (useGCSforFile(fileName, content.length)) {
+            fd.isGCS = true;
+            fd.gcsName = makeGCSfileName(fileName, projectId);
+            gcsFiles.put(new GcsFilename(getGcsBucketToUse(fd.role), fd.gcsName), content);
+            fd.content = null;
+          } else {
+            if (isTrue(fd.isGCS)) {     // Was a GCS file, must have gotten smaller
+              // Deleted after the commit, as the file is still in use until then.
+              gcsDeletes.add(new GcsFilename(getGcsBucketToUse(fd.role), fd.gcsName));
+              fd.isGCS = false;
+              fd.gcsName = null;
+            }
+            fd.content = content;
+          }
+          fd.isBlob = false;
+          fd.blobstorePath = null;
+          boolean considerBackup = fileName.contains("src/")
+              && (fileName.endsWith(".bky") || fileName.endsWith(".scm"));
+          if (considerBackup
+              && (fd.lastBackup + TWENTYFOURHOURS) < System.currentTimeMillis()) {
+            String gcsName = makeGCSfileName(fileName + "." + formattedTime() + ".backup",
+                projectId);
+            gcsFiles.put(new GcsFilename(getGcsBucketToUse(FileData.RoleEnum.SOURCE), gcsName),
+                content);
+            fd.lastBackup = System.currentTimeMillis();
+          }
+          // Old file not marked with ownership, mark it now
+          if (fd.userId == null || fd.userId.equals("")) {
+            fd.userId = userId;
+          }
+          saved.put(key.getString(), fd);
+        }
+        if (!written) {
+          writeGcsFiles(gcsFiles);
+          written = true;
+        }
+        datastore.put(saved.values()); // batch put
+        modTime.t = updateProjectModDate(datastore, projectId);
+      }
+    };
+    try {
+      runJobWithRetries(job, true);
+    } catch (ObjectifyException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, rawContents.keySet().toString()), e);
+    }
+    if (job.getIOException() != null) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, rawContents.keySet().toString()),
+          job.getIOException());
+    }
+    memcache.putAll(saved); // Store the updated data in memcache
+    for (GcsFilename gcsFile : gcsDeletes) {
+      try {
+        gcsService.delete(gcsFile);
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, "Unable to delete " + gcsFile.getObjectName() + " from GCS", e);
+      }
+    }
+    return modTime.t;
+  }
+
+  /*
+   * Writes several GCS files concurrently, so that saving them takes about as long as
+   * saving the largest one rather than the sum of their latencies.
+   */
+  private void writeGcsFiles(Map<GcsFilename, byte[]> files) throws IOException {
+    ThreadFactory threadFactory = files.size() > 1
+        ? ThreadManager.currentRequestThreadFactory() : null;
+    if (threadFactory == null) {
+      for (Map.Entry<GcsFilename, byte[]> file : files.entrySet()) {
+        writeGcsFile(file.getKey(), file.getValue());
+      }
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(files.size(), MAX_PARALLEL_GCS_WRITES), threadFactory);
+    try {
+      List<Future<Void>> writes = new ArrayList<Future<Void>>();
+      for (final Map.Entry<GcsFilename, byte[]> file : files.entrySet()) {
+        writes.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            writeGcsFile(file.getKey(), file.getValue());
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> write : writes) {
+        try {
+          write.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException(e);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void writeGcsFile(GcsFilename gcsFileName, byte[] content) throws IOException {
+    GcsOutputChannel outputChannel =
+        gcsService.createOrReplace(gcsFileName, GcsFileOptions.getDefaultInstance());
+    outputChannel.write(ByteBuffer.wrap(content));
+    outputChannel.close();
+  }
+
   private long updateProjectModDate(Objectify datastore, long projectId) {
     long modDate = System.currentTimeMillis();
     ProjectData pd = datastore.find(projectKey(projectId));
@@ -1382,6 +1572,89 @@ public class ObjectifyStorageIo implements  StorageIo {
     }
   }
 
+  @Override
+  public long uploadRawFileForce(final long projectId, final String fileName, final String userId,
+      final InputStream content) throws IOException {
+    if (!useGCSforFile(fileName, 0)) {
+      // Files that may end up in the datastore are small and have to be held in memory anyway.
+      return uploadRawFileForce(projectId, fileName, userId, ByteStreams.toByteArray(content));
+    }
+    validateGCS();
+    final Result<Long> modTime = new Result<Long>();
+    JobRetryHelper job = new JobRetryHelper() {
+      // The stream can only be read once, so a retry only repeats the datastore update.
+      boolean written = false;
+
+      @Override
+      public void run(Objectify datastore) throws ObjectifyException, IOException {
+        Key<FileData> key = projectFileKey(projectKey(projectId), fileName);
+        FileData fd = (FileData) memcache.get(key.getString());
+        if (fd == null) {
+          fd = datastore.find(key);
+        }
+        if (fd == null && fileName.endsWith(".png")) {
+          fd = createProjectFile(datastore, projectKey(projectId), FileData.RoleEnum.SOURCE,
+              fileName);
+          fd.userId = userId;
+        }
+
+        Preconditions.checkState(fd != null);
+
+        if (fd.userId != null && !fd.userId.equals("") && !fd.userId.equals(userId)) {
+          throw CrashReport.createAndLogError(LOG, null,
+              collectUserProjectErrorInfo(userId, projectId),
+              new UnauthorizedAccessException(userId, projectId, null));
+        }
+
+        fd.isGCS = true;
+        fd.gcsName = makeGCSfileName(fileName, projectId);
+        if (!written) {
+          writeGcsFile(new GcsFilename(getGcsBucketToUse(fd.role), fd.gcsName), content);
+          written = true;
+        }
+        // If the content was previously stored in the datastore, clear it out.
+        fd.content = null;
+        fd.isBlob = false;
+        fd.blobstorePath = null;
+        if (fd.userId == null || fd.userId.equals("")) {
+          fd.userId = userId;
+        }
+        datastore.put(fd);
+        memcache.put(key.getString(), fd);
+        modTime.t = updateProjectModDate(datastore, projectId);
+      }
+    };
+    try {
+      runJobWithRetries(job, false);
+    } catch (ObjectifyException e) {
+      throw CrashReport.createAndLogError(LOG, null,
+          collectProjectErrorInfo(userId, projectId, fileName), e);
+    }
+    if (job.getIOException() != null) {
+      throw job.getIOException();
+    }
+    return modTime.t;
+  }
+
+  /*
+   * Copies a stream to a Cloud Storage file in chunks of GCS_WRITE_CHUNK_SIZE bytes. The
+   * channel is only closed, which is what replaces the previous content of the file, once the
+   * whole stream has been copied. The stream itself is not closed.
+   */
+  private void writeGcsFile(GcsFilename gcsFileName, InputStream content) throws IOException {
+    GcsOutputChannel outputChannel =
+        gcsService.createOrReplace(gcsFileName, GcsFileOptions.getDefaultInstance());
+    byte[] chunk = new byte[GCS_WRITE_CHUNK_SIZE];
+    int count;
+    while ((count = content.read(chunk)) != -1) {
+      ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, count);
+      while (buffer.hasRemaining()) {
+        outputChannel.write(buffer);
+      }
+    }
+    outputChannel.close();
+  }
+
   @Override
   public long uploadRawFile(final long projectId, final String fileName, final String userId,
       final boolean force, final byte[] content) throws BlocksTruncatedException {
@@ -1748,6 +2021,18 @@ public class ObjectifyStorageIo implements  StorageIo {
     }
   }
 
+  // Note: this must be called outside of any transaction, for the same reason
+  // as getBlobstoreBytes.
+  private void copyBlobstoreBytes(String blobKeyString, OutputStream out)
+      throws BlobReadException {
+    BlobKey blobKey = new BlobKey(blobKeyString);
+    try (InputStream blobInputStream = new BlobstoreInputStream(blobKey)) {
+      ByteStreams.copy(blobInputStream, out);
+    } catch (IOException e) {
+      throw new BlobReadException(e, "Error trying to read blob from " + blobKey);
+    }
+  }
+
   /**
    *  Exports project files as a zip archive
    * @param userId a user Id (the request is made on behalf of this user)
@@ -1770,6 +2055,26 @@ public class ObjectifyStorageIo implements  StorageIo {
     final boolean includeScreenShots,
     final boolean forGallery,
     final boolean fatalError) throws IOException {
+    ByteArrayOutputStream zipFile = new ByteArrayOutputStream();
+    ProjectSourceZip exported = exportProjectSourceZip(userId, projectId, includeProjectHistory,
+        includeAndroidKeystore, zipName, includeYail, includeScreenShots, forGallery, fatalError,
+        zipFile);
+    ProjectSourceZip projectSourceZip = new ProjectSourceZip(exported.getFileName(),
+        zipFile.toByteArray(), exported.getFileCount());
+    projectSourceZip.setMetadata(exported.getMetadata());
+    return projectSourceZip;
+  }
+
+  @Override
+  public ProjectSourceZip exportProjectSourceZip(final String userId, final long projectId,
+    final boolean includeProjectHistory,
+    final boolean includeAndroidKeystore,
+    @Nullable String zipName,
+    final boolean includeYail,
+    final boolean includeScreenShots,
+    final boolean forGallery,
+    final boolean fatalError,
+    OutputStream destination) throws IOException {
     final boolean forBuildserver = includeAndroidKeystore && includeYail;
     validateGCS();
     final Result<Integer> fileCount = new Result<Integer>();
@@ -1786,8 +2091,7 @@ public class ObjectifyStorageIo implements  StorageIo {
     projectName.t = null;
     String fileName = null;
 
-    ByteArrayOutputStream zipFile = new ByteArrayOutputStream();
-    final ZipOutputStream out = new ZipOutputStream(zipFile);
+    final ZipOutputStream out = new ZipOutputStream(new NonClosingOutputStream(destination));
     out.setComment("Built with MIT App Inventor");
 
     try {
@@ -1853,87 +2157,39 @@ public class ObjectifyStorageIo implements  StorageIo {
         throw error;
       }
       // Process the file contents outside of the job since we can't read
-      // blobs in the job.
-      for (FileData fd : fileData) {
-        fileName = fd.fileName;
-        byte[] data = null;
-        if (fd.isBlob) {
-          try {
-            if (fd.blobKey == null) {
-              throw new BlobReadException("blobKey is null");
-            }
-            data = getBlobstoreBytes(fd.blobKey);
-          } catch (BlobReadException e) {
-            throw CrashReport.createAndLogError(LOG, null,
-                collectProjectErrorInfo(userId, projectId, fileName), e);
-          }
-        } else if (isTrue(fd.isGCS)) {
-          try {
-            int count;
-            boolean npfHappened = false;
-            boolean recovered = false;
-            for (count = 0; count < 5; count++) {
-              GcsFilename gcsFileName = new GcsFilename(getGcsBucketToUse(fd.role), fd.gcsName);
-              int bytesRead = 0;
-              int fileSize = 0;
-              ByteBuffer resultBuffer;
-              try {
-                fileSize = (int) gcsService.getMetadata(gcsFileName).getLength();
-                resultBuffer = ByteBuffer.allocate(fileSize);
-                GcsInputChannel readChannel = gcsService.openReadChannel(gcsFileName, 0);
-                try {
-                  while (bytesRead < fileSize) {
-                    bytesRead += readChannel.read(resultBuffer);
-                    if (bytesRead < fileSize) {
-                      if (DEBUG) {
-                        LOG.log(Level.INFO, "readChannel: bytesRead = " + bytesRead + " fileSize = " + fileSize);
-                      }
-                    }
-                  }
-                  recovered = true;
-                  data = resultBuffer.array();
-                  break;        // We got the data, break out of the loop!
-                } finally {
-                  readChannel.close();
-                }
-              } catch (NullPointerException e) {
-                // This happens if the object in GCS is non-existent, which would happen
-                // when people uploaded a zero length object. As of this change, we now
-                // store zero length objects into GCS, but there are plenty of older objects
-                // that are missing in GCS.
-                LOG.log(Level.WARNING, "exportProjectFile: NPF recorded for " + fd.gcsName);
-                npfHappened = true;
-                resultBuffer = ByteBuffer.allocate(0);
-                data = resultBuffer.array();
+      // blobs in the job. File contents are copied straight into the zip,
+      // while the next few GCS files are already being fetched.
+      ExportReadAhead readAhead = new ExportReadAhead(fileData, fatalError);
+      try {
+        for (int i = 0; i < fileData.size(); i++) {
+          FileData fd = fileData.get(i);
+          fileName = fd.fileName;
+          out.putNextEntry(new ZipEntry(fileName));
+          if (fd.isBlob) {
+            try {
+              if (fd.blobKey == null) {
+                throw new BlobReadException("blobKey is null");
               }
+              copyBlobstoreBytes(fd.blobKey, out);
+            } catch (BlobReadException e) {
+              throw CrashReport.createAndLogError(LOG, null,
+                  collectProjectErrorInfo(userId, projectId, fileName), e);
             }
-
-            // report out on how things went above
-            if (npfHappened) {    // We lost at least once
-              if (recovered) {
-                LOG.log(Level.WARNING, "recovered from NPF in exportProjectFile filename = " + fd.gcsName +
-                  " count = " + count);
-              } else {
-                LOG.log(Level.WARNING, "FATAL NPF in exportProjectFile filename = " + fd.gcsName);
-                if (fatalError) {
-                  throw new IOException("FATAL Error reading file from GCS filename = " + fd.gcsName);
-                }
-              }
+          } else if (isTrue(fd.isGCS)) {
+            try {
+              readAhead.copy(i, out);
+            } catch (ExportReadException e) {
+              throw CrashReport.createAndLogError(LOG, null,
+                collectProjectErrorInfo(userId, projectId, e.fileName), e);
             }
-          } catch (IOException e) {
-            throw CrashReport.createAndLogError(LOG, null,
-              collectProjectErrorInfo(userId, projectId, fileName), e);
+          } else if (fd.content != null) {   // null if file creation is interrupted
+            out.write(fd.content, 0, fd.content.length);
           }
-        } else {
-          data = fd.content;
-        }
-        if (data == null) {     // This happens if file creation is interrupted
-          data = new byte[0];
+          out.closeEntry();
+          fileCount.t++;
         }
-        out.putNextEntry(new ZipEntry(fileName));
-        out.write(data, 0, data.length);
-        out.closeEntry();
-        fileCount.t++;
+      } finally {
+        readAhead.close();
       }
       if (projectHistory.t != null) {
         byte[] data = projectHistory.t.getBytes(StorageUtil.DEFAULT_CHARSET);
@@ -1987,17 +2243,158 @@ public class ObjectifyStorageIo implements  StorageIo {
       }
     }
 
+    // Closes the zip, but not the destination, which belongs to the caller.
     out.close();
 
     if (zipName == null) {
       zipName = projectName.t + ".aia";
     }
-    ProjectSourceZip projectSourceZip =
-        new ProjectSourceZip(zipName, zipFile.toByteArray(), fileCount.t);
+    ProjectSourceZip projectSourceZip = new ProjectSourceZip(zipName, null, fileCount.t);
     projectSourceZip.setMetadata(projectName.t);
     return projectSourceZip;
   }
 
+  /**
+   * Fetches the GCS files of a project export ahead of the zip writer. The
+   * next {@link #EXPORT_READ_AHEAD_FILES} files are opened with prefetching
+   * read channels, so that their first blocks are fetched concurrently while
+   * earlier files are compressed, and at most that many blocks are held in
+   * memory whatever the size of the project.
+   */
+  private class ExportReadAhead {
+    private final List<FileData> files;
+    private final boolean fatalError;
+    private final Map<Integer, PendingRead> pending = new HashMap<Integer, PendingRead>();
+    private int next = 0;   // index of the next file to open
+
+    ExportReadAhead(List<FileData> files, boolean fatalError) {
+      this.files = files;
+      this.fatalError = fatalError;
+    }
+
+    /**
+     * Copies the contents of the GCS file at {@code index} to {@code out},
+     * and starts fetching the following files.
+     *
+     * @throws ExportReadException if the file cannot be read
+     */
+    void copy(int index, OutputStream out) throws ExportReadException {
+      // Files are copied in order, so this opens the file if it was not opened ahead.
+      open();
+      PendingRead read = pending.remove(index);
+      open();
+      if (read == null) {
+        return;
+      }
+      if (read.error != null) {
+        // Opening the file failed while an earlier file was being copied.
+        throw new ExportReadException(read.fileName, read.error);
+      }
+      if (read.channel == null) {    // missing or empty
+        return;
+      }
+      try {
+        ByteStreams.copy(Channels.newInputStream(read.channel), out);
+      } catch (IOException e) {
+        throw new ExportReadException(read.fileName, e);
+      } finally {
+        closeChannel(read);
+      }
+    }
+
+    private void open() {
+      while (next < files.size() && pending.size() < EXPORT_READ_AHEAD_FILES) {
+        FileData fd = files.get(next);
+        if (!fd.isBlob && isTrue(fd.isGCS)) {
+          PendingRead read = new PendingRead(fd.fileName);
+          try {
+            GcsFilename gcsFileName = new GcsFilename(getGcsBucketToUse(fd.role), fd.gcsName);
+            long fileSize = getGcsFileSize(gcsFileName, fatalError);
+            if (fileSize > 0) {
+              read.channel = gcsService.openPrefetchingReadChannel(gcsFileName, 0,
+                  (int) Math.min(fileSize, EXPORT_READ_AHEAD_BLOCK_SIZE));
+            }
+          } catch (IOException e) {
+            read.error = e;
+          }
+          pending.put(next, read);
+        }
+        next++;
+      }
+    }
+
+    void close() {
+      for (PendingRead read : pending.values()) {
+        closeChannel(read);
+      }
+      pending.clear();
+    }
+
+    private void closeChannel(PendingRead read) {
+      if (read.channel == null) {
+        return;
+      }
+      try {
+        read.channel.close();
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, "Unable to close GCS read channel for " + read.fileName, e);
+      }
+    }
+  }
+
+  /**
+   * A GCS file of a project export that was opened ahead of the zip writer.
+   */
+  private static class PendingRead {
+    final String fileName;
+    GcsInputChannel channel;   // null if the file is missing or empty
+    IOException error;         // set if the file could not be opened
+
+    PendingRead(String fileName) {
+      this.fileName = fileName;
+    }
+  }
+
+  /**
+   * Reports that a GCS file of a project export could not be read, naming
+   * that file rather than the one being written to the zip.
+   */
+  private static class ExportReadException extends IOException {
+    final String fileName;
+
+    ExportReadException(String fileName, IOException cause) {
+      super("Unable to read " + fileName, cause);
+      this.fileName = fileName;
+    }
+  }
+
+  /**
+   * Returns the size of a GCS file, or 0 if it does not exist. Older projects
+   * have zero length files that were never stored in GCS, and a lookup of a
+   * file that was just written can fail, so the lookup is retried.
+   */
+  private long getGcsFileSize(GcsFilename gcsFileName, boolean fatalError) throws IOException {
+    int count;
+    for (count = 0; count < 5; count++) {
+      GcsFileMetadata metadata = gcsService.getMetadata(gcsFileName);
+      if (metadata != null) {
+        if (count > 0) {
+          LOG.log(Level.WARNING, "recovered from NPF in exportProjectFile filename = "
+              + gcsFileName.getObjectName() + " count = " + count);
+        }
+        return metadata.getLength();
+      }
+      LOG.log(Level.WARNING, "exportProjectFile: NPF recorded for " + gcsFileName.getObjectName());
+    }
+    LOG.log(Level.WARNING, "FATAL NPF in exportProjectFile filename = "
+        + gcsFileName.getObjectName());
+    if (fatalError) {
+      throw new IOException("FATAL Error reading file from GCS filename = "
+          + gcsFileName.getObjectName());
+    }
+    return 0;
+  }
+
   @Override
   public Motd getCurrentMotd() {
     final Result<Motd> motd = new Result<Motd>();
@@ -2400,6 +2797,16 @@ public class ObjectifyStorageIo implements  StorageIo {
     return fileName;
   }
 
+  @Override
+  public String uploadTempFile(InputStream content) throws IOException {
+    String uuid = UUID.randomUUID().toString();
+    String fileName = "__TEMP__/" + uuid;
+    // Use FileData.RoleEnum.TARGET because these temp files never live very long
+    writeGcsFile(new GcsFilename(getGcsBucketToUse(FileData.RoleEnum.TARGET), fileName),
+        content);
+    return fileName;
+  }
+
   @Override
   public InputStream openTempFile(String fileName) throws IOException {
     if (!fileName.startsWith("__TEMP__")) {
@@ -2471,6 +2878,17 @@ public class ObjectifyStorageIo implements  StorageIo {
     outputChannel.close();
   }
 
+  @VisibleForTesting
+  List<String> listGcsFiles(String prefix) throws IOException {
+    List<String> names = new ArrayList<String>();
+    ListResult result = gcsService.list(getGcsBucketToUse(FileData.RoleEnum.SOURCE),
+        new ListOptions.Builder().setPrefix(prefix).build());
+    while (result.hasNext()) {
+      names.add(result.next().getName());
+    }
+    return names;
+  }
+
   // Return time in ISO_8660 format
   private static String formattedTime() {
     java.text.SimpleDateFormat formatter = new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
@@ -19,8 +19,10 @@ import com.google.appinventor.shared.rpc.user.SplashConfig;
 
 import java.io.InputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import javax.annotation.Nullable;
@@ -410,6 +412,19 @@ public interface StorageIo {
    */
   long uploadFileForce(long projectId, String fileId, String userId, String content, String encoding);
 
+  /**
+   * Uploads several files of a project at once -- forces the save even with
+   * trivial workspaces. All files are written in a single transaction that
+   * updates the modification date of the project once.
+   * @param projectId  project ID
+   * @param userId the user who owns the files
+   * @param contents  file IDs mapped to their content
+   * @param encoding  encoding of the content
+   * @return modification date for project
+   */
+  long uploadFilesForce(long projectId, String userId, Map<String, String> contents,
+      String encoding);
+
   /**
    * Uploads a file.
    * @param projectId  project ID
@@ -432,6 +447,21 @@ public interface StorageIo {
    */
   long uploadRawFileForce(long projectId, String fileId, String userId, byte[] content);
 
+  /**
+   * Uploads a file from a stream -- forces the save even with trivial workspace.
+   * Files stored outside of the datastore are copied in chunks, so the content
+   * is never held in memory as a whole. The stream is read to its end but not
+   * closed.
+   * @param projectId  project ID
+   * @param fileId  file ID
+   * @param userId the user who owns the file
+   * @param content  file content
+   * @return modification date for project
+   * @throws IOException if the stream cannot be read or the file cannot be written
+   */
+  long uploadRawFileForce(long projectId, String fileId, String userId, InputStream content)
+      throws IOException;
+
   /**
    * Deletes a file.
    * @param userId a user Id (the request is made on behalf of this user)
@@ -482,6 +512,15 @@ public interface StorageIo {
    */
   String uploadTempFile(byte [] content) throws IOException;
 
+  /**
+   * Creates a temporary file from a stream, copying it in chunks, and returns
+   * its file name, which will always begin with __TEMP__
+   * @param content the files content, which is read to its end but not closed
+   *
+   * @return fileName the temporary filename
+   */
+  String uploadTempFile(InputStream content) throws IOException;
+
   /**
    * Open an input stream to a temp file.
    * Verifies it is a temp file by making sure the filename
@@ -533,6 +572,30 @@ public interface StorageIo {
     final boolean forGallery,
     final boolean fatalError) throws IOException;
 
+  /**
+   *  Exports project files as a zip archive written to a stream, without
+   *  holding the files or the archive in memory.
+   * @param userId a user Id (the request is made on behalf of this user)
+   * @param projectId  project ID
+   * @param includeProjectHistory  whether or not to include the project history
+   * @param includeAndroidKeystore  whether or not to include the Android keystore
+   * @param zipName  the name of the zip file, if a specific one is desired
+   * @param fatalError set true to cause missing GCS file to throw exception
+   * @param out  the stream the zip archive is written to; it is not closed
+   *
+   * @return  the name, file count and metadata of the zip archive; its content
+   *          is null since it was written to {@code out}
+   */
+  ProjectSourceZip exportProjectSourceZip(String userId, long projectId,
+    boolean includeProjectHistory,
+    boolean includeAndroidKeystore,
+    @Nullable String zipName,
+    final boolean includeYail,
+    final boolean includeScreenShots,
+    final boolean forGallery,
+    final boolean fatalError,
+    OutputStream out) throws IOException;
+
   /**
    * Find a user's id given their email address. Note that this query is case
    * sensitive!
@@ -0,0 +1,32 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.server.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that flushes, but does not close, the stream it wraps when
+ * it is closed. Lets a zip be written to a stream owned by the caller and
+ * still be closed, which releases its compressor.
+ *
+ */
+public final class NonClosingOutputStream extends FilterOutputStream {
+  public NonClosingOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.flush();
+  }
+}
@@ -21,11 +21,16 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.fail;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
 
 /**
  * Tests for {@link DownloadServlet}. Mocks out FileExporter. Mainly tests
@@ -45,6 +50,8 @@ public class DownloadServletTest {
   private static final String DUMMY_ZIP_FILENAME = "filename123.aia";
   private static final String DUMMY_ZIP_FILENAME_WITH_TITLE = "MyProjectTitle123.aia";
   private static final String DOWNLOAD_URL = "http://localhost/baseUrl/download/";
+  private static final List<String> SOURCE_FILES =
+      Collections.singletonList("src/com/yourdomain/" + FORM1_NAME + ".scm");
 
   private ProjectSourceZip dummyZip;
   private ProjectSourceZip dummyZipWithTitle;
@@ -85,7 +92,11 @@ public class DownloadServletTest {
     PowerMock.expectLastCall().once();
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "project-source/1234");
-    expect(exporterMock.exportProjectSourceZip(USER_ID, PROJECT_ID, true, false, null, false, false, false, false))
+    expect(storageIoMock.getProjectSourceFiles(USER_ID, PROJECT_ID)).andReturn(SOURCE_FILES);
+    expect(storageIoMock.getProjectName(USER_ID, PROJECT_ID)).andReturn(DUMMY_FILENAME);
+    expect(exporterMock.exportProjectSourceZip(eq(USER_ID), eq(PROJECT_ID), eq(true), eq(false),
+        eq(DUMMY_ZIP_FILENAME), eq(false), eq(false), eq(false), eq(false),
+        isA(OutputStream.class)))
         .andReturn(dummyZip);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
@@ -102,8 +113,10 @@ public class DownloadServletTest {
     PowerMock.expectLastCall().once();
     MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
         "project-source/1234/My Project Title 123");
-    expect(exporterMock.exportProjectSourceZip(USER_ID, PROJECT_ID, true, false,
-        "MyProjectTitle123.aia", false, false, false, false))
+    expect(storageIoMock.getProjectSourceFiles(USER_ID, PROJECT_ID)).andReturn(SOURCE_FILES);
+    expect(exporterMock.exportProjectSourceZip(eq(USER_ID), eq(PROJECT_ID), eq(true), eq(false),
+        eq("MyProjectTitle123.aia"), eq(false), eq(false), eq(false), eq(false),
+        isA(OutputStream.class)))
         .andReturn(dummyZipWithTitle);
     PowerMock.replayAll();
     DownloadServlet download = new DownloadServlet();
@@ -114,6 +127,27 @@ public class DownloadServletTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testDownloadProjectSourceZipWithEmptyProject() throws IOException {
+    storageIoMock.assertUserHasProject(USER_ID, PROJECT_ID);
+    PowerMock.expectLastCall().once();
+    expect(storageIoMock.getProjectSourceFiles(USER_ID, PROJECT_ID))
+        .andReturn(Collections.<String>emptyList());
+    PowerMock.replayAll();
+    MockHttpServletRequest request = new MockHttpServletRequest(DOWNLOAD_URL +
+        "project-source/1234");
+    DownloadServlet download = new DownloadServlet();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    try {
+      download.doGet(request, response);
+      fail();
+    } catch (IllegalArgumentException ex) {
+      // The failure is reported before the download headers are set.
+      assertNull(response.getHeader("content-disposition"));
+    }
+    PowerMock.verifyAll();
+  }
+
   @Test
   public void testDownloadProjectSourceZipWithNonExistingProject() throws IOException {
     storageIoMock.assertUserHasProject(USER_ID, 12345L);
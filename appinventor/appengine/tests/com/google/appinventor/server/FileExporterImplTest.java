@@ -167,5 +167,54 @@ public class FileExporterImplTest extends LocalDatastoreTestCase {
     }
   }
 
-  // TODO(user): Add test of exportAllProjectsSourceZip().
+  public void testExportAllProjectsSourceZipToStream() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProjectSourceZip zip = exporter.exportAllProjectsSourceZip(USER_ID, "all-projects.zip", out);
+    assertEquals("all-projects.zip", zip.getFileName());
+    assertEquals(1, zip.getFileCount());
+
+    ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+    Map<String, byte[]> content = new HashMap<String, byte[]>();
+    ZipEntry zipEntry;
+    while ((zipEntry = zis.getNextEntry()) != null) {
+      content.put(zipEntry.getName(), ByteStreams.toByteArray(zis));
+    }
+    assertEquals(2, content.size());
+    testExportProjectSourceZipHelper(new ProjectSourceZip(PROJECT_NAME + ".aia",
+        content.get(PROJECT_NAME + ".aia"), 2));
+    assertTrue(new String(content.get(FileExporterImpl.MANIFEST_FILE_NAME),
+        StorageUtil.DEFAULT_CHARSET).contains("exported\t" + projectId + "\t"));
+  }
+
+  public void testExportSelectedProjectsSourceZipSkipsEmptyProjects() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProjectSourceZip zip = exporter.exportSelectedProjectsSourceZip(USER_ID,
+        "selected-projects.zip", Arrays.asList(projectId, projectId + 1), out);
+    assertEquals(1, zip.getFileCount());
+
+    ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+    Map<String, byte[]> content = new HashMap<String, byte[]>();
+    ZipEntry zipEntry;
+    while ((zipEntry = zis.getNextEntry()) != null) {
+      content.put(zipEntry.getName(), ByteStreams.toByteArray(zis));
+    }
+    // The missing project leaves no entry, only a line in the manifest.
+    assertEquals(2, content.size());
+    assertTrue(new String(content.get(FileExporterImpl.MANIFEST_FILE_NAME),
+        StorageUtil.DEFAULT_CHARSET).contains("empty\t" + (projectId + 1) + "\t"));
+  }
+
+  public void testExportSelectedProjectsSourceZipWritesNothingWithoutProjects()
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      exporter.exportSelectedProjectsSourceZip(USER_ID, "selected-projects.zip",
+          Arrays.asList(projectId + 1), out);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    // Nothing was written, so the download can still report the error.
+    assertEquals(0, out.size());
+  }
 }
@@ -17,6 +17,8 @@ import junitx.framework.ListAssert;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -188,6 +190,25 @@ public class FileImporterImplTest extends LocalDatastoreTestCase {
     }
   }
 
+  public void testImportFileFailureRemovesNewFile() throws Exception {
+    long projectId = importProjectArchive("Project1.zip", PROJECT_NAME_1).getProjectId();
+    InputStream failing = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Connection reset");
+      }
+    };
+    try {
+      ((FileImporterImpl) fileImporter).importFile(USER_ID, projectId, "assets/kitty.png",
+          failing);
+      fail();
+    } catch (IOException | RuntimeException e) {
+      // expected
+    }
+    assertFalse(storageIo.getProjectSourceFiles(USER_ID, projectId)
+        .contains("assets/kitty.png"));
+  }
+
   public void testNotAValidProjectArchive() throws Exception {
     try {
       UserProject userProject =
@@ -7,6 +7,7 @@
 package com.google.appinventor.server.storage;
 
 import com.google.appengine.api.blobstore.BlobKey;
+import com.google.appengine.api.memcache.MemcacheServiceFactory;
 import com.google.appinventor.server.LocalDatastoreTestCase;
 import com.google.appinventor.server.storage.StoredData.ProjectData;
 import com.google.appinventor.shared.rpc.BlocksTruncatedException;
@@ -21,8 +22,11 @@ import com.google.appinventor.shared.rpc.user.User;
 import com.google.appinventor.shared.storage.StorageUtil;
 
 import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -31,7 +35,12 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.json.JSONObject;
 
@@ -446,6 +455,104 @@ public class ObjectifyStorageIoTest extends LocalDatastoreTestCase {
     // TODO(sharon): should test large blob files (e.g., >2MB (chunk size), >4MB (row size));
   }
 
+  public void testUploadFilesForce() {
+    final String USER_ID = "1302";
+    final String USER_EMAIL = "newuser1302@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(USER_ID, PROJECT_NAME, FAKE_PROJECT_TYPE, FORM_QUALIFIED_NAME);
+    storage.addSourceFilesToProject(USER_ID, projectId, false, FILE_NAME1, FILE_NAME2);
+    storage.uploadFile(projectId, FILE_NAME1, USER_ID, FILE_CONTENT2, StorageUtil.DEFAULT_CHARSET);
+
+    Map<String, String> contents = new LinkedHashMap<String, String>();
+    contents.put(FILE_NAME1, FILE_CONTENT1);
+    contents.put(FILE_NAME2, FILE_CONTENT2);
+    long modificationDate = storage.uploadFilesForce(projectId, USER_ID, contents,
+        StorageUtil.DEFAULT_CHARSET);
+
+    assertEquals(modificationDate, storage.getProjectDateModified(USER_ID, projectId));
+    // Read back through memcache and then the datastore.
+    assertEquals(FILE_CONTENT1, storage.downloadFile(USER_ID, projectId, FILE_NAME1,
+        StorageUtil.DEFAULT_CHARSET));
+    assertEquals(FILE_CONTENT2, storage.downloadFile(USER_ID, projectId, FILE_NAME2,
+        StorageUtil.DEFAULT_CHARSET));
+    MemcacheServiceFactory.getMemcacheService().clearAll();
+    assertEquals(FILE_CONTENT1, storage.downloadFile(USER_ID, projectId, FILE_NAME1,
+        StorageUtil.DEFAULT_CHARSET));
+    assertEquals(FILE_CONTENT2, storage.downloadFile(USER_ID, projectId, FILE_NAME2,
+        StorageUtil.DEFAULT_CHARSET));
+  }
+
+  public void testUploadFilesForceToGcs() throws IOException {
+    final String USER_ID = "1306";
+    final String USER_EMAIL = "newuser1306@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(USER_ID, PROJECT_NAME, FAKE_PROJECT_TYPE, FORM_QUALIFIED_NAME);
+    storage.addSourceFilesToProject(USER_ID, projectId, false, BKY_FILE_NAME1, BKY_FILE_NAME2);
+    // Large blocks files are stored in GCS, so two of them are written in parallel.
+    StringBuilder large = new StringBuilder();
+    while (large.length() <= 50000) {
+      large.append(FILE_CONTENT2);
+    }
+    Map<String, String> contents = new LinkedHashMap<String, String>();
+    contents.put(BKY_FILE_NAME1, large.toString());
+    contents.put(BKY_FILE_NAME2, large.toString() + FILE_CONTENT1);
+    storage.uploadFilesForce(projectId, USER_ID, contents, StorageUtil.DEFAULT_CHARSET);
+
+    assertTrue(storage.isGcsFile(projectId, BKY_FILE_NAME1));
+    assertTrue(storage.isGcsFile(projectId, BKY_FILE_NAME2));
+    MemcacheServiceFactory.getMemcacheService().clearAll();
+    assertEquals(large.toString(), storage.downloadFile(USER_ID, projectId, BKY_FILE_NAME1,
+        StorageUtil.DEFAULT_CHARSET));
+    assertEquals(large.toString() + FILE_CONTENT1, storage.downloadFile(USER_ID, projectId,
+        BKY_FILE_NAME2, StorageUtil.DEFAULT_CHARSET));
+    // Blocks files not backed up in the last 24 hours are backed up.
+    String prefix = projectId + "/" + BKY_FILE_NAME1;
+    assertEquals(2, storage.listGcsFiles(prefix).size());
+
+    // A file that shrinks moves back to the datastore and its GCS copy is deleted after the
+    // commit. It was backed up less than 24 hours ago, so no new backup is made.
+    contents.clear();
+    contents.put(BKY_FILE_NAME1, FILE_CONTENT1);
+    storage.uploadFilesForce(projectId, USER_ID, contents, StorageUtil.DEFAULT_CHARSET);
+    assertFalse(storage.isGcsFile(projectId, BKY_FILE_NAME1));
+    assertEquals(FILE_CONTENT1, storage.downloadFile(USER_ID, projectId, BKY_FILE_NAME1,
+        StorageUtil.DEFAULT_CHARSET));
+    List<String> gcsFiles = storage.listGcsFiles(prefix);
+    assertEquals(1, gcsFiles.size());
+    assertTrue(gcsFiles.get(0).endsWith(".backup"));
+  }
+
+  public void testStreamedFiles() throws IOException {
+    final String USER_ID = "1305";
+    final String USER_EMAIL = "newuser1305@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(
+        USER_ID, PROJECT_NAME, YoungAndroidProjectNode.YOUNG_ANDROID_PROJECT_TYPE,
+        FORM_QUALIFIED_NAME);
+    // Larger than one chunk, so the content is copied to GCS in several writes.
+    byte[] apkContent = new byte[600 * 1024];
+    for (int i = 0; i < apkContent.length; i++) {
+      apkContent[i] = (byte) i;
+    }
+    storage.addOutputFilesToProject(USER_ID, projectId, APK_FILE_NAME1);
+    storage.uploadRawFileForce(projectId, APK_FILE_NAME1, USER_ID,
+        new ByteArrayInputStream(apkContent));
+    storage.addSourceFilesToProject(USER_ID, projectId, false, BLOCK_FILE_NAME);
+    storage.uploadRawFileForce(projectId, BLOCK_FILE_NAME, USER_ID,
+        new ByteArrayInputStream(BLOCK_FILE_CONTENT));
+
+    assertTrue(Arrays.equals(apkContent,
+        storage.downloadRawFile(USER_ID, projectId, APK_FILE_NAME1)));
+    assertTrue(Arrays.equals(BLOCK_FILE_CONTENT,
+        storage.downloadRawFile(USER_ID, projectId, BLOCK_FILE_NAME)));
+    assertTrue(storage.isGcsFile(projectId, APK_FILE_NAME1));
+    assertFalse(storage.isGcsFile(projectId, BLOCK_FILE_NAME));
+
+    String tempFile = storage.uploadTempFile(new ByteArrayInputStream(apkContent));
+    assertTrue(Arrays.equals(apkContent, ByteStreams.toByteArray(storage.openTempFile(tempFile))));
+    storage.deleteTempFile(tempFile);
+  }
+
   public void testOldBlockFilesInDatastoreStillWork() throws BlocksTruncatedException {
     // Create new storage object that forces storage in the datastore
     ObjectifyStorageIo oldStyleStorage = new ObjectifyStorageIo() {
@@ -576,6 +683,33 @@ public class ObjectifyStorageIoTest extends LocalDatastoreTestCase {
     sourcesFiles = storage.getProjectSourceFiles(USER_ID, projectId);
     assertFalse(sourcesFiles.contains(YAIL_FILE_NAME2));
   }
+
+  public void testExportProjectZipToStream() throws BlocksTruncatedException, IOException {
+    final String USER_ID = "2000";
+    final String USER_EMAIL = "newuser2000@test.com";
+    storage.getUser(USER_ID, USER_EMAIL);
+    long projectId = createProject(USER_ID, PROJECT_NAME, FAKE_PROJECT_TYPE, FORM_QUALIFIED_NAME);
+    storage.addSourceFilesToProject(USER_ID, projectId, false, SCM_FILE_NAME1);
+    storage.uploadFile(projectId, SCM_FILE_NAME1, USER_ID, FILE_CONTENT1, StorageUtil.DEFAULT_CHARSET);
+    storage.addSourceFilesToProject(USER_ID, projectId, false, BKY_FILE_NAME1);
+    storage.uploadFile(projectId, BKY_FILE_NAME1, USER_ID, FILE_CONTENT2, StorageUtil.DEFAULT_CHARSET);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProjectSourceZip zipFile = storage.exportProjectSourceZip(USER_ID, projectId, false,
+        false, null, false, false, false, false, out);
+    assertEquals(PROJECT_NAME + ".aia", zipFile.getFileName());
+    assertNull(zipFile.getContent());
+
+    Map<String, String> entries = new HashMap<String, String>();
+    ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+    for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+      entries.put(entry.getName(),
+          new String(ByteStreams.toByteArray(in), StorageUtil.DEFAULT_CHARSET));
+    }
+    assertEquals(zipFile.getFileCount(), entries.size());
+    assertEquals(FILE_CONTENT1, entries.get(SCM_FILE_NAME1));
+    assertEquals(FILE_CONTENT2, entries.get(BKY_FILE_NAME1));
+  }
+
   /*
    * Fail on the Nth call to runJobWithRetries, where N is the value of the
    * failingRun argument to the constructor. Also allows counting
@@ -1832,7 +1832,11 @@ Blockly.Versioning.AllUpgradeMaps =
 
     // Assets helper block was added.
     15: Blockly.Versioning.makeSetterUseHelper(
-        'Canvas', 'BackgroundImage', Blockly.Versioning.tryReplaceBlockWithAssets)
+        'Canvas', 'BackgroundImage', Blockly.Versioning.tryReplaceBlockWithAssets),
+
+    // The GameLoop, FrameInterval, FramesPerSecond and TickDuration properties were added.
+    // No blocks need to be modified to upgrade to version 16.
+    16: "noUpgrade"
 
   }, // End Canvas upgraders
 
@@ -1842,6 +1846,9 @@ Blockly.Versioning.AllUpgradeMaps =
   }, // End Chart upgraders
 
   "ChartData2D": {
+    // The MaximumRenderedEntries property was added.
+    // No blocks need to be modified to upgrade to version 2.
+    2: "noUpgrade"
 
   }, // End ChartData2D upgraders
 
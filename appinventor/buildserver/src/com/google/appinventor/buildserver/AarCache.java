@@ -0,0 +1,492 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.util.AARLibrary;
+import com.google.appinventor.buildserver.util.FileDigests;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * A cache of unpacked Android Archives (AARs) and of merged resources, shared by all builds.
+ *
+ * <p>Each AAR is unpacked once into a read-only directory named after the MD5 hash of the
+ * archive. Builds hard link the unpacked files into their own build directory instead of
+ * unpacking the archive again, or copy them when the cache is on another file system. Because
+ * builds hold links rather than references, entries can be evicted while builds are running.</p>
+ *
+ * <p>The resources merged from a set of AARs and an app's own resources are cached as a zip
+ * keyed by the content of all of them, so rebuilds of a project skip merging and PNG crunching.
+ * </p>
+ *
+ * <p>New entries are written under a temporary name and renamed into place, so a partially
+ * written entry is never visible. When the cache grows past its size limit, the least recently
+ * used entries are renamed to a temporary name and deleted, so a partially deleted entry is never
+ * visible either. Temporary files left behind by a server that stopped are deleted when the cache
+ * is configured.</p>
+ */
+public final class AarCache {
+  private static final Logger LOG = Logger.getLogger(AarCache.class.getName());
+
+  public static final long DEFAULT_MAX_SIZE_MB = 1024;
+
+  private static final String AAR_PREFIX = "aar-";
+  private static final String RES_PREFIX = "res-";
+  private static final String RES_SUFFIX = ".zip";
+  private static final String TEMP_PREFIX = "tmp-";
+
+  private static volatile AarCache instance = null;
+
+  private final File dir;
+  private final long maxSizeBytes;
+
+  // Serializes the unpacking of a single archive.
+  private final ConcurrentMap<String, Object> entryLocks = new ConcurrentHashMap<>();
+
+  private final AtomicLong aarHits = new AtomicLong(0);
+  private final AtomicLong aarMisses = new AtomicLong(0);
+  private final AtomicLong resourceHits = new AtomicLong(0);
+  private final AtomicLong resourceMisses = new AtomicLong(0);
+  private final AtomicLong evictions = new AtomicLong(0);
+  private volatile long sizeBytes;
+
+  private AarCache(File dir, long maxSizeBytes) {
+    this.dir = dir;
+    this.maxSizeBytes = maxSizeBytes;
+    deleteTempFiles();
+    this.sizeBytes = totalSize(listEntries());
+  }
+
+  /*
+   * Deletes the temporary files of entries that were being written or evicted when the server
+   * stopped. This runs before any build uses the cache.
+   */
+  private void deleteTempFiles() {
+    File[] temps = dir.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.getName().startsWith(TEMP_PREFIX);
+      }
+    });
+    if (temps != null) {
+      for (File temp : temps) {
+        setWritable(temp);
+        if (!FileUtils.deleteQuietly(temp)) {
+          LOG.warning("Unable to delete " + temp);
+        }
+      }
+    }
+  }
+
+  /**
+   * Configures the cache used by all builds.
+   *
+   * @param dir the directory holding the cache entries
+   * @param maxSizeMb the size limit of the cache in MB, 0 or less means unlimited
+   */
+  public static void configure(File dir, long maxSizeMb) {
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      LOG.warning("Unable to create AAR cache directory " + dir);
+      return;
+    }
+    instance = new AarCache(dir.getAbsoluteFile(), maxSizeMb > 0 ? maxSizeMb * 1024 * 1024 : 0);
+  }
+
+  /**
+   * Returns the cache used by all builds, or null if caching is disabled.
+   */
+  public static AarCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Makes the unpacked contents of an archive available under {@code explodedBaseDir}, as
+   * {@link AARLibrary#unpackToDirectory(File)} would, unpacking the archive into the cache first
+   * if needed.
+   *
+   * @param library the archive
+   * @param explodedBaseDir the directory of the build that holds its unpacked archives
+   * @return the size of the unpacked files if the archive was already in the cache, or -1 if it
+   *     had to be unpacked
+   * @throws IOException if the archive cannot be read or unpacked
+   */
+  public long attach(AARLibrary library, File explodedBaseDir) throws IOException {
+    String hash = FileDigests.md5(library.getFile());
+    File entry = new File(dir, AAR_PREFIX + hash);
+    File[] unpacked;
+    boolean hit;
+    Object lock = entryLocks.putIfAbsent(hash, new Object());
+    if (lock == null) {
+      lock = entryLocks.get(hash);
+    }
+    synchronized (lock) {
+      unpacked = entry.listFiles();
+      hit = unpacked != null && unpacked.length == 1;
+      if (hit) {
+        aarHits.incrementAndGet();
+        if (!entry.setLastModified(System.currentTimeMillis())) {
+          LOG.fine("Unable to update the modification time of " + entry);
+        }
+      } else {
+        aarMisses.incrementAndGet();
+        unpacked = new File[] { unpackEntry(library, entry) };
+      }
+    }
+    File target = new File(explodedBaseDir, unpacked[0].getName());
+    long size;
+    try {
+      size = linkTree(unpacked[0], target);
+    } catch (IOException e) {
+      // The entry may have been evicted while it was being linked.
+      LOG.log(Level.WARNING, "Unable to link cached AAR " + entry + ", unpacking it", e);
+      FileUtils.deleteQuietly(target);
+      library.unpackToDirectory(explodedBaseDir);
+      return -1;
+    }
+    library.useUnpackedDirectory(target);
+    return hit ? size : -1;
+  }
+
+  private File unpackEntry(AARLibrary library, File entry) throws IOException {
+    String packageName;
+    File temp = Files.createTempDirectory(dir.toPath(), TEMP_PREFIX).toFile();
+    try {
+      // Unpack a separate instance, as the library will refer to the build's own copy.
+      AARLibrary unpacking = new AARLibrary(library.getFile());
+      unpacking.unpackToDirectory(temp);
+      packageName = unpacking.getPackageName();
+      setReadOnly(unpacking.getDirectory());
+      if (entry.exists()) {
+        deleteEntry(entry);  // A damaged entry.
+      }
+      try {
+        Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), entry.toPath());
+      }
+      synchronized (this) {
+        sizeBytes += FileUtils.sizeOfDirectory(entry);
+      }
+    } finally {
+      FileUtils.deleteQuietly(temp);
+    }
+    evict();
+    return new File(entry, packageName);
+  }
+
+  /**
+   * Computes the key of the resources merged from the given archives and app resources.
+   *
+   * @param libraries the archives, which must have been attached
+   * @param mainResDir the resource directory of the app
+   * @param aapt the aapt executable crunching the PNG images
+   * @return the key of the merged resources
+   * @throws IOException if a file cannot be read
+   */
+  public String mergedResourcesKey(Collection<AARLibrary> libraries, File mainResDir, File aapt)
+      throws IOException {
+    List<String> hashes = new ArrayList<>();
+    for (AARLibrary library : libraries) {
+      hashes.add(library.getPackageName() + ":" + FileDigests.md5(library.getFile()));
+    }
+    // The merge does not depend on the order the libraries were attached in.
+    Collections.sort(hashes);
+    Hasher hasher = Hashing.md5().newHasher();
+    for (String hash : hashes) {
+      hasher.putString(hash, Charsets.UTF_8).putByte((byte) 0);
+    }
+    hasher.putString(FileDigests.md5(aapt), Charsets.UTF_8).putByte((byte) 0);
+    String base = mainResDir.getAbsolutePath() + File.separator;
+    List<File> files = new ArrayList<>(FileUtils.listFiles(mainResDir, null, true));
+    Collections.sort(files);
+    for (File file : files) {
+      hasher.putString(file.getAbsolutePath().substring(base.length()), Charsets.UTF_8)
+          .putByte((byte) 0)
+          .putString(FileDigests.md5(file), Charsets.UTF_8)
+          .putByte((byte) 0);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Copies the merged resources stored under the given key into {@code outputDir}.
+   *
+   * @param key the key computed by {@link #mergedResourcesKey}
+   * @param outputDir the merged resource directory of the build
+   * @return {@code true} if the resources were restored, {@code false} if they must be merged
+   */
+  public boolean restoreMergedResources(String key, File outputDir) {
+    File entry = new File(dir, RES_PREFIX + key + RES_SUFFIX);
+    if (!entry.isFile()) {
+      resourceMisses.incrementAndGet();
+      return false;
+    }
+    if (!entry.setLastModified(System.currentTimeMillis())) {
+      LOG.fine("Unable to update the modification time of " + entry);
+    }
+    try (ZipInputStream in = new ZipInputStream(
+        new BufferedInputStream(new FileInputStream(entry)))) {
+      ZipEntry zipEntry;
+      while ((zipEntry = in.getNextEntry()) != null) {
+        String name = zipEntry.getName();
+        if (zipEntry.isDirectory() || name.startsWith("/") || name.contains("..")) {
+          continue;
+        }
+        File target = new File(outputDir, name);
+        File parent = target.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+          throw new IOException("Unable to create " + parent);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+          ByteStreams.copy(in, out);
+        }
+      }
+    } catch (IOException e) {
+      // Treat a damaged entry as a miss. The resources are merged again and the entry replaced.
+      LOG.log(Level.WARNING, "Unable to restore merged resources " + entry, e);
+      try {
+        FileUtils.cleanDirectory(outputDir);
+      } catch (IOException e2) {
+        LOG.log(Level.WARNING, "Unable to clean " + outputDir, e2);
+      }
+      resourceMisses.incrementAndGet();
+      return false;
+    }
+    resourceHits.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Stores the merged resources of a build under the given key.
+   *
+   * @param key the key computed by {@link #mergedResourcesKey}
+   * @param outputDir the merged resource directory of the build
+   */
+  public void storeMergedResources(String key, File outputDir) {
+    File target = new File(dir, RES_PREFIX + key + RES_SUFFIX);
+    String base = outputDir.getAbsolutePath() + File.separator;
+    File temp = null;
+    try {
+      temp = File.createTempFile(TEMP_PREFIX, "-" + target.getName(), dir);
+      try (ZipOutputStream out = new ZipOutputStream(
+          new BufferedOutputStream(new FileOutputStream(temp)))) {
+        for (File file : FileUtils.listFiles(outputDir, null, true)) {
+          out.putNextEntry(new ZipEntry(file.getAbsolutePath().substring(base.length())
+              .replace(File.separatorChar, '/')));
+          try (InputStream in = new FileInputStream(file)) {
+            ByteStreams.copy(in, out);
+          }
+          out.closeEntry();
+        }
+      }
+      long previous = target.length();
+      try {
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      synchronized (this) {
+        sizeBytes += target.length() - previous;
+      }
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to store merged resources " + target, e);
+    } finally {
+      if (temp != null && temp.exists() && !temp.delete()) {
+        LOG.warning("Unable to delete " + temp);
+      }
+    }
+    evict();
+  }
+
+  /**
+   * Deletes the least recently used entries until the cache fits its size limit.
+   */
+  synchronized void evict() {
+    File[] entries = listEntries();
+    long total = totalSize(entries);
+    if (maxSizeBytes > 0 && total > maxSizeBytes) {
+      Arrays.sort(entries, new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+          return Long.compare(a.lastModified(), b.lastModified());
+        }
+      });
+      for (File file : entries) {
+        if (total <= maxSizeBytes) {
+          break;
+        }
+        long length = size(file);
+        if (deleteEntry(file)) {
+          total -= length;
+          evictions.incrementAndGet();
+        }
+      }
+    }
+    sizeBytes = total;
+  }
+
+  /*
+   * Deletes an entry. Builds link unpacked archives without holding a lock, so the entry is
+   * first renamed to a temporary name: a build linking it at the same time then either links
+   * the whole entry or fails and unpacks the archive itself, rather than linking part of it.
+   */
+  private boolean deleteEntry(File entry) {
+    File deleted = new File(dir, TEMP_PREFIX + System.nanoTime() + "-" + entry.getName());
+    try {
+      Files.move(entry.toPath(), deleted.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to evict " + entry, e);
+      return false;
+    }
+    // Unpacked archives are read-only and must be made writable to be deleted.
+    setWritable(deleted);
+    if (!FileUtils.deleteQuietly(deleted)) {
+      // Deleted when the cache is next configured.
+      LOG.warning("Unable to delete " + deleted);
+    }
+    return true;
+  }
+
+  /*
+   * Recreates the tree {@code source} at {@code target} with hard links to its files, or copies
+   * of them if links are not supported, and returns the size of the files.
+   */
+  private static long linkTree(File source, File target) throws IOException {
+    if (!target.isDirectory() && !target.mkdirs()) {
+      throw new IOException("Unable to create " + target);
+    }
+    File[] children = source.listFiles();
+    if (children == null) {
+      throw new IOException("Unable to list " + source);
+    }
+    long size = 0;
+    for (File child : children) {
+      File copy = new File(target, child.getName());
+      if (child.isDirectory()) {
+        size += linkTree(child, copy);
+      } else {
+        size += child.length();
+        // Like unpacking, replace the files of another archive with the same package name.
+        Files.deleteIfExists(copy.toPath());
+        try {
+          Files.createLink(copy.toPath(), child.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+          Files.copy(child.toPath(), copy.toPath());
+        }
+      }
+    }
+    return size;
+  }
+
+  private static void setReadOnly(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        setReadOnly(child);
+      }
+    } else if (!file.setReadOnly()) {
+      LOG.fine("Unable to make " + file + " read-only");
+    }
+  }
+
+  private static void setWritable(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        setWritable(child);
+      }
+    } else if (!file.setWritable(true)) {
+      LOG.fine("Unable to make " + file + " writable");
+    }
+  }
+
+  private File[] listEntries() {
+    File[] entries = dir.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        String name = file.getName();
+        return name.startsWith(AAR_PREFIX) && file.isDirectory()
+            || name.startsWith(RES_PREFIX) && name.endsWith(RES_SUFFIX) && file.isFile();
+      }
+    });
+    return entries == null ? new File[0] : entries;
+  }
+
+  private static long size(File entry) {
+    return entry.isDirectory() ? FileUtils.sizeOfDirectory(entry) : entry.length();
+  }
+
+  private static long totalSize(File[] entries) {
+    long total = 0;
+    for (File file : entries) {
+      total += size(file);
+    }
+    return total;
+  }
+
+  public File getDirectory() {
+    return dir;
+  }
+
+  public long getMaxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  public long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  public long getAarHits() {
+    return aarHits.get();
+  }
+
+  public long getAarMisses() {
+    return aarMisses.get();
+  }
+
+  public long getResourceHits() {
+    return resourceHits.get();
+  }
+
+  public long getResourceMisses() {
+    return resourceMisses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+}
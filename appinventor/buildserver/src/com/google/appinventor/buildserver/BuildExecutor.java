@@ -0,0 +1,45 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link Executor} for build requests that exposes the counters reported by the build server
+ * on its {@code /vars} and {@code /health} pages.
+ */
+interface BuildExecutor extends Executor {
+
+  /**
+   * Executes a build on behalf of the given user.
+   *
+   * @param userName the user requesting the build, used for fairness between users
+   * @param priority the priority of the build; higher values run first
+   * @param runnable the build to run
+   * @throws java.util.concurrent.RejectedExecutionException if the build cannot be accepted
+   */
+  void execute(String userName, int priority, Runnable runnable);
+
+  /**
+   * Returns the maximum number of simultaneously running builds. 0 means unlimited.
+   */
+  int getMaxActiveTasks();
+
+  int getActiveTaskCount();
+
+  int getCompletedTaskCount();
+
+  /**
+   * Returns the number of builds accepted but not yet started.
+   */
+  int getQueuedTaskCount();
+
+  /**
+   * Returns an estimate, in milliseconds, of how long a build submitted now would wait before
+   * starting.
+   */
+  long getEstimatedWaitMillis();
+}
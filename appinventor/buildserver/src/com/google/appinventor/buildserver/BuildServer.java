@@ -6,11 +6,21 @@
 
 package com.google.appinventor.buildserver;
 
+import com.google.appinventor.buildserver.context.ComponentCatalog;
+import com.google.appinventor.buildserver.context.Resources;
+import com.google.appinventor.buildserver.stats.BuildMetrics;
+import com.google.appinventor.buildserver.stats.CacheStats;
+import com.google.appinventor.buildserver.stats.LatencyHistogram;
+import com.google.appinventor.buildserver.stats.PrometheusWriter;
 import com.google.appinventor.buildserver.stats.SimpleStatReporter;
 import com.google.appinventor.buildserver.stats.StatCalculator;
 import com.google.appinventor.buildserver.stats.StatCalculator.Stats;
 import com.google.appinventor.buildserver.stats.StatReporter;
 import com.google.appinventor.buildserver.tasks.android.AndroidBuildFactory;
+import com.google.appinventor.buildserver.util.ChildProcessScheduler;
+import com.google.appinventor.buildserver.util.JavaToolPool;
+import com.google.appinventor.buildserver.util.KawaCompilerPool;
+import com.google.appinventor.buildserver.util.KeyStoreGenerator;
 import com.google.appinventor.common.version.GitBuildId;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteStreams;
@@ -144,6 +154,21 @@ public class BuildServer {
       usage = "Maximum number of builds that can run in parallel. O means unlimited.")
     int maxSimultaneousBuilds = 0;  // The default is unlimited.
 
+    @Option(name = "--buildQueueSize",
+      usage = "Number of builds that may wait for a free build slot. 0 means builds are rejected "
+          + "when all slots are busy. -1 means the queue is unbounded.")
+    int buildQueueSize = 0;  // The default is to not queue builds.
+
+    @Option(name = "--maxQueuedBuildsPerUser",
+      usage = "Maximum number of builds a single user may have waiting in the build queue. "
+          + "0 means unlimited.")
+    int maxQueuedBuildsPerUser = 0;
+
+    @Option(name = "--maxBuildQueueWaitSeconds",
+      usage = "Builds whose estimated wait in the build queue exceeds this are rejected. "
+          + "0 means unlimited.")
+    int maxBuildQueueWaitSeconds = 0;
+
     @Option(name = "--port",
       usage = "The port number to bind to on the local machine.")
     int port = 9990;
@@ -157,10 +182,77 @@ public class BuildServer {
       usage = "Turn on debugging, which enables the non-async calls of the buildserver.")
     boolean debug = false;
 
+    @Option(name = "--kawaWorkers",
+      usage = "Number of persistent Kawa compiler processes. 0 forks a new process for every "
+          + "build. -1 sizes the pool from the physical memory and --childProcessRamMb.")
+    int kawaWorkers = 0;
+
+    @Option(name = "--javaToolWorkers",
+      usage = "Number of persistent processes that run dx, apksigner and bundletool. "
+          + "0 forks a new process for every invocation.")
+    int javaToolWorkers = 0;
+
+    @Option(name = "--childProcessMemoryBudgetMb",
+      usage = "Total memory that child processes (Kawa, DX, aapt, ...) of all builds may use at "
+          + "once, in MB. 0 runs one Java tool of --childProcessRamMb at a time and limits "
+          + "native tools such as aapt by --childProcessCores only.")
+    int childProcessMemoryBudgetMb = 0;
+
+    @Option(name = "--childProcessCores",
+      usage = "Maximum number of child processes of all builds that may run at once. "
+          + "0 means the number of available processors.")
+    int childProcessCores = 0;
+
+    @Option(name = "--childProcessTimeoutSeconds",
+      usage = "Time after which a child process or pooled worker job (Kawa, DX, aapt, ...) is "
+          + "stopped and its build fails, in seconds. 0 means no limit.")
+    int childProcessTimeoutSeconds = 900;
+
+    @Option(name = "--buildTaskThreads",
+      usage = "Number of threads, shared by all builds, that run independent build tasks "
+          + "concurrently. 0 means the number of available processors. 1 runs the tasks of each "
+          + "build one after another.")
+    int buildTaskThreads = 0;
+
+    @Option(name = "--keyPairPoolSize",
+      usage = "Number of RSA key pairs generated in the background for the keystores of new "
+          + "users. 0 generates each key pair when it is needed.")
+    int keyPairPoolSize = 4;
+
+    @Option(name = "--workspaceDir",
+        usage = "the directory in which projects are unpacked for building, such as a tmpfs "
+            + "mount. If not set, the system temporary directory is used.")
+    String workspaceDir = null;
+
     @Option(name = "--dexCacheDir",
             usage = "the directory to cache the pre-dexed libraries")
     String dexCacheDir = null;
 
+    @Option(name = "--dexCacheMaxSizeMb",
+        usage = "Size above which the least recently used pre-dexed libraries are deleted from "
+            + "--dexCacheDir, in MB. 0 means unlimited.")
+    long dexCacheMaxSizeMb = DexCache.DEFAULT_MAX_SIZE_MB;
+
+    @Option(name = "--yailCacheDir",
+        usage = "the directory to cache the classes compiled from each screen. If not set, "
+            + "every screen is compiled on every build.")
+    String yailCacheDir = null;
+
+    @Option(name = "--yailCacheMaxSizeMb",
+        usage = "Size above which the least recently used compiled screens are deleted from "
+            + "--yailCacheDir, in MB. 0 means unlimited.")
+    long yailCacheMaxSizeMb = YailClassCache.DEFAULT_MAX_SIZE_MB;
+
+    @Option(name = "--aarCacheDir",
+        usage = "the directory to cache unpacked AAR libraries and merged resources. If not set, "
+            + "every build unpacks its libraries and merges its resources.")
+    String aarCacheDir = null;
+
+    @Option(name = "--aarCacheMaxSizeMb",
+        usage = "Size above which the least recently used entries are deleted from "
+            + "--aarCacheDir, in MB. 0 means unlimited.")
+    long aarCacheMaxSizeMb = AarCache.DEFAULT_MAX_SIZE_MB;
+
     @Option(name = "--statreporter",
         usage = "the reporter to use for collecting stats")
     String statReporter = "com.google.appinventor.buildserver.stats.SimpleStatReporter";
@@ -179,6 +271,11 @@ public class BuildServer {
   private static final MediaType ZIP_MEDIA_TYPE =
     new MediaType("application", "zip", ImmutableMap.of("charset", "utf-8"));
 
+  // Range of the priority parameter of build requests. App Inventor does not send a priority, so
+  // a caller may lower the priority of its builds but may not move them ahead of the default.
+  private static final int MIN_REQUEST_PRIORITY = -2;
+  private static final int MAX_REQUEST_PRIORITY = 0;
+
   private static final AtomicInteger buildCount = new AtomicInteger(0);
 
   // The number of build requests for this server run
@@ -203,7 +300,7 @@ public class BuildServer {
   // NOTE(lizlooney) - the buildExecutor must be created after the command line options are
   // processed in main(). If it is created here, the number of simultaneous builds will always be
   // the default value, even if the --maxSimultaneousBuilds option is on the command line.
-  private static NonQueuingExecutor buildExecutor;
+  private static BuildExecutor buildExecutor;
 
   // The input zip file. It will be deleted in cleanUp.
   private File inputZip;
@@ -248,7 +345,11 @@ public class BuildServer {
     ShutdownState shut = getShutdownState();
     if (shut == ShutdownState.UP) {
       LOG.info("Healthcheck: UP");
-      return Response.ok("ok", MediaType.TEXT_PLAIN_TYPE).build();
+      return Response.ok("ok", MediaType.TEXT_PLAIN_TYPE)
+          .header("X-Build-Queue-Depth", buildExecutor.getQueuedTaskCount())
+          .header("X-Estimated-Start-Time",
+              System.currentTimeMillis() + buildExecutor.getEstimatedWaitMillis())
+          .build();
     } else if (shut == ShutdownState.DOWN) {
       LOG.info("Healthcheck: DOWN");
       return Response.status(Response.Status.FORBIDDEN).type(MediaType.TEXT_PLAIN_TYPE).entity("Build Server is shutdown").build();
@@ -330,6 +431,114 @@ public class BuildServer {
     variables.put("maximum-simultaneous-build-tasks-occurred", maximumActiveBuildTasks + "");
     variables.put("active-build-tasks", buildExecutor.getActiveTaskCount() + "");
 
+    // Kawa compiler pool
+    KawaCompilerPool kawaPool = KawaCompilerPool.getInstance();
+    if (kawaPool != null) {
+      variables.put("kawa-workers", kawaPool.getSize() + "");
+      variables.put("kawa-workers-busy", kawaPool.getBusyWorkerCount() + "");
+      variables.put("kawa-workers-idle", kawaPool.getIdleWorkerCount() + "");
+      variables.put("kawa-workers-started", kawaPool.getWorkersStarted() + "");
+      variables.put("kawa-jobs", kawaPool.getJobsRun() + "");
+      variables.put("kawa-jobs-failed", kawaPool.getJobsFailed() + "");
+    }
+
+    // Java tool pool
+    JavaToolPool toolPool = JavaToolPool.getInstance();
+    if (toolPool != null) {
+      variables.put("java-tool-workers", toolPool.getSize() + "");
+      variables.put("java-tool-workers-busy", toolPool.getBusyWorkerCount() + "");
+      variables.put("java-tool-workers-idle", toolPool.getIdleWorkerCount() + "");
+      variables.put("java-tool-workers-started", toolPool.getWorkersStarted() + "");
+      variables.put("java-tool-jobs", toolPool.getJobsRun() + "");
+      variables.put("java-tool-jobs-failed", toolPool.getJobsFailed() + "");
+    }
+
+    // Keystores of new users
+    KeyStoreGenerator keyStores = KeyStoreGenerator.getInstance();
+    variables.put("key-pair-pool-size", keyStores.getPoolSize() + "");
+    variables.put("key-pair-pool-available", keyStores.getAvailableKeyPairs() + "");
+    variables.put("key-pair-pool-hits", keyStores.getPoolHits() + "");
+    variables.put("key-pair-pool-misses", keyStores.getPoolMisses() + "");
+    variables.put("key-pairs-generated", keyStores.getKeyPairsGenerated() + "");
+    variables.put("key-pair-average-generation-time-in-ms",
+        keyStores.getAverageGenerationMillis() + "");
+
+    // Pre-dex cache
+    if (commandLineOptions.dexCacheDir != null) {
+      DexCache dexCache = DexCache.forDirectory(new File(commandLineOptions.dexCacheDir));
+      variables.put("dex-cache-hits", dexCache.getHits() + "");
+      variables.put("dex-cache-misses", dexCache.getMisses() + "");
+      variables.put("dex-cache-failures", dexCache.getFailures() + "");
+      variables.put("dex-cache-evictions", dexCache.getEvictions() + "");
+      variables.put("dex-cache-size-in-bytes", dexCache.getSizeBytes() + "");
+      variables.put("dex-cache-max-size-in-bytes", dexCache.getMaxSizeBytes() + "");
+    }
+
+    // Compiled screen cache
+    YailClassCache yailCache = YailClassCache.getInstance();
+    if (yailCache != null) {
+      variables.put("yail-cache-hits", yailCache.getHits() + "");
+      variables.put("yail-cache-misses", yailCache.getMisses() + "");
+      variables.put("yail-cache-evictions", yailCache.getEvictions() + "");
+      variables.put("yail-cache-bytes-saved", yailCache.getBytesSaved() + "");
+      variables.put("yail-cache-size-in-bytes", yailCache.getSizeBytes() + "");
+      variables.put("yail-cache-max-size-in-bytes", yailCache.getMaxSizeBytes() + "");
+    }
+
+    // Unpacked AAR and merged resource cache
+    AarCache aarCache = AarCache.getInstance();
+    if (aarCache != null) {
+      variables.put("aar-cache-hits", aarCache.getAarHits() + "");
+      variables.put("aar-cache-misses", aarCache.getAarMisses() + "");
+      variables.put("merged-resources-cache-hits", aarCache.getResourceHits() + "");
+      variables.put("merged-resources-cache-misses", aarCache.getResourceMisses() + "");
+      variables.put("aar-cache-evictions", aarCache.getEvictions() + "");
+      variables.put("aar-cache-size-in-bytes", aarCache.getSizeBytes() + "");
+      variables.put("aar-cache-max-size-in-bytes", aarCache.getMaxSizeBytes() + "");
+    }
+
+    // Child process scheduler
+    ChildProcessScheduler scheduler = ChildProcessScheduler.getInstance();
+    variables.put("child-process-memory-budget-mb", scheduler.getMemoryBudgetMb() + "");
+    variables.put("child-process-memory-available-mb", scheduler.getAvailableMemoryMb() + "");
+    variables.put("child-process-cores", scheduler.getCoreBudget() + "");
+    variables.put("child-process-cores-available", scheduler.getAvailableCores() + "");
+    variables.put("child-process-timeout-in-ms", scheduler.getTimeoutMillis() + "");
+    for (Map.Entry<ChildProcessScheduler.Tool, ChildProcessScheduler.ToolStats> entry
+        : scheduler.getToolStats().entrySet()) {
+      String tool = entry.getKey().getStatName();
+      ChildProcessScheduler.ToolStats stats = entry.getValue();
+      variables.put(tool + "-invocations", stats.getInvocations() + "");
+      variables.put(tool + "-total-wait-in-ms", stats.getTotalWaitMillis() + "");
+      variables.put(tool + "-max-wait-in-ms", stats.getMaxWaitMillis() + "");
+      LatencyHistogram runTimes = stats.getRunTimes();
+      for (int i = 0; i < runTimes.getBoundCount(); i++) {
+        variables.put(tool + "-runs-within-" + runTimes.getBoundMillis(i) + "-ms",
+            runTimes.getCumulativeCount(i) + "");
+      }
+      variables.put(tool + "-runs", runTimes.getCount() + "");
+      variables.put(tool + "-total-run-time-in-ms", runTimes.getSumMillis() + "");
+      variables.put(tool + "-timeouts", stats.getTimeouts() + "");
+      variables.put(tool + "-max-peak-rss-in-kb", stats.getMaxPeakRssKb() + "");
+    }
+
+    // Build queue
+    if (buildExecutor instanceof QueuingExecutor) {
+      QueuingExecutor queue = (QueuingExecutor) buildExecutor;
+      int maxQueued = queue.getMaxQueuedTasks();
+      variables.put("build-queue-size-allowed", maxQueued <= 0 ? "unlimited" : maxQueued + "");
+      variables.put("queued-build-tasks", queue.getQueuedTaskCount() + "");
+      variables.put("queued-build-users", queue.getQueuedUserCount() + "");
+      variables.put("rejected-queued-build-tasks", queue.getRejectedTaskCount() + "");
+      variables.put("oldest-queued-build-in-ms", queue.getOldestQueuedMillis() + "");
+      variables.put("average-queue-wait-in-ms", queue.getAverageQueueWaitMillis() + "");
+      variables.put("average-build-time-in-ms", queue.getAverageBuildMillis() + "");
+    }
+    long estimatedWait = buildExecutor.getEstimatedWaitMillis();
+    variables.put("estimated-wait-in-ms", estimatedWait + "");
+    variables.put("estimated-start-time",
+        dateTimeFormat.format(new Date(System.currentTimeMillis() + estimatedWait)));
+
     return mapToHtml(variables);
   }
 
@@ -369,6 +578,119 @@ public class BuildServer {
     return mapToHtml(variables);
   }
 
+  /**
+   * Exposes the build server's metrics in the Prometheus text format, for scraping. Durations
+   * are histograms, so that percentiles can be computed over any window, and the counters cover
+   * every build since the server started.
+   */
+  @GET
+  @Path("metrics")
+  @Produces(MediaType.TEXT_PLAIN)
+  public Response metrics() {
+    PrometheusWriter writer = new PrometheusWriter();
+    BuildMetrics.getInstance().write(writer);
+
+    // Build requests and queue
+    writer.counter("buildserver_async_build_requests_total", "Asynchronous build requests.",
+        asyncBuildRequests.get(), "outcome", "received");
+    writer.counter("buildserver_async_build_requests_total", "Asynchronous build requests.",
+        rejectedAsyncBuildRequests.get(), "outcome", "rejected");
+    writer.counter("buildserver_async_build_requests_total", "Asynchronous build requests.",
+        successfulBuildRequests.get(), "outcome", "succeeded");
+    writer.counter("buildserver_async_build_requests_total", "Asynchronous build requests.",
+        failedBuildRequests.get(), "outcome", "failed");
+    writer.gauge("buildserver_active_builds", "Builds running now.",
+        buildExecutor.getActiveTaskCount());
+    writer.gauge("buildserver_queued_builds", "Builds waiting to start.",
+        buildExecutor.getQueuedTaskCount());
+    if (buildExecutor instanceof QueuingExecutor) {
+      writer.histogram("buildserver_build_queue_wait_seconds",
+          "Time builds spent in the queue before starting.",
+          ((QueuingExecutor) buildExecutor).getQueueWaits());
+    }
+
+    // Child processes
+    Map<ChildProcessScheduler.Tool, ChildProcessScheduler.ToolStats> tools =
+        ChildProcessScheduler.getInstance().getToolStats();
+    for (Map.Entry<ChildProcessScheduler.Tool, ChildProcessScheduler.ToolStats> entry
+        : tools.entrySet()) {
+      writer.histogram("buildserver_tool_run_seconds", "Time taken by external tools.",
+          entry.getValue().getRunTimes(), "tool", entry.getKey().getStatName());
+    }
+    for (Map.Entry<ChildProcessScheduler.Tool, ChildProcessScheduler.ToolStats> entry
+        : tools.entrySet()) {
+      writer.counter("buildserver_tool_wait_seconds_total",
+          "Time spent waiting for the child process budget.",
+          entry.getValue().getTotalWaitMillis() / 1000.0, "tool", entry.getKey().getStatName());
+    }
+    for (Map.Entry<ChildProcessScheduler.Tool, ChildProcessScheduler.ToolStats> entry
+        : tools.entrySet()) {
+      writer.counter("buildserver_tool_cpu_seconds_total",
+          "CPU time used by forked external tools, as sampled.",
+          entry.getValue().getTotalCpuMillis() / 1000.0, "tool", entry.getKey().getStatName());
+    }
+    for (Map.Entry<ChildProcessScheduler.Tool, ChildProcessScheduler.ToolStats> entry
+        : tools.entrySet()) {
+      if (entry.getValue().getMaxPeakRssKb() >= 0) {
+        writer.gauge("buildserver_tool_peak_rss_bytes",
+            "Highest resident set size of a forked external tool.",
+            entry.getValue().getMaxPeakRssKb() * 1024, "tool", entry.getKey().getStatName());
+      }
+    }
+    for (Map.Entry<ChildProcessScheduler.Tool, ChildProcessScheduler.ToolStats> entry
+        : tools.entrySet()) {
+      writer.counter("buildserver_tool_timeouts_total",
+          "External tools stopped for running too long.",
+          entry.getValue().getTimeouts(), "tool", entry.getKey().getStatName());
+    }
+
+    // Caches
+    DexCache dexCache = commandLineOptions.dexCacheDir == null ? null
+        : DexCache.forDirectory(new File(commandLineOptions.dexCacheDir));
+    YailClassCache yailCache = YailClassCache.getInstance();
+    if (dexCache != null) {
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          dexCache.getHits(), "cache", "dex", "result", "hit");
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          dexCache.getMisses(), "cache", "dex", "result", "miss");
+    }
+    if (yailCache != null) {
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          yailCache.getHits(), "cache", "yail", "result", "hit");
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          yailCache.getMisses(), "cache", "yail", "result", "miss");
+    }
+    AarCache aarCache = AarCache.getInstance();
+    if (aarCache != null) {
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          aarCache.getAarHits(), "cache", "aar", "result", "hit");
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          aarCache.getAarMisses(), "cache", "aar", "result", "miss");
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          aarCache.getResourceHits(), "cache", "merged-resources", "result", "hit");
+      writer.counter("buildserver_cache_lookups_total", "Build cache lookups.",
+          aarCache.getResourceMisses(), "cache", "merged-resources", "result", "miss");
+    }
+    if (dexCache != null) {
+      writer.gauge("buildserver_cache_size_bytes", "Size of a build cache.",
+          dexCache.getSizeBytes(), "cache", "dex");
+    }
+    if (yailCache != null) {
+      writer.gauge("buildserver_cache_size_bytes", "Size of a build cache.",
+          yailCache.getSizeBytes(), "cache", "yail");
+    }
+    if (aarCache != null) {
+      writer.gauge("buildserver_cache_size_bytes", "Size of a build cache.",
+          aarCache.getSizeBytes(), "cache", "aar");
+    }
+
+    // Memory
+    MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    writer.gauge("buildserver_heap_used_bytes", "Heap memory in use.",
+        memoryBean.getHeapMemoryUsage().getUsed());
+    return Response.ok(writer.toString(), PrometheusWriter.CONTENT_TYPE).build();
+  }
+
   private void processStats(String prefix, Stats stats, Map<String, String> variables) {
     variables.put(prefix + "min", stats.getMinTime() + " ms");
     variables.put(prefix + "avg", stats.getAvgTime() + " ms");
@@ -377,6 +699,16 @@ public class BuildServer {
     for (String stage : stats.getStageNames()) {
       processStats(prefix + stage + ".", stats.getStageStats(stage), variables);
     }
+    for (String cache : stats.getCacheNames()) {
+      CacheStats cacheStats = stats.getCacheStats(cache);
+      variables.put(prefix + "cache." + cache + ".hits", cacheStats.getHits() + "");
+      variables.put(prefix + "cache." + cache + ".misses", cacheStats.getMisses() + "");
+      variables.put(prefix + "cache." + cache + ".hit-rate", cacheStats.getHitRate() + "");
+      variables.put(prefix + "cache." + cache + ".bytes-saved", cacheStats.getBytesSaved() + "");
+    }
+    for (String tool : stats.getPeakRssToolNames()) {
+      variables.put(prefix + "rss." + tool + ".peak", stats.getPeakRssKb(tool) + " kB");
+    }
   }
 
   /**
@@ -472,6 +804,7 @@ public class BuildServer {
       build(userName, zipFile, ext, null);
       String attachedFilename = outputApk.getName();
       FileInputStream outputApkDeleteOnClose = new DeleteFileOnCloseFileInputStream(outputApk);
+      BuildMetrics.getInstance().sent(outputApk.length());
       // Set the outputApk field to null so that it won't be deleted in cleanUp().
       outputApk = null;
       return Response.ok(outputApkDeleteOnClose)
@@ -515,6 +848,7 @@ public class BuildServer {
       buildAndCreateZip(userName, inputZipFile, ext, null);
       String attachedFilename = outputZip.getName();
       FileInputStream outputZipDeleteOnClose = new DeleteFileOnCloseFileInputStream(outputZip);
+      BuildMetrics.getInstance().sent(outputZip.length());
       // Set the outputZip field to null so that it won't be deleted in cleanUp().
       outputZip = null;
       return Response.ok(outputZipDeleteOnClose)
@@ -560,6 +894,7 @@ public class BuildServer {
     @QueryParam("callback") final String callbackUrlStr,
     @QueryParam("gitBuildVersion") final String gitBuildVersion,
     @QueryParam("ext") final String ext,
+    @QueryParam("priority") final int priority,
     final File inputZipFile) throws IOException {
     // Set the inputZip field so we can delete the input zip file later in
     // cleanUp.
@@ -638,7 +973,8 @@ public class BuildServer {
                 BufferedInputStream bufferedInputStream = new BufferedInputStream(
                   new FileInputStream(outputZip));
                 try {
-                  ByteStreams.copy(bufferedInputStream,bufferedOutputStream);
+                  long sent = ByteStreams.copy(bufferedInputStream,bufferedOutputStream);
+                  BuildMetrics.getInstance().sent(sent);
                   checkMemory();
                   bufferedOutputStream.flush();
                 } finally {
@@ -661,10 +997,11 @@ public class BuildServer {
           }
         };
       try {
-        buildExecutor.execute(buildTask);
+        buildExecutor.execute(userName,
+            Math.max(MIN_REQUEST_PRIORITY, Math.min(MAX_REQUEST_PRIORITY, priority)), buildTask);
       } catch (RejectedExecutionException e) {
         // This request was rejected because all threads in the build
-        // executor are busy.
+        // executor are busy (and, when queuing, the queue is full).
         rejectedAsyncBuildRequests.incrementAndGet();
         cleanUp();
         // Here, we use SERVICE_UNAVAILABLE (response code 503), which
@@ -673,7 +1010,12 @@ public class BuildServer {
         // overloading or maintenance of the server. The implication
         // is that this is a temporary condition which will be
         // alleviated after some delay."
-        return Response.status(Response.Status.SERVICE_UNAVAILABLE).type(MediaType.TEXT_PLAIN_TYPE).entity("The build server is currently at maximum capacity.").build();
+        // The Retry-After header tells well-behaved clients when a slot is likely to open up, so
+        // that they do not all retry at once.
+        long retryAfter = Math.max(1, buildExecutor.getEstimatedWaitMillis() / 1000);
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).type(MediaType.TEXT_PLAIN_TYPE)
+            .header("Retry-After", retryAfter)
+            .entity("The build server is currently at maximum capacity.").build();
       }
     }
     // Note: The code below should no longer be invoked. Progress reports
@@ -731,6 +1073,7 @@ public class BuildServer {
     // actually be deleted. That's only if the build server is killed (via ctrl+c) while a build
     // is happening, so we should be careful about that.
     outputDir.deleteOnExit();
+    BuildMetrics.getInstance().received(zipFile.length());
     Result buildResult = projectBuilder.build(userName, new ZipFile(zipFile), outputDir, null,
         false, false, false, null,
         commandLineOptions.childProcessRamMb, commandLineOptions.dexCacheDir, reporter, ext);
@@ -804,7 +1147,7 @@ public class BuildServer {
             return;
           }
           while (true) {
-            int tasks = buildExecutor.getActiveTaskCount();
+            int tasks = buildExecutor.getActiveTaskCount() + buildExecutor.getQueuedTaskCount();
             if (tasks <= 0) {
               try {
                 Thread.sleep(10000); // One final wait so people can get
@@ -824,8 +1167,57 @@ public class BuildServer {
 
     // Now that the command line options have been processed, we can create the buildExecutor.
     AndroidBuildFactory.install();
+    if (commandLineOptions.workspaceDir != null) {
+      File workspace = new File(commandLineOptions.workspaceDir);
+      if (!workspace.isDirectory() && !workspace.mkdirs()) {
+        LOG.severe("Unable to create workspace directory " + workspace);
+        System.exit(1);
+      }
+      ProjectBuilder.setWorkspaceRoot(workspace);
+    }
+    DexCache.setDefaultMaxSizeMb(commandLineOptions.dexCacheMaxSizeMb);
+    if (commandLineOptions.yailCacheDir != null) {
+      YailClassCache.configure(new File(commandLineOptions.yailCacheDir),
+          commandLineOptions.yailCacheMaxSizeMb);
+    }
+    if (commandLineOptions.aarCacheDir != null) {
+      AarCache.configure(new File(commandLineOptions.aarCacheDir),
+          commandLineOptions.aarCacheMaxSizeMb);
+    }
+    Compiler.setTaskThreads(commandLineOptions.buildTaskThreads > 0
+        ? commandLineOptions.buildTaskThreads
+        : Runtime.getRuntime().availableProcessors());
+    ChildProcessScheduler.configure(commandLineOptions.childProcessMemoryBudgetMb,
+        commandLineOptions.childProcessRamMb,
+        commandLineOptions.childProcessCores > 0
+            ? commandLineOptions.childProcessCores
+            : Runtime.getRuntime().availableProcessors(),
+        commandLineOptions.childProcessTimeoutSeconds);
+    KeyStoreGenerator.configure(commandLineOptions.keyPairPoolSize);
+    KawaCompilerPool.configure(commandLineOptions.kawaWorkers,
+        commandLineOptions.childProcessRamMb);
+    JavaToolPool.configure(commandLineOptions.javaToolWorkers,
+        commandLineOptions.childProcessRamMb);
+    try {
+      // Parse the component build info now rather than during the first build.
+      ComponentCatalog.getBundled(new Resources());
+    } catch (IOException | JSONException e) {
+      LOG.warning("Unable to load the component build info: " + e.getMessage());
+    }
     // TODO(ewpatton): Enable iOS build factory here when published
-    buildExecutor = new NonQueuingExecutor(commandLineOptions.maxSimultaneousBuilds);
+    if (commandLineOptions.buildQueueSize == 0) {
+      buildExecutor = new NonQueuingExecutor(commandLineOptions.maxSimultaneousBuilds);
+    } else {
+      int workers = commandLineOptions.maxSimultaneousBuilds;
+      if (workers == 0) {
+        // A queue needs a bounded number of workers to be useful.
+        workers = Runtime.getRuntime().availableProcessors();
+        LOG.warning("--buildQueueSize requires --maxSimultaneousBuilds; using " + workers);
+      }
+      buildExecutor = new QueuingExecutor(workers, commandLineOptions.buildQueueSize,
+          commandLineOptions.maxQueuedBuildsPerUser,
+          commandLineOptions.maxBuildQueueWaitSeconds * 1000L);
+    }
 
     int port = commandLineOptions.port;
     SelectorThread threadSelector = GrizzlyServerFactory.create("http://localhost:" + port + "/");
@@ -833,10 +1225,14 @@ public class BuildServer {
     LOG.info("App Inventor Build Server - Version: " + GitBuildId.getVersion());
     LOG.info("App Inventor Build Server - Git Fingerprint: " + GitBuildId.getFingerprint());
     LOG.info("Running at: http://" + hostAddress + ":" + port + "/buildserver");
-    if (commandLineOptions.maxSimultaneousBuilds == 0) {
+    if (buildExecutor.getMaxActiveTasks() == 0) {
       LOG.info("Maximum simultanous builds = unlimited!");
     } else {
-      LOG.info("Maximum simultanous builds = " + commandLineOptions.maxSimultaneousBuilds);
+      LOG.info("Maximum simultanous builds = " + buildExecutor.getMaxActiveTasks());
+    }
+    if (commandLineOptions.buildQueueSize != 0) {
+      LOG.info("Build queue size = " + (commandLineOptions.buildQueueSize < 0 ? "unlimited"
+          : commandLineOptions.buildQueueSize));
     }
     LOG.info("Visit: http://" + hostAddress + ":" + port +
       "/buildserver/health for server health");
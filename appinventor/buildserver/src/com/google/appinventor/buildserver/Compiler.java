@@ -9,11 +9,22 @@ package com.google.appinventor.buildserver;
 import com.google.appinventor.buildserver.context.CompilerContext;
 import com.google.appinventor.buildserver.context.Paths;
 import com.google.appinventor.buildserver.interfaces.Task;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import com.google.appinventor.buildserver.stats.BuildMetrics;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,12 +37,20 @@ import java.util.logging.Logger;
  * style pattern, where receives build information, and then
  * {@link Task} can be added.</p>
  *
+ * <p>Tasks declare the tasks they depend on with {@link DependsOn}. A task starts as soon as
+ * its dependencies have finished, so independent tasks may run concurrently on the shared
+ * executor configured with {@link #setTaskThreads(int)}.</p>
+ *
  * @see CompilerContext
  *
  * @author diego@barreiro.xyz (Diego Barreiro)
  */
 public class Compiler<P extends Paths, T extends CompilerContext<P>> implements Callable<Boolean> {
   private static final Logger LOG = Logger.getLogger(Compiler.class.getName());
+
+  // Runs the tasks of all builds. Null runs each build's tasks on the build's own thread.
+  private static volatile ExecutorService taskExecutor = null;
+
   private final List<Class<? extends Task<? super T>>> tasks;
   private T context;
   private String ext = BuildType.APK_EXTENSION;
@@ -83,6 +102,7 @@ public class Compiler<P extends Paths, T extends CompilerContext<P>> implements
       Compiler<P, T> compiler = new Compiler<>();
       compiler.context = context;
       compiler.ext = ext;
+      context.setCompiler(compiler);
       return compiler;
     }
   }
@@ -102,6 +122,42 @@ public class Compiler<P extends Paths, T extends CompilerContext<P>> implements
     return this;
   }
 
+  /**
+   * Sets the number of threads, shared by all builds, that run independent tasks concurrently.
+   * With 1 or fewer threads, the tasks of a build run one after another on the thread calling
+   * {@link #call()}.
+   *
+   * @param threads the number of threads
+   */
+  public static synchronized void setTaskThreads(int threads) {
+    ExecutorService previous = taskExecutor;
+    if (threads <= 1) {
+      taskExecutor = null;
+    } else {
+      final AtomicInteger count = new AtomicInteger(0);
+      taskExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "BuildTask-" + count.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    if (previous != null) {
+      previous.shutdown();
+    }
+    LOG.info("Build task threads = " + Math.max(1, threads));
+  }
+
+  /**
+   * Returns the executor shared by all builds for independent work, or null if each build runs
+   * its work on its own thread.
+   */
+  static Executor getTaskExecutor() {
+    return taskExecutor;
+  }
+
   // "Main" method that returns either true or false, depending
   // on result.
   @Override
@@ -109,7 +165,14 @@ public class Compiler<P extends Paths, T extends CompilerContext<P>> implements
     // Initializes progress to 0.
     context.getReporter().setProgress(0);
     context.getStatReporter().startBuild(this);
-    int numTasks = this.tasks.size();
+    long start = System.currentTimeMillis();
+    boolean success = runTasks();
+    BuildMetrics.getInstance().buildFinished(ext, success, System.currentTimeMillis() - start);
+    return success;
+  }
+
+  private boolean runTasks() {
+    final int numTasks = this.tasks.size();
 
     // If no tasks, we technically have successfully built everything.
     if (numTasks == 0) {
@@ -118,75 +181,212 @@ public class Compiler<P extends Paths, T extends CompilerContext<P>> implements
       return true;
     }
 
+    // Work out the dependencies of every task before running any of them.
+    int[] unmetDependencies = new int[numTasks];
+    List<List<Integer>> dependents = new ArrayList<>();
     for (int i = 0; i < numTasks; i++) {
-      // We accept Classes, but not initialized ones.
-      Class<? extends Task<?>> task = this.tasks.get(i);
-      String taskName = task.getSimpleName();
-
-      // We try to initialize a Task instance.
-      Object taskObject;
-      try {
-        taskObject = task.newInstance();
-      } catch (IllegalAccessException | InstantiationException e) {
-        LOG.log(Level.SEVERE, "Could not create new task " + taskName, e);
-        context.getReporter().error("Could not create new task " + taskName);
+      dependents.add(new ArrayList<Integer>());
+    }
+    for (int i = 0; i < numTasks; i++) {
+      Class<? extends Task<? super T>> task = this.tasks.get(i);
+      if (!checkBuildType(task)) {
         return false;
       }
-
-      // Task's will have an annotation to make sure they only run in
-      // the specified build type. If no annotation present, we throw
-      // a warning.
-      if (task.isAnnotationPresent(BuildType.class)) {
-        BuildType buildType = task.getAnnotation(BuildType.class);
-        switch (ext) {
-          case BuildType.AAB_EXTENSION:
-            if (!buildType.aab()) {
-              context.getReporter().error("Task " + taskName + " does not support builds on AABs!");
-              return false;
-            }
-            break;
-          default:
-          case BuildType.APK_EXTENSION:
-            if (!buildType.apk()) {
-              context.getReporter().error("Task " + taskName + " does not support builds on APKs!");
-              return false;
-            }
-            break;
+      Set<Integer> dependencies = new HashSet<>();
+      if (task.isAnnotationPresent(DependsOn.class)) {
+        for (Class<?> dependency : task.getAnnotation(DependsOn.class).value()) {
+          int index = this.tasks.indexOf(dependency);
+          if (index >= i) {
+            context.getReporter().error("Task " + task.getSimpleName() + " depends on "
+                + dependency.getSimpleName() + ", which is added after it");
+            return false;
+          } else if (index >= 0) {
+            dependencies.add(index);
+          }
         }
       } else {
-        context.getReporter().warn("Task " + taskName + " does not contain build type targets!");
+        for (int j = 0; j < i; j++) {
+          dependencies.add(j);
+        }
       }
+      unmetDependencies[i] = dependencies.size();
+      for (int index : dependencies) {
+        dependents.get(index).add(i);
+      }
+    }
 
-      // Get the current time to know the time needed to execute it.
-      context.getReporter().taskStart(taskName);
-      context.getStatReporter().nextStage(this, task.getSimpleName());
-      long start = System.currentTimeMillis();
-
-      // And then invoke the execute(ExecutorContext) method to run the Task.
-      TaskResult result;
+    // Run every task whose dependencies have finished. Tasks that are ready at the same time
+    // run concurrently when a task executor is configured.
+    Executor executor = taskExecutor;
+    final boolean concurrent = executor != null;
+    if (!concurrent) {
+      executor = new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+          runnable.run();
+        }
+      };
+    }
+    CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+    final boolean[] succeeded = new boolean[numTasks];
+    // The threads running tasks of this build, so that they can be interrupted once the build
+    // has failed. Guarded by itself.
+    final Set<Thread> taskThreads = new HashSet<>();
+    Deque<Integer> ready = new ArrayDeque<>();
+    for (int i = 0; i < numTasks; i++) {
+      if (unmetDependencies[i] == 0) {
+        ready.add(i);
+      }
+    }
+    int running = 0;
+    int finished = 0;
+    boolean failed = false;
+    while (true) {
+      while (!failed && !ready.isEmpty() && (concurrent || running == 0)) {
+        final int index = ready.poll();
+        completion.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            synchronized (taskThreads) {
+              taskThreads.add(Thread.currentThread());
+            }
+            try {
+              succeeded[index] = runTask(tasks.get(index));
+            } finally {
+              synchronized (taskThreads) {
+                taskThreads.remove(Thread.currentThread());
+                if (concurrent) {
+                  // Do not pass on an interrupt meant for this task to the next task run by the
+                  // shared thread.
+                  Thread.interrupted();
+                }
+              }
+            }
+            return index;
+          }
+        });
+        running++;
+      }
+      if (running == 0) {
+        break;
+      }
+      int index;
       try {
-        Method execute = task.getMethod("execute", CompilerContext.class);
-        result = (TaskResult) execute.invoke(taskObject, context);
-      } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-        context.getReporter().taskError(-1);
-        LOG.log(Level.SEVERE, "Error running task " + task, e);
+        index = completion.take().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        context.getReporter().error("Build was interrupted");
+        cancelTasks(taskThreads);
         return false;
-      }
-      double endTime = (System.currentTimeMillis() - start) / 1000.0;
-
-      // Make sure result is success, else we'll throw an error and don't run
-      // more tasks.
-      if (result == null || !result.isSuccess()) {
-        context.getReporter().error(result == null || result.getError() == null
-            ? "Unknown exception" : result.getError().getMessage(), true);
-        context.getReporter().taskError(endTime);
+      } catch (ExecutionException e) {
+        // runTask catches everything a task may throw, so this is not expected.
+        LOG.log(Level.SEVERE, "Error running task", e);
+        cancelTasks(taskThreads);
         return false;
       }
-
+      running--;
+      finished++;
+      if (!succeeded[index]) {
+        // Interrupt the tasks still running, wait for them to end and do not start any more.
+        failed = true;
+        cancelTasks(taskThreads);
+        continue;
+      }
+      for (int dependent : dependents.get(index)) {
+        if (--unmetDependencies[dependent] == 0) {
+          ready.add(dependent);
+        }
+      }
       // Update progress depending on the number of steps.
-      context.getReporter().setProgress(((i + 1) * 100) / numTasks);
-      context.getReporter().taskSuccess(endTime);
+      context.getReporter().setProgress((finished * 100) / numTasks);
+    }
+    return !failed && finished == numTasks;
+  }
+
+  private static void cancelTasks(Set<Thread> taskThreads) {
+    synchronized (taskThreads) {
+      for (Thread thread : taskThreads) {
+        thread.interrupt();
+      }
+    }
+  }
+
+  /**
+   * Tasks will have an annotation to make sure they only run in the specified build type. If no
+   * annotation is present, we log a warning.
+   */
+  private boolean checkBuildType(Class<? extends Task<? super T>> task) {
+    String taskName = task.getSimpleName();
+    if (task.isAnnotationPresent(BuildType.class)) {
+      BuildType buildType = task.getAnnotation(BuildType.class);
+      switch (ext) {
+        case BuildType.AAB_EXTENSION:
+          if (!buildType.aab()) {
+            context.getReporter().error("Task " + taskName + " does not support builds on AABs!");
+            return false;
+          }
+          break;
+        default:
+        case BuildType.APK_EXTENSION:
+          if (!buildType.apk()) {
+            context.getReporter().error("Task " + taskName + " does not support builds on APKs!");
+            return false;
+          }
+          break;
+      }
+    } else {
+      context.getReporter().warn("Task " + taskName + " does not contain build type targets!");
+    }
+    return true;
+  }
+
+  /**
+   * Runs a single task, reporting its progress and duration.
+   *
+   * @return true if the task succeeded, false otherwise
+   */
+  private boolean runTask(Class<? extends Task<? super T>> task) {
+    String taskName = task.getSimpleName();
+
+    // We try to initialize a Task instance.
+    Task<? super T> taskObject;
+    try {
+      taskObject = task.newInstance();
+    } catch (IllegalAccessException | InstantiationException e) {
+      LOG.log(Level.SEVERE, "Could not create new task " + taskName, e);
+      context.getReporter().error("Could not create new task " + taskName);
+      return false;
+    }
+
+    // Get the current time to know the time needed to execute it.
+    context.getReporter().taskStart(taskName);
+    context.getStatReporter().nextStage(this, taskName);
+    long start = System.currentTimeMillis();
+
+    TaskResult result;
+    try {
+      result = taskObject.execute(context);
+    } catch (Throwable e) {
+      // Errors are caught too, so that the build fails and its other tasks are stopped.
+      context.getReporter().taskError(-1);
+      LOG.log(Level.SEVERE, "Error running task " + task, e);
+      return false;
+    }
+    long millis = System.currentTimeMillis() - start;
+    context.getStatReporter().stageFinished(this, taskName, millis);
+    BuildMetrics.getInstance().taskFinished(ext, taskName, millis);
+    double endTime = millis / 1000.0;
+
+    // Make sure result is success, else we'll throw an error and don't run
+    // more tasks.
+    if (result == null || !result.isSuccess()) {
+      context.getReporter().error(result == null || result.getError() == null
+          ? "Unknown exception" : result.getError().getMessage(), true);
+      context.getReporter().taskError(endTime);
+      return false;
     }
+
+    context.getReporter().taskSuccess(endTime);
     return true;
   }
 
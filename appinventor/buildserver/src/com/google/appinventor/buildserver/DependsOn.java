@@ -0,0 +1,31 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.interfaces.Task;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the tasks whose results a task uses. The {@link Compiler} may run a task as soon as
+ * all of its dependencies that are part of the build have finished, possibly at the same time as
+ * other tasks.
+ *
+ * <p>Dependencies must be added to the compiler before the task itself. Dependencies that are
+ * not part of the build, such as RunAapt in an AAB build, are ignored. A task without this
+ * annotation runs after every task added before it.</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DependsOn {
+  /**
+   * The tasks that must finish before the annotated task starts.
+   */
+  Class<? extends Task<?>>[] value() default {};
+}
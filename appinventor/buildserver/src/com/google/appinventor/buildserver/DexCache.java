@@ -0,0 +1,324 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.util.FileDigests;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A content-addressed cache of pre-dexed libraries, shared by all builds using the same cache
+ * directory.
+ *
+ * <p>Entries are named after the MD5 hash of the library they were produced from. Different
+ * libraries are dexed in parallel; concurrent requests for the same library wait for the build
+ * that is already dexing it. A new entry is written to a temporary file and renamed into place,
+ * so a partially written entry is never visible.</p>
+ *
+ * <p>When the cache grows past its size limit, the least recently used entries are deleted.
+ * Entries in use by a running build are never deleted. Recency is kept in the modification time
+ * of the entry so that it survives restarts of the build server.</p>
+ */
+public final class DexCache {
+  private static final Logger LOG = Logger.getLogger(DexCache.class.getName());
+
+  public static final long DEFAULT_MAX_SIZE_MB = 1024;
+
+  private static final String PREFIX = "dex-cached-";
+  private static final String SUFFIX = ".jar";
+  private static final String TEMP_PREFIX = "tmp-";
+
+  private static final Map<File, DexCache> CACHES = new HashMap<>();
+
+  private static long defaultMaxSizeBytes = DEFAULT_MAX_SIZE_MB * 1024 * 1024;
+
+  /**
+   * Produces the pre-dexed version of a library.
+   */
+  public interface Builder {
+    /**
+     * Dexes the library into {@code output}.
+     *
+     * @return {@code true} if dexing succeeded, {@code false} otherwise
+     */
+    boolean build(File output);
+  }
+
+  /**
+   * A cache entry in use by a build. The entry cannot be evicted until it is closed.
+   */
+  public final class Entry implements Closeable {
+    private final String hash;
+    private final File file;
+    private boolean closed = false;
+
+    private Entry(String hash, File file) {
+      this.hash = hash;
+      this.file = file;
+    }
+
+    public File getFile() {
+      return file;
+    }
+
+    @Override
+    public void close() {
+      synchronized (DexCache.this) {
+        if (!closed) {
+          closed = true;
+          unpin(hash);
+        }
+      }
+    }
+  }
+
+  private final File dir;
+  private volatile long maxSizeBytes;
+
+  // Serializes the builds of a single entry.
+  private final ConcurrentMap<String, Object> entryLocks = new ConcurrentHashMap<>();
+
+  // Number of builds using each entry. Guarded by this.
+  private final Map<String, Integer> pins = new HashMap<>();
+
+  private final AtomicLong hits = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+  private final AtomicLong failures = new AtomicLong(0);
+  private final AtomicLong evictions = new AtomicLong(0);
+  private volatile long sizeBytes;
+
+  private DexCache(File dir, long maxSizeBytes) {
+    this.dir = dir;
+    this.maxSizeBytes = maxSizeBytes;
+    this.sizeBytes = totalSize(listEntries());
+  }
+
+  /**
+   * Returns the cache stored in {@code dir}, creating it if needed.
+   */
+  public static DexCache forDirectory(File dir) {
+    File key = dir.getAbsoluteFile();
+    synchronized (CACHES) {
+      DexCache cache = CACHES.get(key);
+      if (cache == null) {
+        cache = new DexCache(key, defaultMaxSizeBytes);
+        CACHES.put(key, cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Sets the size limit of caches. 0 or less means unlimited.
+   */
+  public static void setDefaultMaxSizeMb(long maxSizeMb) {
+    synchronized (CACHES) {
+      defaultMaxSizeBytes = maxSizeMb > 0 ? maxSizeMb * 1024 * 1024 : 0;
+      for (DexCache cache : CACHES.values()) {
+        cache.maxSizeBytes = defaultMaxSizeBytes;
+      }
+    }
+  }
+
+  /**
+   * Returns the pre-dexed version of {@code input}, building it with {@code builder} if it is not
+   * in the cache. The caller must close the returned entry once it no longer needs the file.
+   *
+   * @param input the library to pre-dex
+   * @param builder produces the pre-dexed library on a cache miss
+   * @return the cache entry, or null if {@code builder} failed
+   * @throws IOException if the library cannot be read or the entry cannot be stored
+   */
+  public Entry acquire(File input, Builder builder) throws IOException {
+    String hash = hashOf(input);
+    File target = new File(dir, PREFIX + hash + SUFFIX);
+    Entry entry = tryPin(hash, target);
+    if (entry != null) {
+      hits.incrementAndGet();
+      return entry;
+    }
+    Object lock = entryLocks.get(hash);
+    if (lock == null) {
+      Object newLock = new Object();
+      lock = entryLocks.putIfAbsent(hash, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    synchronized (lock) {
+      // Another build may have published the entry while we waited.
+      entry = tryPin(hash, target);
+      if (entry != null) {
+        hits.incrementAndGet();
+        return entry;
+      }
+      misses.incrementAndGet();
+      // dx picks its output format from the extension, so the temporary file must end in .jar.
+      File temp = File.createTempFile(TEMP_PREFIX, "-" + target.getName(), dir);
+      try {
+        if (!temp.delete() || !builder.build(temp) || !temp.isFile()) {
+          failures.incrementAndGet();
+          return null;
+        }
+        entry = publish(hash, temp, target);
+      } finally {
+        if (temp.exists() && !temp.delete()) {
+          LOG.warning("Unable to delete " + temp);
+        }
+        entryLocks.remove(hash, lock);
+      }
+    }
+    evict();
+    return entry;
+  }
+
+  private synchronized Entry tryPin(String hash, File target) {
+    if (!target.isFile()) {
+      return null;
+    }
+    if (!target.setLastModified(System.currentTimeMillis())) {
+      LOG.fine("Unable to update the modification time of " + target);
+    }
+    return pin(hash, target);
+  }
+
+  private synchronized Entry publish(String hash, File temp, File target) throws IOException {
+    if (target.isFile()) {
+      // Another build server sharing the directory published the entry first. Keep its copy,
+      // which is already counted in the size of the cache and may be in use.
+      return pin(hash, target);
+    }
+    try {
+      Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp.toPath(), target.toPath(),
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+    sizeBytes += target.length();
+    return pin(hash, target);
+  }
+
+  private Entry pin(String hash, File target) {
+    Integer count = pins.get(hash);
+    pins.put(hash, count == null ? 1 : count + 1);
+    return new Entry(hash, target);
+  }
+
+  private void unpin(String hash) {
+    Integer count = pins.get(hash);
+    if (count == null || count <= 1) {
+      pins.remove(hash);
+    } else {
+      pins.put(hash, count - 1);
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries that are not in use until the cache fits its size
+   * limit.
+   */
+  synchronized void evict() {
+    File[] entries = listEntries();
+    long total = totalSize(entries);
+    long limit = maxSizeBytes;
+    if (limit > 0 && total > limit) {
+      Arrays.sort(entries, new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+          return Long.compare(a.lastModified(), b.lastModified());
+        }
+      });
+      for (File file : entries) {
+        if (total <= limit) {
+          break;
+        }
+        String name = file.getName();
+        String hash = name.substring(PREFIX.length(), name.length() - SUFFIX.length());
+        if (pins.containsKey(hash)) {
+          continue;
+        }
+        long length = file.length();
+        if (file.delete()) {
+          total -= length;
+          evictions.incrementAndGet();
+          LOG.info("Evicted pre-dexed library " + name);
+        }
+      }
+    }
+    sizeBytes = total;
+  }
+
+  private File[] listEntries() {
+    File[] entries = dir.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        String name = file.getName();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX) && file.isFile();
+      }
+    });
+    return entries == null ? new File[0] : entries;
+  }
+
+  private static long totalSize(File[] entries) {
+    long total = 0;
+    for (File file : entries) {
+      total += file.length();
+    }
+    return total;
+  }
+
+  private String hashOf(File input) throws IOException {
+    try {
+      return FileDigests.md5(input);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to hash " + input, e);
+      throw e;
+    }
+  }
+
+  public File getDirectory() {
+    return dir;
+  }
+
+  public long getMaxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  public long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getFailures() {
+    return failures.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+}
@@ -16,20 +16,15 @@
 
 package com.google.appinventor.buildserver;
 
-import com.google.appinventor.buildserver.util.Execution;
-import com.google.common.hash.HashCode;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
+import com.google.appinventor.buildserver.context.CompilerContext;
+import com.google.appinventor.buildserver.util.ChildProcessScheduler;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Dex task, modified from the Android SDK to run in BuildServer.
@@ -44,12 +39,9 @@ public class DexExecTask {
     private boolean mNoLocals = false;
     private int mChildProcessRamMb = 1024;
     private boolean mDisableDexMerger = false;
-    private static Map<String, String> alreadyChecked = new HashMap<String, String>();
     private String mainDexFile = null;
     private boolean mPredex = true;
-
-    private static final Object semaphore = new Object(); // Used to protect dex cache creation
-
+    private CompilerContext<?> mContext = null;
 
     /**
      * Sets the value of the "executable" attribute.
@@ -107,87 +99,80 @@ public class DexExecTask {
         mChildProcessRamMb = mb;
     }
 
+    /**
+     * Sets the context of the build, to which the time spent waiting to run dx is reported.
+     *
+     * @param context the build context.
+     */
+    public void setContext(CompilerContext<?> context) {
+        mContext = context;
+    }
+
     public void setDisableDexMerger(boolean disable) {
         mDisableDexMerger = disable;
     }
 
-    private boolean preDexLibraries(List<File> inputs) {
+    private boolean preDexLibraries(List<File> inputs, List<DexCache.Entry> entries) {
         if (mDisableDexMerger || inputs.size() == 1) {
             // only one input, no need to put a pre-dexed version, even if this path is
             // just a jar file (case for proguard'ed builds)
             return true;
         }
 
-        synchronized (semaphore) {
-
-            final int count = inputs.size();
-            for (int i = 0; i < count; i++) {
-                File input = inputs.get(i);
-                if (input.isFile()) {
-                    // check if this libs needs to be pre-dexed
-                    String fileName = getDexFileName(input);
-                    File dexedLib = new File(mDexedLibs, fileName);
-                    String dexedLibPath = dexedLib.getAbsolutePath();
-
-                    if (!dexedLib.isFile()/*||
-                                                    dexedLib.lastModified() < input.lastModified()*/) {
-
-                        System.out.println(
-                            String.format("Pre-Dexing %1$s -> %2$s",
-                              input.getAbsolutePath(), fileName));
-
-                        if (dexedLib.isFile()) {
-                            dexedLib.delete();
+        DexCache cache = DexCache.forDirectory(new File(mDexedLibs));
+        final int count = inputs.size();
+        for (int i = 0; i < count; i++) {
+            final File input = inputs.get(i);
+            if (input.isFile()) {
+                DexCache.Entry entry;
+                try {
+                    entry = cache.acquire(input, new DexCache.Builder() {
+                        @Override
+                        public boolean build(File output) {
+                            System.out.println(
+                                String.format("Pre-Dexing %1$s -> %2$s",
+                                  input.getAbsolutePath(), output.getName()));
+                            return runDx(input, output.getAbsolutePath(), /*showInputs=*/ false);
                         }
-
-                        boolean dexSuccess = runDx(input, dexedLibPath, /*showInputs=*/ false);
-                        if (!dexSuccess) return false;
-                    } else {
-                        System.out.println(
-                            String.format("Using Pre-Dexed %1$s <- %2$s",
-                              fileName, input.getAbsolutePath()));
-                    }
-
-                    // replace the input with the pre-dex libs.
-                    inputs.set(i, dexedLib);
+                    });
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return false;
                 }
-            }
-            return true;
-        }
-    }
-
-    private String getDexFileName(File inputFile) {
-        String hashed = getHashFor(inputFile);
-        return "dex-cached-" + hashed + ".jar";
-    }
+                if (entry == null) {
+                    return false;
+                }
+                entries.add(entry);
+                System.out.println(
+                    String.format("Using Pre-Dexed %1$s <- %2$s",
+                      entry.getFile().getName(), input.getAbsolutePath()));
 
-    private String getHashFor(File inputFile) {
-        String retval = alreadyChecked.get(inputFile.getAbsolutePath());
-        if (retval != null) return retval;
-        // add a hash of the original file path
-        try {
-            HashFunction hashFunction = Hashing.md5();
-            HashCode hashCode = hashFunction.hashBytes(Files.readAllBytes(inputFile.toPath()));
-            retval = hashCode.toString();
-            alreadyChecked.put(inputFile.getAbsolutePath(), retval);
-            return retval;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return "ERROR";
+                // replace the input with the pre-dex libs.
+                inputs.set(i, entry.getFile());
+            }
         }
+        return true;
     }
 
     public boolean execute(List<File> paths) {
-        // pre dex libraries if needed
-        if (mPredex) {
-            boolean successPredex = preDexLibraries(paths);
-            if (!successPredex) return false;
-        }
+        // Cache entries are held until the final dx run has read them.
+        List<DexCache.Entry> entries = new ArrayList<DexCache.Entry>();
+        try {
+            // pre dex libraries if needed
+            if (mPredex) {
+                boolean successPredex = preDexLibraries(paths, entries);
+                if (!successPredex) return false;
+            }
 
-        System.out.println(String.format(
-            "Converting compiled files and external libraries into %1$s...", mOutput));
+            System.out.println(String.format(
+                "Converting compiled files and external libraries into %1$s...", mOutput));
 
-        return runDx(paths, mOutput, mVerbose /*showInputs*/);
+            return runDx(paths, mOutput, mVerbose /*showInputs*/);
+        } finally {
+            for (DexCache.Entry entry : entries) {
+                entry.close();
+            }
+        }
     }
 
     private boolean runDx(File input, String output, boolean showInputs) {
@@ -198,11 +183,6 @@ public class DexExecTask {
         int mx = mChildProcessRamMb - 200;
 
         List<String> commandLineList = new ArrayList<String>();
-        commandLineList.add(System.getProperty("java.home") + "/bin/java");
-        commandLineList.add("-mx" + mx + "M");
-        commandLineList.add("-jar");
-        commandLineList.add(mExecutable);
-
         commandLineList.add("--dex");
         commandLineList.add("--positions=lines");
 
@@ -230,13 +210,9 @@ public class DexExecTask {
             commandLineList.add(absPath);
         }
 
-        // Convert command line to an array
-        String[] dxCommandLine = new String[commandLineList.size()];
-        commandLineList.toArray(dxCommandLine);
-
-        boolean dxSuccess = Execution.execute(null, dxCommandLine, System.out, System.err);
-        return dxSuccess;
-
+        return ChildProcessScheduler.getInstance().executeJar(mContext,
+            ChildProcessScheduler.Tool.DX, mx, mExecutable, commandLineList,
+            System.out, System.err);
     }
 
     protected String getExecTaskName() {
@@ -6,12 +6,10 @@
 
 package com.google.appinventor.buildserver;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import com.google.appinventor.components.common.FileScope;
 import com.google.appinventor.components.common.Permission;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -45,6 +43,19 @@ public class FormPropertiesAnalyzer {
   // Logging support
   private static final Logger LOG = Logger.getLogger(FormPropertiesAnalyzer.class.getName());
 
+  // Creating a reader looks up the parser implementation and allocates its tables, which costs
+  // more than parsing a small blocks file, so each thread reuses one.
+  private static final ThreadLocal<XMLReader> BLOCKS_READER = new ThreadLocal<XMLReader>() {
+    @Override
+    protected XMLReader initialValue() {
+      try {
+        return XMLReaderFactory.createXMLReader();
+      } catch (SAXException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  };
+
   private FormPropertiesAnalyzer() {
   }
 
@@ -88,10 +99,17 @@ public class FormPropertiesAnalyzer {
    * Returns the Set of component types used in the given form file source.
    */
   public static Set<String> getComponentTypesFromFormFile(String source) {
+    return getComponentTypes(parseSourceFile(source));
+  }
+
+  /**
+   * Returns the Set of component types used in a form already parsed with
+   * {@link #parseSourceFile(String)}.
+   */
+  static Set<String> getComponentTypes(JSONObject form) {
     Set<String> componentTypes = new HashSet<String>();
-    JSONObject propertiesObject = parseSourceFile(source);
     try {
-      collectComponentTypes(propertiesObject.getJSONObject("Properties"), componentTypes);
+      collectComponentTypes(form.getJSONObject("Properties"), componentTypes);
     } catch (JSONException e) {
       throw new IllegalArgumentException("Unable to parse file - invalid $JSON section syntax");
     }
@@ -402,7 +420,7 @@ public class FormPropertiesAnalyzer {
       return;  // Empty blocks file, so nothing to do.
     }
     try {
-      XMLReader reader = XMLReaderFactory.createXMLReader();
+      XMLReader reader = BLOCKS_READER.get();
       reader.setContentHandler(new DefaultHandler() {
         @Override
         public void startElement(String uri, String localName, String qname, Attributes attributes)
@@ -429,7 +447,7 @@ public class FormPropertiesAnalyzer {
           super.endElement(uri, localName, qname);
         }
       });
-      reader.parse(new InputSource(new ByteArrayInputStream(source.getBytes(UTF_8))));
+      reader.parse(new InputSource(new StringReader(source)));
     } catch (SAXException | IOException e) {
       throw new IllegalStateException(e);
     }
@@ -443,8 +461,19 @@ public class FormPropertiesAnalyzer {
    * @throws JSONException if the form's properties field is missing
    */
   public static String getFormOrientation(String source) throws JSONException {
-    JSONObject propertiesObject = parseSourceFile(source);
-    JSONObject props = propertiesObject.getJSONObject("Properties");
+    return getFormOrientation(parseSourceFile(source));
+  }
+
+  /**
+   * Returns the orientation set by the user of a form already parsed with
+   * {@link #parseSourceFile(String)}.
+   *
+   * @param form the parsed form
+   * @return the screen orientation
+   * @throws JSONException if the form's properties field is missing
+   */
+  static String getFormOrientation(JSONObject form) throws JSONException {
+    JSONObject props = form.getJSONObject("Properties");
     return props.optString("ScreenOrientation", "unspecified");
   }
 }
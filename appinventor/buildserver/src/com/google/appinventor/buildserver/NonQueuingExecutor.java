@@ -18,7 +18,7 @@ import java.util.logging.Logger;
  *
  * @author lizlooney@google.com (Liz Looney)
  */
-final class NonQueuingExecutor implements Executor {
+final class NonQueuingExecutor implements BuildExecutor {
   // The maximum number of active tasks. O means unlimited.
   private final int maxActiveTasks;
 
@@ -40,6 +40,12 @@ final class NonQueuingExecutor implements Executor {
     this.maxActiveTasks = maxActiveTasks;
   }
 
+  @Override
+  public void execute(String userName, int priority, Runnable runnable) {
+    // Builds are never queued, so neither the user nor the priority matter here.
+    execute(runnable);
+  }
+
   @Override
   public void execute(final Runnable runnable) {
     synchronized (lockExecute) {
@@ -64,15 +70,28 @@ final class NonQueuingExecutor implements Executor {
     }
   }
 
+  @Override
   public int getMaxActiveTasks() {
     return maxActiveTasks;
   }
 
+  @Override
   public int getActiveTaskCount() {
     return activeTaskCount.get();
   }
 
+  @Override
   public int getCompletedTaskCount() {
     return completedTaskCount.get();
   }
+
+  @Override
+  public int getQueuedTaskCount() {
+    return 0;
+  }
+
+  @Override
+  public long getEstimatedWaitMillis() {
+    return 0;
+  }
 }
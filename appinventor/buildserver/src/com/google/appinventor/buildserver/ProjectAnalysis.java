@@ -0,0 +1,183 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.FormPropertiesAnalyzer.ComponentBlocksExtractor;
+import com.google.appinventor.buildserver.FormPropertiesAnalyzer.PermissionBlockExtractor;
+import com.google.appinventor.buildserver.FormPropertiesAnalyzer.ScopeBlockExtractor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * The information a build needs from the Screens of a project: the components they use, the
+ * component blocks, the permissions and file scopes requested by helper blocks, and the screen
+ * orientations.
+ *
+ * <p>Each Screen's form (.scm) file is parsed once, and its blocks (.bky) file is read in a
+ * single SAX pass feeding all of the block analyzers. Screens are analyzed independently, so
+ * they can run concurrently.</p>
+ */
+final class ProjectAnalysis {
+  private final Set<String> componentNames = new HashSet<>();
+  private final Map<String, Set<String>> componentBlocks = new HashMap<>();
+  private final Set<String> blockPermissions = new HashSet<>();
+  private final Set<String> scopes = new HashSet<>();
+  private final Map<String, String> formOrientations = new HashMap<>();
+
+  /**
+   * The results for a single Screen.
+   */
+  private static final class ScreenAnalysis implements Callable<ScreenAnalysis> {
+    private final String name;
+    private final byte[] form;
+    private final byte[] blocks;
+    private final ComponentBlocksExtractor componentBlocks = new ComponentBlocksExtractor();
+    private final PermissionBlockExtractor permissions = new PermissionBlockExtractor();
+    private final ScopeBlockExtractor scopes = new ScopeBlockExtractor();
+    private Set<String> componentNames;
+    private String orientation;
+
+    ScreenAnalysis(String name, byte[] form, byte[] blocks) {
+      this.name = name;
+      this.form = form;
+      this.blocks = blocks;
+    }
+
+    @Override
+    public ScreenAnalysis call() throws JSONException {
+      if (form != null) {
+        JSONObject parsed = FormPropertiesAnalyzer.parseSourceFile(
+            new String(form, StandardCharsets.UTF_8));
+        componentNames = FormPropertiesAnalyzer.getComponentTypes(parsed);
+        orientation = FormPropertiesAnalyzer.getFormOrientation(parsed);
+      }
+      if (blocks != null) {
+        FormPropertiesAnalyzer.analyzeBlocks(new String(blocks, StandardCharsets.UTF_8),
+            componentBlocks, permissions, scopes);
+      }
+      return this;
+    }
+  }
+
+  private ProjectAnalysis() {
+  }
+
+  /**
+   * Analyzes the Screens of a project.
+   *
+   * @param forms the contents of the form files, keyed by Screen name
+   * @param blocks the contents of the blocks files, keyed by Screen name
+   * @param executor the executor on which to analyze the Screens, or null to analyze them on the
+   *     calling thread
+   * @return the analysis
+   * @throws JSONException if a form is missing its properties
+   * @throws InterruptedException if interrupted while waiting for the Screens to be analyzed
+   */
+  static ProjectAnalysis analyze(Map<String, byte[]> forms, Map<String, byte[]> blocks,
+      Executor executor) throws JSONException, InterruptedException {
+    Set<String> screens = new TreeSet<>(forms.keySet());
+    screens.addAll(blocks.keySet());
+    List<ScreenAnalysis> analyses = new ArrayList<>();
+    for (String screen : screens) {
+      analyses.add(new ScreenAnalysis(screen, forms.get(screen), blocks.get(screen)));
+    }
+
+    ProjectAnalysis result = new ProjectAnalysis();
+    if (executor == null || analyses.size() < 2) {
+      for (ScreenAnalysis analysis : analyses) {
+        result.add(analysis.call());
+      }
+      return result;
+    }
+
+    List<FutureTask<ScreenAnalysis>> futures = new ArrayList<>();
+    for (ScreenAnalysis analysis : analyses) {
+      FutureTask<ScreenAnalysis> future = new FutureTask<>(analysis);
+      futures.add(future);
+      executor.execute(future);
+    }
+    for (FutureTask<ScreenAnalysis> future : futures) {
+      try {
+        result.add(future.get());
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof JSONException) {
+          throw (JSONException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+    return result;
+  }
+
+  private void add(ScreenAnalysis screen) {
+    if (screen.componentNames != null) {
+      componentNames.addAll(screen.componentNames);
+      formOrientations.put(screen.name, screen.orientation);
+    }
+    for (Map.Entry<String, Set<String>> entry : screen.componentBlocks.getResult().entrySet()) {
+      Set<String> blockNames = componentBlocks.get(entry.getKey());
+      if (blockNames == null) {
+        componentBlocks.put(entry.getKey(), entry.getValue());
+      } else {
+        blockNames.addAll(entry.getValue());
+      }
+    }
+    blockPermissions.addAll(screen.permissions.getResult());
+    scopes.addAll(screen.scopes.getResult());
+  }
+
+  /**
+   * Returns the names, as used in the form files, of the component types used by the Screens.
+   */
+  Set<String> getComponentNames() {
+    return componentNames;
+  }
+
+  /**
+   * Returns the blocks used by the Screens, keyed by component type.
+   */
+  Map<String, Set<String>> getComponentBlocks() {
+    return componentBlocks;
+  }
+
+  /**
+   * Returns the permissions requested with Permission helper blocks.
+   */
+  Set<String> getBlockPermissions() {
+    return blockPermissions;
+  }
+
+  /**
+   * Returns the file scopes used in FileScope helper blocks.
+   */
+  Set<String> getScopes() {
+    return scopes;
+  }
+
+  /**
+   * Returns the orientation of each Screen, keyed by Screen name.
+   */
+  Map<String, String> getFormOrientations() {
+    return formOrientations;
+  }
+}
@@ -9,16 +9,13 @@ package com.google.appinventor.buildserver;
 import static com.google.appinventor.buildserver.context.Resources.RUNTIME_FILES_DIR;
 import static com.google.appinventor.buildserver.util.ProjectUtils.PROJECT_DIRECTORY;
 
-import com.google.appinventor.buildserver.FormPropertiesAnalyzer.BlockXmlAnalyzer;
-import com.google.appinventor.buildserver.FormPropertiesAnalyzer.ComponentBlocksExtractor;
-import com.google.appinventor.buildserver.FormPropertiesAnalyzer.PermissionBlockExtractor;
-import com.google.appinventor.buildserver.FormPropertiesAnalyzer.ScopeBlockExtractor;
 import com.google.appinventor.buildserver.context.CompilerContext;
 import com.google.appinventor.buildserver.context.Paths;
 import com.google.appinventor.buildserver.stats.StatReporter;
 import com.google.appinventor.buildserver.tasks.common.BuildFactory;
 import com.google.appinventor.buildserver.util.Execution;
-
+import com.google.appinventor.buildserver.util.KeyStoreGenerator;
+import com.google.appinventor.buildserver.util.ProjectSources;
 import com.google.appinventor.buildserver.util.ProjectUtils;
 import com.google.appinventor.common.utils.StringUtils;
 
@@ -32,13 +29,10 @@ import com.google.common.io.Resources;
 
 import java.io.File;
 import java.io.IOException;
-
-import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executors;
@@ -78,8 +72,6 @@ public final class ProjectBuilder {
   // They should probably be in some place shared with the server
   private static final String KEYSTORE_FILE_NAME = YoungAndroidConstants.PROJECT_KEYSTORE_LOCATION;
 
-  private static final String FORM_PROPERTIES_EXTENSION =
-      YoungAndroidConstants.FORM_PROPERTIES_EXTENSION;
   private static final String YAIL_EXTENSION = YoungAndroidConstants.YAIL_EXTENSION;
 
   private static final String CODEBLOCKS_SOURCE_EXTENSION =
@@ -95,24 +87,40 @@ public final class ProjectBuilder {
     return outputKeystore;
   }
 
+  // The directory beneath which projects are unpacked, or null for java.io.tmpdir.
+  private static volatile File workspaceRoot = null;
+
   private final StatReporter statReporter;
 
   public ProjectBuilder(StatReporter statReporter) {
     this.statReporter = statReporter;
   }
 
+  /**
+   * Sets the directory beneath which projects are unpacked for building. A memory-backed file
+   * system such as tmpfs saves the disk writes of unpacking each project.
+   *
+   * @param dir the directory, or null to use java.io.tmpdir
+   */
+  public static void setWorkspaceRoot(File dir) {
+    workspaceRoot = dir;
+  }
+
   Result build(String userName, ZipFile inputZip, File outputDir, String outputFileName,
       boolean isForCompanion, boolean isForEmulator, boolean includeDangerousPermissions,
       String[] extraExtensions, int childProcessRam, String dexCachePath,
       BuildServer.ProgressReporter reporter, String ext) {
     try {
-      // Download project files into a temporary directory
-      File projectRoot = ProjectUtils.createNewTempDir();
+      // Unpack the project files that the compiler needs into a temporary directory
+      File workspace = workspaceRoot;
+      File projectRoot = workspace == null
+          ? ProjectUtils.createNewTempDir()
+          : ProjectUtils.createNewTempDir(workspace);
       LOG.info("temporary project root: " + projectRoot.getAbsolutePath());
       try {
-        List<String> sourceFiles;
+        ProjectSources sources;
         try {
-          sourceFiles = ProjectUtils.extractProjectFiles(inputZip, projectRoot);
+          sources = ProjectSources.extract(inputZip, projectRoot);
         } catch (IOException e) {
           LOG.severe("unexpected problem extracting project file from zip");
           return Result.createFailingResult("", "Problems processing zip file.");
@@ -139,7 +147,10 @@ public final class ProjectBuilder {
         File buildTmpDir = new File(projectRoot, "build/tmp");
         buildTmpDir.mkdirs();
 
-        Set<String> componentTypes = getComponentTypes(sourceFiles, project.getAssetsDirectory());
+        ProjectAnalysis analysis = ProjectAnalysis.analyze(sources.getForms(),
+            sources.getBlocks(), Compiler.getTaskExecutor());
+        Set<String> componentTypes = getComponentTypes(analysis.getComponentNames(),
+            project.getAssetsDirectory());
         if (isForCompanion) {
           componentTypes.addAll(getAllComponentTypes());
         }
@@ -147,14 +158,9 @@ public final class ProjectBuilder {
           System.err.println("Including extension: " + Arrays.toString(extraExtensions));
           Collections.addAll(componentTypes, extraExtensions);
         }
-        ComponentBlocksExtractor componentBlocksExtractor = new ComponentBlocksExtractor();
-        PermissionBlockExtractor permissionBlockExtractor = new PermissionBlockExtractor();
-        ScopeBlockExtractor scopeBlockExtractor = new ScopeBlockExtractor();
-        analyzeBlockFiles(sourceFiles, componentBlocksExtractor, permissionBlockExtractor,
-            scopeBlockExtractor);
-        Map<String, Set<String>> componentBlocks = componentBlocksExtractor.getResult();
-        Set<String> extraPermissions = permissionBlockExtractor.getResult();
-        Set<String> usedScopes = scopeBlockExtractor.getResult();
+        Map<String, Set<String>> componentBlocks = analysis.getComponentBlocks();
+        Set<String> extraPermissions = analysis.getBlockPermissions();
+        Set<String> usedScopes = analysis.getScopes();
         for (String scope : usedScopes) {
           switch (scope) {
             case "Shared":
@@ -172,7 +178,7 @@ public final class ProjectBuilder {
               break;
           }
         }
-        Map<String, String> formOrientations = getScreenOrientations(sourceFiles);
+        Map<String, String> formOrientations = analysis.getFormOrientations();
 
         // Generate the compiler context
         Reporter r = new Reporter(reporter);
@@ -253,52 +259,17 @@ public final class ProjectBuilder {
     return compSet;
   }
 
-  private static Map<String, String> getScreenOrientations(List<String> files)
-      throws IOException, JSONException {
-    Map<String, String> result = new HashMap<>();
-    final int extLength = FORM_PROPERTIES_EXTENSION.length();
-    for (String f : files) {
-      if (f.endsWith(FORM_PROPERTIES_EXTENSION)) {
-        File scmFile = new File(f);
-        String scmContent = new String(Files.toByteArray(scmFile),
-            StandardCharsets.UTF_8);
-        String formName = f.substring(f.lastIndexOf(SEPARATOR) + 1, f.length() - extLength);
-        result.put(formName, FormPropertiesAnalyzer.getFormOrientation(scmContent));
-      }
-    }
-    return result;
-  }
-
-  private static Set<String> getComponentTypes(List<String> files, File assetsDir)
+  private static Set<String> getComponentTypes(Set<String> componentNames, File assetsDir)
       throws IOException, JSONException {
     Map<String, String> nameTypeMap = createNameTypeMap(assetsDir);
 
     Set<String> componentTypes = Sets.newHashSet();
-    for (String f : files) {
-      if (f.endsWith(".scm")) {
-        File scmFile = new File(f);
-        String scmContent = new String(Files.toByteArray(scmFile),
-            PathUtil.DEFAULT_CHARSET);
-        for (String compName : getTypesFromScm(scmContent)) {
-          componentTypes.add(nameTypeMap.get(compName));
-        }
-      }
+    for (String compName : componentNames) {
+      componentTypes.add(nameTypeMap.get(compName));
     }
     return componentTypes;
   }
 
-  private static void analyzeBlockFiles(List<String> files, BlockXmlAnalyzer<?>... analyzers)
-      throws IOException {
-    Map<String, Set<String>> result = new HashMap<>();
-    for (String f : files) {
-      if (f.endsWith(".bky")) {
-        File bkyFile = new File(f);
-        String bkyContent = Files.toString(bkyFile, StandardCharsets.UTF_8);
-        FormPropertiesAnalyzer.analyzeBlocks(bkyContent, analyzers);
-      }
-    }
-  }
-
   /**
    * In ode code, component names are used to identify a component though the
    * variables storing component names appear to be "type". While there's no
@@ -356,6 +327,14 @@ public final class ProjectBuilder {
       throws IOException {
     File keyStoreFile = new File(projectRoot.getPath(), keystoreFileName);
 
+    try {
+      KeyStoreGenerator.getInstance().generate(userName, keyStoreFile);
+      return keyStoreFile.getAbsolutePath();
+    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+      LOG.log(Level.WARNING, "Unable to generate the keystore in process, running keytool", e);
+      keyStoreFile.delete();
+    }
+
     /* Note: must expire after October 22, 2033, to be in the Android
      * marketplace.  Android docs recommend "10000" as the expiration # of
      * days.
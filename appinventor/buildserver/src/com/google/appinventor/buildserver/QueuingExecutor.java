@@ -0,0 +1,260 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.stats.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An {@link Executor} that runs builds on a fixed pool of worker threads and queues builds that
+ * arrive while all workers are busy.
+ *
+ * <p>Queued builds are scheduled by priority first. Among builds of equal priority, users are
+ * served round-robin so that one user submitting many builds cannot starve everyone else.
+ * Admission control rejects a build if the queue is full, if the user already has too many
+ * queued builds, or if the estimated wait exceeds the configured limit.</p>
+ */
+final class QueuingExecutor implements BuildExecutor {
+  // Used to estimate wait times until the first build completes.
+  static final long DEFAULT_BUILD_DURATION_MS = 60000;
+
+  // Weight of the newest sample in the moving average of build durations.
+  private static final double DURATION_SMOOTHING = 0.2;
+
+  // Logging support
+  private static final Logger LOG = Logger.getLogger(QueuingExecutor.class.getName());
+
+  private final int maxActiveTasks;
+  private final int maxQueuedTasks;
+  private final int maxQueuedTasksPerUser;
+  private final long maxQueueWaitMillis;
+
+  private final AtomicInteger activeTaskCount = new AtomicInteger(0);
+  private final AtomicInteger completedTaskCount = new AtomicInteger(0);
+  private final AtomicInteger rejectedTaskCount = new AtomicInteger(0);
+
+  // Pending builds per user. The iteration order of the map is the round-robin order: a user
+  // is moved to the end after one of their builds is dequeued. Guarded by this.
+  private final Map<String, Deque<QueuedTask>> pending = new LinkedHashMap<>();
+  private int queuedTaskCount = 0;
+
+  // Moving average of build durations. Guarded by this.
+  private double averageBuildMillis = DEFAULT_BUILD_DURATION_MS;
+
+  // Moving average of the time builds spent in the queue. Guarded by this.
+  private double averageQueueWaitMillis = 0;
+
+  private final LatencyHistogram queueWaits = new LatencyHistogram();
+
+  private static final class QueuedTask {
+    final Runnable runnable;
+    final int priority;
+    final long enqueuedAt = System.currentTimeMillis();
+
+    QueuedTask(Runnable runnable, int priority) {
+      this.runnable = runnable;
+      this.priority = priority;
+    }
+  }
+
+  /**
+   * Creates a QueuingExecutor and starts its worker threads.
+   *
+   * @param maxActiveTasks the number of worker threads, which must be positive
+   * @param maxQueuedTasks the maximum number of waiting builds. 0 or less means unlimited.
+   * @param maxQueuedTasksPerUser the maximum number of waiting builds per user. 0 means unlimited.
+   * @param maxQueueWaitMillis the maximum estimated wait for a new build. 0 means unlimited.
+   */
+  QueuingExecutor(int maxActiveTasks, int maxQueuedTasks, int maxQueuedTasksPerUser,
+      long maxQueueWaitMillis) {
+    if (maxActiveTasks <= 0) {
+      throw new IllegalArgumentException("maxActiveTasks must be positive");
+    }
+    this.maxActiveTasks = maxActiveTasks;
+    this.maxQueuedTasks = maxQueuedTasks;
+    this.maxQueuedTasksPerUser = maxQueuedTasksPerUser;
+    this.maxQueueWaitMillis = maxQueueWaitMillis;
+    for (int i = 0; i < maxActiveTasks; i++) {
+      Thread worker = new Thread(new Worker(), "BuildWorker-" + i);
+      worker.setDaemon(true);
+      worker.start();
+    }
+  }
+
+  @Override
+  public void execute(Runnable runnable) {
+    execute("", 0, runnable);
+  }
+
+  @Override
+  public synchronized void execute(String userName, int priority, Runnable runnable) {
+    if (userName == null) {
+      userName = "";
+    }
+    if (maxQueuedTasks > 0 && queuedTaskCount >= maxQueuedTasks) {
+      rejectedTaskCount.incrementAndGet();
+      throw new RejectedExecutionException("Build queue is full");
+    }
+    Deque<QueuedTask> userQueue = pending.get(userName);
+    if (maxQueuedTasksPerUser > 0 && userQueue != null
+        && userQueue.size() >= maxQueuedTasksPerUser) {
+      rejectedTaskCount.incrementAndGet();
+      throw new RejectedExecutionException("Too many queued builds for user");
+    }
+    if (maxQueueWaitMillis > 0 && getEstimatedWaitMillis() > maxQueueWaitMillis) {
+      rejectedTaskCount.incrementAndGet();
+      throw new RejectedExecutionException("Estimated wait exceeds limit");
+    }
+    if (userQueue == null) {
+      userQueue = new ArrayDeque<>();
+      pending.put(userName, userQueue);
+    }
+    userQueue.addLast(new QueuedTask(runnable, priority));
+    queuedTaskCount++;
+    notify();
+  }
+
+  /**
+   * Blocks until a build is available and removes it from the queue. The build with the highest
+   * priority wins; ties go to the user who has waited longest for a turn.
+   */
+  private synchronized QueuedTask take() throws InterruptedException {
+    while (queuedTaskCount == 0) {
+      wait();
+    }
+    String bestUser = null;
+    QueuedTask best = null;
+    for (Map.Entry<String, Deque<QueuedTask>> entry : pending.entrySet()) {
+      QueuedTask head = entry.getValue().peekFirst();
+      if (best == null || head.priority > best.priority) {
+        best = head;
+        bestUser = entry.getKey();
+      }
+    }
+    Deque<QueuedTask> userQueue = pending.remove(bestUser);
+    userQueue.removeFirst();
+    if (!userQueue.isEmpty()) {
+      // Re-inserting moves the user to the back of the round-robin order.
+      pending.put(bestUser, userQueue);
+    }
+    queuedTaskCount--;
+    activeTaskCount.incrementAndGet();
+    long waited = System.currentTimeMillis() - best.enqueuedAt;
+    averageQueueWaitMillis += DURATION_SMOOTHING * (waited - averageQueueWaitMillis);
+    queueWaits.record(waited);
+    return best;
+  }
+
+  private synchronized void finished(long durationMillis) {
+    averageBuildMillis += DURATION_SMOOTHING * (durationMillis - averageBuildMillis);
+  }
+
+  private class Worker implements Runnable {
+    @Override
+    public void run() {
+      while (true) {
+        QueuedTask task;
+        try {
+          task = take();
+        } catch (InterruptedException e) {
+          return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+          task.runnable.run();
+        } catch (Throwable e) {
+          // Keep the worker alive: a dead worker would shrink the pool for good.
+          LOG.log(Level.SEVERE, "Build task failed", e);
+        } finally {
+          finished(System.currentTimeMillis() - start);
+          activeTaskCount.decrementAndGet();
+          completedTaskCount.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  @Override
+  public int getMaxActiveTasks() {
+    return maxActiveTasks;
+  }
+
+  @Override
+  public int getActiveTaskCount() {
+    return activeTaskCount.get();
+  }
+
+  @Override
+  public int getCompletedTaskCount() {
+    return completedTaskCount.get();
+  }
+
+  @Override
+  public synchronized int getQueuedTaskCount() {
+    return queuedTaskCount;
+  }
+
+  public int getMaxQueuedTasks() {
+    return maxQueuedTasks;
+  }
+
+  public int getRejectedTaskCount() {
+    return rejectedTaskCount.get();
+  }
+
+  /**
+   * Returns the times builds spent in the queue before starting.
+   */
+  public LatencyHistogram getQueueWaits() {
+    return queueWaits;
+  }
+
+  public synchronized int getQueuedUserCount() {
+    return pending.size();
+  }
+
+  public synchronized long getAverageBuildMillis() {
+    return (long) averageBuildMillis;
+  }
+
+  public synchronized long getAverageQueueWaitMillis() {
+    return (long) averageQueueWaitMillis;
+  }
+
+  /**
+   * Returns the age, in milliseconds, of the oldest queued build, or 0 if the queue is empty.
+   */
+  public synchronized long getOldestQueuedMillis() {
+    long oldest = Long.MAX_VALUE;
+    for (Deque<QueuedTask> userQueue : pending.values()) {
+      oldest = Math.min(oldest, userQueue.peekFirst().enqueuedAt);
+    }
+    return oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest;
+  }
+
+  /**
+   * Estimates the wait for a new build as the number of full "rounds" of builds ahead of it
+   * times the average build duration. Running builds are assumed to be half done.
+   */
+  @Override
+  public synchronized long getEstimatedWaitMillis() {
+    int active = activeTaskCount.get();
+    if (active < maxActiveTasks && queuedTaskCount == 0) {
+      return 0;
+    }
+    int rounds = queuedTaskCount / maxActiveTasks;
+    return (long) (averageBuildMillis * rounds + averageBuildMillis / 2);
+  }
+}
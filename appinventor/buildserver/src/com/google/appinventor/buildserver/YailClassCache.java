@@ -0,0 +1,299 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.util.FileDigests;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A cache of the class files Kawa produces for each compilation unit of a build, that is for
+ * each screen and for the YAIL runtime, shared by all builds.
+ *
+ * <p>An entry is keyed by everything that can change the generated code: the unit's source, the
+ * YAIL runtime, the package name and the components and libraries on the class path. Builds of a
+ * project in which only some screens changed restore the class files of the other screens from
+ * the cache and only compile the changed ones.</p>
+ *
+ * <p>Each entry is a jar of the unit's class files, written to a temporary file and renamed into
+ * place so a partially written entry is never visible. When the cache grows past its size limit,
+ * the least recently used entries are deleted.</p>
+ */
+public final class YailClassCache {
+  private static final Logger LOG = Logger.getLogger(YailClassCache.class.getName());
+
+  public static final long DEFAULT_MAX_SIZE_MB = 512;
+
+  private static final String PREFIX = "yail-cached-";
+  private static final String SUFFIX = ".jar";
+  private static final String TEMP_PREFIX = "tmp-";
+
+  private static volatile YailClassCache instance = null;
+
+  /**
+   * Computes the key of a cache entry.
+   */
+  public static final class KeyBuilder {
+    private final Hasher hasher = Hashing.md5().newHasher();
+
+    /**
+     * Adds a string to the key.
+     */
+    public KeyBuilder add(String value) {
+      hasher.putString(value, Charsets.UTF_8);
+      hasher.putByte((byte) 0);
+      return this;
+    }
+
+    /**
+     * Adds the contents of a file to the key.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public KeyBuilder addFile(File file) throws IOException {
+      return add(FileDigests.md5(file));
+    }
+
+    public String build() {
+      return hasher.hash().toString();
+    }
+  }
+
+  private final File dir;
+  private final long maxSizeBytes;
+
+  private final AtomicLong hits = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+  private final AtomicLong evictions = new AtomicLong(0);
+  private final AtomicLong bytesSaved = new AtomicLong(0);
+  private volatile long sizeBytes;
+
+  private YailClassCache(File dir, long maxSizeBytes) {
+    this.dir = dir;
+    this.maxSizeBytes = maxSizeBytes;
+    this.sizeBytes = totalSize(listEntries());
+  }
+
+  /**
+   * Configures the cache used by all builds.
+   *
+   * @param dir the directory holding the cache entries
+   * @param maxSizeMb the size limit of the cache in MB, 0 or less means unlimited
+   */
+  public static void configure(File dir, long maxSizeMb) {
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      LOG.warning("Unable to create YAIL class cache directory " + dir);
+      return;
+    }
+    instance = new YailClassCache(dir.getAbsoluteFile(),
+        maxSizeMb > 0 ? maxSizeMb * 1024 * 1024 : 0);
+  }
+
+  /**
+   * Returns the cache used by all builds, or null if caching is disabled.
+   */
+  public static YailClassCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Copies the class files of the entry with the given key into {@code classesDir}.
+   *
+   * @param key the key of the entry
+   * @param classesDir the directory the class files are restored to
+   * @return the number of bytes restored, or -1 if the entry is not in the cache
+   */
+  public long restore(String key, File classesDir) {
+    File entry = new File(dir, PREFIX + key + SUFFIX);
+    if (!entry.isFile()) {
+      misses.incrementAndGet();
+      return -1;
+    }
+    if (!entry.setLastModified(System.currentTimeMillis())) {
+      LOG.fine("Unable to update the modification time of " + entry);
+    }
+    long restored = 0;
+    List<File> written = new ArrayList<>();
+    try (ZipInputStream in = new ZipInputStream(
+        new BufferedInputStream(new FileInputStream(entry)))) {
+      ZipEntry zipEntry;
+      while ((zipEntry = in.getNextEntry()) != null) {
+        String name = zipEntry.getName();
+        if (zipEntry.isDirectory() || name.startsWith("/") || name.contains("..")) {
+          continue;
+        }
+        File target = new File(classesDir, name);
+        File parent = target.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+          throw new IOException("Unable to create " + parent);
+        }
+        written.add(target);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+          restored += ByteStreams.copy(in, out);
+        }
+      }
+    } catch (IOException e) {
+      // Treat a damaged entry as a miss. The unit is compiled again and the entry replaced.
+      LOG.log(Level.WARNING, "Unable to restore YAIL class cache entry " + entry, e);
+      for (File file : written) {
+        if (file.exists() && !file.delete()) {
+          LOG.warning("Unable to delete " + file);
+        }
+      }
+      misses.incrementAndGet();
+      return -1;
+    }
+    hits.incrementAndGet();
+    bytesSaved.addAndGet(restored);
+    return restored;
+  }
+
+  /**
+   * Stores class files under the given key, replacing any existing entry.
+   *
+   * @param key the key of the entry
+   * @param classesDir the directory the class files are relative to
+   * @param classFiles the class files of the compilation unit
+   */
+  public void store(String key, File classesDir, List<File> classFiles) {
+    File target = new File(dir, PREFIX + key + SUFFIX);
+    String base = classesDir.getAbsolutePath() + File.separator;
+    File temp = null;
+    try {
+      temp = File.createTempFile(TEMP_PREFIX, "-" + target.getName(), dir);
+      try (ZipOutputStream out = new ZipOutputStream(
+          new BufferedOutputStream(new FileOutputStream(temp)))) {
+        for (File classFile : classFiles) {
+          String path = classFile.getAbsolutePath();
+          if (!path.startsWith(base)) {
+            throw new IOException(classFile + " is not in " + classesDir);
+          }
+          out.putNextEntry(new ZipEntry(
+              path.substring(base.length()).replace(File.separatorChar, '/')));
+          try (InputStream in = new FileInputStream(classFile)) {
+            ByteStreams.copy(in, out);
+          }
+          out.closeEntry();
+        }
+      }
+      long previous = target.length();
+      try {
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      synchronized (this) {
+        sizeBytes += target.length() - previous;
+      }
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to store YAIL class cache entry " + target, e);
+    } finally {
+      if (temp != null && temp.exists() && !temp.delete()) {
+        LOG.warning("Unable to delete " + temp);
+      }
+    }
+    evict();
+  }
+
+  /**
+   * Deletes the least recently used entries until the cache fits its size limit.
+   */
+  synchronized void evict() {
+    File[] entries = listEntries();
+    long total = totalSize(entries);
+    if (maxSizeBytes > 0 && total > maxSizeBytes) {
+      Arrays.sort(entries, new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+          return Long.compare(a.lastModified(), b.lastModified());
+        }
+      });
+      for (File file : entries) {
+        if (total <= maxSizeBytes) {
+          break;
+        }
+        long length = file.length();
+        if (file.delete()) {
+          total -= length;
+          evictions.incrementAndGet();
+        }
+      }
+    }
+    sizeBytes = total;
+  }
+
+  private File[] listEntries() {
+    File[] entries = dir.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        String name = file.getName();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX) && file.isFile();
+      }
+    });
+    return entries == null ? new File[0] : entries;
+  }
+
+  private static long totalSize(File[] entries) {
+    long total = 0;
+    for (File file : entries) {
+      total += file.length();
+    }
+    return total;
+  }
+
+  public File getDirectory() {
+    return dir;
+  }
+
+  public long getMaxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  public long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getBytesSaved() {
+    return bytesSaved.get();
+  }
+}
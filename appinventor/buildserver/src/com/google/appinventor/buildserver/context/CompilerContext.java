@@ -6,8 +6,10 @@
 
 package com.google.appinventor.buildserver.context;
 
+import com.google.appinventor.buildserver.Compiler;
 import com.google.appinventor.buildserver.Project;
 import com.google.appinventor.buildserver.Reporter;
+import com.google.appinventor.buildserver.stats.BaseStatReporter;
 import com.google.appinventor.buildserver.stats.StatReporter;
 
 import java.io.File;
@@ -15,8 +17,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
-import org.codehaus.jettison.json.JSONArray;
-
 public class CompilerContext<P extends Paths> {
   Project project;
   String ext;
@@ -29,7 +29,7 @@ public class CompilerContext<P extends Paths> {
   Map<String, String> formOrientations;
   Set<String> blockPermissions;
   Reporter reporter;
-  StatReporter statReporter;
+  BaseStatReporter statReporter;
   boolean isForCompanion;
   boolean isForEmulator;
   boolean includeDangerousPermissions;
@@ -38,9 +38,7 @@ public class CompilerContext<P extends Paths> {
   String dexCacheDir;
   String outputFileName;
 
-  JSONArray simpleCompsBuildInfo;
-  JSONArray extCompsBuildInfo;
-  JSONArray buildInfo;
+  ComponentCatalog componentCatalog;  // bundled and extension components
   Set<String> simpleCompTypes;  // types needed by the project
   Set<String> extCompTypes; // types needed by the project
 
@@ -49,6 +47,7 @@ public class CompilerContext<P extends Paths> {
   final P paths;
   Resources resources;
   ComponentInfo componentInfo;
+  Compiler<?, ?> compiler;
 
   public static class Builder<R extends Paths, T extends CompilerContext<? extends R>> {
     private final Project project;
@@ -174,7 +173,7 @@ public class CompilerContext<P extends Paths> {
       context.formOrientations = formOrientations;
       context.blockPermissions = blockPermissions;
       context.reporter = reporter;
-      context.statReporter = statReporter;
+      context.statReporter = BaseStatReporter.of(statReporter);
       context.isForCompanion = isForCompanion;
       context.isForEmulator = isForEmulator;
       context.includeDangerousPermissions = includeDangerousPermissions;
@@ -232,7 +231,7 @@ public class CompilerContext<P extends Paths> {
     return reporter;
   }
 
-  public StatReporter getStatReporter() {
+  public BaseStatReporter getStatReporter() {
     return statReporter;
   }
 
@@ -264,20 +263,12 @@ public class CompilerContext<P extends Paths> {
     return outputFileName;
   }
 
-  public JSONArray getBuildInfo() {
-    return buildInfo;
-  }
-
-  public void setBuildInfo(JSONArray buildInfo) {
-    this.buildInfo = buildInfo;
-  }
-
-  public JSONArray getSimpleCompsBuildInfo() {
-    return simpleCompsBuildInfo;
+  public ComponentCatalog getComponentCatalog() {
+    return componentCatalog;
   }
 
-  public JSONArray getExtCompsBuildInfo() {
-    return extCompsBuildInfo;
+  public void setComponentCatalog(ComponentCatalog componentCatalog) {
+    this.componentCatalog = componentCatalog;
   }
 
   public Set<String> getSimpleCompTypes() {
@@ -292,14 +283,6 @@ public class CompilerContext<P extends Paths> {
     return paths;
   }
 
-  public void setSimpleCompsBuildInfo(JSONArray simpleCompsBuildInfo) {
-    this.simpleCompsBuildInfo = simpleCompsBuildInfo;
-  }
-
-  public void setExtCompsBuildInfo(JSONArray extCompsBuildInfo) {
-    this.extCompsBuildInfo = extCompsBuildInfo;
-  }
-
   public void setSimpleCompTypes(Set<String> simpleCompTypes) {
     this.simpleCompTypes = simpleCompTypes;
   }
@@ -320,6 +303,18 @@ public class CompilerContext<P extends Paths> {
     return resources;
   }
 
+  /**
+   * Returns the Compiler running this context, which identifies the build to the
+   * {@link StatReporter}.
+   */
+  public Compiler<?, ?> getCompiler() {
+    return compiler;
+  }
+
+  public void setCompiler(Compiler<?, ?> compiler) {
+    this.compiler = compiler;
+  }
+
   public Map<String, String> getExtTypePathCache() {
     return this.extTypePathCache;
   }
@@ -347,8 +342,6 @@ public class CompilerContext<P extends Paths> {
         + ", childProcessRam=" + childProcessRam
         + ", dexCacheDir='" + dexCacheDir + '\''
         + ", outputFileName='" + outputFileName + '\''
-        + ", simpleCompsBuildInfo=" + simpleCompsBuildInfo
-        + ", extCompsBuildInfo=" + extCompsBuildInfo
         + ", simpleCompTypes=" + simpleCompTypes
         + ", extCompTypes=" + extCompTypes
         + ", extTypePathCache=" + extTypePathCache
@@ -0,0 +1,280 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.context;
+
+import com.google.appinventor.buildserver.util.PermissionConstraint;
+import com.google.appinventor.components.common.ComponentDescriptorConstants;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * An index of component build information, mapping each component type to the requirements
+ * declared in its entry of simple_components_build_info.json or of an extension's
+ * component_build_info.json.
+ *
+ * <p>The catalog of the components bundled with the build server is parsed once per process and
+ * shared by all builds. A build that uses extensions overlays their entries on it with
+ * {@link #withExtensions(JSONArray)}, which leaves the shared catalog untouched. Catalogs and
+ * their entries are immutable.</p>
+ */
+public final class ComponentCatalog {
+  private static final Object BUNDLED_LOCK = new Object();
+
+  // Guarded by BUNDLED_LOCK.
+  private static ComponentCatalog bundled = null;
+
+  /**
+   * The build information of a single component type.
+   */
+  public static final class Entry {
+    private final String type;
+    private final Map<String, Set<String>> info;
+    private final Map<String, Map<String, Set<String>>> conditionals;
+    private final Map<String, Set<PermissionConstraint<?>>> permissionConstraints;
+    private final Map<String, Map<String, Set<PermissionConstraint<?>>>>
+        conditionalPermissionConstraints;
+
+    private Entry(JSONObject json) throws JSONException {
+      type = json.getString("type");
+
+      Map<String, Set<String>> info = new HashMap<>();
+      Iterator<?> keys = json.keys();
+      while (keys.hasNext()) {
+        String target = (String) keys.next();
+        JSONArray values = json.optJSONArray(target);
+        if (values != null) {
+          info.put(target, parseValues(values));
+        }
+      }
+      this.info = Collections.unmodifiableMap(info);
+
+      JSONObject constraints =
+          json.optJSONObject(ComponentDescriptorConstants.PERMISSION_CONSTRAINTS_TARGET);
+      permissionConstraints = constraints == null ? null : parseConstraints(constraints);
+
+      Map<String, Map<String, Set<String>>> conditionals = new HashMap<>();
+      Map<String, Map<String, Set<PermissionConstraint<?>>>> conditionalConstraints =
+          new HashMap<>();
+      JSONObject conditionalsJson =
+          json.optJSONObject(ComponentDescriptorConstants.CONDITIONALS_TARGET);
+      if (conditionalsJson != null) {
+        keys = conditionalsJson.keys();
+        while (keys.hasNext()) {
+          String target = (String) keys.next();
+          JSONObject blocks = conditionalsJson.optJSONObject(target);
+          if (blocks == null) {
+            continue;
+          }
+          boolean isConstraints =
+              ComponentDescriptorConstants.PERMISSION_CONSTRAINTS_TARGET.equals(target);
+          Map<String, Set<String>> blockValues = new HashMap<>();
+          Iterator<?> blockNames = blocks.keys();
+          while (blockNames.hasNext()) {
+            String blockName = (String) blockNames.next();
+            if (isConstraints) {
+              conditionalConstraints.put(blockName,
+                  parseConstraints(blocks.getJSONObject(blockName)));
+            } else {
+              JSONArray values = blocks.optJSONArray(blockName);
+              if (values != null) {
+                blockValues.put(blockName, parseValues(values));
+              }
+            }
+          }
+          if (!isConstraints) {
+            conditionals.put(target, Collections.unmodifiableMap(blockValues));
+          }
+        }
+      }
+      this.conditionals = Collections.unmodifiableMap(conditionals);
+      this.conditionalPermissionConstraints =
+          Collections.unmodifiableMap(conditionalConstraints);
+    }
+
+    /**
+     * Returns the fully qualified name of the component type.
+     */
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * Returns the values the component declares for an annotation target, such as
+     * {@link ComponentDescriptorConstants#PERMISSIONS_TARGET}, without empty values.
+     *
+     * @param target the annotation target
+     * @return the values, or null if the component does not specify the target
+     */
+    public Set<String> getInfo(String target) {
+      return info.get(target);
+    }
+
+    /**
+     * Returns the values the component needs for an annotation target when particular blocks are
+     * used, keyed by block name.
+     *
+     * @param target the annotation target
+     * @return the values by block name, or null if there are none
+     */
+    public Map<String, Set<String>> getConditionals(String target) {
+      return conditionals.get(target);
+    }
+
+    /**
+     * Returns the constraints on the permissions the component declares, keyed by permission, or
+     * null if the component does not specify any.
+     */
+    public Map<String, Set<PermissionConstraint<?>>> getPermissionConstraints() {
+      return permissionConstraints;
+    }
+
+    /**
+     * Returns the permission constraints needed when particular blocks are used, keyed by block
+     * name and then by permission.
+     */
+    public Map<String, Map<String, Set<PermissionConstraint<?>>>>
+        getConditionalPermissionConstraints() {
+      return conditionalPermissionConstraints;
+    }
+
+    private static Set<String> parseValues(JSONArray values) throws JSONException {
+      Set<String> result = new HashSet<>();
+      for (int i = 0; i < values.length(); i++) {
+        String value = values.getString(i);
+        if (!value.isEmpty()) {
+          result.add(value);
+        }
+      }
+      return Collections.unmodifiableSet(result);
+    }
+
+    private static Map<String, Set<PermissionConstraint<?>>> parseConstraints(JSONObject src)
+        throws JSONException {
+      Map<String, Set<PermissionConstraint<?>>> result = new HashMap<>();
+      Iterator<?> it = src.keys();
+      while (it.hasNext()) {
+        String permissionName = (String) it.next();
+        Set<PermissionConstraint<?>> constraintSet = new HashSet<>();
+        JSONObject constraints = src.getJSONObject(permissionName);
+        Iterator<?> attributes = constraints.keys();
+        while (attributes.hasNext()) {
+          String attribute = (String) attributes.next();
+          Object value = constraints.get(attribute);
+          if (value instanceof Number) {
+            constraintSet.add(new PermissionConstraint<>(permissionName, attribute,
+                ((Number) value).intValue()));
+          } else {
+            constraintSet.add(new PermissionConstraint<>(permissionName, attribute,
+                value.toString()));
+          }
+        }
+        result.put(permissionName, Collections.unmodifiableSet(constraintSet));
+      }
+      return Collections.unmodifiableMap(result);
+    }
+  }
+
+  private final ComponentCatalog parent;
+  private final Map<String, Entry> entries;
+
+  private ComponentCatalog(ComponentCatalog parent, JSONArray buildInfo) throws JSONException {
+    this.parent = parent;
+    Map<String, Entry> entries = new HashMap<>();
+    for (int i = 0; i < buildInfo.length(); i++) {
+      Entry entry = new Entry(buildInfo.getJSONObject(i));
+      entries.put(entry.getType(), entry);
+    }
+    this.entries = Collections.unmodifiableMap(entries);
+  }
+
+  /**
+   * Returns the catalog of the components bundled with the build server, parsing it on first use.
+   *
+   * @param resources the build server resources holding the bundled build information
+   * @return the shared catalog
+   * @throws IOException if the bundled build information cannot be read
+   * @throws JSONException if the bundled build information is malformed
+   */
+  public static ComponentCatalog getBundled(Resources resources)
+      throws IOException, JSONException {
+    synchronized (BUNDLED_LOCK) {
+      if (bundled == null) {
+        String json = resources.getCompBuildInfo();
+        if (json == null) {
+          throw new IOException("Unable to read the component build information");
+        }
+        bundled = fromJson(new JSONArray(json));
+      }
+      return bundled;
+    }
+  }
+
+  /**
+   * Creates a catalog of the given build information.
+   *
+   * @param buildInfo an array of component build information objects
+   * @return the catalog
+   * @throws JSONException if the build information is malformed
+   */
+  public static ComponentCatalog fromJson(JSONArray buildInfo) throws JSONException {
+    return new ComponentCatalog(null, buildInfo);
+  }
+
+  /**
+   * Returns a catalog with the entries of this catalog and those of {@code buildInfo}, which take
+   * precedence. Only the new entries are parsed.
+   *
+   * @param buildInfo an array of extension component build information objects
+   * @return the combined catalog, or this catalog if {@code buildInfo} is empty
+   * @throws JSONException if the build information is malformed
+   */
+  public ComponentCatalog withExtensions(JSONArray buildInfo) throws JSONException {
+    return buildInfo.length() == 0 ? this : new ComponentCatalog(this, buildInfo);
+  }
+
+  /**
+   * Returns the entry of a component type.
+   *
+   * @param type the fully qualified name of the component type
+   * @return the entry, or null if the type is not in the catalog
+   */
+  public Entry get(String type) {
+    Entry entry = entries.get(type);
+    if (entry == null && parent != null) {
+      entry = parent.get(type);
+    }
+    return entry;
+  }
+
+  /**
+   * Indicates whether a component type is in the catalog.
+   */
+  public boolean contains(String type) {
+    return get(type) != null;
+  }
+
+  /**
+   * Returns the component types in the catalog.
+   */
+  public Set<String> getTypes() {
+    if (parent == null) {
+      return entries.keySet();
+    }
+    Set<String> types = new HashSet<>(parent.getTypes());
+    types.addAll(entries.keySet());
+    return Collections.unmodifiableSet(types);
+  }
+}
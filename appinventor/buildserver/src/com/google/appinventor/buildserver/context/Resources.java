@@ -29,9 +29,6 @@ public class Resources {
 
   private File appRTxt;
 
-  // Kawa and DX processes can use a lot of memory. We only launch one Kawa or DX process at a time.
-  private static final Object SYNC_KAWA_OR_DX = new Object();
-
   public static final String RUNTIME_FILES_DIR = "/files/";
   public static final String RUNTIME_TOOLS_DIR = "/tools/";
   private static final String ANDROID_RUNTIME = RUNTIME_FILES_DIR + "android.jar";
@@ -101,10 +98,6 @@ public class Resources {
     return dexFiles;
   }
 
-  public Object getSyncKawaOrDx() {
-    return SYNC_KAWA_OR_DX;
-  }
-
   public String getRuntimeFilesDir() {
     return Resources.RUNTIME_FILES_DIR;
   }
@@ -0,0 +1,90 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.stats;
+
+import com.google.appinventor.buildserver.Compiler;
+
+/**
+ * BaseStatReporter is a {@link StatReporter} that can also be told about the durations of
+ * stages, about external tools and about build caches. These reports do nothing unless a
+ * subclass overrides them, so existing implementations of {@link StatReporter} keep working:
+ * the build wraps them with {@link #of(StatReporter)}.
+ */
+public abstract class BaseStatReporter implements StatReporter {
+
+  /**
+   * Returns the given reporter if it is a BaseStatReporter, and otherwise a BaseStatReporter
+   * that passes the {@link StatReporter} calls on to it and ignores the rest.
+   *
+   * @param reporter the reporter to wrap, or null
+   * @return a BaseStatReporter, or null if reporter is null
+   */
+  public static BaseStatReporter of(final StatReporter reporter) {
+    if (reporter == null || reporter instanceof BaseStatReporter) {
+      return (BaseStatReporter) reporter;
+    }
+    return new BaseStatReporter() {
+      @Override
+      public void startBuild(Compiler compiler) {
+        reporter.startBuild(compiler);
+      }
+
+      @Override
+      public void nextStage(Compiler compiler, String stage) {
+        reporter.nextStage(compiler, stage);
+      }
+
+      @Override
+      public void stopBuild(Compiler compiler, boolean success) {
+        reporter.stopBuild(compiler, success);
+      }
+    };
+  }
+
+  /**
+   * Indicate to the StatReporter that a stage of a build has finished. Stages of the same build
+   * may run concurrently.
+   *
+   * @param compiler the compilation process in progress
+   * @param stage the stage that finished
+   * @param millis the time the stage took, in milliseconds
+   */
+  public void stageFinished(Compiler compiler, String stage, long millis) {
+  }
+
+  /**
+   * Indicate to the StatReporter how long a build waited for the resources needed to run an
+   * external tool.
+   *
+   * @param compiler the compilation process in progress
+   * @param tool the name of the tool
+   * @param waitMillis the time spent waiting, in milliseconds
+   */
+  public void toolWait(Compiler compiler, String tool, long waitMillis) {
+  }
+
+  /**
+   * Indicate to the StatReporter that an external tool run by a build has exited.
+   *
+   * @param compiler the compilation process in progress
+   * @param tool the name of the tool
+   * @param millis the time the tool ran, in milliseconds
+   * @param peakRssKb the highest resident set size of the tool, in kB, or -1 if unknown
+   */
+  public void toolRun(Compiler compiler, String tool, long millis, long peakRssKb) {
+  }
+
+  /**
+   * Indicate to the StatReporter whether a build found what it needed in a cache.
+   *
+   * @param compiler the compilation process in progress
+   * @param cache the name of the cache
+   * @param hit true if the lookup was a hit, false otherwise
+   * @param bytesSaved the size of the cached output that did not need to be produced again
+   */
+  public void cacheLookup(Compiler compiler, String cache, boolean hit, long bytesSaved) {
+  }
+}
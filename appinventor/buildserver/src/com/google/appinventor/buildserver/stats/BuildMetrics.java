@@ -0,0 +1,127 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.stats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BuildMetrics keeps process-wide latency histograms of builds and of each build task, by build
+ * type, along with the bytes received and sent by the build server. Unlike the
+ * {@link StatReporter}, which keeps the last builds, the histograms cover every build since the
+ * server started, so that they can be scraped as Prometheus histograms and turned into
+ * percentiles.
+ */
+public final class BuildMetrics {
+  private static final BuildMetrics INSTANCE = new BuildMetrics();
+
+  // Keyed by build type, then by result or task name. Sorted so that the output is stable.
+  private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> builds =
+      new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> tasks =
+      new ConcurrentSkipListMap<>();
+  private final AtomicLong bytesReceived = new AtomicLong(0);
+  private final AtomicLong bytesSent = new AtomicLong(0);
+
+  private BuildMetrics() {
+  }
+
+  public static BuildMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Records a finished build.
+   *
+   * @param type the build type, such as apk or aab
+   * @param success true if the build succeeded, false otherwise
+   * @param millis the time the build took, in milliseconds
+   */
+  public void buildFinished(String type, boolean success, long millis) {
+    histogram(builds, type, success ? "success" : "failure").record(millis);
+  }
+
+  /**
+   * Records a finished build task.
+   *
+   * @param type the build type, such as apk or aab
+   * @param task the name of the task
+   * @param millis the time the task took, in milliseconds
+   */
+  public void taskFinished(String type, String task, long millis) {
+    histogram(tasks, type, task).record(millis);
+  }
+
+  /**
+   * Records the size of a project received for building.
+   */
+  public void received(long bytes) {
+    bytesReceived.addAndGet(bytes);
+  }
+
+  /**
+   * Records the size of a build result sent back.
+   */
+  public void sent(long bytes) {
+    bytesSent.addAndGet(bytes);
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived.get();
+  }
+
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  /**
+   * Writes the metrics, named {@code buildserver_*}.
+   *
+   * @param writer the writer receiving the metrics
+   */
+  public void write(PrometheusWriter writer) {
+    for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> type : builds.entrySet()) {
+      for (Map.Entry<String, LatencyHistogram> result : type.getValue().entrySet()) {
+        writer.histogram("buildserver_build_duration_seconds", "Time taken by builds.",
+            result.getValue(), "type", type.getKey(), "result", result.getKey());
+      }
+    }
+    for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> type : tasks.entrySet()) {
+      for (Map.Entry<String, LatencyHistogram> task : type.getValue().entrySet()) {
+        writer.histogram("buildserver_task_duration_seconds", "Time taken by build tasks.",
+            task.getValue(), "type", type.getKey(), "task", task.getKey());
+      }
+    }
+    writer.counter("buildserver_received_bytes_total", "Size of the projects received.",
+        bytesReceived.get());
+    writer.counter("buildserver_sent_bytes_total", "Size of the build results sent.",
+        bytesSent.get());
+  }
+
+  private static LatencyHistogram histogram(
+      ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> map, String key1,
+      String key2) {
+    ConcurrentMap<String, LatencyHistogram> inner = map.get(key1);
+    if (inner == null) {
+      ConcurrentMap<String, LatencyHistogram> created = new ConcurrentSkipListMap<>();
+      inner = map.putIfAbsent(key1, created);
+      if (inner == null) {
+        inner = created;
+      }
+    }
+    LatencyHistogram histogram = inner.get(key2);
+    if (histogram == null) {
+      LatencyHistogram created = new LatencyHistogram();
+      histogram = inner.putIfAbsent(key2, created);
+      if (histogram == null) {
+        histogram = created;
+      }
+    }
+    return histogram;
+  }
+}
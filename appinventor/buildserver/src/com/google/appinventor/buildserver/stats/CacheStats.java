@@ -0,0 +1,58 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.stats;
+
+/**
+ * CacheStats counts the lookups of one build cache, either for a single build or aggregated
+ * over many builds.
+ */
+public class CacheStats {
+  private long hits = 0;
+  private long misses = 0;
+  private long bytesSaved = 0;
+
+  CacheStats() {
+  }
+
+  CacheStats(CacheStats other) {
+    add(other);
+  }
+
+  void record(boolean hit, long bytes) {
+    if (hit) {
+      hits++;
+      bytesSaved += bytes;
+    } else {
+      misses++;
+    }
+  }
+
+  void add(CacheStats other) {
+    hits += other.hits;
+    misses += other.misses;
+    bytesSaved += other.bytesSaved;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Get the fraction of lookups that were hits, or 0 if there were no lookups.
+   */
+  public double getHitRate() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  public long getBytesSaved() {
+    return bytesSaved;
+  }
+}
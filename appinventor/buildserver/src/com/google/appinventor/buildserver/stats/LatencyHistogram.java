@@ -0,0 +1,79 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts durations in fixed buckets, from tens of milliseconds up to minutes,
+ * which covers everything from a warm tool invocation to a whole build. It is safe for use by
+ * concurrent threads.
+ */
+public final class LatencyHistogram {
+  /**
+   * The inclusive upper bounds of the buckets, in milliseconds. A final bucket counts the
+   * durations above the last bound.
+   */
+  private static final long[] BOUNDS_MILLIS = {
+      10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 120000, 300000
+  };
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+  private final AtomicLong count = new AtomicLong(0);
+  private final AtomicLong sumMillis = new AtomicLong(0);
+
+  /**
+   * Counts one duration.
+   *
+   * @param millis the duration, in milliseconds
+   */
+  public void record(long millis) {
+    int i = 0;
+    while (i < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[i]) {
+      i++;
+    }
+    buckets.incrementAndGet(i);
+    count.incrementAndGet();
+    sumMillis.addAndGet(millis);
+  }
+
+  /**
+   * Returns the number of buckets with an upper bound, not counting the final bucket.
+   */
+  public int getBoundCount() {
+    return BOUNDS_MILLIS.length;
+  }
+
+  /**
+   * Returns the inclusive upper bound of a bucket, in milliseconds.
+   *
+   * @param bucket the index of the bucket, less than {@link #getBoundCount()}
+   */
+  public long getBoundMillis(int bucket) {
+    return BOUNDS_MILLIS[bucket];
+  }
+
+  /**
+   * Returns the number of durations of at most {@code getBoundMillis(bucket)}, or all durations
+   * if {@code bucket} is {@link #getBoundCount()}.
+   */
+  public long getCumulativeCount(int bucket) {
+    long total = 0;
+    for (int i = 0; i <= bucket; i++) {
+      total += buckets.get(i);
+    }
+    return total;
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getSumMillis() {
+    return sumMillis.get();
+  }
+}
@@ -13,7 +13,7 @@ import com.google.appinventor.buildserver.Compiler;
  *
  * @author Evan W. Patton (ewpatton@mit.edu)
  */
-public class NullStatReporter implements StatReporter {
+public class NullStatReporter extends BaseStatReporter {
   @Override
   public void startBuild(Compiler compiler) {
   }
@@ -0,0 +1,126 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.stats;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PrometheusWriter formats metrics in the Prometheus text exposition format (version 0.0.4) so
+ * that the build server can be scraped by Prometheus and compatible collectors.
+ *
+ * <p>Durations are written in seconds and sizes in bytes, following the Prometheus naming
+ * conventions. Labels are given as alternating names and values. All samples of a metric must
+ * be written one after another.</p>
+ */
+public final class PrometheusWriter {
+  /**
+   * The content type of the text exposition format.
+   */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final StringBuilder out = new StringBuilder();
+  private final Set<String> described = new HashSet<>();
+
+  /**
+   * Writes a counter sample.
+   *
+   * @param name the metric name, which should end in {@code _total}
+   * @param help the description of the metric
+   * @param value the value of the counter
+   * @param labels alternating label names and values
+   */
+  public PrometheusWriter counter(String name, String help, double value, String... labels) {
+    describe(name, "counter", help);
+    sample(name, labels, null, value);
+    return this;
+  }
+
+  /**
+   * Writes a gauge sample.
+   *
+   * @param name the metric name
+   * @param help the description of the metric
+   * @param value the current value
+   * @param labels alternating label names and values
+   */
+  public PrometheusWriter gauge(String name, String help, double value, String... labels) {
+    describe(name, "gauge", help);
+    sample(name, labels, null, value);
+    return this;
+  }
+
+  /**
+   * Writes the buckets, sum and count of a latency histogram, in seconds.
+   *
+   * @param name the metric name, which should end in {@code _seconds}
+   * @param help the description of the metric
+   * @param histogram the histogram
+   * @param labels alternating label names and values
+   */
+  public PrometheusWriter histogram(String name, String help, LatencyHistogram histogram,
+      String... labels) {
+    describe(name, "histogram", help);
+    for (int i = 0; i < histogram.getBoundCount(); i++) {
+      sample(name + "_bucket", labels, seconds(histogram.getBoundMillis(i)),
+          histogram.getCumulativeCount(i));
+    }
+    sample(name + "_bucket", labels, "+Inf", histogram.getCount());
+    sample(name + "_sum", labels, null, histogram.getSumMillis() / 1000.0);
+    sample(name + "_count", labels, null, histogram.getCount());
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return out.toString();
+  }
+
+  private void describe(String name, String type, String help) {
+    if (described.add(name)) {
+      out.append("# HELP ").append(name).append(' ')
+          .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+      out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+  }
+
+  private void sample(String name, String[] labels, String le, double value) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be name/value pairs");
+    }
+    out.append(name);
+    if (labels.length > 0 || le != null) {
+      out.append('{');
+      for (int i = 0; i < labels.length; i += 2) {
+        if (i > 0) {
+          out.append(',');
+        }
+        out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+      }
+      if (le != null) {
+        out.append(labels.length > 0 ? "," : "").append("le=\"").append(le).append('"');
+      }
+      out.append('}');
+    }
+    out.append(' ').append(format(value)).append('\n');
+  }
+
+  private static String seconds(long millis) {
+    return format(millis / 1000.0);
+  }
+
+  private static String format(double value) {
+    if (value == Math.rint(value) && !Double.isInfinite(value)
+        && Math.abs(value) < (double) Long.MAX_VALUE) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -21,7 +21,7 @@ import java.util.logging.Logger;
  *
  * @author Evan W. Patton (ewpatton@mit.edu)
  */
-public class SimpleStatReporter implements StatReporter {
+public class SimpleStatReporter extends BaseStatReporter {
 
   private static final int MAX_STATS = 1000;
   private static final Logger LOG = Logger.getLogger(SimpleStatReporter.class.getCanonicalName());
@@ -33,9 +33,12 @@ public class SimpleStatReporter implements StatReporter {
   public static class BuildStats {
     private final long start = System.currentTimeMillis();
     private final Map<String, Long> stages = new LinkedHashMap<>();
+    private final Map<String, Long> toolWaits = new LinkedHashMap<>();
+    private final Map<String, Long> toolRuns = new LinkedHashMap<>();
+    private final Map<String, Long> toolPeakRss = new LinkedHashMap<>();
+    private final Map<String, CacheStats> caches = new LinkedHashMap<>();
     private long end;
     private long duration;
-    private long last = start;
 
     private BuildStats() {
       // Not instantiable outside this class
@@ -53,8 +56,40 @@ public class SimpleStatReporter implements StatReporter {
       return duration;
     }
 
-    public Map<String, Long> getStages() {
-      return Collections.unmodifiableMap(stages);
+    public synchronized Map<String, Long> getStages() {
+      return Collections.unmodifiableMap(new LinkedHashMap<>(stages));
+    }
+
+    /**
+     * Get the total time the build spent waiting to run each external tool.
+     */
+    public synchronized Map<String, Long> getToolWaits() {
+      return Collections.unmodifiableMap(new LinkedHashMap<>(toolWaits));
+    }
+
+    /**
+     * Get the total time the build spent running each external tool.
+     */
+    public synchronized Map<String, Long> getToolRuns() {
+      return Collections.unmodifiableMap(new LinkedHashMap<>(toolRuns));
+    }
+
+    /**
+     * Get the highest resident set size, in kB, of each external tool run by the build.
+     */
+    public synchronized Map<String, Long> getToolPeakRss() {
+      return Collections.unmodifiableMap(new LinkedHashMap<>(toolPeakRss));
+    }
+
+    /**
+     * Get the lookups the build made in each build cache.
+     */
+    public synchronized Map<String, CacheStats> getCaches() {
+      Map<String, CacheStats> copy = new LinkedHashMap<>();
+      for (Map.Entry<String, CacheStats> entry : caches.entrySet()) {
+        copy.put(entry.getKey(), new CacheStats(entry.getValue()));
+      }
+      return Collections.unmodifiableMap(copy);
     }
   }
 
@@ -65,12 +100,32 @@ public class SimpleStatReporter implements StatReporter {
   private final Deque<BuildStats> orderedBuilds = new LinkedList<>();
 
   @Override
-  public void startBuild(Compiler compiler) {
+  public synchronized void startBuild(Compiler compiler) {
     activeBuilds.put(compiler, new BuildStats());
   }
 
   @Override
   public void nextStage(Compiler compiler, String stage) {
+    // Stages may overlap, so their durations are recorded when they finish.
+  }
+
+  @Override
+  public void stageFinished(Compiler compiler, String stage, long millis) {
+    BuildStats stats;
+    synchronized (this) {
+      stats = activeBuilds.get(compiler);
+    }
+    if (stats == null) {
+      LOG.warning("Got compiler with uninitialized stats object");
+      return;
+    }
+    synchronized (stats) {
+      stats.stages.put(stage, millis);
+    }
+  }
+
+  @Override
+  public void toolWait(Compiler compiler, String tool, long waitMillis) {
     BuildStats stats;
     synchronized (this) {
       stats = activeBuilds.get(compiler);
@@ -79,8 +134,50 @@ public class SimpleStatReporter implements StatReporter {
       LOG.warning("Got compiler with uninitialized stats object");
       return;
     }
-    stats.stages.put(stage, System.currentTimeMillis() - stats.last);
-    stats.last = System.currentTimeMillis();
+    synchronized (stats) {
+      Long previous = stats.toolWaits.get(tool);
+      stats.toolWaits.put(tool, previous == null ? waitMillis : previous + waitMillis);
+    }
+  }
+
+  @Override
+  public void toolRun(Compiler compiler, String tool, long millis, long peakRssKb) {
+    BuildStats stats;
+    synchronized (this) {
+      stats = activeBuilds.get(compiler);
+    }
+    if (stats == null) {
+      LOG.warning("Got compiler with uninitialized stats object");
+      return;
+    }
+    synchronized (stats) {
+      Long previous = stats.toolRuns.get(tool);
+      stats.toolRuns.put(tool, previous == null ? millis : previous + millis);
+      if (peakRssKb >= 0) {
+        Long peak = stats.toolPeakRss.get(tool);
+        stats.toolPeakRss.put(tool, peak == null ? peakRssKb : Math.max(peak, peakRssKb));
+      }
+    }
+  }
+
+  @Override
+  public void cacheLookup(Compiler compiler, String cache, boolean hit, long bytesSaved) {
+    BuildStats stats;
+    synchronized (this) {
+      stats = activeBuilds.get(compiler);
+    }
+    if (stats == null) {
+      LOG.warning("Got compiler with uninitialized stats object");
+      return;
+    }
+    synchronized (stats) {
+      CacheStats cacheStats = stats.caches.get(cache);
+      if (cacheStats == null) {
+        cacheStats = new CacheStats();
+        stats.caches.put(cache, cacheStats);
+      }
+      cacheStats.record(hit, bytesSaved);
+    }
   }
 
   @Override
@@ -19,6 +19,16 @@ import java.util.Map;
  * @author Evan W. Patton (ewpatton@mit.edu)
  */
 public class StatCalculator {
+  /**
+   * Prefix of the pseudo-stages holding the time builds waited to run external tools.
+   */
+  public static final String WAIT_PREFIX = "wait.";
+
+  /**
+   * Prefix of the pseudo-stages holding the time builds spent running external tools.
+   */
+  public static final String RUN_PREFIX = "run.";
+
   public static class Stats {
     private double minTime = Double.POSITIVE_INFINITY;
     private double avgTime = 0;
@@ -28,6 +38,8 @@ public class StatCalculator {
     private boolean avgComputed = false;
 
     private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private final Map<String, CacheStats> caches = new LinkedHashMap<>();
+    private final Map<String, Long> peakRss = new LinkedHashMap<>();
 
     private Stats() {
     }
@@ -67,6 +79,45 @@ public class StatCalculator {
       return Collections.unmodifiableSet(stats.keySet());
     }
 
+    /**
+     * Get the lookups made in a build cache, summed over all builds.
+     *
+     * @param name the cache name
+     * @return the cache lookups
+     */
+    public CacheStats getCacheStats(String name) {
+      CacheStats child = caches.get(name);
+      if (child == null) {
+        child = new CacheStats();
+        caches.put(name, child);
+      }
+      return child;
+    }
+
+    public Collection<String> getCacheNames() {
+      return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Get the highest resident set size of an external tool over all builds.
+     *
+     * @param tool the tool name
+     * @return the peak resident set size, in kB
+     */
+    public long getPeakRssKb(String tool) {
+      Long value = peakRss.get(tool);
+      return value == null ? -1 : value;
+    }
+
+    public Collection<String> getPeakRssToolNames() {
+      return Collections.unmodifiableSet(peakRss.keySet());
+    }
+
+    private void updatePeakRss(String tool, long kb) {
+      Long previous = peakRss.get(tool);
+      peakRss.put(tool, previous == null ? kb : Math.max(previous, kb));
+    }
+
     private void update(double duration) {
       minTime = Math.min(minTime, duration);
       avgTime += duration;
@@ -83,8 +134,12 @@ public class StatCalculator {
     }
 
     private void finalizeComputation() {
-      stdev /= count;
-      stdev = Math.sqrt(stdev);
+      if (count > 0) {
+        stdev = Math.sqrt(stdev / count);
+      }
+      for (Stats child : stats.values()) {
+        child.finalizeComputation();
+      }
     }
   }
 
@@ -101,19 +156,32 @@ public class StatCalculator {
       for (Map.Entry<String, Long> stage : report.getStages().entrySet()) {
         stats.getStageStats(stage.getKey()).update(stage.getValue());
       }
+      for (Map.Entry<String, Long> wait : report.getToolWaits().entrySet()) {
+        stats.getStageStats(WAIT_PREFIX + wait.getKey()).update(wait.getValue());
+      }
+      for (Map.Entry<String, Long> run : report.getToolRuns().entrySet()) {
+        stats.getStageStats(RUN_PREFIX + run.getKey()).update(run.getValue());
+      }
+      for (Map.Entry<String, Long> rss : report.getToolPeakRss().entrySet()) {
+        stats.updatePeakRss(rss.getKey(), rss.getValue());
+      }
+      for (Map.Entry<String, CacheStats> cache : report.getCaches().entrySet()) {
+        stats.getCacheStats(cache.getKey()).add(cache.getValue());
+      }
     }
     for (BuildStats report : reports) {
       stats.updateStdev(report.getDuration());
       for (Map.Entry<String, Long> stage : report.getStages().entrySet()) {
         stats.getStageStats(stage.getKey()).updateStdev(stage.getValue());
       }
-    }
-    for (BuildStats report : reports) {
-      stats.finalizeComputation();
-      for (String stage : report.getStages().keySet()) {
-        stats.getStageStats(stage).finalizeComputation();
+      for (Map.Entry<String, Long> wait : report.getToolWaits().entrySet()) {
+        stats.getStageStats(WAIT_PREFIX + wait.getKey()).updateStdev(wait.getValue());
+      }
+      for (Map.Entry<String, Long> run : report.getToolRuns().entrySet()) {
+        stats.getStageStats(RUN_PREFIX + run.getKey()).updateStdev(run.getValue());
       }
     }
+    stats.finalizeComputation();
     return stats;
   }
 }
@@ -22,7 +22,8 @@ public interface StatReporter {
   void startBuild(Compiler compiler);
 
   /**
-   * Indicate to the StatReporter that a build is entering a new stage.
+   * Indicate to the StatReporter that a build is entering a new stage. Stages of the same build
+   * may run concurrently.
    *
    * @param compiler the compilation process in progress
    * @param stage the stage being entered
@@ -5,10 +5,13 @@
 
 package com.google.appinventor.buildserver.tasks.android;
 
+import com.google.appinventor.buildserver.AarCache;
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
+import com.google.appinventor.buildserver.tasks.common.LoadComponentInfo;
 import com.google.appinventor.buildserver.util.AARLibraries;
 import com.google.appinventor.buildserver.util.AARLibrary;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
@@ -27,6 +30,7 @@ import java.util.Set;
  */
 
 @BuildType(apk = true, aab = true)
+@DependsOn({LoadComponentInfo.class})
 public class AttachAarLibs implements AndroidTask {
   @Override
   public TaskResult execute(AndroidCompilerContext context) {
@@ -37,6 +41,7 @@ public class AttachAarLibs implements AndroidTask {
     final File genSrcDir = ExecutorUtils.createDir(generatedDir, "src");
     context.getComponentInfo().setExplodedAarLibs(new AARLibraries(genSrcDir));
     final Set<String> processedLibs = new HashSet<>();
+    final AarCache cache = AarCache.getInstance();
 
     // Attach the Android support libraries (needed by every app)
     context.getComponentInfo().getLibsNeeded().put("ANDROID", new HashSet<>(Arrays.asList(
@@ -54,7 +59,13 @@ public class AttachAarLibs implements AndroidTask {
               // explode libraries into ${buildDir}/exploded-aars/<package>/
               AARLibrary aarLib = new AARLibrary(new File(context.getResource(
                   context.getResources().getRuntimeFilesDir() + libname)));
-              aarLib.unpackToDirectory(explodedBaseDir);
+              if (cache != null) {
+                long restored = cache.attach(aarLib, explodedBaseDir);
+                context.getStatReporter().cacheLookup(context.getCompiler(), "aar",
+                    restored >= 0, Math.max(restored, 0));
+              } else {
+                aarLib.unpackToDirectory(explodedBaseDir);
+              }
               context.getComponentInfo().getExplodedAarLibs().add(aarLib);
               processedLibs.add(libname);
             }
@@ -6,10 +6,12 @@
 package com.google.appinventor.buildserver.tasks.android;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.YoungAndroidConstants;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
+import com.google.appinventor.buildserver.tasks.common.LoadComponentInfo;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
 
 import com.google.common.io.Files;
@@ -23,6 +25,7 @@ import java.io.IOException;
  */
 
 @BuildType(apk = true, aab = true)
+@DependsOn({LoadComponentInfo.class})
 public class AttachCompAssets implements AndroidTask {
   @Override
   public TaskResult execute(AndroidCompilerContext context) {
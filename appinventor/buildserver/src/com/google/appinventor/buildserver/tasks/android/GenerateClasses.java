@@ -6,35 +6,53 @@
 package com.google.appinventor.buildserver.tasks.android;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.Project;
 import com.google.appinventor.buildserver.Signatures;
 import com.google.appinventor.buildserver.TaskResult;
+import com.google.appinventor.buildserver.YailClassCache;
 import com.google.appinventor.buildserver.YoungAndroidConstants;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.context.AndroidPaths;
 import com.google.appinventor.buildserver.context.CompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
-import com.google.appinventor.buildserver.util.Execution;
+import com.google.appinventor.buildserver.util.ChildProcessScheduler;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
+import com.google.appinventor.buildserver.util.KawaCompilerPool;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Reader;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Compiles screen source files written in YAIL to Java class files.
  */
 @BuildType(apk = true, aab = true)
+@DependsOn({
+    AttachAarLibs.class,
+    RunAapt.class,
+    RunAapt2.class
+})
 public class GenerateClasses implements AndroidTask {
+  // The main class Kawa generates for runtime.scm, which declares the module name
+  // com.google.youngandroid.runtime.
+  private static final String RUNTIME_CLASS_FILE =
+      "com/google/youngandroid/runtime.class".replace('/', File.separatorChar);
+
   CompilerContext<AndroidPaths> context;
 
   @Override
@@ -152,41 +170,56 @@ public class GenerateClasses implements AndroidTask {
       context.getReporter().info("Libraries Classpath = " + classpath);
 
       String yailRuntime = context.getResources().getYailRuntime();
-      List<String> kawaCommandArgs = Lists.newArrayList();
-      int mx = context.getChildProcessRam() - 200;
-      Collections.addAll(kawaCommandArgs,
-          System.getProperty("java.home") + "/bin/java",
-          "-Dfile.encoding=UTF-8",
-          "-mx" + mx + "M",
-          "-cp", classpath.toString(),
-          "kawa.repl",
-          "-f", yailRuntime,
-          "-d", context.getPaths().getClassesDir().getAbsolutePath(),
-          "-P", Signatures.getPackageName(context.getProject().getMainClass()) + ".",
-          "-C");
-      // TODO(lizlooney) - we are currently using (and have always used) absolute paths for the
-      // source file names. The resulting .class files contain references to the source file names,
-      // including the name of the tmp directory that contains them. We may be able to avoid that
-      // by using source file names that are relative to the project root and using the project
-      // root as the working directory for the Kawa compiler process.
-      kawaCommandArgs.addAll(sourceFileNames);
-      kawaCommandArgs.add(yailRuntime);
-      String[] kawaCommandLine = kawaCommandArgs.toArray(new String[0]);
-
-      // Capture Kawa compiler stderr. The ODE server parses out the warnings and errors and adds
-      // them to the protocol buffer for logging purposes. (See
-      // buildserver/ProjectBuilder.processCompilerOutout.
-      ByteArrayOutputStream kawaOutputStream = new ByteArrayOutputStream();
-      boolean kawaSuccess;
-      synchronized (context.getResources().getSyncKawaOrDx()) {
-        kawaSuccess = Execution.execute(null, kawaCommandLine,
-            System.out, new PrintStream(kawaOutputStream));
+      File classesDir = context.getPaths().getClassesDir();
+      String packagePrefix = Signatures.getPackageName(context.getProject().getMainClass()) + ".";
+
+      // Restore the screens, and the runtime, that were compiled before in the same environment.
+      YailClassCache cache = YailClassCache.getInstance();
+      Map<String, String> cacheKeys = new LinkedHashMap<>();
+      List<String> unitsToCompile = Lists.newArrayList(sourceFileNames);
+      unitsToCompile.add(yailRuntime);
+      if (cache != null) {
+        String environment = environmentKey(classpath.toString(), yailRuntime, packagePrefix);
+        for (String unit : Lists.newArrayList(unitsToCompile)) {
+          String key = new YailClassCache.KeyBuilder()
+              .add(environment)
+              .add(unit.equals(yailRuntime) ? RUNTIME_CLASS_FILE
+                  : classFileNames.get(sourceFileNames.indexOf(unit))
+                      .substring(classesDir.getAbsolutePath().length()))
+              .addFile(new File(unit))
+              .build();
+          long restored = cache.restore(key, classesDir);
+          context.getStatReporter().cacheLookup(context.getCompiler(), "yail", restored >= 0,
+              Math.max(restored, 0));
+          if (restored >= 0) {
+            unitsToCompile.remove(unit);
+          } else {
+            cacheKeys.put(unit, key);
+          }
+        }
+        context.getReporter().info("Restored " + (sourceFileNames.size() + 1
+            - unitsToCompile.size()) + " compiled units from the cache");
+      }
+
+      boolean kawaSuccess = true;
+      if (!unitsToCompile.isEmpty()) {
+        kawaSuccess = compileUnits(classpath.toString(), yailRuntime, packagePrefix,
+            unitsToCompile);
+        if (kawaSuccess && cache != null) {
+          for (Map.Entry<String, String> entry : cacheKeys.entrySet()) {
+            File mainClassFile = entry.getKey().equals(yailRuntime)
+                ? new File(classesDir, RUNTIME_CLASS_FILE)
+                : new File(classFileNames.get(sourceFileNames.indexOf(entry.getKey())));
+            List<File> classFiles = unitClassFiles(mainClassFile);
+            if (!classFiles.isEmpty()) {
+              cache.store(entry.getValue(), classesDir, classFiles);
+            }
+          }
+        }
       }
       if (!kawaSuccess) {
         context.getReporter().error("Kawa compile has failed.", true);
       }
-      String kawaOutput = kawaOutputStream.toString();
-      context.getReporter().getSystemOut().print(kawaOutput);
 
       // Check that all of the class files were created.
       // If they weren't, return with an error.
@@ -198,13 +231,107 @@ public class GenerateClasses implements AndroidTask {
           return TaskResult.generateError("Can't find class file for Screen '" + screenName + "'");
         }
       }
-    } catch (IOException e) {
+    } catch (IOException | InterruptedException e) {
       return TaskResult.generateError(e);
     }
 
     return TaskResult.generateSuccess();
   }
 
+  /**
+   * Compiles the given units, which are screen sources or the YAIL runtime, with Kawa.
+   */
+  private boolean compileUnits(String classpath, String yailRuntime, String packagePrefix,
+      List<String> units) throws IOException, InterruptedException {
+    List<String> kawaCommandArgs = Lists.newArrayList();
+    Collections.addAll(kawaCommandArgs,
+        "-f", yailRuntime,
+        "-d", context.getPaths().getClassesDir().getAbsolutePath(),
+        "-P", packagePrefix,
+        "-C");
+    // TODO(lizlooney) - we are currently using (and have always used) absolute paths for the
+    // source file names. The resulting .class files contain references to the source file names,
+    // including the name of the tmp directory that contains them. We may be able to avoid that
+    // by using source file names that are relative to the project root and using the project
+    // root as the working directory for the Kawa compiler process.
+    kawaCommandArgs.addAll(units);
+
+    // Capture Kawa compiler stderr. The ODE server parses out the warnings and errors and adds
+    // them to the protocol buffer for logging purposes. (See
+    // buildserver/ProjectBuilder.processCompilerOutout.
+    ByteArrayOutputStream kawaOutputStream = new ByteArrayOutputStream();
+    boolean kawaSuccess;
+    KawaCompilerPool pool = KawaCompilerPool.getInstance();
+    if (pool != null) {
+      // The pool bounds the number of concurrent compiles itself, and its workers are sized
+      // up front, so pooled compiles are not scheduled against the child process budget.
+      // Workers are only reused for the same class path, and never when extension classes are
+      // on it.
+      kawaSuccess = pool.compile(context.getResources().getKawaRuntime(),
+          classpath, kawaCommandArgs, context.getExtCompTypes().isEmpty(),
+          System.out, new PrintStream(kawaOutputStream));
+    } else {
+      List<String> kawaCommandLine = Lists.newArrayList();
+      int mx = context.getChildProcessRam() - 200;
+      Collections.addAll(kawaCommandLine,
+          System.getProperty("java.home") + "/bin/java",
+          "-Dfile.encoding=UTF-8",
+          "-mx" + mx + "M",
+          "-cp", classpath,
+          "kawa.repl");
+      kawaCommandLine.addAll(kawaCommandArgs);
+      kawaSuccess = ChildProcessScheduler.getInstance().execute(context,
+          ChildProcessScheduler.Tool.KAWA, mx, kawaCommandLine.toArray(new String[0]),
+          System.out, new PrintStream(kawaOutputStream));
+    }
+    String kawaOutput = kawaOutputStream.toString();
+    context.getReporter().getSystemOut().print(kawaOutput);
+    return kawaSuccess;
+  }
+
+  /**
+   * Computes the part of the cache key shared by all units of a build: everything on the Kawa
+   * class path, the YAIL runtime, the package name and the components used. Directories on the
+   * class path only hold the R classes of the build, which YAIL code does not use.
+   */
+  private String environmentKey(String classpath, String yailRuntime, String packagePrefix)
+      throws IOException {
+    YailClassCache.KeyBuilder key = new YailClassCache.KeyBuilder();
+    key.add(packagePrefix);
+    key.addFile(new File(yailRuntime));
+    for (String type : new TreeSet<>(context.getSimpleCompTypes())) {
+      key.add(type);
+    }
+    for (String type : new TreeSet<>(context.getExtCompTypes())) {
+      key.add(type);
+    }
+    for (String entry : classpath.split(File.pathSeparator)) {
+      File file = new File(entry);
+      if (file.isFile()) {
+        key.addFile(file);
+      }
+    }
+    return key.build();
+  }
+
+  /**
+   * Lists the class files Kawa generated for a unit: its main class and the classes nested in
+   * it.
+   */
+  private static List<File> unitClassFiles(File mainClassFile) {
+    String name = mainClassFile.getName();
+    final String base = name.substring(0, name.length() - ".class".length());
+    File[] files = mainClassFile.getParentFile().listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        String name = file.getName();
+        return name.equals(base + ".class")
+            || (name.startsWith(base + "$") && name.endsWith(".class"));
+      }
+    });
+    return files == null ? Collections.<File>emptyList() : Arrays.asList(files);
+  }
+
   @VisibleForTesting
   boolean compileRClasses() {
     if (context.getComponentInfo().getExplodedAarLibs().isEmpty()) {
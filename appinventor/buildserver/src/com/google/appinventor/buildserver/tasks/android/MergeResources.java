@@ -8,19 +8,28 @@ package com.google.appinventor.buildserver.tasks.android;
 import com.android.ide.common.internal.AaptCruncher;
 import com.android.ide.common.internal.PngCruncher;
 
+import com.google.appinventor.buildserver.AarCache;
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
+import com.google.appinventor.buildserver.util.AARLibraries;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
 
 import java.io.File;
+import java.io.IOException;
 
 
 /**
  * compiler.mergeResources()
  */
 @BuildType(apk = true, aab = true)
+@DependsOn({
+    AttachAarLibs.class,
+    PrepareAppIcon.class,
+    XmlConfig.class
+})
 public class MergeResources implements AndroidTask {
   @Override
   public TaskResult execute(AndroidCompilerContext context) {
@@ -32,11 +41,32 @@ public class MergeResources implements AndroidTask {
         context.getPaths().getDeployDir().getAbsolutePath() + File.separator
             + context.getProject().getProjectName() + "._ap"));
 
+    AARLibraries libraries = context.getComponentInfo().getExplodedAarLibs();
+    File mergedResDir = context.getPaths().getMergedResDir();
+    AarCache cache = AarCache.getInstance();
+    String key = null;
+    if (cache != null) {
+      try {
+        key = cache.mergedResourcesKey(libraries, context.getPaths().getResDir(),
+            new File(context.getResources().aapt()));
+        boolean restored = cache.restoreMergedResources(key, mergedResDir);
+        context.getStatReporter().cacheLookup(context.getCompiler(), "merged-resources",
+            restored, 0);
+        if (restored) {
+          return TaskResult.generateSuccess();
+        }
+      } catch (IOException e) {
+        context.getReporter().warn("Unable to look up merged resources: " + e.getMessage());
+      }
+    }
+
     PngCruncher cruncher = new AaptCruncher(context.getResources().aapt(), null, null);
-    if (!context.getComponentInfo().getExplodedAarLibs().mergeResources(
-        context.getPaths().getMergedResDir(), context.getPaths().getResDir(), cruncher)) {
+    if (!libraries.mergeResources(mergedResDir, context.getPaths().getResDir(), cruncher)) {
       return TaskResult.generateError("Could not merge resources");
     }
+    if (key != null) {
+      cache.storeMergedResources(key, mergedResDir);
+    }
     return TaskResult.generateSuccess();
   }
 }
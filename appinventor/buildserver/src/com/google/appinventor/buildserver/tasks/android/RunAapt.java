@@ -6,12 +6,13 @@
 package com.google.appinventor.buildserver.tasks.android;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.Signatures;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.YoungAndroidConstants;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
-import com.google.appinventor.buildserver.util.Execution;
+import com.google.appinventor.buildserver.util.ChildProcessScheduler;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
 
 import java.io.File;
@@ -23,6 +24,13 @@ import java.util.List;
  */
 // RunAapt
 @BuildType(apk = true)
+@DependsOn({
+    AttachAarLibs.class,
+    AttachCompAssets.class,
+    CreateManifest.class,
+    MergeResources.class,
+    SetupLibs.class
+})
 public class RunAapt implements AndroidTask {
   @Override
   public TaskResult execute(AndroidCompilerContext context) {
@@ -72,7 +80,8 @@ public class RunAapt implements AndroidTask {
     String[] aaptPackageCommandLine = aaptPackageCommandLineArgs.toArray(new String[0]);
     // Using System.err and System.out on purpose. Don't want to pollute build messages with
     // tools output
-    if (!Execution.execute(null, aaptPackageCommandLine,
+    if (!ChildProcessScheduler.getInstance().execute(context, ChildProcessScheduler.Tool.AAPT,
+        ChildProcessScheduler.NATIVE_TOOL_MEMORY_MB, aaptPackageCommandLine,
         System.out, System.err)) {
       return TaskResult.generateError("Error running AAPT");
     }
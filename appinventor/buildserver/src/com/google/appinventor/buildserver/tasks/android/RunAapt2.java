@@ -6,19 +6,26 @@
 package com.google.appinventor.buildserver.tasks.android;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.YoungAndroidConstants;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.context.AndroidPaths;
 import com.google.appinventor.buildserver.context.CompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
-import com.google.appinventor.buildserver.util.Execution;
+import com.google.appinventor.buildserver.util.ChildProcessScheduler;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
 @BuildType(aab = true)
+@DependsOn({
+    AttachCompAssets.class,
+    CreateManifest.class,
+    MergeResources.class,
+    SetupLibs.class
+})
 public class RunAapt2 implements AndroidTask {
   CompilerContext<AndroidPaths> context;
   File resourcesZip;
@@ -61,7 +68,8 @@ public class RunAapt2 implements AndroidTask {
     aapt2CommandLine.add("--no-crunch");
     String[] aapt2CompileCommandLine = aapt2CommandLine.toArray(new String[0]);
 
-    if (!Execution.execute(null, aapt2CompileCommandLine,
+    if (!ChildProcessScheduler.getInstance().execute(context, ChildProcessScheduler.Tool.AAPT,
+        ChildProcessScheduler.NATIVE_TOOL_MEMORY_MB, aapt2CompileCommandLine,
         System.out, System.err)) {
       context.getReporter().error("Could not execute AAPT2 compile step");
       return false;
@@ -96,7 +104,8 @@ public class RunAapt2 implements AndroidTask {
     aapt2CommandLine.add("--no-resource-deduping");
     String[] aapt2LinkCommandLine = aapt2CommandLine.toArray(new String[0]);
 
-    if (!Execution.execute(null, aapt2LinkCommandLine,
+    if (!ChildProcessScheduler.getInstance().execute(context, ChildProcessScheduler.Tool.AAPT,
+        ChildProcessScheduler.NATIVE_TOOL_MEMORY_MB, aapt2LinkCommandLine,
         System.out, System.err)) {
       context.getReporter().error("Could not execute AAPT2 link step");
       return false;
@@ -6,15 +6,20 @@
 package com.google.appinventor.buildserver.tasks.android;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
-import com.google.appinventor.buildserver.util.Execution;
+import com.google.appinventor.buildserver.util.ChildProcessScheduler;
+
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * compiler.runApkSigner()
  */
 @BuildType(apk = true)
+@DependsOn({RunZipAlign.class})
 public class RunApkSigner implements AndroidTask {
   @Override
   public TaskResult execute(AndroidCompilerContext context) {
@@ -26,18 +31,17 @@ public class RunApkSigner implements AndroidTask {
       --ks-pass pass:android\
       <APK>
     */
-    String[] apksignerCommandLine = {
-        System.getProperty("java.home") + "/bin/java", "-jar",
-        "-mx" + mx + "M",
-        context.getResources().getApksignerJar(), "sign",
+    List<String> apksignerArgs = Arrays.asList(
+        "sign",
         "-ks", context.getKeystoreFilePath(),
         "-ks-key-alias", "AndroidKey",
         "-ks-pass", "pass:android",
         context.getPaths().getDeployFile().getAbsolutePath()
-    };
+    );
 
-    if (!Execution.execute(null, apksignerCommandLine,
-        System.out, System.err)) {
+    if (!ChildProcessScheduler.getInstance().executeJar(context,
+        ChildProcessScheduler.Tool.APKSIGNER, mx, context.getResources().getApksignerJar(),
+        apksignerArgs, System.out, System.err)) {
       TaskResult.generateError("Error while running ZipAligned tool");
     }
 
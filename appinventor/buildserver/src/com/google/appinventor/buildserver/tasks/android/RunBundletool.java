@@ -8,6 +8,7 @@ package com.google.appinventor.buildserver.tasks.android;
 import static java.nio.file.Files.newInputStream;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
 import com.google.appinventor.buildserver.context.AndroidPaths;
@@ -15,6 +16,7 @@ import com.google.appinventor.buildserver.context.CompilerContext;
 import com.google.appinventor.buildserver.interfaces.AndroidTask;
 import com.google.appinventor.buildserver.util.AabPaths;
 import com.google.appinventor.buildserver.util.AabZipper;
+import com.google.appinventor.buildserver.util.ChildProcessScheduler;
 import com.google.appinventor.buildserver.util.Execution;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
 
@@ -36,6 +38,11 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 @BuildType(aab = true)
+@DependsOn({
+    AttachNativeLibs.class,
+    RunAapt2.class,
+    RunMultidex.class
+})
 public class RunBundletool implements AndroidTask {
   private AabPaths aab;
 
@@ -223,19 +230,15 @@ public class RunBundletool implements AndroidTask {
       return false;
     }
 
-    List<String> bundletoolCommandLine = new ArrayList<String>();
-    bundletoolCommandLine.add(System.getProperty("java.home") + "/bin/java");
-    bundletoolCommandLine.add("-jar");
-    bundletoolCommandLine.add("-mx" + context.getChildProcessRam() + "M");
-    bundletoolCommandLine.add(bundletool);
-    bundletoolCommandLine.add("build-bundle");
-    bundletoolCommandLine.add("--modules=" + aab.getBase());
-    bundletoolCommandLine.add("--config=" + configFile.getAbsolutePath());
-    bundletoolCommandLine.add("--output=" + context.getPaths().getDeployFile().getAbsolutePath());
-    String[] bundletoolBuildCommandLine = bundletoolCommandLine.toArray(new String[0]);
-
-    return Execution.execute(null, bundletoolBuildCommandLine,
-        System.out, System.err);
+    List<String> bundletoolArgs = new ArrayList<String>();
+    bundletoolArgs.add("build-bundle");
+    bundletoolArgs.add("--modules=" + aab.getBase());
+    bundletoolArgs.add("--config=" + configFile.getAbsolutePath());
+    bundletoolArgs.add("--output=" + context.getPaths().getDeployFile().getAbsolutePath());
+
+    return ChildProcessScheduler.getInstance().executeJar(context,
+        ChildProcessScheduler.Tool.BUNDLETOOL, context.getChildProcessRam(), bundletool,
+        bundletoolArgs, System.out, System.err);
   }
 
   private boolean jarsigner(CompilerContext<AndroidPaths> context) {
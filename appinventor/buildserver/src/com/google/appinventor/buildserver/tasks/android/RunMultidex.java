@@ -6,6 +6,7 @@
 package com.google.appinventor.buildserver.tasks.android;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.DexExecTask;
 import com.google.appinventor.buildserver.TaskResult;
 import com.google.appinventor.buildserver.context.AndroidCompilerContext;
@@ -31,6 +32,7 @@ import java.util.zip.ZipInputStream;
  * compiler.runMultidex()
  */
 @BuildType(apk = true, aab = true)
+@DependsOn({GenerateClasses.class})
 public class RunMultidex implements AndroidTask {
   @Override
   public TaskResult execute(AndroidCompilerContext context) {
@@ -137,9 +139,9 @@ public class RunMultidex implements AndroidTask {
         dexTask.setDexedLibs(context.getDexCacheDir());
       }
 
-      synchronized (context.getResources().getSyncKawaOrDx()) {
-        success = dexTask.execute(inputList);
-      }
+      // Each dx run is scheduled against the child process budget, or run by the Java tool pool.
+      dexTask.setContext(context);
+      success = dexTask.execute(inputList);
 
       // Aggregate all of the classes.dex files output by dx
       File[] files = context.getPaths().getTmpDir().listFiles(new FilenameFilter() {
@@ -6,26 +6,23 @@
 package com.google.appinventor.buildserver.tasks.common;
 
 import com.google.appinventor.buildserver.BuildType;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
+import com.google.appinventor.buildserver.context.ComponentCatalog;
 import com.google.appinventor.buildserver.context.CompilerContext;
 import com.google.appinventor.buildserver.interfaces.CommonTask;
 import com.google.appinventor.buildserver.util.ExecutorUtils;
 import com.google.appinventor.buildserver.util.PermissionConstraint;
 import com.google.appinventor.components.common.ComponentDescriptorConstants;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import org.codehaus.jettison.json.JSONArray;
-import org.codehaus.jettison.json.JSONException;
-import org.codehaus.jettison.json.JSONObject;
 
 
 
@@ -40,8 +37,10 @@ import org.codehaus.jettison.json.JSONObject;
  * compiler.generateBroadcastReceiver();
  */
 @BuildType(apk = true, aab = true)
+@DependsOn({ReadBuildInfo.class})
 public class LoadComponentInfo implements CommonTask {
   CompilerContext<?> context = null;
+  private List<ComponentCatalog.Entry> components;
   private ConcurrentMap<String, Map<String, Map<String, Set<String>>>> conditionals;
   /**
    * Maps types to blocks to permissions to permission constraints.
@@ -54,32 +53,28 @@ public class LoadComponentInfo implements CommonTask {
     this.context = context;
     this.conditionals = new ConcurrentHashMap<>();
 
-    if (!loadJsonInfo()) {
+    if (!loadComponents()) {
       return TaskResult.generateError("Unable to load component information");
     }
 
-    if (!this.generateAssets()
-        || !this.generateActivities()
-        || !this.generateActivityMetadata()
-        || !this.generateBroadcastReceivers()
-        || !this.generateContentProviders()
-        || !this.generateLibNames()
-        || !this.generateMetadata()
-        || !this.generateMinSdks()
-        || !this.generateNativeLibNames()
-        || !this.generatePermissions()
-        || !this.generateQueries()
-        || !this.generateServices()) {
-      return TaskResult.generateError("Could not extract info from the app");
-    }
+    this.generateAssets();
+    this.generateActivities();
+    this.generateActivityMetadata();
+    this.generateBroadcastReceivers();
+    this.generateContentProviders();
+    this.generateLibNames();
+    this.generateMetadata();
+    this.generateMinSdks();
+    this.generateNativeLibNames();
+    this.generatePermissions();
+    this.generateQueries();
+    this.generateServices();
 
     // TODO(Will): Remove the following call once the deprecated
     //             @SimpleBroadcastReceiver annotation is removed. It should
     //             should remain for the time being because otherwise we'll break
     //             extensions currently using @SimpleBroadcastReceiver.
-    if (!this.generateBroadcastReceiver()) {
-      return TaskResult.generateError("Could not generate the broadcast receiver");
-    }
+    this.generateBroadcastReceiver();
 
     return TaskResult.generateSuccess();
   }
@@ -87,16 +82,10 @@ public class LoadComponentInfo implements CommonTask {
   /*
    * Generate the set of conditionally included assets needed by this project.
    */
-  private boolean generateAssets() {
+  private void generateAssets() {
     context.getReporter().info("Generating assets...");
-    try {
-      loadJsonInfo(context.getComponentInfo().getAssetsNeeded(),
-          ComponentDescriptorConstants.ASSETS_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Assets stage", true);
-      return false;
-    }
+    loadJsonInfo(context.getComponentInfo().getAssetsNeeded(),
+        ComponentDescriptorConstants.ASSETS_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getAssetsNeeded().keySet()) {
@@ -104,22 +93,15 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Component assets needed, n = " + n);
-    return true;
   }
 
   /*
    * Generate the set of conditionally included activities needed by this project.
    */
-  private boolean generateActivities() {
+  private void generateActivities() {
     context.getReporter().info("Generating activities...");
-    try {
-      loadJsonInfo(context.getComponentInfo().getActivitiesNeeded(),
-          ComponentDescriptorConstants.ACTIVITIES_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Activities stage", true);
-      return false;
-    }
+    loadJsonInfo(context.getComponentInfo().getActivitiesNeeded(),
+        ComponentDescriptorConstants.ACTIVITIES_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getActivitiesNeeded().keySet()) {
@@ -127,21 +109,14 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Component activities needed, n = " + n);
-    return true;
   }
 
   /**
    * Generate a set of conditionally included metadata needed by this project.
    */
-  private boolean generateMetadata() {
-    try {
-      loadJsonInfo(context.getComponentInfo().getMetadataNeeded(),
-          ComponentDescriptorConstants.METADATA_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Metadata stage", true);
-      return false;
-    }
+  private void generateMetadata() {
+    loadJsonInfo(context.getComponentInfo().getMetadataNeeded(),
+        ComponentDescriptorConstants.METADATA_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getMetadataNeeded().keySet()) {
@@ -149,21 +124,14 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Component metadata needed, n = " + n);
-    return true;
   }
 
   /**
    * Generate a set of conditionally included activity metadata needed by this project.
    */
-  private boolean generateActivityMetadata() {
-    try {
-      loadJsonInfo(context.getComponentInfo().getActivityMetadataNeeded(),
-          ComponentDescriptorConstants.ACTIVITY_METADATA_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Activity Metadata stage", true);
-      return false;
-    }
+  private void generateActivityMetadata() {
+    loadJsonInfo(context.getComponentInfo().getActivityMetadataNeeded(),
+        ComponentDescriptorConstants.ACTIVITY_METADATA_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getActivityMetadataNeeded().keySet()) {
@@ -171,62 +139,39 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Component activity metadata needed, n = " + n);
-    return true;
   }
 
   /*
    * Generate a set of conditionally included broadcast receivers needed by this project.
    */
-  private boolean generateBroadcastReceivers() {
+  private void generateBroadcastReceivers() {
     context.getReporter().info("Generating broadcast receivers...");
-    try {
-      loadJsonInfo(context.getComponentInfo().getBroadcastReceiversNeeded(),
-          ComponentDescriptorConstants.BROADCAST_RECEIVERS_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the BroadcastReceivers stage", true);
-      return false;
-    }
+    loadJsonInfo(context.getComponentInfo().getBroadcastReceiversNeeded(),
+        ComponentDescriptorConstants.BROADCAST_RECEIVERS_TARGET);
 
     mergeConditionals(conditionals.get(ComponentDescriptorConstants.BROADCAST_RECEIVERS_TARGET),
         context.getComponentInfo().getBroadcastReceiversNeeded());
 
     // TODO: Output the number of broadcast receivers
-
-    return true;
   }
 
   /**
    * Generate a set of conditionally included queries needed by this project.
    */
-  private boolean generateQueries() {
-    try {
-      loadJsonInfo(context.getComponentInfo().getQueriesNeeded(),
-          ComponentDescriptorConstants.QUERIES_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Queries stage", true);
-      return false;
-    }
+  private void generateQueries() {
+    loadJsonInfo(context.getComponentInfo().getQueriesNeeded(),
+        ComponentDescriptorConstants.QUERIES_TARGET);
 
     mergeConditionals(conditionals.get(ComponentDescriptorConstants.QUERIES_TARGET),
         context.getComponentInfo().getQueriesNeeded());
-
-    return true;
   }
 
   /**
    * Generate a set of conditionally included activity metadata needed by this project.
    */
-  private boolean generateServices() {
-    try {
-      loadJsonInfo(context.getComponentInfo().getServicesNeeded(),
-          ComponentDescriptorConstants.SERVICES_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Services stage", true);
-      return false;
-    }
+  private void generateServices() {
+    loadJsonInfo(context.getComponentInfo().getServicesNeeded(),
+        ComponentDescriptorConstants.SERVICES_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getServicesNeeded().keySet()) {
@@ -234,21 +179,14 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Component services needed, n = " + n);
-    return true;
   }
 
   /**
    * Generate a set of conditionally included activity metadata needed by this project.
    */
-  private boolean generateContentProviders() {
-    try {
-      loadJsonInfo(context.getComponentInfo().getContentProvidersNeeded(),
-          ComponentDescriptorConstants.SERVICES_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Content Providers stage", true);
-      return false;
-    }
+  private void generateContentProviders() {
+    loadJsonInfo(context.getComponentInfo().getContentProvidersNeeded(),
+        ComponentDescriptorConstants.SERVICES_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getContentProvidersNeeded().keySet()) {
@@ -256,22 +194,15 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Component content providers needed, n = " + n);
-    return true;
   }
 
   /*
    * Generate the set of Android libraries needed by this project.
    */
-  private boolean generateLibNames() {
+  private void generateLibNames() {
     context.getReporter().info("Generating libraries...");
-    try {
-      loadJsonInfo(context.getComponentInfo().getLibsNeeded(),
-          ComponentDescriptorConstants.LIBRARIES_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Libraries stage", true);
-      return false;
-    }
+    loadJsonInfo(context.getComponentInfo().getLibsNeeded(),
+        ComponentDescriptorConstants.LIBRARIES_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getLibsNeeded().keySet()) {
@@ -279,25 +210,18 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Libraries needed, n = " + n);
-    return true;
   }
 
   /*
    * Generate the set of conditionally included libraries needed by this project.
    */
-  private boolean generateNativeLibNames() {
+  private void generateNativeLibNames() {
     context.getReporter().info("Generating native libraries...");
-    if (context.isForEmulator()) {  // no libraries for emulator, so we return success
-      return true;
-    }
-    try {
-      loadJsonInfo(context.getComponentInfo().getNativeLibsNeeded(),
-          ComponentDescriptorConstants.NATIVE_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Native Libraries stage", true);
-      return false;
+    if (context.isForEmulator()) {  // no libraries for emulator
+      return;
     }
+    loadJsonInfo(context.getComponentInfo().getNativeLibsNeeded(),
+        ComponentDescriptorConstants.NATIVE_TARGET);
 
     int n = 0;
     for (String type : context.getComponentInfo().getNativeLibsNeeded().keySet()) {
@@ -305,33 +229,26 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Native Libraries needed, n = " + n);
-    return true;
   }
 
-  private boolean generatePermissions() {
+  private void generatePermissions() {
     context.getReporter().info("Generating permissions...");
-    try {
-      loadJsonInfo(context.getComponentInfo().getPermissionsNeeded(),
-          ComponentDescriptorConstants.PERMISSIONS_TARGET);
-      loadPermissionConstraints();
-      if (context.getProject() != null) {
-        // Only do this if we have a project (testing doesn't provide one :-( ).
-        context.getReporter().log("usesLocation = " + context.getProject().getUsesLocation());
-        if (context.getProject().getUsesLocation().equals("True")) {
-          // Add location permissions if any WebViewer requests it
-          Set<String> locationPermissions = Sets.newHashSet(); // via a Property.
-          // See ProjectEditor.recordLocationSettings()
-          locationPermissions.add("android.permission.ACCESS_FINE_LOCATION");
-          locationPermissions.add("android.permission.ACCESS_COARSE_LOCATION");
-          locationPermissions.add("android.permission.ACCESS_MOCK_LOCATION");
-          context.getComponentInfo().getPermissionsNeeded()
-              .put("com.google.appinventor.components.runtime.WebViewer", locationPermissions);
-        }
+    loadJsonInfo(context.getComponentInfo().getPermissionsNeeded(),
+        ComponentDescriptorConstants.PERMISSIONS_TARGET);
+    loadPermissionConstraints();
+    if (context.getProject() != null) {
+      // Only do this if we have a project (testing doesn't provide one :-( ).
+      context.getReporter().log("usesLocation = " + context.getProject().getUsesLocation());
+      if (context.getProject().getUsesLocation().equals("True")) {
+        // Add location permissions if any WebViewer requests it
+        Set<String> locationPermissions = Sets.newHashSet(); // via a Property.
+        // See ProjectEditor.recordLocationSettings()
+        locationPermissions.add("android.permission.ACCESS_FINE_LOCATION");
+        locationPermissions.add("android.permission.ACCESS_COARSE_LOCATION");
+        locationPermissions.add("android.permission.ACCESS_MOCK_LOCATION");
+        context.getComponentInfo().getPermissionsNeeded()
+            .put("com.google.appinventor.components.runtime.WebViewer", locationPermissions);
       }
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Permissions stage", true);
-      return false;
     }
 
     mergeConditionals(conditionals.get(ComponentDescriptorConstants.PERMISSIONS_TARGET),
@@ -349,21 +266,12 @@ public class LoadComponentInfo implements CommonTask {
     }
 
     context.getReporter().log("Permissions needed, n = " + n);
-    return true;
   }
 
-  private boolean generateMinSdks() {
+  private void generateMinSdks() {
     context.getReporter().info("Generating Android minimum SDK...");
-    try {
-      loadJsonInfo(context.getComponentInfo().getMinSdksNeeded(),
-          ComponentDescriptorConstants.ANDROIDMINSDK_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the Android Min SDK stage", true);
-      return false;
-    }
-
-    return true;
+    loadJsonInfo(context.getComponentInfo().getMinSdksNeeded(),
+        ComponentDescriptorConstants.ANDROIDMINSDK_TARGET);
   }
 
   /*
@@ -372,196 +280,118 @@ public class LoadComponentInfo implements CommonTask {
    *             that we don't break extensions currently using the
    *             @SimpleBroadcastReceiver annotation.
    */
-  private boolean generateBroadcastReceiver() {
+  private void generateBroadcastReceiver() {
     context.getReporter().info("Generating component broadcast receivers...");
-    try {
-      loadJsonInfo(context.getComponentInfo().getComponentBroadcastReceiver(),
-          ComponentDescriptorConstants.BROADCAST_RECEIVER_TARGET);
-    } catch (IOException | JSONException e) {
-      // This is fatal.
-      context.getReporter().error("There was an error in the BroadcastReceiver Generator stage",
-          true);
+    loadJsonInfo(context.getComponentInfo().getComponentBroadcastReceiver(),
+        ComponentDescriptorConstants.BROADCAST_RECEIVER_TARGET);
+  }
+
+  /**
+   * Looks up the catalog entries of the component types used by the project.
+   */
+  private boolean loadComponents() {
+    ComponentCatalog catalog = context.getComponentCatalog();
+    if (catalog == null) {
+      context.getReporter().error("There was an error loading component info", true);
       return false;
     }
+    components = new ArrayList<>();
+    for (String type : context.getSimpleCompTypes()) {
+      addComponent(catalog, type);
+    }
+    for (String type : context.getExtCompTypes()) {
+      addComponent(catalog, type);
+    }
     return true;
   }
 
-  private boolean loadJsonInfo() {
-    try {
-      context.setBuildInfo(new JSONArray(
-          "[" + context.getSimpleCompsBuildInfo().join(",") + ","
-              + context.getExtCompsBuildInfo().join(",") + "]"));
-      return true;
-    } catch (JSONException e) {
-      e.printStackTrace();
-      context.getReporter().error("There was an error loading component info", true);
-      return false;
+  private void addComponent(ComponentCatalog catalog, String type) {
+    ComponentCatalog.Entry entry = catalog.get(type);
+    if (entry == null) {
+      context.getReporter().info("Component \"" + type + "\" has no build info");
+    } else {
+      components.add(entry);
     }
   }
 
   /*
    *  Loads permissions and information on component libraries and assets.
    */
-  private void loadJsonInfo(ConcurrentMap<String, Set<String>> infoMap, String targetInfo)
-      throws IOException, JSONException {
+  private void loadJsonInfo(ConcurrentMap<String, Set<String>> infoMap, String targetInfo) {
     synchronized (infoMap) {
       if (!infoMap.isEmpty()) {
         return;
       }
 
-      if (context.getBuildInfo() == null) {
-        loadJsonInfo();
-      }
-
-      final JSONArray buildInfo = context.getBuildInfo();
-
-      for (int i = 0; i < buildInfo.length(); ++i) {
-        JSONObject compJson = buildInfo.getJSONObject(i);
-        JSONArray infoArray = null;
-        String type = compJson.getString("type");
-        infoArray = compJson.optJSONArray(targetInfo);
-        if (infoArray == null) {
+      for (ComponentCatalog.Entry entry : components) {
+        String type = entry.getType();
+        Set<String> infoSet = entry.getInfo(targetInfo);
+        if (infoSet == null) {
           context.getReporter().info("Component \"" + type + "\" does not specify " + targetInfo);
           // Continue to process other components
           continue;
         }
 
-        if (!context.getSimpleCompTypes().contains(type)
-            && !context.getExtCompTypes().contains(type)) {
-          continue;
-        }
-
-        Set<String> infoSet = Sets.newHashSet();
-        for (int j = 0; j < infoArray.length(); ++j) {
-          String info = infoArray.getString(j);
-          if (!info.isEmpty()) {
-            infoSet.add(info);
-          }
-        }
-
         if (!infoSet.isEmpty()) {
-          infoMap.put(type, infoSet);
+          // Later stages add to these sets, so they must not be shared with the catalog.
+          infoMap.put(type, new HashSet<>(infoSet));
         }
 
-        processConditionalInfo(compJson, type, targetInfo);
+        processConditionalInfo(entry, targetInfo);
       }
     }
   }
 
   /**
-   * Processes the conditional info from simple_components_build_info.json into
-   * a structure mapping annotation types to component names to block names to
-   * values.
+   * Adds the conditional info of a component to a structure mapping
+   * annotation types to component names to block names to values.
    *
-   * @param compJson   Parsed component data from JSON
-   * @param type       The name of the type being processed
+   * @param entry      The catalog entry of the component being processed
    * @param targetInfo Name of the annotation target being processed (e.g.,
    *                   permissions). Any of: PERMISSIONS_TARGET,
    *                   BROADCAST_RECEIVERS_TARGET
    */
-  private void processConditionalInfo(JSONObject compJson, String type, String targetInfo) {
-    // Strip off the package name since SCM and BKY use unqualified names
-    type = type.substring(type.lastIndexOf('.') + 1);
-
-    JSONObject conditionals = compJson.optJSONObject(
-        ComponentDescriptorConstants.CONDITIONALS_TARGET);
-    if (conditionals != null) {
-      JSONObject jsonBlockMap = conditionals.optJSONObject(targetInfo);
-      if (jsonBlockMap != null) {
-        if (!this.conditionals.containsKey(targetInfo)) {
-          this.conditionals.put(targetInfo, new HashMap<String, Map<String, Set<String>>>());
-        }
-        Map<String, Set<String>> blockMap = new HashMap<>();
-        this.conditionals.get(targetInfo).put(type, blockMap);
-        for (String key : (List<String>) Lists.newArrayList(jsonBlockMap.keys())) {
-          JSONArray data = jsonBlockMap.optJSONArray(key);
-          HashSet<String> result = new HashSet<>();
-          for (int i = 0; i < data.length(); i++) {
-            result.add(data.optString(i));
-          }
-          blockMap.put(key, result);
-        }
+  private void processConditionalInfo(ComponentCatalog.Entry entry, String targetInfo) {
+    Map<String, Set<String>> blockMap = entry.getConditionals(targetInfo);
+    if (blockMap != null) {
+      // Strip off the package name since SCM and BKY use unqualified names
+      String type = entry.getType();
+      type = type.substring(type.lastIndexOf('.') + 1);
+      if (!this.conditionals.containsKey(targetInfo)) {
+        this.conditionals.put(targetInfo, new HashMap<String, Map<String, Set<String>>>());
       }
+      this.conditionals.get(targetInfo).put(type, blockMap);
     }
   }
 
-  private void loadPermissionConstraints() throws JSONException {
+  private void loadPermissionConstraints() {
     if (!context.getComponentInfo().getPermissionConstraintsNeeded().isEmpty()) {
       // Nothing to do here.
       return;
     }
 
-    final JSONArray buildInfo = context.getBuildInfo();
-    final Set<String> simpleCompTypes = context.getSimpleCompTypes();
-    final Set<String> extCompTypes = context.getExtCompTypes();
-
-    for (int i = 0; i < buildInfo.length(); i++) {
-      JSONObject compJson = buildInfo.getJSONObject(i);
-      String type = compJson.getString("type");
-      if (!simpleCompTypes.contains(type) && !extCompTypes.contains(type)) {
-        // Component type not used.
-        continue;
-      }
-
-      JSONObject infoObject = compJson.optJSONObject(
-          ComponentDescriptorConstants.PERMISSION_CONSTRAINTS_TARGET);
-      if (infoObject == null) {
+    for (ComponentCatalog.Entry entry : components) {
+      String type = entry.getType();
+      Map<String, Set<PermissionConstraint<?>>> constraints = entry.getPermissionConstraints();
+      if (constraints == null) {
         context.getReporter().info("Component \"" + type + "\" does not specify "
             + ComponentDescriptorConstants.PERMISSION_CONSTRAINTS_TARGET);
         continue;
       }
 
-      // Handle declared constraints
-      context.getComponentInfo().getPermissionConstraintsNeeded()
-          .put(type, processPermissionConstraints(infoObject));
-
-      // Handle conditional constraints
-      infoObject = compJson.optJSONObject(ComponentDescriptorConstants.CONDITIONALS_TARGET);
-      if (infoObject == null) {
-        continue;
-      }
-      infoObject = infoObject.optJSONObject(
-          ComponentDescriptorConstants.PERMISSION_CONSTRAINTS_TARGET);
-      if (infoObject == null) {
-        continue;
+      // Handle declared constraints. Conditional constraints are merged into these sets later,
+      // so they must not be shared with the catalog.
+      Map<String, Set<PermissionConstraint<?>>> neededConstraints = new HashMap<>();
+      for (Map.Entry<String, Set<PermissionConstraint<?>>> constraint : constraints.entrySet()) {
+        neededConstraints.put(constraint.getKey(), new HashSet<>(constraint.getValue()));
       }
-      Map<String, Map<String, Set<PermissionConstraint<?>>>> blockConstraints = new HashMap<>();
-      Iterator<?> it = infoObject.keys();
-      while (it.hasNext()) {
-        String blockName = (String) it.next();
-        JSONObject constraints = infoObject.getJSONObject(blockName);
-        blockConstraints.put(blockName, processPermissionConstraints(constraints));
-      }
-      conditionalPermissionConstraints.put(type, blockConstraints);
-    }
-  }
+      context.getComponentInfo().getPermissionConstraintsNeeded().put(type, neededConstraints);
 
-  private Map<String, Set<PermissionConstraint<?>>> processPermissionConstraints(JSONObject src)
-      throws JSONException {
-    Map<String, Set<PermissionConstraint<?>>> neededConstraints = new HashMap<>();
-    Iterator<?> it = src.keys();
-    while (it.hasNext()) {
-      String permissionName = (String) it.next();
-      Set<PermissionConstraint<?>> constraintSet = neededConstraints.get(permissionName);
-      if (constraintSet == null) {
-        constraintSet = new HashSet<>();
-        neededConstraints.put(permissionName, constraintSet);
-      }
-      JSONObject constraints = src.getJSONObject(permissionName);
-      Iterator<?> it2 = constraints.keys();
-      while (it2.hasNext()) {
-        String attribute = (String) it2.next();
-        Object value = constraints.get(attribute);
-        if (value instanceof Number) {
-          constraintSet.add(new PermissionConstraint<>(permissionName, attribute,
-              ((Number) value).intValue()));
-        } else {
-          constraintSet.add(new PermissionConstraint<>(permissionName, attribute,
-              value.toString()));
-        }
+      // Handle conditional constraints
+      if (!entry.getConditionalPermissionConstraints().isEmpty()) {
+        conditionalPermissionConstraints.put(type, entry.getConditionalPermissionConstraints());
       }
     }
-    return neededConstraints;
   }
 
   private void mergeConditionals(Map<String, Map<String, Set<String>>> conditionalMap,
@@ -7,7 +7,9 @@ package com.google.appinventor.buildserver.tasks.common;
 
 import com.google.appinventor.buildserver.BuildType;
 import com.google.appinventor.buildserver.Compiler;
+import com.google.appinventor.buildserver.DependsOn;
 import com.google.appinventor.buildserver.TaskResult;
+import com.google.appinventor.buildserver.context.ComponentCatalog;
 import com.google.appinventor.buildserver.context.CompilerContext;
 import com.google.appinventor.buildserver.context.Paths;
 import com.google.appinventor.buildserver.interfaces.CommonTask;
@@ -32,6 +34,7 @@ import org.codehaus.jettison.json.JSONTokener;
  * ReadBuildInfo sets up an initial state for Android builds.
  */
 @BuildType(apk = true, aab = true)
+@DependsOn({})
 public class ReadBuildInfo implements CommonTask {
   @Override
   public TaskResult execute(CompilerContext<?> context) {
@@ -69,31 +72,25 @@ public class ReadBuildInfo implements CommonTask {
     }
     context.getResources().setSupportJars(jars.toArray(new String[0]));
 
+    ComponentCatalog bundled;
     try {
-      JSONArray buildInfo = new JSONArray(context.getResources().getCompBuildInfo());
-
-      Set<String> allSimpleTypes = Sets.newHashSet();
-      for (int i = 0; i < buildInfo.length(); ++i) {
-        JSONObject comp = buildInfo.getJSONObject(i);
-        allSimpleTypes.add(comp.getString("type"));
-      }
-
-      HashSet<String> simpleCompTypes = Sets.newHashSet(context.getCompTypes());
-      simpleCompTypes.retainAll(allSimpleTypes);
-      context.setSimpleCompTypes(simpleCompTypes);
-
-      HashSet<String> extCompTypes = Sets.newHashSet(context.getCompTypes());
-      extCompTypes.removeAll(allSimpleTypes);
-      context.setExtCompTypes(extCompTypes);
-    } catch (JSONException e) {
+      bundled = ComponentCatalog.getBundled(context.getResources());
+    } catch (JSONException | IOException e) {
       e.printStackTrace();
       return TaskResult.generateError(e);
     }
 
-    try {
-      JSONArray simpleCompsBuildInfo = new JSONArray(context.getResources().getCompBuildInfo());
-      context.setSimpleCompsBuildInfo(simpleCompsBuildInfo);
+    Set<String> allSimpleTypes = bundled.getTypes();
+
+    HashSet<String> simpleCompTypes = Sets.newHashSet(context.getCompTypes());
+    simpleCompTypes.retainAll(allSimpleTypes);
+    context.setSimpleCompTypes(simpleCompTypes);
 
+    HashSet<String> extCompTypes = Sets.newHashSet(context.getCompTypes());
+    extCompTypes.removeAll(allSimpleTypes);
+    context.setExtCompTypes(extCompTypes);
+
+    try {
       JSONArray extCompsBuildInfo = new JSONArray();
       Set<String> readComponentInfos = new HashSet<String>();
       for (String type : context.getExtCompTypes()) {
@@ -137,7 +134,7 @@ public class ReadBuildInfo implements CommonTask {
           readComponentInfos.add(jsonFile.getAbsolutePath());
         }
       }
-      context.setExtCompsBuildInfo(extCompsBuildInfo);
+      context.setComponentCatalog(bundled.withExtensions(extCompsBuildInfo));
     } catch (JSONException | IOException e) {
       return TaskResult.generateError(e);
     }
@@ -271,6 +271,40 @@ public class AARLibrary {
     }
   }
 
+  /**
+   * Uses an archive that has already been unpacked by {@link #unpackToDirectory(File)}, for
+   * example by a shared cache, instead of unpacking it again.
+   *
+   * @param dir the directory the archive was unpacked to, which is named after its package.
+   * @throws IOException if the directory does not hold an unpacked archive.
+   */
+  public void useUnpackedDirectory(final File dir) throws IOException {
+    if (!new File(dir, MANIFEST).isFile()) {
+      throw new IOException(dir + " does not contain an unpacked AAR");
+    }
+    packageName = dir.getName();
+    basedir = dir;
+    catalogTree(dir);
+    resdir = new File(basedir, "res");
+    if (!resdir.exists()) {
+      resdir = null;
+    }
+  }
+
+  private void catalogTree(File dir) throws IOException {
+    File[] children = dir.listFiles();
+    if (children == null) {
+      throw new IOException("Unable to list " + dir);
+    }
+    for (File child : children) {
+      if (child.isDirectory()) {
+        catalogTree(child);
+      } else {
+        catalog(child);
+      }
+    }
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -0,0 +1,415 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import com.google.appinventor.buildserver.context.CompilerContext;
+import com.google.appinventor.buildserver.stats.LatencyHistogram;
+import com.google.appinventor.buildserver.stats.StatReporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Schedules the external tools run during a build (Kawa, DX, aapt, bundletool, apksigner)
+ * against a machine-wide budget of memory and cores.
+ *
+ * <p>Each tool invocation asks for the memory it will use (the {@code -mx} of a Java tool, or
+ * {@link #NATIVE_TOOL_MEMORY_MB} for a native one) and one core. Invocations from concurrent
+ * builds overlap as long as the budget allows and otherwise wait in FIFO order. A request larger
+ * than the whole budget is clamped to the budget so that it can still run on its own.</p>
+ *
+ * <p>The default budget allows one Java tool of {@code childProcessRamMb} at a time and leaves
+ * native tools out of the memory budget, which matches the old behavior of running one Kawa or DX
+ * process at a time while aapt ran alongside. Native tools only count against the memory budget
+ * when one is configured explicitly.</p>
+ */
+public final class ChildProcessScheduler {
+  private static final Logger LOG = Logger.getLogger(ChildProcessScheduler.class.getName());
+
+  /**
+   * Memory assumed for native tools such as aapt, in MB.
+   */
+  public static final int NATIVE_TOOL_MEMORY_MB = 256;
+
+  public enum Tool {
+    KAWA("kawa", false),
+    DX("dx", false),
+    AAPT("aapt", true),
+    BUNDLETOOL("bundletool", false),
+    APKSIGNER("apksigner", false);
+
+    private final String statName;
+    private final boolean nativeTool;
+
+    Tool(String statName, boolean nativeTool) {
+      this.statName = statName;
+      this.nativeTool = nativeTool;
+    }
+
+    public String getStatName() {
+      return statName;
+    }
+
+    /**
+     * Returns true if the tool is a native executable rather than a Java program.
+     */
+    public boolean isNative() {
+      return nativeTool;
+    }
+  }
+
+  private static ChildProcessScheduler instance =
+      new ChildProcessScheduler(2048, Runtime.getRuntime().availableProcessors(), 0, false);
+
+  private final int memoryBudgetMb;
+  private final boolean budgetNativeTools;
+  private final int coreBudget;
+  private final long timeoutMillis;
+  private final Semaphore memory;
+  private final Semaphore cores;
+  private final Map<Tool, ToolStats> stats;
+
+  /**
+   * Wait and run time measurements for a single tool.
+   */
+  public static final class ToolStats {
+    private final AtomicLong invocations = new AtomicLong(0);
+    private final AtomicLong totalWaitMillis = new AtomicLong(0);
+    private final AtomicLong maxWaitMillis = new AtomicLong(0);
+    private final LatencyHistogram runTimes = new LatencyHistogram();
+    private final AtomicLong timeouts = new AtomicLong(0);
+    private final AtomicLong maxPeakRssKb = new AtomicLong(-1);
+    private final AtomicLong totalCpuMillis = new AtomicLong(0);
+
+    private void record(long waitMillis) {
+      invocations.incrementAndGet();
+      totalWaitMillis.addAndGet(waitMillis);
+      long max;
+      do {
+        max = maxWaitMillis.get();
+      } while (waitMillis > max && !maxWaitMillis.compareAndSet(max, waitMillis));
+    }
+
+    public long getInvocations() {
+      return invocations.get();
+    }
+
+    public long getTotalWaitMillis() {
+      return totalWaitMillis.get();
+    }
+
+    public long getMaxWaitMillis() {
+      return maxWaitMillis.get();
+    }
+
+    /**
+     * Returns the run times of the tool, whether forked or run by a pooled worker, excluding
+     * the time spent waiting for the budget.
+     */
+    public LatencyHistogram getRunTimes() {
+      return runTimes;
+    }
+
+    /**
+     * Returns the number of forked invocations that were stopped for running too long.
+     */
+    public long getTimeouts() {
+      return timeouts.get();
+    }
+
+    /**
+     * Returns the highest resident set size of a forked invocation, in kB, or -1 if none was
+     * measured.
+     */
+    public long getMaxPeakRssKb() {
+      return maxPeakRssKb.get();
+    }
+
+    /**
+     * Returns the CPU time used by forked invocations, as far as it was sampled, in
+     * milliseconds.
+     */
+    public long getTotalCpuMillis() {
+      return totalCpuMillis.get();
+    }
+
+    private void recordPeakRss(long peakRssKb) {
+      long max;
+      do {
+        max = maxPeakRssKb.get();
+      } while (peakRssKb > max && !maxPeakRssKb.compareAndSet(max, peakRssKb));
+    }
+  }
+
+  /**
+   * A grant of memory and a core. Closing the lease returns them to the budget.
+   */
+  public final class Lease implements Closeable {
+    private final int memoryMb;
+    private boolean released = false;
+
+    private Lease(int memoryMb) {
+      this.memoryMb = memoryMb;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!released) {
+        released = true;
+        cores.release();
+        memory.release(memoryMb);
+      }
+    }
+  }
+
+  private ChildProcessScheduler(int memoryBudgetMb, int coreBudget, long timeoutMillis,
+      boolean budgetNativeTools) {
+    this.memoryBudgetMb = Math.max(1, memoryBudgetMb);
+    this.budgetNativeTools = budgetNativeTools;
+    this.coreBudget = Math.max(1, coreBudget);
+    this.timeoutMillis = Math.max(0, timeoutMillis);
+    this.memory = new Semaphore(this.memoryBudgetMb, true);
+    this.cores = new Semaphore(this.coreBudget, true);
+    Map<Tool, ToolStats> map = new EnumMap<>(Tool.class);
+    for (Tool tool : Tool.values()) {
+      map.put(tool, new ToolStats());
+    }
+    this.stats = Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * Replaces the process-wide scheduler. This should be called once at startup, before any build
+   * runs.
+   *
+   * @param memoryBudgetMb the memory, in MB, that child processes may use together
+   * @param coreBudget the number of child processes that may run at once
+   */
+  public static void configure(int memoryBudgetMb, int coreBudget) {
+    configure(memoryBudgetMb, coreBudget, 0);
+  }
+
+  /**
+   * Replaces the process-wide scheduler. This should be called once at startup, before any build
+   * runs.
+   *
+   * @param memoryBudgetMb the memory, in MB, that child processes may use together
+   * @param coreBudget the number of child processes that may run at once
+   * @param timeoutSeconds the time after which a tool is stopped, or 0 for no limit
+   */
+  public static void configure(int memoryBudgetMb, int coreBudget, int timeoutSeconds) {
+    configure(memoryBudgetMb, 0, coreBudget, timeoutSeconds);
+  }
+
+  /**
+   * Replaces the process-wide scheduler. This should be called once at startup, before any build
+   * runs.
+   *
+   * @param memoryBudgetMb the memory, in MB, that child processes may use together, or 0 to
+   *     allow one Java tool of {@code childProcessRamMb} at a time and to limit native tools by
+   *     cores only
+   * @param childProcessRamMb the maximum RAM a Java tool may use, in MB
+   * @param coreBudget the number of child processes that may run at once
+   * @param timeoutSeconds the time after which a tool is stopped, or 0 for no limit
+   */
+  public static synchronized void configure(int memoryBudgetMb, int childProcessRamMb,
+      int coreBudget, int timeoutSeconds) {
+    boolean budgetNativeTools = memoryBudgetMb > 0;
+    instance = new ChildProcessScheduler(budgetNativeTools ? memoryBudgetMb : childProcessRamMb,
+        coreBudget, TimeUnit.SECONDS.toMillis(timeoutSeconds), budgetNativeTools);
+    LOG.info("Child process budget = " + instance.memoryBudgetMb + " MB"
+        + (budgetNativeTools ? "" : " for Java tools") + ", "
+        + instance.coreBudget + " cores, timeout = " + timeoutSeconds + " s");
+  }
+
+  public static synchronized ChildProcessScheduler getInstance() {
+    return instance;
+  }
+
+  /**
+   * Waits until the budget allows {@code tool} to run and reports the time spent waiting to the
+   * build's {@link StatReporter}.
+   *
+   * @param context the context of the build running the tool
+   * @param tool the tool about to run
+   * @param memoryMb the memory the tool will use, in MB
+   * @return a lease that must be closed once the tool has finished
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public Lease acquire(CompilerContext<?> context, Tool tool, int memoryMb)
+      throws InterruptedException {
+    int weight = tool.isNative() && !budgetNativeTools
+        ? 0 : Math.max(1, Math.min(memoryMb, memoryBudgetMb));
+    long start = System.nanoTime();
+    if (weight > 0) {
+      memory.acquire(weight);
+    }
+    try {
+      cores.acquire();
+    } catch (InterruptedException e) {
+      memory.release(weight);
+      throw e;
+    }
+    long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    stats.get(tool).record(waitMillis);
+    if (context != null && context.getStatReporter() != null) {
+      context.getStatReporter().toolWait(context.getCompiler(), tool.getStatName(), waitMillis);
+    }
+    return new Lease(weight);
+  }
+
+  /**
+   * Runs a command with {@link Execution#run} once the budget allows {@code tool} to run. The
+   * process is stopped if it runs past the configured timeout. Its exit code, run time and peak
+   * memory use are logged to the build's {@link com.google.appinventor.buildserver.Reporter}
+   * and {@link StatReporter}.
+   *
+   * @param context the context of the build running the tool, or null
+   * @param tool the tool being run
+   * @param memoryMb the memory the tool will use, in MB
+   * @param command the command line
+   * @param out the stream receiving the tool's standard output
+   * @param err the stream receiving the tool's standard error
+   * @return {@code true} if the tool ran and succeeded, {@code false} otherwise
+   */
+  public boolean execute(CompilerContext<?> context, Tool tool, int memoryMb, String[] command,
+      PrintStream out, PrintStream err) {
+    Lease lease;
+    try {
+      lease = acquire(context, tool, memoryMb);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    try {
+      Execution.Invocation invocation = Execution.run(null, command, out, err, timeoutMillis);
+      ToolStats toolStats = stats.get(tool);
+      toolStats.runTimes.record(invocation.getWallTimeMillis());
+      toolStats.recordPeakRss(invocation.getPeakRssKb());
+      if (invocation.getCpuMillis() > 0) {
+        toolStats.totalCpuMillis.addAndGet(invocation.getCpuMillis());
+      }
+      if (invocation.isTimedOut()) {
+        toolStats.timeouts.incrementAndGet();
+      }
+      report(context, tool, invocation);
+      return invocation.succeeded();
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Unable to run " + tool.getStatName(), e);
+      return false;
+    } finally {
+      lease.close();
+    }
+  }
+
+  private void report(CompilerContext<?> context, Tool tool, Execution.Invocation invocation) {
+    if (context == null) {
+      return;
+    }
+    String summary = tool.getStatName() + " exited with " + invocation.getExitCode() + " after "
+        + invocation.getWallTimeMillis() + " ms"
+        + (invocation.getCpuMillis() >= 0 ? ", CPU " + invocation.getCpuMillis() + " ms" : "")
+        + (invocation.getPeakRssKb() >= 0 ? ", peak RSS " + invocation.getPeakRssKb() + " kB" : "");
+    if (context.getReporter() != null) {
+      if (invocation.isTimedOut()) {
+        context.getReporter().error(tool.getStatName() + " was stopped after running for "
+            + timeoutMillis / 1000 + " seconds");
+      }
+      context.getReporter().log(summary);
+    }
+    if (context.getStatReporter() != null) {
+      context.getStatReporter().toolRun(context.getCompiler(), tool.getStatName(),
+          invocation.getWallTimeMillis(), invocation.getPeakRssKb());
+    }
+  }
+
+  /**
+   * Runs the main class of an executable jar, such as dx, apksigner or bundletool, once the
+   * budget allows {@code tool} to run. The jar runs in a warm {@link JavaToolPool} worker if the
+   * pool is enabled, and otherwise in a new JVM.
+   *
+   * @param context the context of the build running the tool, or null
+   * @param tool the tool being run
+   * @param memoryMb the maximum heap of a new JVM, in MB. Pooled workers use the heap the pool
+   *     was configured with.
+   * @param jar the path to the executable jar
+   * @param args the arguments to the jar's main method
+   * @param out the stream receiving the tool's standard output
+   * @param err the stream receiving the tool's standard error
+   * @return {@code true} if the tool ran and succeeded, {@code false} otherwise
+   */
+  public boolean executeJar(CompilerContext<?> context, Tool tool, int memoryMb, String jar,
+      List<String> args, PrintStream out, PrintStream err) {
+    JavaToolPool pool = JavaToolPool.getInstance();
+    if (pool != null) {
+      return pool.run(context, tool, jar, args, out, err);
+    }
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + "/bin/java");
+    command.add("-mx" + memoryMb + "M");
+    command.add("-jar");
+    command.add(jar);
+    command.addAll(args);
+    return execute(context, tool, memoryMb, command.toArray(new String[0]), out, err);
+  }
+
+  /**
+   * Records the time a tool took to run.
+   *
+   * @param tool the tool
+   * @param millis the run time, in milliseconds
+   */
+  public void recordRun(Tool tool, long millis) {
+    stats.get(tool).runTimes.record(millis);
+  }
+
+  /**
+   * Records that a tool was stopped because it ran past the timeout.
+   *
+   * @param tool the tool
+   */
+  public void recordTimeout(Tool tool) {
+    stats.get(tool).timeouts.incrementAndGet();
+  }
+
+  /**
+   * Returns the time after which a forked or pooled tool is stopped, in milliseconds, or 0 for
+   * no limit.
+   */
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public int getMemoryBudgetMb() {
+    return memoryBudgetMb;
+  }
+
+  public int getAvailableMemoryMb() {
+    return memory.availablePermits();
+  }
+
+  public int getCoreBudget() {
+    return coreBudget;
+  }
+
+  public int getAvailableCores() {
+    return cores.availablePermits();
+  }
+
+  public Map<Tool, ToolStats> getToolStats() {
+    return stats;
+  }
+}
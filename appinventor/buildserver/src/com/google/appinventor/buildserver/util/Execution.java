@@ -9,19 +9,38 @@ package com.google.appinventor.buildserver.util;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintStream;
-import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Utility class for command execution and I/O redirection.
  *
+ * <p>The output of child processes is drained by a shared pool of threads, in chunks rather than
+ * line by line, and the last {@link #TAIL_SIZE} bytes of each stream are kept for error reports.
+ * A watchdog stops processes that run past their timeout and, on Linux, samples their peak
+ * resident set size and CPU time.</p>
  */
 public final class Execution {
 
@@ -29,67 +48,268 @@ public final class Execution {
   private static final Logger LOG = Logger.getLogger(Execution.class.getName());
   private static final Joiner joiner = Joiner.on(" ");
 
-  /*
-   * Input stream handler used for stdout and stderr redirection.
+  /**
+   * The number of bytes of each output stream kept by {@link Invocation}.
    */
-  private static class RedirectStreamHandler extends Thread {
-    // Streams to redirect from and to
-    private final InputStream input;
-    private final PrintWriter output;
+  public static final int TAIL_SIZE = 16 * 1024;
 
-    RedirectStreamHandler(PrintWriter output, InputStream input) {
-      this.input = Preconditions.checkNotNull(input);
-      this.output = Preconditions.checkNotNull(output);
-      start();
+  private static final int DRAIN_BUFFER_SIZE = 8192;
+
+  // Clock ticks per second of the CPU times in /proc/<pid>/stat (USER_HZ), which is 100 on
+  // every Linux architecture the build server runs on.
+  private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+  // How often the peak resident set size and CPU time of running processes are sampled.
+  private static final long SAMPLE_MILLIS = 250;
+
+  // How long to wait for output after the process has exited, in case it left behind a child
+  // process that holds its output open.
+  private static final long DRAIN_GRACE_SECONDS = 5;
+
+  private static final ExecutorService DRAINERS =
+      Executors.newCachedThreadPool(daemonThreads("ProcessOutput-"));
+  private static final ScheduledExecutorService WATCHDOG =
+      Executors.newSingleThreadScheduledExecutor(daemonThreads("ProcessWatchdog-"));
+
+  /**
+   * The outcome of running a command with {@link #run}.
+   */
+  public static final class Invocation {
+    private final int exitCode;
+    private final long wallTimeMillis;
+    private final long peakRssKb;
+    private final long cpuMillis;
+    private final boolean timedOut;
+    private final byte[] outputTail;
+    private final byte[] errorTail;
+
+    private Invocation(int exitCode, long wallTimeMillis, long peakRssKb, long cpuMillis,
+        boolean timedOut, byte[] outputTail, byte[] errorTail) {
+      this.exitCode = exitCode;
+      this.wallTimeMillis = wallTimeMillis;
+      this.peakRssKb = peakRssKb;
+      this.cpuMillis = cpuMillis;
+      this.timedOut = timedOut;
+      this.outputTail = outputTail;
+      this.errorTail = errorTail;
     }
 
-    @Override
-    public void run() {
-      try {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            output.println(line);
-        }
-      } catch (IOException ioe) {
-        // OK to ignore...
-        LOG.log(Level.WARNING, "____I/O Redirection failure: ", ioe);
-      }
+    /**
+     * Returns the exit code of the process, or -1 if it could not be waited for.
+     */
+    public int getExitCode() {
+      return exitCode;
+    }
+
+    public long getWallTimeMillis() {
+      return wallTimeMillis;
+    }
+
+    /**
+     * Returns the highest resident set size sampled while the process ran, in kB, or -1 if it
+     * is not known. Processes shorter than the sampling interval may not be sampled at all.
+     */
+    public long getPeakRssKb() {
+      return peakRssKb;
+    }
+
+    /**
+     * Returns the user and system CPU time of the process when it was last sampled, in
+     * milliseconds, or -1 if it is not known. This is a lower bound of the CPU time it used.
+     */
+    public long getCpuMillis() {
+      return cpuMillis;
+    }
+
+    /**
+     * Indicates whether the process was stopped because it ran past its timeout.
+     */
+    public boolean isTimedOut() {
+      return timedOut;
+    }
+
+    public boolean succeeded() {
+      return !timedOut && exitCode == 0;
+    }
+
+    /**
+     * Returns the end of the process's standard output, at most {@link #TAIL_SIZE} bytes.
+     */
+    public String getOutputTail() {
+      return new String(outputTail, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the end of the process's standard error, at most {@link #TAIL_SIZE} bytes.
+     */
+    public String getErrorTail() {
+      return new String(errorTail, StandardCharsets.UTF_8);
     }
   }
 
   /*
-   * Input stream handler used for stdout and stderr redirection to StringBuffer
+   * Copies a process output stream to its destination, writing whole lines where possible so
+   * that the output of concurrent processes sharing a destination does not interleave within
+   * lines, and keeps the last TAIL_SIZE bytes in a ring buffer.
    */
-  private static class RedirectStreamToStringBuffer extends Thread {
-    // Streams to redirect from and to
+  private static final class Drain implements Runnable {
     private final InputStream input;
-    private final StringBuffer output;
+    private final OutputStream output;
+    private final byte[] tail = new byte[TAIL_SIZE];
+    private long total = 0;
 
-    RedirectStreamToStringBuffer(StringBuffer output, InputStream input) {
+    Drain(InputStream input, OutputStream output) {
       this.input = Preconditions.checkNotNull(input);
-      this.output = Preconditions.checkNotNull(output);
-      start();
+      this.output = output;
     }
 
     @Override
     public void run() {
+      byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+      int pending = 0;
       try {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-        String line;
-        while ((line = reader.readLine()) != null) {
-          output.append(line).append("\n");
+        int read;
+        while ((read = input.read(buffer, pending, buffer.length - pending)) != -1) {
+          remember(buffer, pending, read);
+          pending += read;
+          int end = pending;
+          while (end > 0 && buffer[end - 1] != '\n') {
+            end--;
+          }
+          if (end == 0 && pending == buffer.length) {
+            end = pending;  // A line longer than the buffer.
+          }
+          if (end > 0) {
+            write(buffer, end);
+            System.arraycopy(buffer, end, buffer, 0, pending - end);
+            pending -= end;
+          }
+        }
+        if (pending > 0) {
+          write(buffer, pending);
         }
       } catch (IOException ioe) {
         // OK to ignore...
         LOG.log(Level.WARNING, "____I/O Redirection failure: ", ioe);
+      } finally {
+        try {
+          input.close();
+        } catch (IOException e) {
+          // ignored
+        }
       }
     }
+
+    private void write(byte[] buffer, int length) throws IOException {
+      if (output != null) {
+        output.write(buffer, 0, length);
+        output.flush();
+      }
+    }
+
+    private synchronized void remember(byte[] buffer, int offset, int length) {
+      for (int i = 0; i < length; i++) {
+        tail[(int) ((total + i) % TAIL_SIZE)] = buffer[offset + i];
+      }
+      total += length;
+    }
+
+    synchronized byte[] getTail() {
+      int size = (int) Math.min(total, TAIL_SIZE);
+      byte[] result = new byte[size];
+      int start = (int) ((total - size) % TAIL_SIZE);
+      int first = Math.min(size, TAIL_SIZE - start);
+      System.arraycopy(tail, start, result, 0, first);
+      System.arraycopy(tail, 0, result, first, size - first);
+      return result;
+    }
   }
 
   private Execution() {
   }
 
+  /**
+   * Runs a command, copying its standard output and standard error to the given streams.
+   *
+   * @param workingDir  working directory for the command, or null for the current directory
+   * @param command  command to execute and its arguments
+   * @param out  stream receiving the standard output, or null to discard it
+   * @param err  stream receiving the standard error, or null to discard it
+   * @param timeoutMillis  time after which the process is stopped, or 0 for no limit
+   * @return  the outcome of the command
+   * @throws IOException if the command cannot be started
+   */
+  public static Invocation run(File workingDir, String[] command, OutputStream out,
+      OutputStream err, long timeoutMillis) throws IOException {
+    LOG.log(Level.INFO, "____Executing " + joiner.join(command));
+    if (System.getProperty("os.name").startsWith("Windows")) {
+      for (int i = 0; i < command.length; i++) {
+        command[i] = command[i].replace("\"", "\\\"");
+      }
+    }
+    long start = System.nanoTime();
+    final Process process = Runtime.getRuntime().exec(command, null, workingDir);
+    Drain outDrain = new Drain(process.getInputStream(), out);
+    Drain errDrain = new Drain(process.getErrorStream(), err);
+    Future<?> outFuture = DRAINERS.submit(outDrain);
+    Future<?> errFuture = DRAINERS.submit(errDrain);
+
+    final AtomicLong peakRssKb = new AtomicLong(-1);
+    final AtomicLong cpuMillis = new AtomicLong(-1);
+    final File procDir = procDir(process);
+    ScheduledFuture<?> sampler = null;
+    if (procDir != null) {
+      sampler = WATCHDOG.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          long rss = readPeakRssKb(procDir);
+          if (rss > peakRssKb.get()) {
+            peakRssKb.set(rss);
+          }
+          long cpu = readCpuMillis(procDir);
+          if (cpu > cpuMillis.get()) {
+            cpuMillis.set(cpu);
+          }
+        }
+      }, 0, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    final AtomicBoolean timedOut = new AtomicBoolean(false);
+    ScheduledFuture<?> killer = null;
+    if (timeoutMillis > 0) {
+      killer = WATCHDOG.schedule(new Runnable() {
+        @Override
+        public void run() {
+          timedOut.set(true);
+          process.destroy();
+        }
+      }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    int exitCode;
+    try {
+      exitCode = process.waitFor();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      process.destroy();
+      exitCode = -1;
+    } finally {
+      if (killer != null) {
+        killer.cancel(false);
+      }
+      if (sampler != null) {
+        sampler.cancel(false);
+      }
+    }
+    awaitDrain(outFuture, process.getInputStream());
+    awaitDrain(errFuture, process.getErrorStream());
+    long wallTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    if (timedOut.get()) {
+      LOG.warning("____Stopped after " + timeoutMillis + " ms: " + joiner.join(command));
+    }
+    return new Invocation(exitCode, wallTimeMillis, peakRssKb.get(), cpuMillis.get(),
+        timedOut.get(), outDrain.getTail(), errDrain.getTail());
+  }
+
   /**
    * Executes a command in a command shell.
    *
@@ -101,17 +321,8 @@ public final class Execution {
    */
   public static boolean execute(File workingDir, String[] command, PrintStream out,
       PrintStream err) {
-    LOG.log(Level.INFO, "____Executing " + joiner.join(command));
-    if (System.getProperty("os.name").startsWith("Windows")){
-    	for(int i =0; i < command.length; i++){
-    		command[i] = command[i].replace("\"", "\\\"");
-    	}
-    }
     try {
-      Process process = Runtime.getRuntime().exec(command, null, workingDir);
-      new RedirectStreamHandler(new PrintWriter(out, true), process.getInputStream());
-      new RedirectStreamHandler(new PrintWriter(err, true), process.getErrorStream());
-      return process.waitFor() == 0;
+      return run(workingDir, command, out, err, 0).succeeded();
     } catch (Exception e) {
       LOG.log(Level.WARNING, "____Execution failure: ", e);
       return false;
@@ -130,17 +341,92 @@ public final class Execution {
    */
   public static int execute(File workingDir, String[] command, StringBuffer out,
       StringBuffer err) throws IOException {
-    LOG.log(Level.INFO, "____Executing " + joiner.join(command));
-    Process process = Runtime.getRuntime().exec(command, null, workingDir);
-    Thread outThread = new RedirectStreamToStringBuffer(out, process.getInputStream());
-    Thread errThread = new RedirectStreamToStringBuffer(err, process.getErrorStream());
+    ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+    ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+    Invocation invocation = run(workingDir, command, outBytes, errBytes, 0);
+    out.append(new String(outBytes.toByteArray(), StandardCharsets.UTF_8));
+    err.append(new String(errBytes.toByteArray(), StandardCharsets.UTF_8));
+    return invocation.getExitCode();
+  }
+
+  private static void awaitDrain(Future<?> drain, InputStream stream) {
     try {
-      process.waitFor();
-      outThread.join();
-      errThread.join();
+      drain.get(DRAIN_GRACE_SECONDS, TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      // Something else still holds the pipe open. Closing it ends the drain.
+      try {
+        stream.close();
+      } catch (IOException ioe) {
+        // ignored
+      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOG.log(Level.WARNING, "____I/O Redirection failure: ", e.getCause());
+    }
+  }
+
+  /*
+   * Returns the /proc directory of a process, or null if it is not available.
+   */
+  private static File procDir(Process process) {
+    long pid = -1;
+    try {
+      // Java 9 and later.
+      pid = ((Number) Process.class.getMethod("pid").invoke(process)).longValue();
+    } catch (Exception e) {
+      try {
+        // The UNIXProcess implementation of earlier versions.
+        Field field = process.getClass().getDeclaredField("pid");
+        field.setAccessible(true);
+        pid = field.getInt(process);
+      } catch (Exception e2) {
+        return null;
+      }
+    }
+    File dir = new File("/proc/" + pid);
+    return dir.isDirectory() ? dir : null;
+  }
+
+  private static long readPeakRssKb(File procDir) {
+    try {
+      List<String> lines = Files.readAllLines(new File(procDir, "status").toPath(),
+          StandardCharsets.UTF_8);
+      for (String line : lines) {
+        if (line.startsWith("VmHWM:")) {
+          return Long.parseLong(line.substring(6).replace("kB", "").trim());
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      // The process has exited.
+    }
+    return -1;
+  }
+
+  private static long readCpuMillis(File procDir) {
+    try {
+      String stat = new String(Files.readAllBytes(new File(procDir, "stat").toPath()),
+          StandardCharsets.UTF_8);
+      // The command name in parentheses may contain spaces. utime and stime are the 12th and
+      // 13th fields after it.
+      String[] fields = stat.substring(stat.lastIndexOf(')') + 2).trim().split(" ");
+      long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+      return ticks * 1000 / CLOCK_TICKS_PER_SECOND;
+    } catch (IOException | RuntimeException e) {
+      // The process has exited.
     }
-    return process.exitValue();
+    return -1;
+  }
+
+  private static ThreadFactory daemonThreads(final String prefix) {
+    final AtomicInteger count = new AtomicInteger(0);
+    return new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + count.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
   }
 }
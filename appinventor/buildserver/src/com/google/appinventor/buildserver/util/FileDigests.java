@@ -0,0 +1,60 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes MD5 digests of files for the build caches, remembering recent results.
+ *
+ * <p>Files are read in a streaming fashion. A digest is remembered by path, length and
+ * modification time, so that the large jars every build puts on its class path are only read
+ * once, while a file that changes is digested again.</p>
+ */
+public final class FileDigests {
+  // Number of digests remembered.
+  private static final int MAX_REMEMBERED = 1024;
+
+  // Guarded by itself.
+  private static final Map<String, String> DIGESTS =
+      new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+          return size() > MAX_REMEMBERED;
+        }
+      };
+
+  private FileDigests() {
+  }
+
+  /**
+   * Returns the MD5 digest of {@code file} as a hexadecimal string.
+   *
+   * @param file the file to digest
+   * @return the digest
+   * @throws IOException if the file cannot be read
+   */
+  public static String md5(File file) throws IOException {
+    String key = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+    synchronized (DIGESTS) {
+      String digest = DIGESTS.get(key);
+      if (digest != null) {
+        return digest;
+      }
+    }
+    String digest = Files.hash(file, Hashing.md5()).toString();
+    synchronized (DIGESTS) {
+      DIGESTS.put(key, digest);
+    }
+    return digest;
+  }
+}
@@ -0,0 +1,200 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import com.google.appinventor.buildserver.context.CompilerContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pool of long-lived JVMs that run the jar-based build tools: dx, apksigner and bundletool.
+ *
+ * <p>Forking {@code java -jar} for every invocation pays for JVM startup, class loading and JIT
+ * warmup each time, and a build runs these tools several times. The pool instead keeps
+ * {@link JavaToolWorker} processes running and hands each invocation to an idle one. Each
+ * invocation still takes a worker's memory and a core from the {@link ChildProcessScheduler}
+ * budget while it runs, since every worker may grow to its full heap.</p>
+ *
+ * <p>The pool is disabled until {@link #configure(int, int)} is called with a non-zero size.</p>
+ */
+public final class JavaToolPool {
+  private static final Logger LOG = Logger.getLogger(JavaToolPool.class.getName());
+
+  // Workers are restarted after this many jobs to bound any state the tools accumulate.
+  private static final int MAX_JOBS_PER_WORKER = 100;
+
+  private static volatile JavaToolPool instance = null;
+
+  private final int size;
+  private final int workerRamMb;
+  private final Semaphore permits;
+  private final ConcurrentLinkedQueue<WorkerProcess> idle = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger workersStarted = new AtomicInteger(0);
+  private final AtomicInteger jobsRun = new AtomicInteger(0);
+  private final AtomicInteger jobsFailed = new AtomicInteger(0);
+
+  private JavaToolPool(int size, int workerRamMb) {
+    this.size = size;
+    this.workerRamMb = workerRamMb;
+    this.permits = new Semaphore(size, true);
+  }
+
+  /**
+   * Enables the pool.
+   *
+   * @param size the number of worker processes, or 0 to disable the pool
+   * @param childProcessRamMb the maximum RAM a child process may use, in MB
+   */
+  public static synchronized void configure(int size, int childProcessRamMb) {
+    if (size <= 0) {
+      instance = null;
+      return;
+    }
+    instance = new JavaToolPool(size, childProcessRamMb);
+    LOG.info("Java tool pool size = " + size);
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        JavaToolPool pool = instance;
+        if (pool != null) {
+          for (WorkerProcess worker : pool.idle) {
+            worker.destroy();
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the configured pool, or null if builds should fork a JVM for each tool.
+   */
+  public static JavaToolPool getInstance() {
+    return instance;
+  }
+
+  /**
+   * Runs the main class of an executable jar in a pooled worker.
+   *
+   * @param context the context of the build running the tool, or null
+   * @param tool the tool being run, for statistics
+   * @param jar the path to the executable jar
+   * @param args the arguments to the jar's main method
+   * @param out stream receiving the tool's standard output
+   * @param err stream receiving the tool's standard error
+   * @return {@code true} if the tool succeeded, {@code false} otherwise
+   */
+  public boolean run(CompilerContext<?> context, ChildProcessScheduler.Tool tool, String jar,
+      List<String> args, PrintStream out, PrintStream err) {
+    ChildProcessScheduler scheduler = ChildProcessScheduler.getInstance();
+    ChildProcessScheduler.Lease lease;
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    try {
+      lease = scheduler.acquire(context, tool, workerRamMb);
+    } catch (InterruptedException e) {
+      permits.release();
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    WorkerProcess worker = null;
+    long start = System.currentTimeMillis();
+    try {
+      worker = idle.poll();
+      if (worker == null || !worker.isAlive()) {
+        worker = startWorker();
+      }
+      List<String> job = new ArrayList<>();
+      job.add(new File(jar).getAbsolutePath());
+      job.addAll(args);
+      int status = worker.run(job, out, err, scheduler.getTimeoutMillis());
+      if (status == WorkerProcess.TIMED_OUT) {
+        scheduler.recordTimeout(tool);
+        err.println(tool.getStatName() + " was stopped after running for "
+            + scheduler.getTimeoutMillis() / 1000 + " seconds");
+      } else if (status == WorkerProcess.EXITED) {
+        // The tool called System.exit.
+        status = worker.exitValue();
+      }
+      jobsRun.incrementAndGet();
+      if (status != 0) {
+        jobsFailed.incrementAndGet();
+      }
+      scheduler.recordRun(tool, System.currentTimeMillis() - start);
+      if (worker.isAlive() && worker.getJobs() < MAX_JOBS_PER_WORKER) {
+        idle.add(worker);
+        worker = null;
+      }
+      return status == 0;
+    } catch (IOException | InterruptedException e) {
+      LOG.log(Level.WARNING, "Java tool worker failure", e);
+      jobsFailed.incrementAndGet();
+      return false;
+    } finally {
+      if (worker != null) {
+        worker.destroy();
+      }
+      lease.close();
+      permits.release();
+    }
+  }
+
+  private WorkerProcess startWorker() throws IOException {
+    String self;
+    try {
+      self = new File(JavaToolWorker.class.getProtectionDomain().getCodeSource()
+          .getLocation().toURI()).getAbsolutePath();
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + "/bin/java");
+    command.add("-mx" + workerRamMb + "M");
+    command.add("-cp");
+    command.add(self);
+    command.add(JavaToolWorker.class.getName());
+    LOG.info("Starting Java tool worker: " + command);
+    workersStarted.incrementAndGet();
+    return new WorkerProcess(new ProcessBuilder(command).start(), JavaToolWorker.DONE_MARKER);
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getIdleWorkerCount() {
+    return idle.size();
+  }
+
+  public int getBusyWorkerCount() {
+    return size - permits.availablePermits();
+  }
+
+  public int getWorkersStarted() {
+    return workersStarted.get();
+  }
+
+  public int getJobsRun() {
+    return jobsRun.get();
+  }
+
+  public int getJobsFailed() {
+    return jobsFailed.get();
+  }
+}
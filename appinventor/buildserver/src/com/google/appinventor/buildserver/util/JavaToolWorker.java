@@ -0,0 +1,113 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Entry point of a long-lived process managed by {@link JavaToolPool} that runs the main class of
+ * executable jars such as dx, apksigner and bundletool.
+ *
+ * <p>Jobs arrive on standard input, each as a count followed by that many modified UTF-8 strings:
+ * the path of the jar and then the arguments for its main method. Each jar is loaded once into
+ * its own class loader, whose parent is the parent of the application class loader, so the tools
+ * do not see each other's classes or those of the build server. Later jobs for the same jar reuse
+ * its classes, which the JVM has already loaded and compiled.</p>
+ *
+ * <p>Tool output goes to the process's standard output and error. When a job finishes,
+ * {@link #DONE_MARKER} followed by a status code is written as a line to both streams. A tool
+ * that calls {@code System.exit} ends the process, in which case the pool takes the exit code
+ * as the status of the job and starts a replacement.</p>
+ *
+ * <p>This class must not depend on anything outside the JDK.</p>
+ */
+public final class JavaToolWorker {
+  public static final String DONE_MARKER = "\u0000JAVA-TOOL-WORKER-DONE";
+
+  private static final Map<String, Method> MAIN_METHODS = new HashMap<>();
+
+  private JavaToolWorker() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    while (true) {
+      int count;
+      try {
+        count = in.readInt();
+      } catch (EOFException e) {
+        return;  // The build server went away.
+      }
+      if (count <= 0) {
+        return;
+      }
+      String jar = in.readUTF();
+      String[] toolArgs = new String[count - 1];
+      for (int i = 0; i < toolArgs.length; i++) {
+        toolArgs[i] = in.readUTF();
+      }
+      int status = runJob(jar, toolArgs);
+      System.out.println(DONE_MARKER + " " + status);
+      System.out.flush();
+      System.err.println(DONE_MARKER + " " + status);
+      System.err.flush();
+    }
+  }
+
+  private static int runJob(String jar, String[] toolArgs) {
+    Thread current = Thread.currentThread();
+    ClassLoader previous = current.getContextClassLoader();
+    try {
+      Method main = getMainMethod(jar);
+      current.setContextClassLoader(main.getDeclaringClass().getClassLoader());
+      main.invoke(null, (Object) toolArgs);
+      return 0;
+    } catch (InvocationTargetException e) {
+      e.getCause().printStackTrace();
+      return 1;
+    } catch (IOException | ReflectiveOperationException e) {
+      e.printStackTrace();
+      return 1;
+    } finally {
+      current.setContextClassLoader(previous);
+    }
+  }
+
+  private static Method getMainMethod(String jar)
+      throws IOException, ReflectiveOperationException {
+    Method main = MAIN_METHODS.get(jar);
+    if (main == null) {
+      String mainClass;
+      try (JarFile jarFile = new JarFile(jar)) {
+        Manifest manifest = jarFile.getManifest();
+        mainClass = manifest == null ? null
+            : manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+      }
+      if (mainClass == null) {
+        throw new IOException("No Main-Class in " + jar);
+      }
+      // The loader stays open for the life of the process so the tool's classes stay warm.
+      URLClassLoader loader = new URLClassLoader(new URL[] { new File(jar).toURI().toURL() },
+          JavaToolWorker.class.getClassLoader().getParent());
+      main = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+      MAIN_METHODS.put(jar, main);
+    }
+    return main;
+  }
+}
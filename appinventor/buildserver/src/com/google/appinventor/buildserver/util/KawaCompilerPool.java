@@ -0,0 +1,243 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pool of long-lived Kawa compiler processes.
+ *
+ * <p>Forking {@code java kawa.repl} for every build pays for JVM startup and for loading and
+ * warming up the Kawa compiler each time. The pool instead keeps a number of
+ * {@link KawaCompilerWorker} processes running and hands each compile job to an idle one. The
+ * number of workers bounds how many Kawa compiles run at once, so builds that use the pool are not
+ * scheduled by {@link ChildProcessScheduler}.</p>
+ *
+ * <p>The pool is disabled until {@link #configure(int, int)} is called with a non-zero size.</p>
+ */
+public final class KawaCompilerPool {
+  private static final Logger LOG = Logger.getLogger(KawaCompilerPool.class.getName());
+
+  // Workers are restarted after this many jobs to bound any state Kawa accumulates.
+  private static final int MAX_JOBS_PER_WORKER = 50;
+
+  private static volatile KawaCompilerPool instance = null;
+
+  private final int size;
+  private final int workerRamMb;
+  private final Semaphore permits;
+  private final ConcurrentLinkedQueue<IdleWorker> idle = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger workersStarted = new AtomicInteger(0);
+  private final AtomicInteger jobsRun = new AtomicInteger(0);
+  private final AtomicInteger jobsFailed = new AtomicInteger(0);
+
+  private KawaCompilerPool(int size, int workerRamMb) {
+    this.size = size;
+    this.workerRamMb = workerRamMb;
+    this.permits = new Semaphore(size, true);
+  }
+
+  /**
+   * An idle worker and the class path of the last job it ran.
+   */
+  private static final class IdleWorker {
+    final WorkerProcess worker;
+    final String classpath;
+
+    IdleWorker(WorkerProcess worker, String classpath) {
+      this.worker = worker;
+      this.classpath = classpath;
+    }
+  }
+
+  /**
+   * Enables the pool.
+   *
+   * @param size the number of worker processes. A negative value sizes the pool so that the
+   *     workers together use at most half of the physical memory of the machine.
+   * @param childProcessRamMb the maximum RAM a child process may use, in MB
+   */
+  public static synchronized void configure(int size, int childProcessRamMb) {
+    if (size < 0) {
+      size = Math.max(1, (int) (getPhysicalMemoryMb() / 2 / childProcessRamMb));
+    }
+    if (size == 0) {
+      instance = null;
+      return;
+    }
+    instance = new KawaCompilerPool(size, childProcessRamMb - 200);
+    LOG.info("Kawa compiler pool size = " + size);
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        KawaCompilerPool pool = instance;
+        if (pool != null) {
+          for (IdleWorker idleWorker : pool.idle) {
+            idleWorker.worker.destroy();
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the configured pool, or null if builds should fork their own Kawa process.
+   */
+  public static KawaCompilerPool getInstance() {
+    return instance;
+  }
+
+  private static long getPhysicalMemoryMb() {
+    OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) osBean).getTotalPhysicalMemorySize()
+          / (1024 * 1024);
+    }
+    return Runtime.getRuntime().maxMemory() / (1024 * 1024);
+  }
+
+  /**
+   * Compiles using a pooled Kawa process.
+   *
+   * @param kawaJar the path to kawa.jar
+   * @param classpath the class path for the compilation
+   * @param kawaArgs the arguments to {@code kawa.repl}
+   * @param reusable false if the class path contains classes that may differ between builds
+   *     under the same name, such as extensions, in which case the worker is discarded afterwards.
+   *     Even so, a worker is only given jobs with the same class path as its previous job.
+   * @param out stream receiving the compiler's standard output
+   * @param err stream receiving the compiler's standard error
+   * @return {@code true} if the compilation succeeded, {@code false} otherwise
+   */
+  public boolean compile(String kawaJar, String classpath, List<String> kawaArgs,
+      boolean reusable, PrintStream out, PrintStream err) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    WorkerProcess worker = null;
+    long start = System.currentTimeMillis();
+    try {
+      worker = takeIdleWorker(classpath);
+      if (worker == null) {
+        worker = startWorker(kawaJar);
+      }
+      List<String> job = new ArrayList<>();
+      job.add(classpath);
+      job.addAll(kawaArgs);
+      ChildProcessScheduler scheduler = ChildProcessScheduler.getInstance();
+      int status = worker.run(job, out, err, scheduler.getTimeoutMillis());
+      if (status == WorkerProcess.TIMED_OUT) {
+        scheduler.recordTimeout(ChildProcessScheduler.Tool.KAWA);
+        err.println("Kawa was stopped after running for "
+            + scheduler.getTimeoutMillis() / 1000 + " seconds");
+      }
+      // Kawa exits the process when compilation fails.
+      boolean success = status == 0 && (worker.isAlive() || worker.exitValue() == 0);
+      jobsRun.incrementAndGet();
+      if (!success) {
+        jobsFailed.incrementAndGet();
+      }
+      scheduler.recordRun(ChildProcessScheduler.Tool.KAWA, System.currentTimeMillis() - start);
+      if (reusable && worker.isAlive() && worker.getJobs() < MAX_JOBS_PER_WORKER) {
+        idle.add(new IdleWorker(worker, classpath));
+        worker = null;
+      }
+      return success;
+    } catch (IOException | InterruptedException e) {
+      LOG.log(Level.WARNING, "Kawa worker failure", e);
+      jobsFailed.incrementAndGet();
+      return false;
+    } finally {
+      if (worker != null) {
+        worker.destroy();
+      }
+      permits.release();
+    }
+  }
+
+  /*
+   * Returns an idle worker whose last job had the given class path, or null. Kawa keeps static
+   * caches of the classes it has seen, which may refer to classes loaded from the class path of
+   * an earlier job, so a worker is not given a job with another class path. To keep the number
+   * of processes within the size of the pool, an idle worker with another class path is stopped
+   * to make room for the new one.
+   */
+  private WorkerProcess takeIdleWorker(String classpath) {
+    for (IdleWorker idleWorker : idle) {
+      if (idleWorker.classpath.equals(classpath) && idle.remove(idleWorker)) {
+        if (idleWorker.worker.isAlive()) {
+          return idleWorker.worker;
+        }
+        idleWorker.worker.destroy();
+      }
+    }
+    IdleWorker stale = idle.poll();
+    if (stale != null) {
+      stale.worker.destroy();
+    }
+    return null;
+  }
+
+  private WorkerProcess startWorker(String kawaJar) throws IOException {
+    String self;
+    try {
+      self = new File(KawaCompilerWorker.class.getProtectionDomain().getCodeSource()
+          .getLocation().toURI()).getAbsolutePath();
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + "/bin/java");
+    command.add("-Dfile.encoding=UTF-8");
+    command.add("-mx" + workerRamMb + "M");
+    command.add("-cp");
+    command.add(kawaJar + File.pathSeparator + self);
+    command.add(KawaCompilerWorker.class.getName());
+    LOG.info("Starting Kawa worker: " + command);
+    workersStarted.incrementAndGet();
+    return new WorkerProcess(new ProcessBuilder(command).start(),
+        KawaCompilerWorker.DONE_MARKER);
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getIdleWorkerCount() {
+    return idle.size();
+  }
+
+  public int getBusyWorkerCount() {
+    return size - permits.availablePermits();
+  }
+
+  public int getWorkersStarted() {
+    return workersStarted.get();
+  }
+
+  public int getJobsRun() {
+    return jobsRun.get();
+  }
+
+  public int getJobsFailed() {
+    return jobsFailed.get();
+  }
+}
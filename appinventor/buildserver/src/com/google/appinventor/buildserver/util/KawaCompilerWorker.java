@@ -0,0 +1,123 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of a long-lived Kawa compiler process managed by {@link KawaCompilerPool}.
+ *
+ * <p>The process is started with only kawa.jar and the build server classes on its class path.
+ * Jobs arrive on standard input, each as a count followed by that many modified UTF-8 strings:
+ * the class path of the job and then the arguments for {@code kawa.repl}. The job's class path
+ * is loaded into a fresh class loader that is installed as the thread context class loader, which
+ * Kawa consults when it cannot find a class through its own loader.</p>
+ *
+ * <p>Compiler output goes to the process's standard output and error. When a job finishes,
+ * {@link #DONE_MARKER} followed by a status code is written as a line to both streams. Kawa
+ * calls {@code System.exit} when compilation fails, in which case the process simply ends and
+ * the pool starts a replacement.</p>
+ *
+ * <p>This class must not depend on anything outside the JDK.</p>
+ */
+public final class KawaCompilerWorker {
+  public static final String DONE_MARKER = "\u0000KAWA-WORKER-DONE";
+
+  private KawaCompilerWorker() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    Method replMain = Class.forName("kawa.repl").getMethod("main", String[].class);
+    while (true) {
+      int count;
+      try {
+        count = in.readInt();
+      } catch (EOFException e) {
+        return;  // The build server went away.
+      }
+      if (count <= 0) {
+        return;
+      }
+      String classpath = in.readUTF();
+      String[] kawaArgs = new String[count - 1];
+      for (int i = 0; i < kawaArgs.length; i++) {
+        kawaArgs[i] = in.readUTF();
+      }
+      int status = runJob(replMain, classpath, kawaArgs);
+      flushKawaPorts();
+      System.out.println(DONE_MARKER + " " + status);
+      System.out.flush();
+      System.err.println(DONE_MARKER + " " + status);
+      System.err.flush();
+    }
+  }
+
+  private static int runJob(Method replMain, String classpath, String[] kawaArgs)
+      throws IOException {
+    List<URL> urls = new ArrayList<>();
+    for (String entry : classpath.split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        urls.add(new File(entry).toURI().toURL());
+      }
+    }
+    Thread current = Thread.currentThread();
+    ClassLoader previous = current.getContextClassLoader();
+    try (URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]),
+        KawaCompilerWorker.class.getClassLoader())) {
+      current.setContextClassLoader(loader);
+      replMain.invoke(null, (Object) kawaArgs);
+      return 0;
+    } catch (InvocationTargetException e) {
+      e.getCause().printStackTrace();
+      return 1;
+    } catch (IllegalAccessException e) {
+      e.printStackTrace();
+      return 1;
+    } finally {
+      current.setContextClassLoader(previous);
+      clearModules();
+    }
+  }
+
+  /*
+   * Kawa's OutPorts buffer independently of System.out and System.err, so they need to be flushed
+   * before the done markers are written.
+   */
+  private static void flushKawaPorts() {
+    try {
+      Class<?> outPort = Class.forName("gnu.mapping.OutPort");
+      ((java.io.Flushable) outPort.getMethod("outDefault").invoke(null)).flush();
+      ((java.io.Flushable) outPort.getMethod("errDefault").invoke(null)).flush();
+    } catch (Exception e) {
+      // Best effort only. Output written directly to System.out/err is still delivered.
+    }
+  }
+
+  /*
+   * Kawa's ModuleManager remembers every source file it has compiled. Each build compiles files
+   * in a new temporary directory, so the entries are never useful again.
+   */
+  private static void clearModules() {
+    try {
+      Class<?> manager = Class.forName("gnu.expr.ModuleManager");
+      Object instance = manager.getMethod("getInstance").invoke(null);
+      manager.getMethod("clear").invoke(instance);
+    } catch (Exception e) {
+      // Best effort only.
+    }
+  }
+}
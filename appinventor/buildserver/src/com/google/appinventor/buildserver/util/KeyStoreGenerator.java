@@ -0,0 +1,239 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+/**
+ * Creates the keystores that sign the apps of users who do not have one yet, without forking
+ * {@code keytool}.
+ *
+ * <p>The keystores hold the same entry {@code keytool -genkey} would create: an RSA key under
+ * the alias {@value #KEY_ALIAS} with a self-signed certificate valid for 10000 days. Generating
+ * the RSA key takes most of the time, so a background thread keeps a pool of key pairs ready and
+ * only the certificate, which names the user, is made on request. When the pool is empty the key
+ * pair is generated on the requesting thread.</p>
+ *
+ * <p>The pool is empty until {@link #configure(int)} is called with a non-zero size.</p>
+ */
+public final class KeyStoreGenerator {
+  private static final Logger LOG = Logger.getLogger(KeyStoreGenerator.class.getName());
+
+  public static final String KEY_ALIAS = "AndroidKey";
+  public static final String PASSWORD = "android";
+
+  private static final int KEY_SIZE = 2048;
+  private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+
+  // Must expire after October 22, 2033, to be in the Android marketplace. Android docs
+  // recommend 10000 days.
+  private static final long VALIDITY_MILLIS = TimeUnit.DAYS.toMillis(10000);
+
+  private static volatile KeyStoreGenerator instance = new KeyStoreGenerator(0);
+
+  private final int poolSize;
+  private final BlockingQueue<KeyPair> pool;
+  private final ThreadPoolExecutor refiller;
+  private final SecureRandom random = new SecureRandom();
+  private final AtomicLong keyPairsGenerated = new AtomicLong(0);
+  private final AtomicLong generationMillis = new AtomicLong(0);
+  private final AtomicLong poolHits = new AtomicLong(0);
+  private final AtomicLong poolMisses = new AtomicLong(0);
+
+  private KeyStoreGenerator(int poolSize) {
+    this.poolSize = poolSize;
+    if (poolSize > 0) {
+      pool = new ArrayBlockingQueue<>(poolSize);
+      refiller = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "KeyPairPool");
+              thread.setDaemon(true);
+              // Builds come first; the pool catches up when the machine is idle.
+              thread.setPriority(Thread.MIN_PRIORITY);
+              return thread;
+            }
+          });
+      refill();
+    } else {
+      pool = null;
+      refiller = null;
+    }
+  }
+
+  /**
+   * Replaces the process-wide generator.
+   *
+   * @param poolSize the number of key pairs to keep ready, or 0 to generate them on request
+   */
+  public static synchronized void configure(int poolSize) {
+    KeyStoreGenerator previous = instance;
+    instance = new KeyStoreGenerator(Math.max(0, poolSize));
+    if (previous.refiller != null) {
+      previous.refiller.shutdownNow();
+    }
+    LOG.info("Key pair pool size = " + poolSize);
+  }
+
+  public static KeyStoreGenerator getInstance() {
+    return instance;
+  }
+
+  /**
+   * Writes a new keystore for a user.
+   *
+   * @param userName the user name, which becomes the common name of the certificate
+   * @param keyStoreFile the file to write the keystore to
+   * @throws IOException if the keystore cannot be written
+   * @throws GeneralSecurityException if the key or certificate cannot be created
+   */
+  public void generate(String userName, File keyStoreFile)
+      throws IOException, GeneralSecurityException {
+    KeyPair keyPair = pool == null ? null : pool.poll();
+    if (keyPair != null) {
+      poolHits.incrementAndGet();
+    } else {
+      if (pool != null) {
+        poolMisses.incrementAndGet();
+      }
+      keyPair = generateKeyPair();
+    }
+    refill();
+
+    X500Name name = new X500NameBuilder(BCStyle.INSTANCE)
+        .addRDN(BCStyle.C, "US")
+        .addRDN(BCStyle.O, "AppInventor for Android")
+        .addRDN(BCStyle.CN, userName)
+        .build();
+    long now = System.currentTimeMillis();
+    X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name,
+        new BigInteger(63, random), new Date(now), new Date(now + VALIDITY_MILLIS), name,
+        keyPair.getPublic());
+    X509Certificate certificate;
+    try {
+      certificate = new JcaX509CertificateConverter().getCertificate(builder.build(
+          new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(keyPair.getPrivate())));
+    } catch (OperatorCreationException e) {
+      throw new GeneralSecurityException(e);
+    }
+
+    // The same type keytool would create on this JVM.
+    KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+    keyStore.load(null, null);
+    keyStore.setKeyEntry(KEY_ALIAS, keyPair.getPrivate(), PASSWORD.toCharArray(),
+        new Certificate[] { certificate });
+    try (OutputStream out = new FileOutputStream(keyStoreFile)) {
+      keyStore.store(out, PASSWORD.toCharArray());
+    }
+  }
+
+  private KeyPair generateKeyPair() throws GeneralSecurityException {
+    long start = System.currentTimeMillis();
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(KEY_SIZE, random);
+    KeyPair keyPair = generator.generateKeyPair();
+    keyPairsGenerated.incrementAndGet();
+    generationMillis.addAndGet(System.currentTimeMillis() - start);
+    return keyPair;
+  }
+
+  /*
+   * Queues enough work to fill the pool, taking into account the key pairs already in the pool
+   * and those being generated.
+   */
+  private void refill() {
+    if (refiller == null) {
+      return;
+    }
+    synchronized (refiller) {
+      int missing = poolSize - pool.size() - refiller.getQueue().size() - refiller.getActiveCount();
+      for (int i = 0; i < missing; i++) {
+        refiller.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              pool.offer(generateKeyPair());
+            } catch (GeneralSecurityException e) {
+              LOG.log(Level.WARNING, "Unable to generate a key pair", e);
+            }
+          }
+        });
+      }
+    }
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * Returns the number of key pairs ready to be handed out.
+   */
+  public int getAvailableKeyPairs() {
+    return pool == null ? 0 : pool.size();
+  }
+
+  public long getKeyPairsGenerated() {
+    return keyPairsGenerated.get();
+  }
+
+  /**
+   * Returns the average time taken to generate a key pair, which bounds how fast the pool
+   * refills, in milliseconds.
+   */
+  public long getAverageGenerationMillis() {
+    long count = keyPairsGenerated.get();
+    return count == 0 ? 0 : generationMillis.get() / count;
+  }
+
+  /**
+   * Returns the number of keystores made with a key pair from the pool.
+   */
+  public long getPoolHits() {
+    return poolHits.get();
+  }
+
+  /**
+   * Returns the number of keystores that had to wait for a new key pair because the pool was
+   * empty.
+   */
+  public long getPoolMisses() {
+    return poolMisses.get();
+  }
+}
@@ -0,0 +1,113 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import com.google.appinventor.buildserver.YoungAndroidConstants;
+import com.google.common.io.ByteStreams;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The Screen sources of a project, read straight from the uploaded project zip.
+ *
+ * <p>The form (.scm) and blocks (.bky) files beneath src/ are only analyzed by the build server, never by the
+ * tools it runs, so they are kept in memory rather than written to the project directory and
+ * read back. Every other entry of the zip is written out, since the compiler and the tools it
+ * runs work on files.</p>
+ */
+public final class ProjectSources {
+  private static final Logger LOG = Logger.getLogger(ProjectSources.class.getName());
+
+  private static final String FORM_EXTENSION = YoungAndroidConstants.FORM_PROPERTIES_EXTENSION;
+  private static final String BLOCKS_EXTENSION = ".bky";
+  private static final String SOURCE_DIR = "src/";
+
+  // Contents of the form and blocks files, keyed by Screen name.
+  private final Map<String, byte[]> forms = new TreeMap<>();
+  private final Map<String, byte[]> blocks = new TreeMap<>();
+
+  private int filesWritten;
+
+  private ProjectSources() {
+  }
+
+  /**
+   * Reads the Screen sources of the project in {@code inputZip} and writes its other files
+   * beneath {@code projectRoot}.
+   *
+   * @param inputZip the ZIP file containing an App Inventor project
+   * @param projectRoot the destination directory for the files needed on disk
+   * @return the Screen sources of the project
+   * @throws IOException if the project cannot be read or written
+   */
+  public static ProjectSources extract(ZipFile inputZip, File projectRoot) throws IOException {
+    ProjectSources sources = new ProjectSources();
+    Enumeration<? extends ZipEntry> entries = inputZip.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      if (entry.isDirectory()) {
+        continue;
+      }
+      String name = entry.getName();
+      try (InputStream in = inputZip.getInputStream(entry)) {
+        // Only files beneath src/ are Screen sources. Assets may have the same extensions.
+        boolean source = name.startsWith(SOURCE_DIR);
+        if (source && name.endsWith(FORM_EXTENSION)) {
+          sources.forms.put(screenName(name, FORM_EXTENSION), ByteStreams.toByteArray(in));
+        } else if (source && name.endsWith(BLOCKS_EXTENSION)) {
+          sources.blocks.put(screenName(name, BLOCKS_EXTENSION), ByteStreams.toByteArray(in));
+        } else {
+          File file = new File(projectRoot, name);
+          File parent = file.getParentFile();
+          if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create " + parent);
+          }
+          Files.copy(in, file.toPath());
+          sources.filesWritten++;
+        }
+      }
+    }
+    LOG.fine("Read " + sources.forms.size() + " forms and " + sources.blocks.size()
+        + " block files, wrote " + sources.filesWritten + " files to " + projectRoot);
+    return sources;
+  }
+
+  /**
+   * Returns the contents of the form (.scm) files, keyed by Screen name.
+   */
+  public Map<String, byte[]> getForms() {
+    return Collections.unmodifiableMap(forms);
+  }
+
+  /**
+   * Returns the contents of the blocks (.bky) files, keyed by Screen name.
+   */
+  public Map<String, byte[]> getBlocks() {
+    return Collections.unmodifiableMap(blocks);
+  }
+
+  /**
+   * Returns the number of files written to the project directory.
+   */
+  public int getFilesWritten() {
+    return filesWritten;
+  }
+
+  private static String screenName(String entryName, String extension) {
+    return entryName.substring(entryName.lastIndexOf('/') + 1,
+        entryName.length() - extension.length());
+  }
+}
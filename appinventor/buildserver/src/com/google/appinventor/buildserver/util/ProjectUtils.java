@@ -44,7 +44,18 @@ public class ProjectUtils {
    * @throws IllegalStateException if the directory could not be created
    */
   public static File createNewTempDir() {
-    File baseDir = new File(System.getProperty("java.io.tmpdir"));
+    return createNewTempDir(new File(System.getProperty("java.io.tmpdir")));
+  }
+
+  /**
+   * Creates a new directory beneath {@code baseDir}, as {@link #createNewTempDir()} does beneath
+   * the system's temporary directory.
+   *
+   * @param baseDir the directory in which to create the new directory
+   * @return the newly-created directory
+   * @throws IllegalStateException if the directory could not be created
+   */
+  public static File createNewTempDir(File baseDir) {
     String baseNamePrefix = System.currentTimeMillis() + "_" + Math.random() + "-";
 
     final int TEMP_DIR_ATTEMPTS = 10000;
@@ -78,7 +89,7 @@ public class ProjectUtils {
       ZipEntry zipEntry = inputZipEnumeration.nextElement();
       final InputStream extractedInputStream = inputZip.getInputStream(zipEntry);
       File extractedFile = new File(projectRoot, zipEntry.getName());
-      LOG.info("extracting " + extractedFile.getAbsolutePath() + " from input zip");
+      LOG.fine("extracting " + extractedFile.getAbsolutePath() + " from input zip");
       Files.createParentDirs(extractedFile); // Do I need this?
       Files.copy(
           new InputSupplier<InputStream>() {
@@ -0,0 +1,171 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Driver side of a long-lived worker JVM such as {@link KawaCompilerWorker} or
+ * {@link JavaToolWorker}.
+ *
+ * <p>Jobs are written to the worker's standard input as a count followed by that many modified
+ * UTF-8 strings. Each output stream is drained by its own thread, which forwards lines to the
+ * current job's sink until it sees the worker's done marker followed by a status code. The marker
+ * is found anywhere in a line, since a job's output need not end with a line separator. A job
+ * that runs past its timeout has its process stopped, like a forked tool.</p>
+ */
+final class WorkerProcess {
+  private static final Logger LOG = Logger.getLogger(WorkerProcess.class.getName());
+
+  /**
+   * Returned by {@link #run} when the process ended before finishing the job.
+   */
+  static final int EXITED = Integer.MIN_VALUE;
+
+  /**
+   * Returned by {@link #run} when the job ran past its timeout and the process was stopped.
+   */
+  static final int TIMED_OUT = Integer.MIN_VALUE + 1;
+
+  private final Process process;
+  private final String doneMarker;
+  private final DataOutputStream input;
+  private final Pump stdout;
+  private final Pump stderr;
+  private final Semaphore markers = new Semaphore(0);
+  private volatile boolean destroyed = false;
+  private int jobs = 0;
+
+  WorkerProcess(Process process, String doneMarker) {
+    this.process = process;
+    this.doneMarker = doneMarker;
+    this.input = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    this.stdout = new Pump(process.getInputStream());
+    this.stderr = new Pump(process.getErrorStream());
+  }
+
+  boolean isAlive() {
+    return !destroyed && !stdout.finished && !stderr.finished;
+  }
+
+  /**
+   * Returns the number of jobs this worker has been given.
+   */
+  int getJobs() {
+    return jobs;
+  }
+
+  /**
+   * Runs a job and waits for it to finish.
+   *
+   * @param job the strings describing the job
+   * @param out stream receiving the job's standard output
+   * @param err stream receiving the job's standard error
+   * @param timeoutMillis the time after which the process is stopped, or 0 for no limit
+   * @return the status the worker reported, {@link #EXITED} if the process ended first, in
+   *     which case {@link #exitValue()} gives its exit code, or {@link #TIMED_OUT}
+   */
+  int run(List<String> job, PrintStream out, PrintStream err, long timeoutMillis)
+      throws IOException, InterruptedException {
+    jobs++;
+    stdout.sink = out;
+    stderr.sink = err;
+    stdout.status = EXITED;
+    input.writeInt(job.size());
+    for (String s : job) {
+      input.writeUTF(s);
+    }
+    input.flush();
+    boolean finished = true;
+    if (timeoutMillis > 0) {
+      finished = markers.tryAcquire(2, timeoutMillis, TimeUnit.MILLISECONDS);
+    } else {
+      markers.acquire(2);
+    }
+    stdout.sink = null;
+    stderr.sink = null;
+    if (!finished) {
+      destroy();
+      return TIMED_OUT;
+    }
+    return stdout.status;
+  }
+
+  /**
+   * Waits for the process to end and returns its exit code.
+   */
+  int exitValue() throws InterruptedException {
+    return process.waitFor();
+  }
+
+  void destroy() {
+    destroyed = true;
+    process.destroy();
+  }
+
+  private final class Pump extends Thread {
+    private final InputStream stream;
+    volatile PrintStream sink;
+    volatile int status = EXITED;
+    volatile boolean finished = false;
+
+    Pump(InputStream stream) {
+      this.stream = stream;
+      setDaemon(true);
+      start();
+    }
+
+    @Override
+    public void run() {
+      try {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+          int marker = line.indexOf(doneMarker);
+          if (marker < 0) {
+            forward(line);
+            continue;
+          }
+          if (marker > 0) {
+            // The last line of the job's output, which did not end with a line separator.
+            forward(line.substring(0, marker));
+          }
+          status = Integer.parseInt(line.substring(marker + doneMarker.length()).trim());
+          markers.release();
+        }
+      } catch (IOException | NumberFormatException e) {
+        if (!destroyed) {
+          LOG.log(Level.WARNING, "Worker I/O failure", e);
+        }
+      } finally {
+        finished = true;
+        // Wake up a job that may be waiting on this stream. Extra permits do not matter
+        // because a dead worker is never reused.
+        markers.release(2);
+      }
+    }
+
+    private void forward(String line) {
+      PrintStream target = sink;
+      if (target != null) {
+        target.println(line);
+      }
+    }
+  }
+}
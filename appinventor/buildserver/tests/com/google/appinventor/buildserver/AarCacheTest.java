@@ -0,0 +1,164 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.util.AARLibrary;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests AarCache class.
+ */
+public class AarCacheTest extends TestCase {
+  private File root;
+  private File cacheDir;
+  private File aar;
+
+  @Override
+  protected void setUp() throws Exception {
+    root = Files.createTempDir();
+    cacheDir = new File(root, "cache");
+    aar = new File(root, "library.aar");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(aar))) {
+      add(out, "AndroidManifest.xml", "<manifest xmlns:android="
+          + "\"http://schemas.android.com/apk/res/android\" package=\"com.example.lib\"/>");
+      add(out, "classes.jar", "classes");
+      add(out, "res/values/values.xml", "<resources/>");
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteDirectory(root);
+  }
+
+  public void testUnpackedArchiveIsLinkedIntoLaterBuilds() throws Exception {
+    AarCache.configure(cacheDir, 0);
+    AarCache cache = AarCache.getInstance();
+
+    AARLibrary first = new AARLibrary(aar);
+    assertEquals(-1, cache.attach(first, new File(root, "build1")));
+    AARLibrary second = new AARLibrary(aar);
+    File build2 = new File(root, "build2");
+    assertTrue(cache.attach(second, build2) > 0);
+    assertEquals(1, cache.getAarMisses());
+    assertEquals(1, cache.getAarHits());
+
+    File lib = new File(build2, "com.example.lib");
+    assertEquals("com.example.lib", second.getPackageName());
+    assertEquals(lib, second.getDirectory());
+    assertEquals(new File(lib, "classes.jar"), second.getClassesJar());
+    assertEquals(new File(lib, "res"), second.getResDirectory());
+    assertEquals("classes", Files.toString(second.getClassesJar(), Charsets.UTF_8));
+    // Both builds share the cached file rather than copies of it.
+    assertTrue(java.nio.file.Files.isSameFile(first.getClassesJar().toPath(),
+        second.getClassesJar().toPath()));
+  }
+
+  public void testMergedResourcesAreRestored() throws Exception {
+    AarCache.configure(cacheDir, 0);
+    AarCache cache = AarCache.getInstance();
+    AARLibrary library = new AARLibrary(aar);
+    cache.attach(library, new File(root, "build"));
+    File resDir = new File(root, "res");
+    write(resDir, "values/strings.xml", "<resources/>");
+    File aapt = write(root, "aapt", "aapt");
+
+    String key = cache.mergedResourcesKey(Collections.singleton(library), resDir, aapt);
+    File merged = new File(root, "merged");
+    assertFalse(cache.restoreMergedResources(key, merged));
+    write(merged, "values/values.xml", "merged");
+    cache.storeMergedResources(key, merged);
+
+    File restored = new File(root, "restored");
+    assertTrue(cache.restoreMergedResources(key, restored));
+    assertEquals("merged", Files.toString(new File(restored, "values/values.xml"),
+        Charsets.UTF_8));
+    assertEquals(1, cache.getResourceHits());
+
+    write(resDir, "values/strings.xml", "<resources><string name=\"a\">b</string></resources>");
+    assertFalse(key.equals(cache.mergedResourcesKey(Collections.singleton(library), resDir,
+        aapt)));
+  }
+
+  public void testEvictionKeepsCacheUnderLimit() throws Exception {
+    AarCache.configure(cacheDir, 1);
+    AarCache cache = AarCache.getInstance();
+    File merged = new File(root, "merged");
+    writeRandom(new File(merged, "raw/big.bin"), 700 * 1024);
+    cache.storeMergedResources("a", merged);
+    new File(cacheDir, "res-a.zip").setLastModified(System.currentTimeMillis() - 60000);
+    writeRandom(new File(merged, "raw/big.bin"), 700 * 1024);
+    cache.storeMergedResources("b", merged);
+    assertTrue(cache.getSizeBytes() <= 1024 * 1024);
+    assertFalse(cache.restoreMergedResources("a", new File(root, "out")));
+    assertEquals(1, cache.getEvictions());
+  }
+
+  public void testEvictedArchiveLeavesNoFilesBehind() throws Exception {
+    File bigAar = new File(root, "big.aar");
+    byte[] classes = new byte[700 * 1024];
+    new Random(1).nextBytes(classes);
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(bigAar))) {
+      add(out, "AndroidManifest.xml", "<manifest xmlns:android="
+          + "\"http://schemas.android.com/apk/res/android\" package=\"com.example.big\"/>");
+      out.putNextEntry(new ZipEntry("classes.jar"));
+      out.write(classes);
+      out.closeEntry();
+    }
+    AarCache.configure(cacheDir, 1);
+    AarCache cache = AarCache.getInstance();
+    cache.attach(new AARLibrary(bigAar), new File(root, "build"));
+    new File(cacheDir, cacheDir.list()[0]).setLastModified(System.currentTimeMillis() - 60000);
+    File merged = new File(root, "merged");
+    writeRandom(new File(merged, "raw/big.bin"), 700 * 1024);
+    cache.storeMergedResources("a", merged);
+    assertEquals(1, cache.getEvictions());
+    assertEquals(Collections.singletonList("res-a.zip"), Arrays.asList(cacheDir.list()));
+  }
+
+  public void testStaleTempFilesAreDeleted() throws Exception {
+    write(cacheDir, "tmp-123-aar-0123/com.example.lib/classes.jar", "classes");
+    write(cacheDir, "tmp-456-res-a.zip", "zip");
+    write(cacheDir, "res-b.zip", "zip");
+    AarCache.configure(cacheDir, 0);
+    assertEquals(Collections.singletonList("res-b.zip"), Arrays.asList(cacheDir.list()));
+    assertEquals(3, AarCache.getInstance().getSizeBytes());
+  }
+
+  private static void add(ZipOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(Charsets.UTF_8));
+    out.closeEntry();
+  }
+
+  // Random bytes do not compress, so the stored zips are as large as the resources.
+  private static void writeRandom(File file, int size) throws IOException {
+    byte[] bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    Files.createParentDirs(file);
+    Files.write(bytes, file);
+  }
+
+  private static File write(File dir, String path, String content) throws IOException {
+    File file = new File(dir, path);
+    Files.createParentDirs(file);
+    Files.write(content, file, Charsets.UTF_8);
+    return file;
+  }
+}
@@ -0,0 +1,225 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.context.AndroidCompilerContext;
+import com.google.appinventor.buildserver.context.AndroidPaths;
+import com.google.appinventor.buildserver.context.CompilerContext;
+import com.google.appinventor.buildserver.interfaces.CommonTask;
+import com.google.appinventor.buildserver.stats.NullStatReporter;
+import com.google.appinventor.buildserver.stats.StatReporter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the scheduling of tasks by the Compiler class.
+ */
+public class CompilerTest extends TestCase {
+  static final List<String> ORDER = Collections.synchronizedList(new ArrayList<String>());
+  static CyclicBarrier barrier;
+
+  @Override
+  protected void setUp() throws Exception {
+    ORDER.clear();
+    barrier = new CyclicBarrier(2);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    Compiler.setTaskThreads(1);
+  }
+
+  public void testIndependentTasksRunConcurrently() throws Exception {
+    Compiler.setTaskThreads(4);
+    Compiler<AndroidPaths, AndroidCompilerContext> compiler = newCompiler();
+    compiler.add(First.class);
+    compiler.add(Second.class);
+    compiler.add(Last.class);
+    // First and Second each wait for the other, so this only succeeds if they overlap.
+    assertTrue(compiler.call());
+    assertEquals(3, ORDER.size());
+    assertEquals("Last", ORDER.get(2));
+  }
+
+  public void testUnannotatedTaskWaitsForEarlierTasks() throws Exception {
+    Compiler.setTaskThreads(4);
+    Compiler<AndroidPaths, AndroidCompilerContext> compiler = newCompiler();
+    compiler.add(Slow.class);
+    compiler.add(Sequential.class);
+    assertTrue(compiler.call());
+    assertEquals(Arrays.asList("Slow", "Sequential"), ORDER);
+  }
+
+  public void testFailureStopsDependents() throws Exception {
+    Compiler<AndroidPaths, AndroidCompilerContext> compiler = newCompiler();
+    compiler.add(Failing.class);
+    compiler.add(Last.class);
+    assertFalse(compiler.call());
+    assertEquals(Collections.singletonList("Failing"), ORDER);
+  }
+
+  public void testErrorStopsRunningTasks() throws Exception {
+    Compiler.setTaskThreads(4);
+    Compiler<AndroidPaths, AndroidCompilerContext> compiler = newCompiler();
+    compiler.add(Waiting.class);
+    compiler.add(Throwing.class);
+    long start = System.currentTimeMillis();
+    assertFalse(compiler.call());
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertTrue(ORDER.contains("Waiting interrupted"));
+  }
+
+  public void testStatReporterWithoutNewHooks() throws Exception {
+    final List<String> stages = Collections.synchronizedList(new ArrayList<String>());
+    Compiler<AndroidPaths, AndroidCompilerContext> compiler = newCompiler(new StatReporter() {
+      @Override
+      public void startBuild(Compiler compiler) {
+      }
+
+      @Override
+      public void nextStage(Compiler compiler, String stage) {
+        stages.add(stage);
+      }
+
+      @Override
+      public void stopBuild(Compiler compiler, boolean success) {
+      }
+    });
+    compiler.add(Slow.class);
+    compiler.add(Sequential.class);
+    assertTrue(compiler.call());
+    assertEquals(Arrays.asList("Slow", "Sequential"), stages);
+  }
+
+  private static Compiler<AndroidPaths, AndroidCompilerContext> newCompiler() {
+    return newCompiler(new NullStatReporter());
+  }
+
+  private static Compiler<AndroidPaths, AndroidCompilerContext> newCompiler(
+      StatReporter statReporter) {
+    AndroidCompilerContext context =
+        new CompilerContext.Builder<AndroidPaths, AndroidCompilerContext>(null, "apk")
+            .withClass(AndroidCompilerContext.class)
+            .withTypes(Collections.<String>emptySet())
+            .withBlocks(Collections.<String, Set<String>>emptyMap())
+            .withReporter(new Reporter(null))
+            .withStatReporter(statReporter)
+            .withKeystore("test.keystore")
+            .build();
+    return new Compiler.Builder<AndroidPaths, AndroidCompilerContext>()
+        .withContext(context)
+        .withType(BuildType.APK_EXTENSION)
+        .build();
+  }
+
+  @BuildType(apk = true)
+  @DependsOn({})
+  public static class First implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      return meet("First");
+    }
+  }
+
+  @BuildType(apk = true)
+  @DependsOn({})
+  public static class Second implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      return meet("Second");
+    }
+  }
+
+  @BuildType(apk = true)
+  @DependsOn({First.class, Second.class, Failing.class})
+  public static class Last implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      ORDER.add("Last");
+      return TaskResult.generateSuccess();
+    }
+  }
+
+  @BuildType(apk = true)
+  @DependsOn({})
+  public static class Slow implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        return TaskResult.generateError(e);
+      }
+      ORDER.add("Slow");
+      return TaskResult.generateSuccess();
+    }
+  }
+
+  @BuildType(apk = true)
+  public static class Sequential implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      ORDER.add("Sequential");
+      return TaskResult.generateSuccess();
+    }
+  }
+
+  @BuildType(apk = true)
+  @DependsOn({})
+  public static class Failing implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      ORDER.add("Failing");
+      return TaskResult.generateError("expected");
+    }
+  }
+
+  @BuildType(apk = true)
+  @DependsOn({})
+  public static class Waiting implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      try {
+        Thread.sleep(30000);
+      } catch (InterruptedException e) {
+        ORDER.add("Waiting interrupted");
+        return TaskResult.generateError(e);
+      }
+      return TaskResult.generateSuccess();
+    }
+  }
+
+  @BuildType(apk = true)
+  @DependsOn({})
+  public static class Throwing implements CommonTask {
+    @Override
+    public TaskResult execute(CompilerContext<?> context) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        return TaskResult.generateError(e);
+      }
+      throw new AssertionError("expected");
+    }
+  }
+
+  private static TaskResult meet(String name) {
+    try {
+      barrier.await(5, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      return TaskResult.generateError(e);
+    }
+    ORDER.add(name);
+    return TaskResult.generateSuccess();
+  }
+}
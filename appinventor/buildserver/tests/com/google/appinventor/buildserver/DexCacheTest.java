@@ -0,0 +1,154 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver;
+
+import com.google.common.io.Files;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests DexCache class.
+ */
+public class DexCacheTest extends TestCase {
+  private File root;
+
+  @Override
+  protected void setUp() throws Exception {
+    root = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteDirectory(root);
+  }
+
+  public void testSecondRequestIsAHit() throws Exception {
+    new File(root, "cache").mkdirs();
+    DexCache cache = DexCache.forDirectory(new File(root, "cache"));
+    File lib = library("a.jar", "library a");
+    CountingBuilder builder = new CountingBuilder(100);
+
+    DexCache.Entry first = cache.acquire(lib, builder);
+    first.close();
+    DexCache.Entry second = cache.acquire(lib, builder);
+    second.close();
+
+    assertEquals(1, builder.builds.get());
+    assertEquals(first.getFile(), second.getFile());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    // Only the published entry remains, not the temporary file.
+    assertEquals(1, new File(root, "cache").list().length);
+  }
+
+  public void testFailedBuildIsNotCached() throws Exception {
+    new File(root, "cache").mkdirs();
+    DexCache cache = DexCache.forDirectory(new File(root, "cache"));
+    File lib = library("a.jar", "library a");
+
+    assertNull(cache.acquire(lib, new DexCache.Builder() {
+      @Override
+      public boolean build(File output) {
+        return false;
+      }
+    }));
+    assertEquals(1, cache.getFailures());
+    assertEquals(0, new File(root, "cache").list().length);
+  }
+
+  public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+    File dir = new File(root, "cache");
+    dir.mkdirs();
+    DexCache cache = DexCache.forDirectory(dir);
+    DexCache.setDefaultMaxSizeMb(1);
+    try {
+      CountingBuilder builder = new CountingBuilder(400 * 1024);
+      File a = library("a.jar", "library a");
+      File b = library("b.jar", "library b");
+      File c = library("c.jar", "library c");
+
+      DexCache.Entry entryA = cache.acquire(a, builder);
+      entryA.getFile().setLastModified(System.currentTimeMillis() - 60000);
+      entryA.close();
+      DexCache.Entry entryB = cache.acquire(b, builder);
+      entryB.getFile().setLastModified(System.currentTimeMillis() - 30000);
+      entryB.close();
+      // b is still held by a build, so only a can be evicted.
+      entryB = cache.acquire(b, builder);
+      entryB.getFile().setLastModified(System.currentTimeMillis() - 90000);
+      DexCache.Entry entryC = cache.acquire(c, builder);
+      entryC.close();
+      entryB.close();
+
+      assertFalse(entryA.getFile().exists());
+      assertTrue(entryB.getFile().exists());
+      assertTrue(entryC.getFile().exists());
+      assertEquals(1, cache.getEvictions());
+      assertEquals(800 * 1024, cache.getSizeBytes());
+    } finally {
+      DexCache.setDefaultMaxSizeMb(DexCache.DEFAULT_MAX_SIZE_MB);
+    }
+  }
+
+  public void testEntryPublishedElsewhereIsCountedOnce() throws Exception {
+    final File dir = new File(root, "cache");
+    dir.mkdirs();
+    final DexCache cache = DexCache.forDirectory(dir);
+    File lib = library("a.jar", "library a");
+    final long sizeBefore = cache.getSizeBytes();
+
+    DexCache.Entry entry = cache.acquire(lib, new DexCache.Builder() {
+      @Override
+      public boolean build(File output) {
+        // Another build server publishes the same library while this one dexes it.
+        File target = new File(dir, output.getName().replaceFirst("^tmp-[0-9]*-", ""));
+        try {
+          Files.write(new byte[300], target);
+          Files.write(new byte[100], output);
+          return true;
+        } catch (IOException e) {
+          return false;
+        }
+      }
+    });
+    entry.close();
+
+    assertEquals(300, entry.getFile().length());
+    assertEquals(sizeBefore + 300, cache.getSizeBytes());
+    assertEquals(1, dir.list().length);
+  }
+
+  private File library(String name, String contents) throws IOException {
+    File file = new File(root, name);
+    Files.write(contents.getBytes("UTF-8"), file);
+    return file;
+  }
+
+  private static class CountingBuilder implements DexCache.Builder {
+    private final int size;
+    private final AtomicInteger builds = new AtomicInteger(0);
+
+    private CountingBuilder(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public boolean build(File output) {
+      builds.incrementAndGet();
+      try {
+        Files.write(new byte[size], output);
+        return true;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import com.google.appinventor.buildserver.FormPropertiesAnalyzer.ComponentBlocksExtractor;
+import com.google.appinventor.buildserver.FormPropertiesAnalyzer.PermissionBlockExtractor;
+import com.google.appinventor.buildserver.FormPropertiesAnalyzer.ScopeBlockExtractor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares analyzing the Screens of a 30 Screen project with {@link ProjectAnalysis} against the
+ * separate passes ProjectBuilder used to make, which parsed each form once for the component
+ * types and again for the orientation.
+ *
+ * <p>This is not run as part of the tests. Run it with the build server test class path:</p>
+ *
+ * <pre>
+ * java -cp ... com.google.appinventor.buildserver.ProjectAnalysisBenchmark
+ * </pre>
+ */
+public final class ProjectAnalysisBenchmark {
+  private static final int SCREENS = 30;
+  private static final int COMPONENTS_PER_SCREEN = 60;
+  private static final int BLOCKS_PER_SCREEN = 300;
+  private static final int WARMUP_ITERATIONS = 200;
+  private static final int ITERATIONS = 200;
+  private static final int THREADS = 4;
+
+  private static final String[] TYPES = {"Button", "Label", "TextBox", "Image", "Clock"};
+
+  private ProjectAnalysisBenchmark() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, byte[]> forms = new TreeMap<>();
+    Map<String, byte[]> blocks = new TreeMap<>();
+    for (int i = 1; i <= SCREENS; i++) {
+      forms.put("Screen" + i, makeForm().getBytes(StandardCharsets.UTF_8));
+      blocks.put("Screen" + i, makeBlocks().getBytes(StandardCharsets.UTF_8));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        separatePasses(forms, blocks);
+        ProjectAnalysis.analyze(forms, blocks, null);
+        ProjectAnalysis.analyze(forms, blocks, executor);
+      }
+
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        separatePasses(forms, blocks);
+      }
+      long separate = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        ProjectAnalysis.analyze(forms, blocks, null);
+      }
+      long single = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        ProjectAnalysis.analyze(forms, blocks, executor);
+      }
+      long parallel = System.nanoTime() - start;
+
+      System.out.println(String.format("separate passes:        %8.1f us/project",
+          separate / 1000.0 / ITERATIONS));
+      System.out.println(String.format("single pass:            %8.1f us/project",
+          single / 1000.0 / ITERATIONS));
+      System.out.println(String.format("single pass, %d threads: %8.1f us/project", THREADS,
+          parallel / 1000.0 / ITERATIONS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void separatePasses(Map<String, byte[]> forms, Map<String, byte[]> blocks)
+      throws Exception {
+    Set<String> types = new HashSet<>();
+    for (byte[] form : forms.values()) {
+      types.addAll(FormPropertiesAnalyzer.getComponentTypesFromFormFile(
+          new String(form, PathUtil.DEFAULT_CHARSET)));
+    }
+    ComponentBlocksExtractor componentBlocks = new ComponentBlocksExtractor();
+    PermissionBlockExtractor permissions = new PermissionBlockExtractor();
+    ScopeBlockExtractor scopes = new ScopeBlockExtractor();
+    for (byte[] bky : blocks.values()) {
+      FormPropertiesAnalyzer.analyzeBlocks(new String(bky, StandardCharsets.UTF_8),
+          componentBlocks, permissions, scopes);
+    }
+    for (byte[] form : forms.values()) {
+      FormPropertiesAnalyzer.getFormOrientation(new String(form, StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String makeForm() {
+    StringBuilder sb = new StringBuilder("#|\n$JSON\n{\"Properties\":{\"$Type\":\"Form\","
+        + "\"ScreenOrientation\":\"portrait\",\"$Components\":[");
+    for (int i = 0; i < COMPONENTS_PER_SCREEN; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"$Type\":\"").append(TYPES[i % TYPES.length])
+          .append("\",\"$Name\":\"Component").append(i)
+          .append("\",\"Width\":\"-2\",\"Text\":\"Some text ").append(i).append("\"}");
+    }
+    return sb.append("]}}\n|#\n").toString();
+  }
+
+  private static String makeBlocks() {
+    StringBuilder sb = new StringBuilder("<xml>");
+    for (int i = 0; i < BLOCKS_PER_SCREEN; i++) {
+      String type = TYPES[i % TYPES.length];
+      sb.append("<block type=\"component_event\" id=\"").append(i).append("\">")
+          .append("<mutation component_type=\"").append(type)
+          .append("\" event_name=\"Event").append(i % 7).append("\"></mutation>")
+          .append("<statement name=\"DO\"><block type=\"helpers_dropdown\">")
+          .append("<mutation key=\"Permission\"></mutation>")
+          .append("<field name=\"OPTION\">FineLocation</field></block></statement>")
+          .append("</block>");
+    }
+    return sb.append("</xml>").toString();
+  }
+}
@@ -0,0 +1,96 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests ProjectAnalysis class.
+ */
+public class ProjectAnalysisTest extends TestCase {
+  private static final String SCREEN1_FORM = "#|\n$JSON\n{\"Properties\":{\"$Type\":\"Form\","
+      + "\"ScreenOrientation\":\"portrait\",\"$Components\":[{\"$Type\":\"Button\"}]}}\n|#\n";
+  private static final String SCREEN2_FORM = "#|\n$JSON\n{\"Properties\":{\"$Type\":\"Form\","
+      + "\"$Components\":[{\"$Type\":\"Clock\"}]}}\n|#\n";
+  private static final String SCREEN1_BLOCKS = "<xml>"
+      + "<block type=\"component_event\">"
+      + "<mutation component_type=\"Button\" event_name=\"Click\"></mutation>"
+      + "<statement name=\"DO\">"
+      + "<block type=\"helpers_dropdown\"><mutation key=\"Permission\"></mutation>"
+      + "<field name=\"OPTION\">FineLocation</field></block>"
+      + "</statement></block>"
+      + "<block type=\"component_method\" disabled=\"true\">"
+      + "<mutation component_type=\"Button\" method_name=\"Hidden\"></mutation></block>"
+      + "</xml>";
+  private static final String SCREEN2_BLOCKS = "<xml>"
+      + "<block type=\"component_set_get\">"
+      + "<mutation component_type=\"Button\" property_name=\"Text\"></mutation></block>"
+      + "<block type=\"helpers_dropdown\"><mutation key=\"FileScope\"></mutation>"
+      + "<field name=\"OPTION\">Shared</field></block>"
+      + "</xml>";
+
+  private Map<String, byte[]> forms;
+  private Map<String, byte[]> blocks;
+
+  @Override
+  protected void setUp() throws Exception {
+    forms = new HashMap<>();
+    forms.put("Screen1", bytes(SCREEN1_FORM));
+    forms.put("Screen2", bytes(SCREEN2_FORM));
+    blocks = new HashMap<>();
+    blocks.put("Screen1", bytes(SCREEN1_BLOCKS));
+    blocks.put("Screen2", bytes(SCREEN2_BLOCKS));
+  }
+
+  public void testAnalyzeOnCallingThread() throws Exception {
+    checkAnalysis(ProjectAnalysis.analyze(forms, blocks, null));
+  }
+
+  public void testAnalyzeConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      checkAnalysis(ProjectAnalysis.analyze(forms, blocks, executor));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testInvalidFormFails() throws Exception {
+    forms.put("Screen3", bytes("#|\n$JSON\n{]\n|#\n"));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ProjectAnalysis.analyze(forms, blocks, executor);
+      fail("Expected the invalid form to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void checkAnalysis(ProjectAnalysis analysis) {
+    assertEquals(3, analysis.getComponentNames().size());
+    assertTrue(analysis.getComponentNames().contains("Clock"));
+    assertEquals("portrait", analysis.getFormOrientations().get("Screen1"));
+    assertEquals("unspecified", analysis.getFormOrientations().get("Screen2"));
+    assertEquals(2, analysis.getComponentBlocks().get("Button").size());
+    assertTrue(analysis.getComponentBlocks().get("Button").contains("Click"));
+    assertTrue(analysis.getComponentBlocks().get("Button").contains("Text"));
+    assertTrue(analysis.getBlockPermissions().contains(
+        "android.permission.ACCESS_FINE_LOCATION"));
+    assertTrue(analysis.getScopes().contains("Shared"));
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}
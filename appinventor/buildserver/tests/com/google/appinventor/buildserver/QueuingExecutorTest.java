@@ -0,0 +1,150 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests QueuingExecutor class.
+ */
+public class QueuingExecutorTest extends TestCase {
+  public void testAdditionalTaskIsQueuedThenRejected() throws Exception {
+    QueuingExecutor executor = new QueuingExecutor(2, 3, 0, 0);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch done = new CountDownLatch(5);
+
+    // Occupy both workers, then fill the queue.
+    for (int i = 0; i < 2; i++) {
+      executor.execute("user" + i, 0, new Blocking(started, release, done));
+    }
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    for (int i = 2; i < 5; i++) {
+      executor.execute("user" + i, 0, new Blocking(null, release, done));
+    }
+    assertEquals(2, executor.getActiveTaskCount());
+    assertEquals(3, executor.getQueuedTaskCount());
+    assertTrue(executor.getEstimatedWaitMillis() > 0);
+
+    try {
+      executor.execute("another", 0, new Blocking(null, release, null));
+      fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    assertEquals(1, executor.getRejectedTaskCount());
+
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  public void testPerUserLimit() throws Exception {
+    QueuingExecutor executor = new QueuingExecutor(1, 0, 1, 0);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute("alice", 0, new Blocking(started, release, null));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    executor.execute("alice", 0, new Blocking(null, release, null));
+    try {
+      executor.execute("alice", 0, new Blocking(null, release, null));
+      fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    executor.execute("bob", 0, new Blocking(null, release, null));
+    release.countDown();
+  }
+
+  public void testUsersAreServedRoundRobinWithinPriority() throws Exception {
+    QueuingExecutor executor = new QueuingExecutor(1, 0, 0, 0);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(5);
+    final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+    // Occupy the only worker so that everything else queues up.
+    executor.execute("first", 0, new Blocking(started, release, null));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    executor.execute("alice", 0, new Recording(order, "alice1", done));
+    executor.execute("alice", 0, new Recording(order, "alice2", done));
+    executor.execute("alice", 0, new Recording(order, "alice3", done));
+    executor.execute("bob", 0, new Recording(order, "bob1", done));
+    executor.execute("carol", 5, new Recording(order, "carol1", done));
+
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(
+        Arrays.asList("carol1", "alice1", "bob1", "alice2", "alice3"), order);
+  }
+
+  public void testWorkerSurvivesError() throws Exception {
+    QueuingExecutor executor = new QueuingExecutor(1, 0, 0, 0);
+    final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute("alice", 0, new Runnable() {
+      @Override
+      public void run() {
+        throw new OutOfMemoryError("test");
+      }
+    });
+    executor.execute("bob", 0, new Recording(order, "bob1", done));
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(Collections.singletonList("bob1"), order);
+  }
+
+  private static class Blocking implements Runnable {
+    private final CountDownLatch started;
+    private final CountDownLatch release;
+    private final CountDownLatch done;
+
+    private Blocking(CountDownLatch started, CountDownLatch release, CountDownLatch done) {
+      this.started = started;
+      this.release = release;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+      if (started != null) {
+        started.countDown();
+      }
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        // ignored
+      }
+      if (done != null) {
+        done.countDown();
+      }
+    }
+  }
+
+  private static class Recording implements Runnable {
+    private final List<String> order;
+    private final String name;
+    private final CountDownLatch done;
+
+    private Recording(List<String> order, String name, CountDownLatch done) {
+      this.order = order;
+      this.name = name;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+      order.add(name);
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests YailClassCache class.
+ */
+public class YailClassCacheTest extends TestCase {
+  private File root;
+  private File cacheDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    root = Files.createTempDir();
+    cacheDir = new File(root, "cache");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteDirectory(root);
+  }
+
+  public void testStoredClassesAreRestored() throws Exception {
+    YailClassCache.configure(cacheDir, 0);
+    YailClassCache cache = YailClassCache.getInstance();
+    File classes = new File(root, "classes");
+    File screen = write(classes, "appinventor/ai_test/App/Screen1.class", "screen");
+    File nested = write(classes, "appinventor/ai_test/App/Screen1$frame.class", "frame");
+    cache.store("key", classes, Arrays.asList(screen, nested));
+
+    File restoredClasses = new File(root, "restored");
+    assertEquals(11, cache.restore("key", restoredClasses));
+    assertEquals("screen", read(restoredClasses, "appinventor/ai_test/App/Screen1.class"));
+    assertEquals("frame", read(restoredClasses, "appinventor/ai_test/App/Screen1$frame.class"));
+    assertEquals(1, cache.getHits());
+    assertEquals(11, cache.getBytesSaved());
+  }
+
+  public void testUnknownKeyIsAMiss() throws Exception {
+    YailClassCache.configure(cacheDir, 0);
+    YailClassCache cache = YailClassCache.getInstance();
+    assertEquals(-1, cache.restore("unknown", new File(root, "classes")));
+    assertEquals(1, cache.getMisses());
+    assertEquals(0, cache.getHits());
+  }
+
+  public void testKeysDependOnEveryPart() throws Exception {
+    String key = new YailClassCache.KeyBuilder().add("a").add("bc").build();
+    assertEquals(key, new YailClassCache.KeyBuilder().add("a").add("bc").build());
+    assertFalse(key.equals(new YailClassCache.KeyBuilder().add("ab").add("c").build()));
+  }
+
+  public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+    YailClassCache.configure(cacheDir, 1);
+    YailClassCache cache = YailClassCache.getInstance();
+    File classes = new File(root, "classes");
+    byte[] large = new byte[600 * 1024];
+    new Random(42).nextBytes(large);
+    File first = new File(classes, "First.class");
+    File second = new File(classes, "Second.class");
+    Files.createParentDirs(first);
+    Files.write(large, first);
+    Files.write(large, second);
+
+    cache.store("first", classes, Arrays.asList(first));
+    new File(cacheDir, "yail-cached-first.jar").setLastModified(
+        System.currentTimeMillis() - 60000);
+    cache.store("second", classes, Arrays.asList(second));
+
+    assertEquals(1, cache.getEvictions());
+    assertEquals(-1, cache.restore("first", new File(root, "restored")));
+    assertTrue(cache.restore("second", new File(root, "restored")) > 0);
+  }
+
+  private static File write(File dir, String name, String content) throws IOException {
+    File file = new File(dir, name);
+    Files.createParentDirs(file);
+    Files.write(content, file, Charsets.UTF_8);
+    return file;
+  }
+
+  private static String read(File dir, String name) throws IOException {
+    return Files.toString(new File(dir, name), Charsets.UTF_8);
+  }
+}
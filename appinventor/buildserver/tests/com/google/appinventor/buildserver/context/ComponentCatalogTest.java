@@ -0,0 +1,91 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.buildserver.context;
+
+import com.google.appinventor.buildserver.util.PermissionConstraint;
+import com.google.common.collect.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.codehaus.jettison.json.JSONArray;
+
+/**
+ * Tests ComponentCatalog class.
+ */
+public class ComponentCatalogTest extends TestCase {
+  private static final String TEXTING = "com.google.appinventor.components.runtime.Texting";
+  private static final String LABEL = "com.google.appinventor.components.runtime.Label";
+  private static final String EXTENSION = "com.example.Extension";
+
+  private static final String BUNDLED = "["
+      + "{\"type\": \"" + TEXTING + "\","
+      + " \"permissions\": [\"android.permission.SEND_SMS\", \"\"],"
+      + " \"broadcastReceivers\": [],"
+      + " \"permissionConstraints\": {\"android.permission.SEND_SMS\": {\"maxSdkVersion\": 28}},"
+      + " \"conditionals\": {"
+      + "   \"permissions\": {\"ReceivingEnabled\": [\"android.permission.RECEIVE_SMS\"]},"
+      + "   \"permissionConstraints\": {\"ReceivingEnabled\":"
+      + "     {\"android.permission.RECEIVE_SMS\": {\"usesPermissionFlags\": \"neverForLocation\"}}}"
+      + " }},"
+      + "{\"type\": \"" + LABEL + "\", \"assets\": [\"font.ttf\"]}"
+      + "]";
+
+  public void testEntriesAreIndexedByType() throws Exception {
+    ComponentCatalog catalog = ComponentCatalog.fromJson(new JSONArray(BUNDLED));
+    assertEquals(Sets.newHashSet(TEXTING, LABEL), catalog.getTypes());
+
+    ComponentCatalog.Entry texting = catalog.get(TEXTING);
+    assertEquals(Sets.newHashSet("android.permission.SEND_SMS"),
+        texting.getInfo("permissions"));
+    assertTrue(texting.getInfo("broadcastReceivers").isEmpty());
+    assertNull(texting.getInfo("assets"));
+    assertEquals(Sets.newHashSet("android.permission.RECEIVE_SMS"),
+        texting.getConditionals("permissions").get("ReceivingEnabled"));
+    assertNull(texting.getConditionals("assets"));
+    assertNull(catalog.get(EXTENSION));
+  }
+
+  public void testPermissionConstraintsAreParsed() throws Exception {
+    ComponentCatalog.Entry texting =
+        ComponentCatalog.fromJson(new JSONArray(BUNDLED)).get(TEXTING);
+    Set<PermissionConstraint<?>> constraints =
+        texting.getPermissionConstraints().get("android.permission.SEND_SMS");
+    assertEquals(1, constraints.size());
+    assertEquals("maxSdkVersion", constraints.iterator().next().getAttribute());
+
+    Map<String, Set<PermissionConstraint<?>>> conditional =
+        texting.getConditionalPermissionConstraints().get("ReceivingEnabled");
+    assertEquals(1, conditional.get("android.permission.RECEIVE_SMS").size());
+    assertNull(texting.getConditionals("permissionConstraints"));
+    assertNull(ComponentCatalog.fromJson(new JSONArray(BUNDLED)).get(LABEL)
+        .getPermissionConstraints());
+  }
+
+  public void testExtensionsOverlayTheCatalog() throws Exception {
+    ComponentCatalog bundled = ComponentCatalog.fromJson(new JSONArray(BUNDLED));
+    ComponentCatalog withExtension = bundled.withExtensions(new JSONArray(
+        "[{\"type\": \"" + EXTENSION + "\", \"libraries\": [\"ext.jar\"]}]"));
+
+    assertEquals(Sets.newHashSet("ext.jar"), withExtension.get(EXTENSION).getInfo("libraries"));
+    assertSame(bundled.get(LABEL), withExtension.get(LABEL));
+    assertEquals(Sets.newHashSet(TEXTING, LABEL, EXTENSION), withExtension.getTypes());
+    assertFalse(bundled.contains(EXTENSION));
+    assertSame(bundled, bundled.withExtensions(new JSONArray()));
+  }
+
+  public void testEntriesAreImmutable() throws Exception {
+    ComponentCatalog.Entry label = ComponentCatalog.fromJson(new JSONArray(BUNDLED)).get(LABEL);
+    try {
+      label.getInfo("assets").add("other.ttf");
+      fail("Catalog entries must not be modifiable");
+    } catch (UnsupportedOperationException expected) {
+      // expected
+    }
+  }
+}
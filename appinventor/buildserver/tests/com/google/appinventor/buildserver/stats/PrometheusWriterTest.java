@@ -0,0 +1,42 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver.stats;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests PrometheusWriter class.
+ */
+public class PrometheusWriterTest extends TestCase {
+  public void testCountersShareOneDescription() {
+    PrometheusWriter writer = new PrometheusWriter();
+    writer.counter("lookups_total", "Cache lookups.", 3, "cache", "dex", "result", "hit");
+    writer.counter("lookups_total", "Cache lookups.", 1.5, "cache", "a\"b", "result", "miss");
+    writer.gauge("heap_bytes", "Heap in use.", 1024);
+    assertEquals("# HELP lookups_total Cache lookups.\n"
+        + "# TYPE lookups_total counter\n"
+        + "lookups_total{cache=\"dex\",result=\"hit\"} 3\n"
+        + "lookups_total{cache=\"a\\\"b\",result=\"miss\"} 1.5\n"
+        + "# HELP heap_bytes Heap in use.\n"
+        + "# TYPE heap_bytes gauge\n"
+        + "heap_bytes 1024\n", writer.toString());
+  }
+
+  public void testHistogramIsCumulativeInSeconds() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(5);
+    histogram.record(20);
+    histogram.record(400000);
+    String text = new PrometheusWriter()
+        .histogram("run_seconds", "Run time.", histogram, "tool", "dx").toString();
+    assertTrue(text.contains("# TYPE run_seconds histogram\n"));
+    assertTrue(text.contains("run_seconds_bucket{tool=\"dx\",le=\"0.01\"} 1\n"));
+    assertTrue(text.contains("run_seconds_bucket{tool=\"dx\",le=\"0.025\"} 2\n"));
+    assertTrue(text.contains("run_seconds_bucket{tool=\"dx\",le=\"300\"} 2\n"));
+    assertTrue(text.contains("run_seconds_bucket{tool=\"dx\",le=\"+Inf\"} 3\n"));
+    assertTrue(text.contains("run_seconds_sum{tool=\"dx\"} 400.025\n"));
+    assertTrue(text.contains("run_seconds_count{tool=\"dx\"} 3\n"));
+  }
+}
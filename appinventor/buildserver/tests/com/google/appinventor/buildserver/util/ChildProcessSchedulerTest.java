@@ -0,0 +1,88 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests ChildProcessScheduler class.
+ */
+public class ChildProcessSchedulerTest extends TestCase {
+  public void testMemoryBudgetLimitsConcurrentTools() throws Exception {
+    ChildProcessScheduler.configure(1000, 4);
+    final ChildProcessScheduler scheduler = ChildProcessScheduler.getInstance();
+    ChildProcessScheduler.Lease first =
+        scheduler.acquire(null, ChildProcessScheduler.Tool.KAWA, 600);
+    assertEquals(400, scheduler.getAvailableMemoryMb());
+    assertEquals(3, scheduler.getAvailableCores());
+
+    // A native tool still fits next to the first one.
+    try (ChildProcessScheduler.Lease lease = scheduler.acquire(null,
+        ChildProcessScheduler.Tool.AAPT, ChildProcessScheduler.NATIVE_TOOL_MEMORY_MB)) {
+      assertEquals(2, scheduler.getAvailableCores());
+    }
+
+    // A second Java tool does not fit until the first one finishes.
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiter = new Thread() {
+      @Override
+      public void run() {
+        try (ChildProcessScheduler.Lease lease =
+            scheduler.acquire(null, ChildProcessScheduler.Tool.DX, 600)) {
+          acquired.countDown();
+        } catch (InterruptedException e) {
+          // ignored
+        }
+      }
+    };
+    waiter.start();
+    // Measure the wait from the moment the waiter is blocked on the budget.
+    while (waiter.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+    first.close();
+    first.close();  // Closing twice must not release twice.
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    waiter.join();
+    assertEquals(1000, scheduler.getAvailableMemoryMb());
+    assertEquals(4, scheduler.getAvailableCores());
+    assertEquals(1, scheduler.getToolStats().get(ChildProcessScheduler.Tool.DX).getInvocations());
+    assertTrue(scheduler.getToolStats().get(ChildProcessScheduler.Tool.DX).getMaxWaitMillis()
+        >= 200);
+  }
+
+  public void testDefaultBudgetLeavesNativeToolsOut() throws Exception {
+    ChildProcessScheduler.configure(0, 2048, 4, 0);
+    ChildProcessScheduler scheduler = ChildProcessScheduler.getInstance();
+    ChildProcessScheduler.Lease kawa =
+        scheduler.acquire(null, ChildProcessScheduler.Tool.KAWA, 1848);
+    assertEquals(200, scheduler.getAvailableMemoryMb());
+
+    // aapt runs next to the Java tool, as it did before tools were scheduled.
+    ChildProcessScheduler.Lease aapt = scheduler.acquire(null,
+        ChildProcessScheduler.Tool.AAPT, ChildProcessScheduler.NATIVE_TOOL_MEMORY_MB);
+    assertEquals(200, scheduler.getAvailableMemoryMb());
+    assertEquals(2, scheduler.getAvailableCores());
+    aapt.close();
+    kawa.close();
+    assertEquals(2048, scheduler.getAvailableMemoryMb());
+    assertEquals(4, scheduler.getAvailableCores());
+  }
+
+  public void testOversizedRequestIsClamped() throws Exception {
+    ChildProcessScheduler.configure(1000, 1);
+    ChildProcessScheduler scheduler = ChildProcessScheduler.getInstance();
+    try (ChildProcessScheduler.Lease lease =
+        scheduler.acquire(null, ChildProcessScheduler.Tool.BUNDLETOOL, 4000)) {
+      assertEquals(0, scheduler.getAvailableMemoryMb());
+    }
+    assertEquals(1000, scheduler.getAvailableMemoryMb());
+  }
+}
@@ -0,0 +1,46 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver.util;
+
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests Execution class.
+ */
+public class ExecutionTest extends TestCase {
+  public void testRunCapturesOutputAndExitCode() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    Execution.Invocation invocation = Execution.run(null,
+        new String[] { "sh", "-c", "echo one; echo two >&2; printf three; exit 3" }, out, err, 0);
+    assertEquals(3, invocation.getExitCode());
+    assertFalse(invocation.succeeded());
+    assertFalse(invocation.isTimedOut());
+    assertEquals("one\nthree", out.toString("UTF-8"));
+    assertEquals("two\n", err.toString("UTF-8"));
+    assertEquals("two\n", invocation.getErrorTail());
+  }
+
+  public void testTailKeepsEndOfLongOutput() throws Exception {
+    Execution.Invocation invocation = Execution.run(null,
+        new String[] { "sh", "-c", "i=0; while [ $i -lt 5000 ]; do echo line$i; i=$((i+1)); done" },
+        null, null, 0);
+    assertTrue(invocation.succeeded());
+    String tail = invocation.getOutputTail();
+    assertEquals(Execution.TAIL_SIZE, tail.length());
+    assertTrue(tail.endsWith("line4998\nline4999\n"));
+  }
+
+  public void testTimeoutStopsProcess() throws Exception {
+    long start = System.currentTimeMillis();
+    Execution.Invocation invocation = Execution.run(null, new String[] { "sleep", "30" },
+        null, null, 200);
+    assertTrue(invocation.isTimedOut());
+    assertFalse(invocation.succeeded());
+    assertTrue(System.currentTimeMillis() - start < 10000);
+  }
+}
@@ -0,0 +1,174 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver.util;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Tests JavaToolPool class.
+ */
+public class JavaToolPoolTest extends TestCase {
+  /**
+   * The main class of the tool jar built by the test.
+   */
+  public static class Echo {
+    public static void main(String[] args) {
+      if (args.length > 0 && args[0].equals("exit")) {
+        System.exit(Integer.parseInt(args[1]));
+      } else if (args.length > 0 && args[0].equals("throw")) {
+        throw new IllegalStateException("failed");
+      } else if (args.length > 0 && args[0].equals("sleep")) {
+        try {
+          Thread.sleep(30000);
+        } catch (InterruptedException e) {
+          // Exit early.
+        }
+      } else if (args.length > 0 && args[0].equals("print")) {
+        System.out.print("progress...");
+        return;
+      }
+      System.out.println("echo " + Arrays.toString(args));
+      System.err.println("loader " + (Echo.class.getClassLoader()
+          == ClassLoader.getSystemClassLoader()));
+    }
+  }
+
+  private File tempDir;
+  private String jar;
+
+  @Override
+  protected void setUp() throws Exception {
+    tempDir = Files.createTempDir();
+    File jarFile = new File(tempDir, "echo.jar");
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, Echo.class.getName());
+    String entry = Echo.class.getName().replace('.', '/') + ".class";
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile), manifest);
+        InputStream in = Echo.class.getClassLoader().getResourceAsStream(entry)) {
+      out.putNextEntry(new JarEntry(entry));
+      ByteStreams.copy(in, out);
+      out.closeEntry();
+    }
+    jar = jarFile.getAbsolutePath();
+    ChildProcessScheduler.configure(1000, 2);
+    JavaToolPool.configure(1, 256);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    JavaToolPool.configure(0, 0);
+    FileUtils.deleteQuietly(tempDir);
+  }
+
+  public void testWorkerIsReused() {
+    JavaToolPool pool = JavaToolPool.getInstance();
+    for (int i = 0; i < 3; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ByteArrayOutputStream err = new ByteArrayOutputStream();
+      assertTrue(pool.run(null, ChildProcessScheduler.Tool.DX, jar, Arrays.asList("a", "" + i),
+          new PrintStream(out, true), new PrintStream(err, true)));
+      assertEquals("echo [a, " + i + "]", out.toString().trim());
+      // The tool's classes are isolated from those of the worker.
+      assertEquals("loader false", err.toString().trim());
+    }
+    assertEquals(1, pool.getWorkersStarted());
+    assertEquals(1, pool.getIdleWorkerCount());
+    assertEquals(3, ChildProcessScheduler.getInstance().getToolStats()
+        .get(ChildProcessScheduler.Tool.DX).getRunTimes().getCount());
+  }
+
+  public void testOutputWithoutLineSeparator() {
+    JavaToolPool pool = JavaToolPool.getInstance();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PrintStream sink = new PrintStream(new ByteArrayOutputStream());
+    assertTrue(pool.run(null, ChildProcessScheduler.Tool.DX, jar,
+        Collections.singletonList("print"), new PrintStream(out, true), sink));
+    assertEquals("progress...", out.toString().trim());
+    assertEquals(1, pool.getIdleWorkerCount());
+  }
+
+  public void testJobsTakeFromTheBudget() throws Exception {
+    ChildProcessScheduler.configure(256, 1);
+    ChildProcessScheduler.Lease lease =
+        ChildProcessScheduler.getInstance().acquire(null, ChildProcessScheduler.Tool.DX, 256);
+    final boolean[] succeeded = new boolean[1];
+    final PrintStream sink = new PrintStream(new ByteArrayOutputStream());
+    Thread job = new Thread() {
+      @Override
+      public void run() {
+        succeeded[0] = JavaToolPool.getInstance().run(null, ChildProcessScheduler.Tool.DX, jar,
+            Collections.<String>emptyList(), sink, sink);
+      }
+    };
+    job.start();
+    job.join(500);
+    // The job waits for the memory held by the lease.
+    assertTrue(job.isAlive());
+    lease.close();
+    job.join(30000);
+    assertTrue(succeeded[0]);
+    assertEquals(256, ChildProcessScheduler.getInstance().getAvailableMemoryMb());
+  }
+
+  public void testTimeoutStopsWorker() {
+    ChildProcessScheduler.configure(1000, 2, 1);
+    JavaToolPool pool = JavaToolPool.getInstance();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    PrintStream sink = new PrintStream(new ByteArrayOutputStream());
+    long start = System.currentTimeMillis();
+    assertFalse(pool.run(null, ChildProcessScheduler.Tool.DX, jar,
+        Collections.singletonList("sleep"), sink, new PrintStream(err, true)));
+    assertTrue(System.currentTimeMillis() - start < 20000);
+    assertTrue(err.toString().contains("dx was stopped"));
+    assertEquals(1, ChildProcessScheduler.getInstance().getToolStats()
+        .get(ChildProcessScheduler.Tool.DX).getTimeouts());
+    assertEquals(0, pool.getIdleWorkerCount());
+
+    // The next job gets a new worker.
+    assertTrue(pool.run(null, ChildProcessScheduler.Tool.DX, jar,
+        Collections.<String>emptyList(), sink, sink));
+    assertEquals(2, pool.getWorkersStarted());
+  }
+
+  public void testFailures() {
+    JavaToolPool pool = JavaToolPool.getInstance();
+    PrintStream sink = new PrintStream(new ByteArrayOutputStream());
+    assertFalse(pool.run(null, ChildProcessScheduler.Tool.DX, jar,
+        Collections.singletonList("throw"), sink, sink));
+    assertEquals(1, pool.getWorkersStarted());
+
+    // A tool exiting with 0 succeeds, but its worker has to be replaced.
+    assertTrue(pool.run(null, ChildProcessScheduler.Tool.DX, jar, Arrays.asList("exit", "0"),
+        sink, sink));
+    assertFalse(pool.run(null, ChildProcessScheduler.Tool.DX, jar, Arrays.asList("exit", "2"),
+        sink, sink));
+    assertEquals(2, pool.getWorkersStarted());
+    assertEquals(2, pool.getJobsFailed());
+  }
+
+  public void testMissingJarFails() {
+    PrintStream sink = new PrintStream(new ByteArrayOutputStream());
+    assertFalse(JavaToolPool.getInstance().run(null, ChildProcessScheduler.Tool.DX,
+        new File(tempDir, "missing.jar").getPath(), Collections.<String>emptyList(), sink, sink));
+  }
+}
@@ -0,0 +1,68 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver.util;
+
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Tests KeyStoreGenerator class.
+ */
+public class KeyStoreGeneratorTest extends TestCase {
+  private File tempDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    tempDir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    KeyStoreGenerator.configure(0);
+    FileUtils.deleteQuietly(tempDir);
+  }
+
+  public void testKeyStoreMatchesKeytool() throws Exception {
+    KeyStoreGenerator.configure(0);
+    File file = new File(tempDir, "android.keystore");
+    KeyStoreGenerator.getInstance().generate("someone \"quoted\", x@example.com", file);
+
+    KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+    try (InputStream in = new FileInputStream(file)) {
+      keyStore.load(in, "android".toCharArray());
+    }
+    PrivateKey key = (PrivateKey) keyStore.getKey("AndroidKey", "android".toCharArray());
+    assertEquals("RSA", key.getAlgorithm());
+    X509Certificate certificate = (X509Certificate) keyStore.getCertificate("AndroidKey");
+    certificate.verify(certificate.getPublicKey());
+    assertEquals("CN=someone \\\"quoted\\\"\\, x@example.com,O=AppInventor for Android,C=US",
+        certificate.getSubjectX500Principal().getName());
+    assertTrue(certificate.getNotAfter().getTime() - System.currentTimeMillis()
+        > TimeUnit.DAYS.toMillis(9999));
+  }
+
+  public void testPoolHandsOutPregeneratedKeys() throws Exception {
+    KeyStoreGenerator.configure(1);
+    KeyStoreGenerator generator = KeyStoreGenerator.getInstance();
+    long deadline = System.currentTimeMillis() + 30000;
+    while (generator.getAvailableKeyPairs() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    generator.generate("first", new File(tempDir, "first.keystore"));
+    assertEquals(1, generator.getPoolHits());
+    assertEquals(0, generator.getPoolMisses());
+  }
+}
@@ -0,0 +1,81 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+package com.google.appinventor.buildserver.util;
+
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Tests ProjectSources class.
+ */
+public class ProjectSourcesTest extends TestCase {
+  private static final String SRC = "src/appinventor/ai_test/HelloPurr/";
+
+  private File tempDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    tempDir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteQuietly(tempDir);
+  }
+
+  public void testScreenSourcesStayInMemory() throws Exception {
+    File zip = new File(tempDir, "project.zip");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      addEntry(out, "youngandroidproject/project.properties", "main=Screen1\n");
+      addEntry(out, SRC + "Screen1.scm", "#|\n$JSON\n{}\n|#");
+      addEntry(out, SRC + "Screen1.bky", "<xml></xml>");
+      addEntry(out, SRC + "Screen1.yail", "(yail)");
+      addEntry(out, SRC + "Screen2.scm", "#|\n$JSON\n{}\n|#");
+      addEntry(out, "assets/kitty.png", "png");
+      addEntry(out, "assets/levels.scm", "(level 1)");
+      addEntry(out, "assets/blocks.bky", "<xml></xml>");
+    }
+    File projectRoot = new File(tempDir, "root");
+    assertTrue(projectRoot.mkdir());
+
+    ProjectSources sources;
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      sources = ProjectSources.extract(zipFile, projectRoot);
+    }
+
+    assertEquals(2, sources.getForms().size());
+    assertEquals("<xml></xml>",
+        new String(sources.getBlocks().get("Screen1"), StandardCharsets.UTF_8));
+    assertTrue(sources.getForms().containsKey("Screen2"));
+    assertFalse(sources.getForms().containsKey("levels"));
+    assertFalse(sources.getBlocks().containsKey("blocks"));
+    assertEquals(5, sources.getFilesWritten());
+    assertTrue(new File(projectRoot, "youngandroidproject/project.properties").exists());
+    assertTrue(new File(projectRoot, SRC + "Screen1.yail").exists());
+    assertTrue(new File(projectRoot, "assets/kitty.png").exists());
+    assertTrue(new File(projectRoot, "assets/levels.scm").exists());
+    assertTrue(new File(projectRoot, "assets/blocks.bky").exists());
+    assertFalse(new File(projectRoot, SRC + "Screen1.scm").exists());
+    assertFalse(new File(projectRoot, SRC + "Screen1.bky").exists());
+  }
+
+  private static void addEntry(ZipOutputStream out, String name, String content)
+      throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+}
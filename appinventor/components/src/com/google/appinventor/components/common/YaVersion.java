@@ -583,8 +583,12 @@ public class YaVersion {
   // - REGRESSION_COMPONENT_VERSION was introduced
   // - TEXTTOSPEEECH_COMPONENT_VERSION was incremented to 6
   // - TINYDB_COMPONENT_VERSION was incremented to 3
+  // For YOUNG_ANDROID_VERSION 225:
+  // - CANVAS_COMPONENT_VERSION was incremented to 16
+  // For YOUNG_ANDROID_VERSION 226:
+  // - CHART_DATA_2D_COMPONENT_VERSION was incremented to 2
 
-  public static final int YOUNG_ANDROID_VERSION = 224;
+  public static final int YOUNG_ANDROID_VERSION = 226;
 
   // ............................... Blocks Language Version Number ...............................
 
@@ -856,14 +860,18 @@ public class YaVersion {
   // -TapThreshold was added
   // For CANVAS_COMPONENT_VERSION 15
   // - Assets helper block was added.
-  public static final int CANVAS_COMPONENT_VERSION = 15;
+  // For CANVAS_COMPONENT_VERSION 16
+  // - GameLoop, FrameInterval, FramesPerSecond and TickDuration were added.
+  public static final int CANVAS_COMPONENT_VERSION = 16;
 
   // For CHART_COMPONENT_VERSION 2:
   // - The XFromZero and YFromZero properties were added
   // - The SetDomain and SetRange methods were added
   public static final int CHART_COMPONENT_VERSION = 2;
 
-  public static final int CHART_DATA_2D_COMPONENT_VERSION = 1;
+  // For CHART_DATA_2D_COMPONENT_VERSION 2:
+  // - The MaximumRenderedEntries property was added
+  public static final int CHART_DATA_2D_COMPONENT_VERSION = 2;
 
   // For CHATBOT_COMPONENT_VERSION: Initial Version
   // For CHATBOT_COMPONENT_VERSION 2:
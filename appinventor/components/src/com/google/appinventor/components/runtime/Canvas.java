@@ -24,6 +24,8 @@ import android.graphics.RectF;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.SystemClock;
 
 import android.text.TextUtils;
 
@@ -66,6 +68,7 @@ import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.PaintUtil;
 import com.google.appinventor.components.runtime.util.ScopedFile;
 import com.google.appinventor.components.runtime.util.SdkLevel;
+import com.google.appinventor.components.runtime.util.SpatialHashGrid;
 import com.google.appinventor.components.runtime.util.Synchronizer;
 import com.google.appinventor.components.runtime.util.YailList;
 
@@ -74,8 +77,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -136,7 +144,8 @@ import java.util.Set;
     iconName = "images/canvas.png")
 @SimpleObject
 @UsesPermissions(permissionNames = "android.permission.INTERNET")
-public final class Canvas extends AndroidViewComponent implements ComponentContainer {
+public final class Canvas extends AndroidViewComponent implements ComponentContainer,
+    OnDestroyListener, Deleteable {
   private static final String LOG_TAG = "Canvas";
 
   private final Activity context;
@@ -174,11 +183,60 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
   private static final int DEFAULT_TEXTALIGNMENT = Component.ALIGNMENT_CENTER;
   private static final int FLING_INTERVAL = 1000;  // ms
   private static final int DEFAULT_TAP_THRESHOLD = 15;
+  private static final int DEFAULT_FRAME_INTERVAL = 16;  // ms
+  // Length of the window over which FramesPerSecond and TickDuration are measured.
+  private static final int FRAME_STATS_WINDOW = 1000;  // ms
+
+  // Size in pixels of the cells of the grid used to find sprites that may
+  // be colliding with a moved sprite.
+  private static final int COLLISION_CELL_SIZE = 64;
+
+  // Up to this many sprites, checking a moved sprite against all of them is
+  // cheaper than looking up its neighbors in the grid.
+  private static final int MAX_SPRITES_CHECKED_EXHAUSTIVELY = 32;
 
   // Keep track of enclosed sprites.  This list should always be
   // sorted by increasing sprite.Z().
   private final List<Sprite> sprites;
 
+  // Position of each enclosed sprite in the order in which it was last placed
+  // in sprites, which breaks ties between sprites with equal Z values.
+  private final Map<Sprite, Long> spriteSequence;
+  private long nextSpriteSequence = 0;
+
+  // Enclosed sprites indexed by their bounding boxes, as of their last
+  // registered change.
+  private final SpatialHashGrid<Sprite> spriteGrid;
+
+  // Enclosed sprites that have not registered a change yet, so are not in
+  // spriteGrid.  A sprite is added to its canvas before it is sized and
+  // placed, so it cannot be indexed until then.
+  private final Set<Sprite> unindexedSprites;
+
+  // Game loop: when on, the canvas moves all of its sprites once per frame
+  // instead of each sprite running its own timer.
+  private final Handler frameHandler;
+  private final Runnable frameRunner = new Runnable() {
+    @Override
+    public void run() {
+      runFrame();
+    }
+  };
+  private boolean gameLoop = false;
+  private int frameInterval = DEFAULT_FRAME_INTERVAL;
+  private long nextFrameTime;  // in SystemClock.uptimeMillis()
+
+  // Set while the game loop moves sprites, so that registerChange() leaves
+  // invalidating the view to the end of the frame.
+  private boolean inFrame = false;
+
+  // Frame statistics, measured over windows of FRAME_STATS_WINDOW ms.
+  private long frameStatsWindowStart;
+  private int frameStatsFrames;
+  private long frameStatsTickNanos;
+  private double framesPerSecond;
+  private double tickDuration;  // ms
+
   // Handle touches and drags
   private final MotionEventParser motionEventParser;
 
@@ -768,6 +826,10 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     TapThreshold(DEFAULT_TAP_THRESHOLD);
 
     sprites = new LinkedList<Sprite>();
+    spriteSequence = new HashMap<Sprite, Long>();
+    spriteGrid = new SpatialHashGrid<Sprite>(COLLISION_CELL_SIZE);
+    unindexedSprites = new HashSet<Sprite>();
+    frameHandler = new Handler();
     motionEventParser = new MotionEventParser();
     mGestureDetector = new GestureDetector(context, new FlingGestureListener());
     if (FileUtil.needsWritePermission(form.DefaultFileScope())) {
@@ -775,6 +837,7 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     } else {
       havePermission = true;
     }
+    form.registerForOnDestroy(this);
   }
 
   @Override
@@ -828,6 +891,17 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
    * @param sprite the sprite to add
    */
   void addSprite(Sprite sprite) {
+    insertSprite(sprite);
+    unindexedSprites.add(sprite);
+  }
+
+  /**
+   * Places a sprite in {@link #sprites}, keeping it sorted.
+   *
+   * @param sprite the sprite to place
+   */
+  private void insertSprite(Sprite sprite) {
+    spriteSequence.put(sprite, nextSpriteSequence++);
     // Add before first element with greater Z value.
     // This ensures not only that items are in increasing Z value
     // but that sprites whose Z values are always equal are
@@ -852,6 +926,9 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
    */
   void removeSprite(Sprite sprite) {
     sprites.remove(sprite);
+    spriteSequence.remove(sprite);
+    spriteGrid.remove(sprite);
+    unindexedSprites.remove(sprite);
   }
 
   /**
@@ -861,8 +938,8 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
    * @param sprite the Sprite whose Z property has changed
    */
   void changeSpriteLayer(Sprite sprite) {
-    removeSprite(sprite);
-    addSprite(sprite);
+    sprites.remove(sprite);
+    insertSprite(sprite);
     view.invalidate();
   }
 
@@ -905,11 +982,84 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
    * @param sprite the sprite whose location, size, or appearance has changed
    */
   void registerChange(Sprite sprite) {
-    view.invalidate();
+    if (!inFrame) {
+      view.invalidate();
+    }
+    // A deleted sprite may still be changed by the blocks, but it must not
+    // be indexed again.
+    if (spriteSequence.containsKey(sprite)) {
+      unindexedSprites.remove(sprite);
+      spriteGrid.update(sprite, sprite.getBoundingBox(1));
+    }
     findSpriteCollisions(sprite);
   }
 
 
+  // Game loop
+
+  /**
+   * Moves all sprites due to move, then checks the moved sprites for edges
+   * and collisions at their new positions, and invalidates the view once.
+   */
+  private void runFrame() {
+    long start = System.nanoTime();
+    long now = SystemClock.uptimeMillis();
+    List<Sprite> moved = new ArrayList<Sprite>();
+    inFrame = true;
+    try {
+      for (Sprite sprite : sprites) {
+        if (sprite.advanceFrame(now)) {
+          moved.add(sprite);
+        }
+      }
+      for (Sprite sprite : moved) {
+        sprite.registerChange();
+      }
+    } finally {
+      inFrame = false;
+    }
+    if (!moved.isEmpty()) {
+      view.invalidate();
+    }
+    recordFrame(now, System.nanoTime() - start);
+    scheduleFrame(now);
+  }
+
+  private void scheduleFrame(long now) {
+    if (!gameLoop) {
+      return;
+    }
+    nextFrameTime += frameInterval;
+    if (nextFrameTime <= now) {
+      // Frames took longer than the interval, so drop the missed ones.
+      nextFrameTime = now + frameInterval;
+    }
+    frameHandler.postAtTime(frameRunner, nextFrameTime);
+  }
+
+  private void recordFrame(long now, long tickNanos) {
+    frameStatsFrames++;
+    frameStatsTickNanos += tickNanos;
+    long elapsed = now - frameStatsWindowStart;
+    if (elapsed >= FRAME_STATS_WINDOW) {
+      framesPerSecond = frameStatsFrames * 1000.0 / elapsed;
+      tickDuration = frameStatsTickNanos / 1000000.0 / frameStatsFrames;
+      resetFrameStats(now);
+    }
+  }
+
+  private void resetFrameStats(long now) {
+    frameStatsWindowStart = now;
+    frameStatsFrames = 0;
+    frameStatsTickNanos = 0;
+  }
+
+  private void stopGameLoop() {
+    frameHandler.removeCallbacks(frameRunner);
+    framesPerSecond = 0;
+    tickDuration = 0;
+  }
+
   // Methods for detecting collisions
 
   /**
@@ -925,10 +1075,13 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
    * and
    * {@link com.google.appinventor.components.runtime.Sprite#Enabled()}.
    *
+   * <p>Only the sprites returned by {@link #collisionCandidates(Sprite)} are
+   * checked, in the order of {@link #sprites}.
+   *
    * @param movedSprite the sprite that has just changed position
    */
   protected void findSpriteCollisions(Sprite movedSprite) {
-    for (Sprite sprite : sprites) {
+    for (Sprite sprite : collisionCandidates(movedSprite)) {
       if (sprite != movedSprite) {
         // Check whether we already raised an event for their collision.
         if (movedSprite.CollidingWith(sprite)) {
@@ -957,6 +1110,42 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     }
   }
 
+  /**
+   * Returns the sprites that may have started or stopped colliding with the
+   * given sprite, sorted like {@link #sprites}: those sharing a cell of
+   * {@link #spriteGrid} with it, those not indexed yet, and those it has
+   * registered a collision with.  Sprites can only collide if their bounding
+   * boxes overlap or abut, so no other sprite can have started colliding
+   * with it.  On canvases with few sprites, all of them are returned.
+   *
+   * @param movedSprite the sprite that has just changed position
+   * @return the sprites to check, which may include {@code movedSprite}
+   */
+  private List<Sprite> collisionCandidates(Sprite movedSprite) {
+    if (sprites.size() <= MAX_SPRITES_CHECKED_EXHAUSTIVELY) {
+      return sprites;
+    }
+    Set<Sprite> candidates = new HashSet<Sprite>();
+    spriteGrid.query(movedSprite.getBoundingBox(1), candidates);
+    candidates.addAll(unindexedSprites);
+    for (Sprite sprite : movedSprite.getRegisteredCollisions()) {
+      if (spriteSequence.containsKey(sprite)) {
+        candidates.add(sprite);
+      }
+    }
+    candidates.remove(movedSprite);
+    List<Sprite> sorted = new ArrayList<Sprite>(candidates);
+    Collections.sort(sorted, new Comparator<Sprite>() {
+      @Override
+      public int compare(Sprite a, Sprite b) {
+        int byZ = Double.compare(a.Z(), b.Z());
+        return byZ != 0 ? byZ
+            : Long.compare(spriteSequence.get(a), spriteSequence.get(b));
+      }
+    });
+    return sorted;
+  }
+
 
   // Properties
 
@@ -1272,6 +1461,118 @@ public final class Canvas extends AndroidViewComponent implements ComponentConta
     extendMovesOutsideCanvas = extend;   
   }
 
+  /**
+   * Whether the `Canvas` moves its sprites together, once per frame, rather than each sprite
+   * moving on its own timer. With many moving sprites, the game loop redraws the `Canvas` and
+   * checks for collisions once per frame instead of once per sprite move. Sprites still move
+   * {@link Sprite#Speed(float)} pixels every {@link Sprite#Interval(int)} milliseconds, rounded
+   * to the nearest frame.
+   *
+   * @return {@code true} if the game loop is on
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "Whether the Canvas moves its sprites together once per frame, instead of "
+          + "each sprite moving on its own timer. This redraws the Canvas and checks for "
+          + "collisions once per frame, which is faster with many moving sprites.")
+  public boolean GameLoop() {
+    return gameLoop;
+  }
+
+  /**
+   * Turns the game loop on or off.
+   *
+   * @suppressdoc
+   * @param enabled {@code true} to move sprites once per frame
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN,
+      defaultValue = "False")
+  @SimpleProperty
+  public void GameLoop(boolean enabled) {
+    if (gameLoop == enabled) {
+      return;
+    }
+    gameLoop = enabled;
+    for (Sprite sprite : sprites) {
+      sprite.gameLoopChanged();
+    }
+    stopGameLoop();
+    if (enabled) {
+      long now = SystemClock.uptimeMillis();
+      resetFrameStats(now);
+      nextFrameTime = now;
+      scheduleFrame(now);
+    }
+  }
+
+  /**
+   * The time in milliseconds between frames of the game loop. The default of 16 gives about 60
+   * frames per second.
+   *
+   * @return the interval between frames in ms
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The time in milliseconds between frames when GameLoop is true.")
+  public int FrameInterval() {
+    return frameInterval;
+  }
+
+  /**
+   * Sets the time between frames of the game loop.
+   *
+   * @suppressdoc
+   * @param interval the interval between frames in ms, at least 1
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = DEFAULT_FRAME_INTERVAL + "")
+  @SimpleProperty
+  public void FrameInterval(int interval) {
+    frameInterval = Math.max(1, interval);
+  }
+
+  /**
+   * The number of game loop frames run per second, measured over the last second. This is 0
+   * while {@link #GameLoop(boolean)} is `false`{:.logic.block}.
+   *
+   * @return frames per second
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The number of frames per second run by the game loop, measured over the "
+          + "last second. This is 0 when GameLoop is false.")
+  public double FramesPerSecond() {
+    return framesPerSecond;
+  }
+
+  /**
+   * The average time in milliseconds spent moving sprites and checking collisions in a game loop
+   * frame, measured over the last second. This is 0 while {@link #GameLoop(boolean)} is
+   * `false`{:.logic.block}.
+   *
+   * @return average frame duration in ms
+   */
+  @SimpleProperty(category = PropertyCategory.BEHAVIOR,
+      description = "The average time in milliseconds spent moving sprites and checking "
+          + "collisions in a game loop frame, measured over the last second. This is 0 when "
+          + "GameLoop is false.")
+  public double TickDuration() {
+    return tickDuration;
+  }
+
+  // OnDestroyListener implementation
+
+  @Override
+  public void onDestroy() {
+    gameLoop = false;
+    stopGameLoop();
+  }
+
+  // Deleteable implementation
+
+  @Override
+  public void onDelete() {
+    gameLoop = false;
+    stopGameLoop();
+  }
+
   // Methods supporting event handling
 
   /**
@@ -9,10 +9,15 @@ import android.util.Log;
 import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.google.appinventor.components.annotations.DesignerComponent;
+import com.google.appinventor.components.annotations.DesignerProperty;
+import com.google.appinventor.components.annotations.PropertyCategory;
 import com.google.appinventor.components.annotations.SimpleFunction;
 import com.google.appinventor.components.annotations.SimpleObject;
+import com.google.appinventor.components.annotations.SimpleProperty;
 import com.google.appinventor.components.common.ComponentCategory;
+import com.google.appinventor.components.common.PropertyTypeConstants;
 import com.google.appinventor.components.common.YaVersion;
+import com.google.appinventor.components.runtime.util.Decimation;
 import com.google.appinventor.components.runtime.util.YailList;
 import gnu.lists.LList;
 
@@ -36,6 +41,10 @@ import java.util.concurrent.ExecutionException;
 @SimpleObject
 @SuppressWarnings("checkstyle:JavadocParagraph")
 public final class ChartData2D extends ChartDataBase {
+  // The number of entries to draw at most, or 0 to draw all of them. Not initialized here,
+  // since the superclass constructor calls initChartData before field initializers run.
+  private int maximumRenderedEntries;
+
   /**
    * Creates a new Coordinate Data component.
    */
@@ -43,6 +52,42 @@ public final class ChartData2D extends ChartDataBase {
     super(chartContainer);
   }
 
+  @Override
+  public void initChartData() {
+    super.initChartData();
+    // The Data Series gets a new model whenever the Chart type changes.
+    dataModel.setMaximumRenderedEntries(maximumRenderedEntries, Decimation.Mode.LTTB);
+  }
+
+  /**
+   * Returns the largest number of entries drawn for the data series, or 0 if all entries are
+   * drawn.
+   *
+   * @return the maximum number of drawn entries
+   */
+  @SimpleProperty(category = PropertyCategory.APPEARANCE)
+  public int MaximumRenderedEntries() {
+    return maximumRenderedEntries;
+  }
+
+  /**
+   * Specifies the largest number of entries drawn for the data series of a Line, Area or
+   * Scatter Chart. Longer series are thinned out before they are drawn, keeping their first and
+   * last entries and their overall shape, so that a long series draws as quickly as a short one.
+   * All entries are kept, so the other blocks still see every entry. A value of 0 draws all
+   * entries, and values below 3 draw 3.
+   *
+   * @param maximum the maximum number of drawn entries, or 0 to draw all entries
+   */
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_NON_NEGATIVE_INTEGER,
+      defaultValue = "0")
+  @SimpleProperty
+  public void MaximumRenderedEntries(int maximum) {
+    maximumRenderedEntries = maximum <= 0 ? 0 : Math.max(3, maximum);
+    dataModel.setMaximumRenderedEntries(maximumRenderedEntries, Decimation.Mode.LTTB);
+    onDataChange();
+  }
+
   /**
    * Adds an entry with the specified x and y value. Values can be specified as text,
    * or as numbers. For Line, Scatter, Area and Bar Charts, both values should represent a number.
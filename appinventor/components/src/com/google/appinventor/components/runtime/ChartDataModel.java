@@ -11,6 +11,8 @@ import com.github.mikephil.charting.data.DataSet;
 import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.PieEntry;
 import com.github.mikephil.charting.interfaces.datasets.IDataSet;
+import com.google.appinventor.components.runtime.util.CircularArrayList;
+import com.google.appinventor.components.runtime.util.Decimation;
 import com.google.appinventor.components.runtime.util.YailList;
 
 import java.util.ArrayList;
@@ -40,6 +42,10 @@ public abstract class ChartDataModel<
   protected T dataset;
   protected V view;
 
+  // The number of entries to draw at most, or 0 to draw all of them.
+  private int maximumRenderedEntries = 0;
+  private Decimation.Mode decimationMode = Decimation.Mode.LTTB;
+
   /**
    * Initializes a new ChartDataModel object instance.
    *
@@ -50,7 +56,9 @@ public abstract class ChartDataModel<
     this.data = data;
     this.view = view;
 
-    entries = new ArrayList<>();
+    // Time entries are added at the end and evicted from the start, which
+    // a ring buffer does in constant time.
+    entries = new CircularArrayList<>();
   }
 
   /**
@@ -358,6 +366,60 @@ public abstract class ChartDataModel<
     maximumTimeEntries = entries;
   }
 
+  /**
+   * Limits the number of entries drawn for the Data Series. Longer series are
+   * decimated before they are drawn, so that the cost of drawing does not grow
+   * with the history kept in the model. Only models whose entries are sorted
+   * by x support this; see {@link #canDecimate()}.
+   *
+   * @param maximum number of entries to draw, at least 3, or 0 to draw all entries
+   * @param mode    how to pick the entries to draw
+   */
+  public void setMaximumRenderedEntries(int maximum, Decimation.Mode mode) {
+    if (maximum != 0 && maximum < 3) {
+      throw new IllegalArgumentException("maximum must be 0 or at least 3");
+    }
+    maximumRenderedEntries = maximum;
+    decimationMode = mode;
+  }
+
+  /**
+   * Returns whether the entries of the Data Series are sorted by x, which is
+   * needed to decimate them.
+   *
+   * @return true if the entries can be decimated
+   */
+  protected boolean canDecimate() {
+    return false;
+  }
+
+  /**
+   * Returns a new List of the entries to draw: all entries, or the entries
+   * picked by decimation if the Data Series has more than the maximum number
+   * of rendered entries.
+   *
+   * @return List of entries to set to the Data Set
+   */
+  public List<E> getEntriesToRender() {
+    int count = entries.size();
+    if (maximumRenderedEntries == 0 || count <= maximumRenderedEntries || !canDecimate()) {
+      return new ArrayList<>(entries);
+    }
+    float[] xs = new float[count];
+    float[] ys = new float[count];
+    for (int i = 0; i < count; i++) {
+      E entry = entries.get(i);
+      xs[i] = entry.getX();
+      ys[i] = entry.getY();
+    }
+    int[] kept = Decimation.decimate(decimationMode, xs, ys, count, maximumRenderedEntries);
+    List<E> rendered = new ArrayList<>(kept.length);
+    for (int index : kept) {
+      rendered.add(entries.get(index));
+    }
+    return rendered;
+  }
+
   /**
    * Sets the default styling properties of the Data Series.
    */
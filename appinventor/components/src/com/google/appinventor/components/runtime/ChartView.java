@@ -5,8 +5,6 @@
 
 package com.google.appinventor.components.runtime;
 
-import android.annotation.SuppressLint;
-import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.Looper;
 
@@ -20,7 +18,9 @@ import com.github.mikephil.charting.data.Entry;
 
 import com.github.mikephil.charting.interfaces.datasets.IDataSet;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base class to represent Chart Views. The class (and subclasses)
@@ -52,6 +52,20 @@ public abstract class ChartView<
 
   protected Handler uiHandler = new Handler(Looper.myLooper());
 
+  // The models to refresh on the next posted refresh, with the entries to set to
+  // them. A null List means that the entries are taken from the model when the
+  // refresh runs. Guarded by itself, as is refreshPosted.
+  private final Map<ChartDataModel<E, T, D, C, V>, List<E>> pendingRefreshes =
+      new LinkedHashMap<>();
+  private boolean refreshPosted = false;
+
+  private final Runnable refreshRunnable = new Runnable() {
+    @Override
+    public void run() {
+      refreshPendingModels();
+    }
+  };
+
   /**
    * Creates a new Chart View with the specified Chart component
    * instance as the parent of the View.
@@ -131,50 +145,45 @@ public abstract class ChartView<
    * Updates the specified Chart Data Model and refreshes the
    * Chart.
    *
+   * <p>The refresh is posted to the UI thread, and all refreshes requested
+   * before it runs are done by it, so that a stream of new entries (such as
+   * real-time sensor data for several Data Series) pushes the entries to the
+   * Chart once per pass of the UI thread rather than once per entry.
+   *
    * @param model Chart Data Model to update & refresh
    */
   public void refresh(final ChartDataModel<E, T, D, C, V> model) {
-    // Create a new RefreshTask with the model's current List of Entries
-    RefreshTask refreshTask = new RefreshTask(model.getEntries());
-
-    // Execute the RefreshTask with the ChartDataModel argument
-    refreshTask.execute(model);
-  }
-
-  /**
-   * AsyncTask used to refresh the Chart View with new data on the UI thread.
-   * Used as a measure to prevent crashes and exceptions by taking in a constant
-   * copy of the data, and re-setting it to the currently refreshed Chart Data
-   * Model, while also updating the Chart itself and invalidating the View.
-   */
-  @SuppressLint("StaticFieldLeak")
-  private class RefreshTask
-      extends AsyncTask<ChartDataModel<E, T, D, C, V>, Void, ChartDataModel<E, T, D, C, V>> {
-
-    // Local copy of latest Chart Entries
-    private final List<E> entries;
+    // Entries changed off the UI thread may change again before the refresh
+    // runs, so take a copy of them now, as a constant copy of the data.
+    List<E> entries = null;
+    if (Looper.myLooper() != uiHandler.getLooper()) {
+      entries = model.getEntriesToRender();
+    }
 
-    public RefreshTask(List<E> entries) {
-      // Create a copy of the passed in Entries List.
-      this.entries = new ArrayList<>(entries);
+    synchronized (pendingRefreshes) {
+      pendingRefreshes.put(model, entries);
+      if (refreshPosted) {
+        return;
+      }
+      refreshPosted = true;
     }
+    uiHandler.post(refreshRunnable);
+  }
 
-    @SafeVarargs
-    @Override
-    protected final ChartDataModel<E, T, D, C, V> doInBackground(
-        ChartDataModel<E, T, D, C, V>... chartDataModels) {
-      // All the work should be done on the UI thread; Simply pass the first
-      // passed in Chart Data Model (expect non-null, non-empty var args)
-      return chartDataModels[0];
+  private void refreshPendingModels() {
+    List<ChartDataModel<E, T, D, C, V>> models;
+    List<List<E>> entryLists;
+    synchronized (pendingRefreshes) {
+      models = new ArrayList<>(pendingRefreshes.keySet());
+      entryLists = new ArrayList<>(pendingRefreshes.values());
+      pendingRefreshes.clear();
+      refreshPosted = false;
     }
 
-    @Override
-    protected void onPostExecute(ChartDataModel<E, T, D, C, V> result) {
-      // Refresh the Chart and the Data Model with the
-      // local Entries List copy. This is done on the UI
-      // thread to avoid exceptions (onPostExecute runs
-      // on the UI)
-      refresh(result, entries);
+    for (int i = 0; i < models.size(); i++) {
+      ChartDataModel<E, T, D, C, V> model = models.get(i);
+      List<E> entries = entryLists.get(i);
+      refresh(model, entries != null ? entries : model.getEntriesToRender());
     }
   }
 
@@ -8,10 +8,11 @@ package com.google.appinventor.components.runtime;
 
 import android.util.Log;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Dispatches events to component event handlers.
@@ -63,22 +64,35 @@ public class EventDispatcher {
   private static final class EventRegistry {
     private final HandlesEventDispatching dispatchDelegate;
 
-    // Mapping of event names to a set of event closures.
-    // Note that by using a Set here, we'll only have one closure corresponding to a
+    // Mapping of event names to the event closures for that event, keyed by component id.
+    // Note that by using a Map here, we'll only have one closure corresponding to a
     // given componentId-eventName.  We do not support invoking multiple handlers for a
     // single event.
-    private final HashMap<String, Set<EventClosure>> eventClosuresMap =
-        new HashMap<String, Set<EventClosure>>();
+    private final ConcurrentMap<String, ConcurrentMap<String, EventClosure>> eventClosuresMap =
+        new ConcurrentHashMap<String, ConcurrentMap<String, EventClosure>>();
+
+    // The component id that the delegate last accepted an event for, keyed by the component
+    // that raised it. This lets dispatchEvent find the one closure to try without asking the
+    // delegate about every closure of the event. It is cleared whenever a closure is added or
+    // removed, since the component names may have been rebound in the REPL.
+    private final Map<Component, String> componentIds =
+        Collections.synchronizedMap(new WeakHashMap<Component, String>());
 
     EventRegistry(HandlesEventDispatching dispatchDelegate) {
       this.dispatchDelegate = dispatchDelegate;
     }
+
+    void clear() {
+      eventClosuresMap.clear();
+      componentIds.clear();
+    }
   }
 
   private static final boolean DEBUG = false;
 
-  private static final Map<HandlesEventDispatching, EventRegistry>
-      mapDispatchDelegateToEventRegistry = new HashMap<HandlesEventDispatching, EventRegistry>();
+  private static final ConcurrentMap<HandlesEventDispatching, EventRegistry>
+      mapDispatchDelegateToEventRegistry =
+      new ConcurrentHashMap<HandlesEventDispatching, EventRegistry>();
 
   private EventDispatcher() {
   }
@@ -87,7 +101,10 @@ public class EventDispatcher {
     EventRegistry er = mapDispatchDelegateToEventRegistry.get(dispatchDelegate);
     if (er == null) {
       er = new EventRegistry(dispatchDelegate);
-      mapDispatchDelegateToEventRegistry.put(dispatchDelegate, er);
+      EventRegistry existing = mapDispatchDelegateToEventRegistry.putIfAbsent(dispatchDelegate, er);
+      if (existing != null) {
+        er = existing;
+      }
     }
     return er;
   }
@@ -109,13 +126,18 @@ public class EventDispatcher {
   public static void registerEventForDelegation(HandlesEventDispatching dispatchDelegate,
                                                 String componentId, String eventName) {
     EventRegistry er = getEventRegistry(dispatchDelegate);
-    Set<EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
+    ConcurrentMap<String, EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
     if (eventClosures == null) {
-      eventClosures = new HashSet<EventClosure>();
-      er.eventClosuresMap.put(eventName, eventClosures);
+      eventClosures = new ConcurrentHashMap<String, EventClosure>();
+      ConcurrentMap<String, EventClosure> existing =
+          er.eventClosuresMap.putIfAbsent(eventName, eventClosures);
+      if (existing != null) {
+        eventClosures = existing;
+      }
     }
 
-    eventClosures.add(new EventClosure(componentId, eventName));
+    eventClosures.put(componentId, new EventClosure(componentId, eventName));
+    er.componentIds.clear();
     if (DEBUG) {
       Log.i("EventDispatcher", "Registered event closure for " +
           componentId + "." + eventName);
@@ -134,22 +156,17 @@ public class EventDispatcher {
   public static void unregisterEventForDelegation(HandlesEventDispatching dispatchDelegate,
                                                   String componentId, String eventName) {
     EventRegistry er = getEventRegistry(dispatchDelegate);
-    Set<EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
-    if (eventClosures == null || eventClosures.isEmpty()) {
+    Map<String, EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
+    if (eventClosures == null) {
       return;
     }
-    Set<EventClosure> toDelete = new HashSet<EventClosure>();
-    for (EventClosure eventClosure : eventClosures) {
-      if (eventClosure.componentId.equals(componentId)) {
-        toDelete.add(eventClosure);
-      }
-    }
-    for (EventClosure eventClosure : toDelete) {
+    EventClosure eventClosure = eventClosures.remove(componentId);
+    if (eventClosure != null) {
+      er.componentIds.clear();
       if (DEBUG) {
         Log.i("EventDispatcher", "Deleting event closure for " +
             eventClosure.componentId + "." + eventClosure.eventName);
       }
-      eventClosures.remove(eventClosure);
     }
   }
 
@@ -160,7 +177,7 @@ public class EventDispatcher {
   // Don't delete this method. It's called from runtime.scm.
   public static void unregisterAllEventsForDelegation() {
     for (EventRegistry er : mapDispatchDelegateToEventRegistry.values()) {
-      er.eventClosuresMap.clear();
+      er.clear();
     }
   }
 
@@ -174,7 +191,7 @@ public class EventDispatcher {
   public static void removeDispatchDelegate(HandlesEventDispatching dispatchDelegate) {
     EventRegistry er = removeEventRegistry(dispatchDelegate);
     if (er != null) {
-      er.eventClosuresMap.clear();
+      er.clear();
     }
   }
 
@@ -194,9 +211,9 @@ public class EventDispatcher {
     HandlesEventDispatching dispatchDelegate = component.getDispatchDelegate();
     if (dispatchDelegate.canDispatchEvent(component, eventName)) {
       EventRegistry er = getEventRegistry(dispatchDelegate);
-      Set<EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
+      Map<String, EventClosure> eventClosures = er.eventClosuresMap.get(eventName);
       if (eventClosures != null && eventClosures.size() > 0) {
-        dispatched = delegateDispatchEvent(dispatchDelegate, eventClosures, component, args);
+        dispatched = delegateDispatchEvent(er, eventClosures, component, args);
       }
       dispatchDelegate.dispatchGenericEvent(component, eventName, !dispatched, args);
     }
@@ -206,33 +223,63 @@ public class EventDispatcher {
   /**
    * Delegates the dispatch of an event to the dispatch delegate.
    *
-   * @param eventClosures set of event closures matching the event name
+   * @param er the event registry of the dispatch delegate
+   * @param eventClosures event closures matching the event name, keyed by component id
    * @param component the component that generated the event
    * @param args  arguments to event handler
    */
-  private static boolean delegateDispatchEvent(HandlesEventDispatching dispatchDelegate,
-                                               Set<EventClosure> eventClosures,
+  private static boolean delegateDispatchEvent(EventRegistry er,
+                                               Map<String, EventClosure> eventClosures,
                                                Component component, Object... args) {
-    // The event closures set will contain all event closures matching the event name.
+    // If we already know the id of the component, at most one closure can match, so only that
+    // one is handed to the delegate. The registry has not changed since the id was learned,
+    // so a component without a closure for this event has no handler for it.
+    String componentId = er.componentIds.get(component);
+    if (componentId != null) {
+      EventClosure eventClosure = eventClosures.get(componentId);
+      if (eventClosure == null) {
+        return false;
+      }
+      if (delegateDispatchEvent(er.dispatchDelegate, eventClosure, component, args)) {
+        return true;
+      }
+      // The id is bound to another component now, so look for the component among all closures.
+      er.componentIds.remove(component);
+    }
+
+    // Otherwise the closures contain all event closures matching the event name.
     // We depend on the delegate's dispatchEvent method to check the registered event closure and
     // only dispatch the event if the registered component matches the component that generated the
     // event.  This should only be true for one (or zero) of the closures.
     boolean dispatched = false;
-    for (EventClosure eventClosure : eventClosures) {
-      if (dispatchDelegate.dispatchEvent(component,
-                                         eventClosure.componentId,
-                                         eventClosure.eventName,
-                                         args)) {
-        if (DEBUG) {
-          Log.i("EventDispatcher", "Successfully dispatched event " +
-              eventClosure.componentId + "." + eventClosure.eventName);
-        }
+    for (EventClosure eventClosure : eventClosures.values()) {
+      if (eventClosure.componentId.equals(componentId)) {
+        continue;  // Already tried above.
+      }
+      if (delegateDispatchEvent(er.dispatchDelegate, eventClosure, component, args)) {
+        er.componentIds.put(component, eventClosure.componentId);
         dispatched = true;  // break here or keep iterating through loop?
       }
     }
     return dispatched;
   }
 
+  private static boolean delegateDispatchEvent(HandlesEventDispatching dispatchDelegate,
+                                               EventClosure eventClosure,
+                                               Component component, Object... args) {
+    if (dispatchDelegate.dispatchEvent(component,
+                                       eventClosure.componentId,
+                                       eventClosure.eventName,
+                                       args)) {
+      if (DEBUG) {
+        Log.i("EventDispatcher", "Successfully dispatched event " +
+            eventClosure.componentId + "." + eventClosure.eventName);
+      }
+      return true;
+    }
+    return false;
+  }
+
   // Don't delete this method. It's called from runtime.scm.
   public static String makeFullEventName(String componentId, String eventName) {
     if (DEBUG) {
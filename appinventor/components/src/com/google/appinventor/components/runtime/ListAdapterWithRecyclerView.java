@@ -8,6 +8,8 @@ package com.google.appinventor.components.runtime;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 
+import android.os.Handler;
+
 import android.util.Log;
 
 import android.view.View;
@@ -23,195 +25,510 @@ import androidx.cardview.widget.CardView;
 
 import androidx.core.view.ViewCompat;
 
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.appinventor.components.runtime.util.AsynchUtil;
 import com.google.appinventor.components.runtime.util.MediaUtil;
 import com.google.appinventor.components.runtime.util.TextViewUtil;
 import com.google.appinventor.components.runtime.util.ViewUtil;
 import com.google.appinventor.components.runtime.util.YailDictionary;
-import com.google.appinventor.components.runtime.util.YailList;
 
 import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Adapter for the rows of a {@link ListView}. The adapter keeps its list of items and the
+ * selection of every item, and binds the items that pass the filter to as many row views as the
+ * RecyclerView needs to fill the screen. Style changes rebind the rows on screen, and new items
+ * and filter changes notify the RecyclerView of only the rows that changed. Long lists of new
+ * items are compared with the old ones on a worker thread, and the RecyclerView keeps showing the
+ * old rows until the comparison is done.
+ */
 public class ListAdapterWithRecyclerView
     extends RecyclerView.Adapter<ListAdapterWithRecyclerView.RvViewHolder> implements Filterable {
   private static final String LOG_TAG = "ListAdapterRecyclerView";
 
+  // How many items a filter run matches between checks for a newer filter request.
+  private static final int FILTER_CANCEL_CHECK_INTERVAL = 256;
+
+  // The most old and new rows that setItems diffs on the UI thread. DiffUtil compares whole
+  // items, so longer lists are diffed on a worker thread.
+  private static final int MAX_UI_THREAD_DIFF_ROWS = 1000;
+
+  private static final int[] NO_ITEMS = new int[0];
+
   private ClickListener clickListener;
 
-  public Boolean[] selection;
-  public Boolean[] isVisible;
+  private final List<Boolean> selection = new ArrayList<>();
   private int textMainColor;
   private float textMainSize;
   private int textDetailColor;
   private float textDetailSize;
-  private String textMainFont;
-  private String textDetailFont;
+  private String textMainFont = Component.TYPEFACE_DEFAULT;
+  private String textDetailFont = Component.TYPEFACE_DEFAULT;
 
-  private int layoutType;
+  private int layoutType = Component.LISTVIEW_LAYOUT_SINGLE_TEXT;
   private int backgroundColor;
   private int selectionColor;
   private int imageHeight;
   private int imageWidth;
-  private CardView[] itemViews;
   private boolean multiSelect;
-  private List<YailDictionary> items;
-  private List<YailDictionary> filterItems;
+  // Incremented whenever a style property changes, so that onBindViewHolder only restyles row
+  // views that were styled before the change.
+  private int styleVersion;
+  // Replaced rather than changed, so that a diff on a worker thread can use the old list.
+  private List<YailDictionary> items = new ArrayList<>();
+  // The lowercase text the filter searches for each item, built when the item is added so that
+  // filtering does not have to build it on every keystroke.
+  private final List<String> searchTexts = new ArrayList<>();
+  // The indices of the items that pass the filter, in increasing order. The adapter position of
+  // a row is its index in this array. The array is replaced rather than changed, so that filter
+  // runs can use it on their thread.
+  private int[] visibleItems = NO_ITEMS;
+  // The items and rows that the RecyclerView was last told about. They are items and
+  // visibleItems, except while the rows of new items are diffed on a worker thread.
+  private List<YailDictionary> shownItems = items;
+  private int[] shownRows = NO_ITEMS;
+  // The diff of the rows running on a worker thread, or null.
+  private RowDiff pendingDiff;
+  // The query that visibleItems was filtered with.
+  private String filterQuery = "";
+  // Incremented whenever the items change, so that results of filter runs that started before
+  // the change are dropped.
+  private int dataVersion;
+  // The last filter request. Runs of older requests stop early and their results are dropped.
+  private volatile FilterRequest latestRequest;
   protected final ComponentContainer container;
   protected final Filter filter = new Filter() {
     @Override
     protected FilterResults performFiltering(CharSequence charSequence) {
-      String filterQuery = charSequence.toString().toLowerCase();
+      // The request holds a snapshot of the search texts, so the items can change on the UI
+      // thread while this runs.
+      FilterRequest request = latestRequest;
       FilterResults results = new FilterResults();
-      List<YailDictionary> filteredList = new ArrayList<>();
-
-      if (filterQuery == null || filterQuery.length() == 0) {
-        filteredList = new ArrayList<>(items);
-      } else {
-        for (YailDictionary itemDict : items) {
-          Object o = itemDict.get(Component.LISTVIEW_KEY_DESCRIPTION);
-          String filterString = itemDict.get(Component.LISTVIEW_KEY_MAIN_TEXT).toString();
-          if (o != null) {
-            filterString += " " + o.toString().toLowerCase();
-          }
-          if (filterString.toLowerCase().contains(filterQuery)) {
-            filteredList.add(itemDict);
-          }
-        }
+      if (request != null) {
+        request.run();
+        results.values = request;
+        results.count = request.matches == null ? 0 : request.matches.length;
       }
-      results.count = filteredList.size();
-      results.values = filteredList;
       return results;
     }
 
     @Override
     protected void publishResults(CharSequence charSequence, FilterResults filterResults) {
-      filterItems = (List<YailDictionary>) filterResults.values;
-      // Usually GUI objects take up no screen space when set to invisible, but setting a CardView object to invisible
-      // was displaying an empty object. Therefore, set the height to 0 as well.
-      // Setting visibility on individual entries will keep the selected index(ices) the same regardless of filter.
-      for (int i = 0; i < items.size(); ++i) {
-        if (filterItems.size() > 0 && filterItems.contains(items.get(i))) {
-          isVisible[i] = true;
-          if (itemViews[i] != null) {
-            itemViews[i].setVisibility(View.VISIBLE);
-            itemViews[i].getLayoutParams().height = ViewGroup.LayoutParams.WRAP_CONTENT;
-          }
-        } else {
-          isVisible[i] = false;
-          if (itemViews[i] != null) {
-            itemViews[i].setVisibility(View.GONE);
-            itemViews[i].getLayoutParams().height = 0;
-          }
-        }
+      FilterRequest request = (FilterRequest) filterResults.values;
+      if (request == null || request != latestRequest || request.matches == null
+          || request.dataVersion != dataVersion) {
+        return;  // Cancelled, or the items changed since the request was made.
       }
+      filterQuery = request.query;
+      // Selections are kept on the items, so the selected index(ices) stay the same regardless
+      // of filter.
+      showItems(request.matches);
     }
   };
 
+  /*
+   * A request to filter the items with a query. Typing usually extends the query, in which case
+   * only the items that matched the shorter query are searched again.
+   */
+  private final class FilterRequest {
+    private final String query;
+    private final List<String> texts;
+    private final int[] candidates;  // null to search all items
+    private final int dataVersion;
+    private int[] matches;  // null until run, or if the run was cancelled
+
+    FilterRequest(String query, List<String> texts, int[] candidates, int dataVersion) {
+      this.query = query;
+      this.texts = texts;
+      this.candidates = candidates;
+      this.dataVersion = dataVersion;
+    }
+
+    void run() {
+      int count = candidates == null ? texts.size() : candidates.length;
+      int[] matched = new int[count];
+      int matchCount = 0;
+      for (int i = 0; i < count; i++) {
+        if (i % FILTER_CANCEL_CHECK_INTERVAL == 0 && latestRequest != this) {
+          return;
+        }
+        int index = candidates == null ? i : candidates[i];
+        if (texts.get(index).contains(query)) {
+          matched[matchCount++] = index;
+        }
+      }
+      matches = Arrays.copyOf(matched, matchCount);
+    }
+  }
+
+  /*
+   * A diff of the rows of the old items with the rows of new items, run on a worker thread.
+   */
+  private static final class RowDiff {
+    private volatile DiffUtil.DiffResult result;
+    // Set if the rows or their selection changed while the diff ran, in which case the result
+    // no longer describes the change and all rows are rebound instead.
+    private boolean rowsChanged;
+  }
+
+  /*
+   * Compares rows by their main text, and then by their whole item.
+   */
+  private static final class RowsCallback extends DiffUtil.Callback {
+    private final List<YailDictionary> oldRows;
+    private final List<YailDictionary> newRows;
+
+    RowsCallback(List<YailDictionary> oldRows, List<YailDictionary> newRows) {
+      this.oldRows = oldRows;
+      this.newRows = newRows;
+    }
+
+    @Override
+    public int getOldListSize() {
+      return oldRows.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+      return newRows.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldPosition, int newPosition) {
+      return mainText(oldRows.get(oldPosition)).equals(mainText(newRows.get(newPosition)));
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldPosition, int newPosition) {
+      return oldRows.get(oldPosition).equals(newRows.get(newPosition));
+    }
+  }
+
   public boolean isSelected = false;
 
-  private int idFirst = -1;
-  private int idSecond = -1;
-  private int idImages = -1;
-  private int idCard = 1;
+  private final Handler androidUIHandler = new Handler();
 
-  public ListAdapterWithRecyclerView(ComponentContainer container, List<YailDictionary> items, int textMainColor, int textDetailColor, float textMainSize, float textDetailSize, String textMainFont, String textDetailFont, int layoutType, int backgroundColor, int selectionColor, int imageWidth, int imageHeight, boolean multiSelect) {
-  
-    this.items = items;
+  public ListAdapterWithRecyclerView(ComponentContainer container, boolean multiSelect) {
     this.container = container;
-    this.textMainSize = textMainSize;
-    this.textMainColor = textMainColor;
-    this.textDetailColor = textDetailColor;
-    this.textDetailSize = textDetailSize;
-    this.textMainFont = textMainFont;
-    this.textDetailFont = textDetailFont;
-    this.layoutType = layoutType;
-    this.backgroundColor = backgroundColor;
-    this.selectionColor = selectionColor;
-    this.imageHeight = imageHeight;
-    this.imageWidth = imageWidth;
-    this.itemViews = new CardView[items.size()];
     this.multiSelect = multiSelect;
+  }
 
-    this.selection = new Boolean[items.size()];
-    Arrays.fill(selection, Boolean.FALSE);
-    this.isVisible = new Boolean[items.size()];
-    Arrays.fill(isVisible, Boolean.TRUE);
+  /**
+   * Filters the items on a worker thread, showing only the items whose text contains the query,
+   * ignoring case. A new query cancels the filtering of the previous one.
+   *
+   * @param query the query, which shows all items if empty
+   */
+  public void filter(CharSequence query) {
+    String lowerQuery = query.toString().toLowerCase();
+    int[] candidates = null;
+    if (filterQuery.length() > 0 && lowerQuery.startsWith(filterQuery)) {
+      candidates = visibleItems;
+    }
+    latestRequest = new FilterRequest(lowerQuery, new ArrayList<>(searchTexts), candidates,
+        dataVersion);
+    filter.filter(query);
   }
 
-  public ListAdapterWithRecyclerView(ComponentContainer container, YailList stringItems, int textMainColor, float textMainSize, String textMainFont, int backgroundColor, int selectionColor) {
-    // Legacy Support
-    this.container = container;
-    this.textMainSize = textMainSize;
-    this.textMainColor = textMainColor;
-    this.textMainFont = textMainFont;
-    this.textDetailColor = textMainColor;
-    this.textDetailSize = 0;
-    this.textDetailFont = Component.TYPEFACE_DEFAULT;
-    this.layoutType = Component.LISTVIEW_LAYOUT_SINGLE_TEXT;
-    this.backgroundColor = backgroundColor;
-    this.selectionColor = selectionColor;
-    this.imageHeight = 0;
-    this.imageWidth = 0;
-    this.multiSelect = false;
-    this.itemViews = new CardView[stringItems.size()];
-    this.selection = new Boolean[stringItems.size()];
-    Arrays.fill(selection, Boolean.FALSE);
-    this.isVisible = new Boolean[stringItems.size()];
-    Arrays.fill(isVisible, Boolean.TRUE);
-
-    // Build the list of strings into a list of dictionaries
-    this.items = new ArrayList<>();
-    // YailList is 1-indexed
-    for(int i = 1; i <= stringItems.size(); ++i) {
-      String itemString = YailList.YailListElementToString(stringItems.get(i));
-      YailDictionary itemDict = new YailDictionary();
-      itemDict.put(Component.LISTVIEW_KEY_MAIN_TEXT, itemString);
-      this.items.add(itemDict);
+  /**
+   * Replaces the items of the list. The old and new rows are compared so that the RecyclerView
+   * is only told about the rows that were inserted, removed or changed. If there are many rows,
+   * they are compared on a worker thread, and the RecyclerView shows the old rows until then.
+   * Selections are cleared, as they were when the list was rebuilt, and the current filter is
+   * applied to the new items.
+   *
+   * @param newItems the new items, which are copied
+   */
+  public void setItems(List<YailDictionary> newItems) {
+    clearSelections();
+    final List<YailDictionary> oldRows = rowsOf(shownItems, shownRows);
+
+    items = new ArrayList<>(newItems);
+    selection.clear();
+    selection.addAll(Collections.nCopies(items.size(), Boolean.FALSE));
+    searchTexts.clear();
+    for (YailDictionary item : items) {
+      searchTexts.add(searchText(item));
+    }
+    dataVersion++;
+    // A filter run still in progress is for the old items, so apply its query here.
+    if (latestRequest != null) {
+      filterQuery = latestRequest.query;
+    }
+    int[] shown = new int[items.size()];
+    int shownCount = 0;
+    for (int i = 0; i < items.size(); i++) {
+      if (searchTexts.get(i).contains(filterQuery)) {
+        shown[shownCount++] = i;
+      }
+    }
+    visibleItems = Arrays.copyOf(shown, shownCount);
+
+    final List<YailDictionary> newRows = rowsOf(items, visibleItems);
+    // A diff still running is for older items, and its result is dropped.
+    pendingDiff = null;
+    if (oldRows.isEmpty() || newRows.isEmpty()) {
+      showModel();
+      if (!oldRows.isEmpty()) {
+        notifyItemRangeRemoved(0, oldRows.size());
+      } else if (!newRows.isEmpty()) {
+        notifyItemRangeInserted(0, newRows.size());
+      }
+    } else if (oldRows.size() + newRows.size() > MAX_UI_THREAD_DIFF_ROWS) {
+      final RowDiff diff = new RowDiff();
+      pendingDiff = diff;
+      AsynchUtil.runAsynchronously(androidUIHandler, new Runnable() {
+        @Override
+        public void run() {
+          diff.result = DiffUtil.calculateDiff(new RowsCallback(oldRows, newRows), false);
+        }
+      }, new Runnable() {
+        @Override
+        public void run() {
+          finishDiff(diff);
+        }
+      });
+    } else {
+      showModel();
+      DiffUtil.calculateDiff(new RowsCallback(oldRows, newRows), false).dispatchUpdatesTo(this);
+    }
+  }
+
+  /*
+   * Shows the rows of the current items, once the diff of the rows with the rows that were shown
+   * before is done, unless newer items were set in the meantime.
+   */
+  private void finishDiff(RowDiff diff) {
+    if (diff != pendingDiff) {
+      return;
+    }
+    pendingDiff = null;
+    showModel();
+    if (diff.rowsChanged) {
+      notifyDataSetChanged();
+    } else {
+      diff.result.dispatchUpdatesTo(this);
+    }
+  }
+
+  private void showModel() {
+    shownItems = items;
+    shownRows = visibleItems;
+  }
+
+  /*
+   * Returns true if a diff is running on a worker thread, in which case changes to the rows are
+   * not notified, since the RecyclerView still shows the old rows. All rows are rebound when the
+   * diff is done instead.
+   */
+  private boolean deferNotifications() {
+    if (pendingDiff == null) {
+      return false;
+    }
+    pendingDiff.rowsChanged = true;
+    return true;
+  }
+
+  private static List<YailDictionary> rowsOf(List<YailDictionary> items, int[] rows) {
+    List<YailDictionary> result = new ArrayList<>(rows.length);
+    for (int index : rows) {
+      result.add(items.get(index));
+    }
+    return result;
+  }
+
+  /*
+   * Shows the given items, which are in increasing order. Both the old and the new rows are in
+   * the order of the items, so a single merge of the two finds the rows that were removed or
+   * inserted, and runs of them are notified together.
+   */
+  private void showItems(int[] shown) {
+    int[] old = visibleItems;
+    visibleItems = shown;
+    if (deferNotifications()) {
+      return;
+    }
+    showModel();
+    int i = 0;
+    int j = 0;
+    int position = 0;
+    int runStart = 0;
+    int runCount = 0;
+    boolean runInserts = false;
+    while (i < old.length || j < shown.length) {
+      boolean keep = i < old.length && j < shown.length && old[i] == shown[j];
+      boolean remove = !keep && (j == shown.length || (i < old.length && old[i] < shown[j]));
+      if (runCount > 0 && (keep || runInserts == remove)) {
+        notifyRun(runStart, runCount, runInserts);
+        runCount = 0;
+      }
+      if (keep) {
+        i++;
+        j++;
+        position++;
+        continue;
+      }
+      if (runCount == 0) {
+        runStart = position;
+        runInserts = !remove;
+      }
+      runCount++;
+      if (remove) {
+        i++;
+      } else {
+        j++;
+        position++;
+      }
+    }
+    if (runCount > 0) {
+      notifyRun(runStart, runCount, runInserts);
+    }
+  }
+
+  private void notifyRun(int position, int count, boolean inserted) {
+    if (inserted) {
+      notifyItemRangeInserted(position, count);
+    } else {
+      notifyItemRangeRemoved(position, count);
+    }
+  }
+
+  /*
+   * Returns the adapter position of the row of the given item, or -1 if the filter hides it.
+   */
+  private int positionOf(int index) {
+    int position = Arrays.binarySearch(visibleItems, index);
+    return position >= 0 ? position : -1;
+  }
+
+  public void setTextMainColor(int textMainColor) {
+    if (this.textMainColor != textMainColor) {
+      this.textMainColor = textMainColor;
+      styleChanged();
+    }
+  }
+
+  public void setTextMainSize(float textMainSize) {
+    if (this.textMainSize != textMainSize) {
+      this.textMainSize = textMainSize;
+      styleChanged();
+    }
+  }
+
+  public void setTextMainFont(String textMainFont) {
+    if (!this.textMainFont.equals(textMainFont)) {
+      this.textMainFont = textMainFont;
+      styleChanged();
+    }
+  }
+
+  public void setTextDetailColor(int textDetailColor) {
+    if (this.textDetailColor != textDetailColor) {
+      this.textDetailColor = textDetailColor;
+      styleChanged();
+    }
+  }
+
+  public void setTextDetailSize(float textDetailSize) {
+    if (this.textDetailSize != textDetailSize) {
+      this.textDetailSize = textDetailSize;
+      styleChanged();
+    }
+  }
+
+  public void setTextDetailFont(String textDetailFont) {
+    if (!this.textDetailFont.equals(textDetailFont)) {
+      this.textDetailFont = textDetailFont;
+      styleChanged();
+    }
+  }
+
+  public void setBackgroundColor(int backgroundColor) {
+    if (this.backgroundColor != backgroundColor) {
+      this.backgroundColor = backgroundColor;
+      styleChanged();
+    }
+  }
+
+  public void setSelectionColor(int selectionColor) {
+    if (this.selectionColor != selectionColor) {
+      this.selectionColor = selectionColor;
+      styleChanged();
+    }
+  }
+
+  public void setImageSize(int imageWidth, int imageHeight) {
+    if (this.imageWidth != imageWidth || this.imageHeight != imageHeight) {
+      this.imageWidth = imageWidth;
+      this.imageHeight = imageHeight;
+      styleChanged();
+    }
+  }
+
+  /**
+   * Sets the layout of the rows. The rows of each layout have their own view type, so the
+   * RecyclerView builds new row views rather than rebinding the old ones.
+   */
+  public void setLayoutType(int layoutType) {
+    if (this.layoutType != layoutType) {
+      this.layoutType = layoutType;
+      notifyDataSetChanged();
     }
   }
 
+  private void styleChanged() {
+    styleVersion++;
+    notifyItemRangeChanged(0, getItemCount());
+  }
+
   public void clearSelections() {
-    Arrays.fill(selection, Boolean.FALSE);
-    for (int i = 0; i < itemViews.length; i++) {
-      itemViews[i].setBackgroundColor(backgroundColor);
+    for (int i = 0; i < selection.size(); i++) {
+      setSelected(i, false);
     }
   }
 
   public void toggleSelection(int pos) {
     // With single select, clicked item becomes the only selected item
     // Using 0-indexed array.
-    Arrays.fill(selection, Boolean.FALSE);
-    for (int i = 0; i < itemViews.length; i++) {
-      // Views are created when they are displayed, so this list may not be fully populated.
-      if (itemViews[i] != null) {
-        itemViews[i].setBackgroundColor(backgroundColor);
-      }
-    }
-    if (pos >= 0) {
-      selection[pos] = true;
-      if (itemViews[pos] != null) {
-        itemViews[pos].setBackgroundColor(selectionColor);
-      }
+    for (int i = 0; i < selection.size(); i++) {
+      setSelected(i, i == pos);
     }
   }
 
   public void changeSelections(int pos) {
     // With multi select, clicking an item toggles its selection status on and off
-    selection[pos] = !selection[pos];
-    if (selection[pos]) {
-      itemViews[pos].setBackgroundColor(selectionColor);
-    } else {
-      itemViews[pos].setBackgroundColor(backgroundColor);
+    setSelected(pos, !selection.get(pos));
+  }
+
+  // Rows that are not on screen are colored when they are bound, so only rows whose selection
+  // changes are rebound.
+  private void setSelected(int index, boolean selected) {
+    if (selection.get(index) != selected) {
+      selection.set(index, selected);
+      if (deferNotifications()) {
+        return;
+      }
+      int position = positionOf(index);
+      if (position >= 0) {
+        notifyItemChanged(position);
+      }
     }
   }
 
   public boolean hasVisibleItems() {
-    return Arrays.asList(isVisible).contains(true);
+    return visibleItems.length > 0;
+  }
+
+  @Override
+  public int getItemViewType(int position) {
+    return layoutType;
   }
 
   @Override
@@ -223,10 +540,7 @@ public class ListAdapterWithRecyclerView
     cardView.setCardElevation(2.1f);
     cardView.setRadius(0);
     cardView.setMaxCardElevation(3f);
-    cardView.setBackgroundColor(backgroundColor);
     cardView.setClickable(isSelected);
-    idCard = ViewCompat.generateViewId();
-    cardView.setId(idCard);
 
     CardView.LayoutParams params1 = new CardView.LayoutParams(CardView.LayoutParams.FILL_PARENT, CardView.LayoutParams.WRAP_CONTENT);
     params1.setMargins(0, 0, 0, 0);
@@ -235,42 +549,32 @@ public class ListAdapterWithRecyclerView
 
     // All layouts have a textview containing MainText
     TextView textViewFirst = new TextView(container.$context());
-    idFirst = ViewCompat.generateViewId();
-    textViewFirst.setId(idFirst);
     LinearLayout.LayoutParams layoutParams1 = new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT);
     layoutParams1.topMargin = 10;
     textViewFirst.setLayoutParams(layoutParams1);
-    textViewFirst.setTextSize(textMainSize);
-    textViewFirst.setTextColor(textMainColor);
-    TextViewUtil.setFontTypeface(container.$form(), textViewFirst, textMainFont, false, false);
+    TextView textViewSecond = null;
+    ImageView imageView = null;
     LinearLayout linearLayout1 = new LinearLayout(container.$context());
     LinearLayout.LayoutParams layoutParamslinear1 = new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT);
     linearLayout1.setLayoutParams(layoutParamslinear1);
     linearLayout1.setOrientation(LinearLayout.HORIZONTAL);
 
-    if (layoutType == Component.LISTVIEW_LAYOUT_IMAGE_TWO_TEXT || layoutType == Component.LISTVIEW_LAYOUT_IMAGE_SINGLE_TEXT) {
+    if (viewType == Component.LISTVIEW_LAYOUT_IMAGE_TWO_TEXT || viewType == Component.LISTVIEW_LAYOUT_IMAGE_SINGLE_TEXT) {
       // Create ImageView for layouts containing an image
-      ImageView imageView = new ImageView(container.$context());
-      idImages = ViewCompat.generateViewId();
-      imageView.setId(idImages);
+      imageView = new ImageView(container.$context());
       LinearLayout.LayoutParams layoutParamsImage = new LinearLayout.LayoutParams(imageWidth, imageHeight);
       imageView.setLayoutParams(layoutParamsImage);
       linearLayout1.addView(imageView);
     }
 
-    if (layoutType == Component.LISTVIEW_LAYOUT_SINGLE_TEXT || layoutType == Component.LISTVIEW_LAYOUT_IMAGE_SINGLE_TEXT) {
+    if (viewType == Component.LISTVIEW_LAYOUT_SINGLE_TEXT || viewType == Component.LISTVIEW_LAYOUT_IMAGE_SINGLE_TEXT) {
       // All layouts containing just MainText
       linearLayout1.addView(textViewFirst);
     } else {
       // All layouts containing MainText and DetailText
-      TextView textViewSecond = new TextView(container.$context());
-      idSecond = ViewCompat.generateViewId();
-      textViewSecond.setId(idSecond);
+      textViewSecond = new TextView(container.$context());
       LinearLayout.LayoutParams layoutParams2 = new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT);
-      textViewSecond.setTextSize(textDetailSize);
-      TextViewUtil.setFontTypeface(container.$form(), textViewSecond, textDetailFont, false, false);
-      textViewSecond.setTextColor(textDetailColor);
-      if (layoutType == Component.LISTVIEW_LAYOUT_TWO_TEXT || layoutType == Component.LISTVIEW_LAYOUT_IMAGE_TWO_TEXT) {
+      if (viewType == Component.LISTVIEW_LAYOUT_TWO_TEXT || viewType == Component.LISTVIEW_LAYOUT_IMAGE_TWO_TEXT) {
         layoutParams2.topMargin = 10;
         textViewSecond.setLayoutParams(layoutParams2);
 
@@ -283,7 +587,7 @@ public class ListAdapterWithRecyclerView
         linearLayout2.addView(textViewSecond);
         linearLayout1.addView(linearLayout2);
 
-      } else if (layoutType == Component.LISTVIEW_LAYOUT_TWO_TEXT_LINEAR) {
+      } else if (viewType == Component.LISTVIEW_LAYOUT_TWO_TEXT_LINEAR) {
         // Unlike the other two text layouts, linear does not wrap
         layoutParams2.setMargins(50, 10, 0, 0);
         textViewSecond.setLayoutParams(layoutParams2);
@@ -297,77 +601,81 @@ public class ListAdapterWithRecyclerView
     cardView.setLayoutParams(params1);
     cardView.addView(linearLayout1);
 
-    return new RvViewHolder(cardView);
+    return new RvViewHolder(cardView, textViewFirst, textViewSecond, imageView);
   }
 
   @Override
   public void onBindViewHolder(final RvViewHolder holder, int position) {
+    if (holder.styleVersion != styleVersion) {
+      applyStyle(holder);
+    }
 
-    holder.cardView.setOnClickListener(new View.OnClickListener() {
-      @Override
-      public void onClick(View v) {
-        holder.onClick(v);
-      }
-    });
-
-    YailDictionary dictItem = items.get(position);
+    int index = shownRows[position];
+    YailDictionary dictItem = shownItems.get(index);
     String first = dictItem.get(Component.LISTVIEW_KEY_MAIN_TEXT).toString();
     String second = "";
     if (dictItem.containsKey(Component.LISTVIEW_KEY_DESCRIPTION)) {
       second = dictItem.get(Component.LISTVIEW_KEY_DESCRIPTION).toString();
     }
-    if (layoutType == Component.LISTVIEW_LAYOUT_SINGLE_TEXT) {
+    int viewType = holder.getItemViewType();
+    if (viewType == Component.LISTVIEW_LAYOUT_SINGLE_TEXT) {
       holder.textViewFirst.setText(first);
-    } else if (layoutType == Component.LISTVIEW_LAYOUT_TWO_TEXT) {
+    } else if (viewType == Component.LISTVIEW_LAYOUT_TWO_TEXT) {
       holder.textViewFirst.setText(first);
       holder.textViewSecond.setText(second);
-    } else if (layoutType == Component.LISTVIEW_LAYOUT_TWO_TEXT_LINEAR) {
+    } else if (viewType == Component.LISTVIEW_LAYOUT_TWO_TEXT_LINEAR) {
       holder.textViewFirst.setText(first);
       holder.textViewSecond.setText(second);
-    } else if (layoutType == Component.LISTVIEW_LAYOUT_IMAGE_SINGLE_TEXT) {
-      String imageName = dictItem.get(Component.LISTVIEW_KEY_IMAGE).toString();
-      Drawable drawable = new BitmapDrawable();
-      try {
-        drawable = MediaUtil.getBitmapDrawable(container.$form(), imageName);
-      } catch (IOException ioe) {
-        Log.e(LOG_TAG, "onBindViewHolder Unable to load image " + imageName + ": " + ioe.getMessage());
-      }
+    } else if (viewType == Component.LISTVIEW_LAYOUT_IMAGE_SINGLE_TEXT) {
       holder.textViewFirst.setText(first);
-      ViewUtil.setImage(holder.imageVieww, drawable);
-    } else if (layoutType == Component.LISTVIEW_LAYOUT_IMAGE_TWO_TEXT) {
-      String imageName = dictItem.get(Component.LISTVIEW_KEY_IMAGE).toString();
-      Drawable drawable = new BitmapDrawable();
-      try {
-        drawable = MediaUtil.getBitmapDrawable(container.$form(), imageName);
-      } catch (IOException ioe) {
-        Log.e(LOG_TAG, "onBindViewHolder Unable to load image " + imageName + ": " + ioe.getMessage());
-      }
+      ViewUtil.setImage(holder.imageVieww, loadImage(dictItem));
+    } else if (viewType == Component.LISTVIEW_LAYOUT_IMAGE_TWO_TEXT) {
       holder.textViewFirst.setText(first);
       holder.textViewSecond.setText(second);
-      ViewUtil.setImage(holder.imageVieww, drawable);
+      ViewUtil.setImage(holder.imageVieww, loadImage(dictItem));
     } else {
-      Log.e(LOG_TAG, "onBindViewHolder Layout not recognized: " + layoutType);
+      Log.e(LOG_TAG, "onBindViewHolder Layout not recognized: " + viewType);
     }
-    if (selection[position]) {
+    // While a diff runs, the selection is that of the new items.
+    if (pendingDiff == null && selection.get(index)) {
       holder.cardView.setBackgroundColor(selectionColor);
     } else {
       holder.cardView.setBackgroundColor(backgroundColor);
     }
-    if (!isVisible[position])
-    {
-      holder.cardView.setVisibility(View.GONE);
-      holder.cardView.getLayoutParams().height = 0;
-    } else {
-      holder.cardView.setVisibility(View.VISIBLE);
-      holder.cardView.getLayoutParams().height = ViewGroup.LayoutParams.WRAP_CONTENT;
+  }
+
+  private void applyStyle(RvViewHolder holder) {
+    holder.textViewFirst.setTextSize(textMainSize);
+    holder.textViewFirst.setTextColor(textMainColor);
+    TextViewUtil.setFontTypeface(container.$form(), holder.textViewFirst, textMainFont, false, false);
+    if (holder.textViewSecond != null) {
+      holder.textViewSecond.setTextSize(textDetailSize);
+      holder.textViewSecond.setTextColor(textDetailColor);
+      TextViewUtil.setFontTypeface(container.$form(), holder.textViewSecond, textDetailFont, false, false);
+    }
+    if (holder.imageVieww != null) {
+      ViewGroup.LayoutParams params = holder.imageVieww.getLayoutParams();
+      params.width = imageWidth;
+      params.height = imageHeight;
+      holder.imageVieww.setLayoutParams(params);
     }
-    itemViews[position] = holder.cardView;
+    holder.styleVersion = styleVersion;
   }
 
+  private Drawable loadImage(YailDictionary dictItem) {
+    String imageName = dictItem.get(Component.LISTVIEW_KEY_IMAGE).toString();
+    Drawable drawable = new BitmapDrawable();
+    try {
+      drawable = MediaUtil.getBitmapDrawable(container.$form(), imageName);
+    } catch (IOException ioe) {
+      Log.e(LOG_TAG, "onBindViewHolder Unable to load image " + imageName + ": " + ioe.getMessage());
+    }
+    return drawable;
+  }
 
   @Override
   public int getItemCount() {
-    return (itemViews.length);
+    return shownRows.length;
   }
 
   class RvViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
@@ -376,33 +684,35 @@ public class ListAdapterWithRecyclerView
     public TextView textViewSecond;
     public ImageView imageVieww;
     public CardView cardView;
+    private int styleVersion = -1;
 
-    public RvViewHolder(View view) {
-      super(view);
+    public RvViewHolder(CardView cardView, TextView textViewFirst, TextView textViewSecond,
+        ImageView imageView) {
+      super(cardView);
 
-      view.setOnClickListener(this);
+      cardView.setOnClickListener(this);
 
-      cardView = view.findViewById(idCard);
-      textViewFirst = view.findViewById(idFirst);
-
-      if (idSecond != -1) {
-        textViewSecond = view.findViewById(idSecond);
-      }
-
-      if (idImages != -1) {
-        imageVieww = view.findViewById(idImages);
-      }
+      this.cardView = cardView;
+      this.textViewFirst = textViewFirst;
+      this.textViewSecond = textViewSecond;
+      this.imageVieww = imageView;
     }
 
     @Override
     public void onClick(View v) {
       int position = getAdapterPosition();
+      // The old rows shown while a diff runs are not the items any more.
+      if (position == RecyclerView.NO_POSITION || pendingDiff != null) {
+        return;
+      }
+      // Rows hidden by the filter have no position, so report the index of the item.
+      int index = shownRows[position];
       if (multiSelect) {
-        changeSelections(position);
+        changeSelections(index);
       } else {
-        toggleSelection(position);
+        toggleSelection(index);
       }
-      clickListener.onItemClick(position, v);
+      clickListener.onItemClick(index, v);
     }
   }
 
@@ -411,14 +721,20 @@ public class ListAdapterWithRecyclerView
   }
 
   public interface ClickListener {
+    /**
+     * Called when a row is clicked.
+     *
+     * @param position the 0-based index of the item of the row among all items
+     * @param v the row view
+     */
     void onItemClick(int position, View v);
   }
 
   public String getSelectedItems() {
     StringBuilder sb = new StringBuilder();
     String sep = "";
-    for (int i = 0; i < selection.length; ++i) {
-      if (selection[i]) {
+    for (int i = 0; i < selection.size(); ++i) {
+      if (selection.get(i)) {
         YailDictionary dictItem = items.get(i);
         sb.append(sep);
         sb.append(dictItem.get(Component.LISTVIEW_KEY_MAIN_TEXT).toString());
@@ -428,6 +744,20 @@ public class ListAdapterWithRecyclerView
     return sb.toString();
   }
 
+  private static String mainText(YailDictionary itemDict) {
+    Object o = itemDict.get(Component.LISTVIEW_KEY_MAIN_TEXT);
+    return o == null ? "" : o.toString();
+  }
+
+  private static String searchText(YailDictionary itemDict) {
+    Object o = itemDict.get(Component.LISTVIEW_KEY_DESCRIPTION);
+    String filterString = itemDict.get(Component.LISTVIEW_KEY_MAIN_TEXT).toString();
+    if (o != null) {
+      filterString += " " + o.toString();
+    }
+    return filterString.toLowerCase();
+  }
+
   @Override
   public Filter getFilter() {
     return filter;
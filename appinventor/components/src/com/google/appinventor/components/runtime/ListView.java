@@ -79,7 +79,8 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   private final LinearLayout linearLayout;
 
   private RecyclerView recyclerView;
-  private ListAdapterWithRecyclerView listAdapterWithRecyclerView;
+  private final LinearLayoutManager layoutManager;
+  private final ListAdapterWithRecyclerView listAdapterWithRecyclerView;
   private YailList stringItems;
   private List<YailDictionary> dictItems;
   private int selectionIndex;
@@ -133,6 +134,21 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
     recyclerView = new RecyclerView(container.$context());
     LayoutParams params = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
     recyclerView.setLayoutParams(params);
+    layoutManager = new LinearLayoutManager(container.$context(), LinearLayoutManager.VERTICAL, false);
+    recyclerView.setLayoutManager(layoutManager);
+
+    // The adapter lives as long as the ListView. Property changes restyle its rows and new
+    // elements are diffed against the old ones, rather than replacing the adapter.
+    listAdapterWithRecyclerView = new ListAdapterWithRecyclerView(container, false);
+    listAdapterWithRecyclerView.setOnItemClickListener(new ListAdapterWithRecyclerView.ClickListener() {
+      @Override
+      public void onItemClick(int position, View v) {
+        listAdapterWithRecyclerView.toggleSelection(position);
+        SelectionIndex(position + 1);
+        AfterPicking();
+      }
+    });
+    recyclerView.setAdapter(listAdapterWithRecyclerView);
 
     txtSearchBox = new EditText(container.$context());
     txtSearchBox.setSingleLine(true);
@@ -153,16 +169,8 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
 
       @Override
       public void onTextChanged(CharSequence cs, int arg1, int arg2, int arg3) {
-        // When user changed the Text
-        if (cs.length() > 0) {
-          if (!listAdapterWithRecyclerView.hasVisibleItems()) {
-            setAdapterData();
-          }
-          listAdapterWithRecyclerView.getFilter().filter(cs);
-          recyclerView.setAdapter(listAdapterWithRecyclerView);
-        } else {
-          setAdapterData();
-        }
+        // When user changed the Text. An empty filter shows all elements again.
+        listAdapterWithRecyclerView.filter(cs);
       }
 
       @Override
@@ -348,32 +356,41 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
    * Sets the stringItems of the ListView through an adapter
    */
   public void setAdapterData() {
-    LinearLayoutManager layoutManager;
+    updateLayout();
     if (!dictItems.isEmpty()) {
       // if the data is available in AddData property
-      listAdapterWithRecyclerView = new ListAdapterWithRecyclerView(container, dictItems, textColor, detailTextColor, fontSizeMain, fontSizeDetail, fontTypeface, fontTypeDetail, layout, backgroundColor, selectionColor, imageWidth, imageHeight, false);
+      listAdapterWithRecyclerView.setItems(dictItems);
+    } else {
+      // Legacy Support: if the data is not available in AddData property but is available in ElementsFromString property
+      // Build the list of strings into a list of dictionaries
+      List<YailDictionary> items = new ArrayList<>();
+      // YailList is 1-indexed
+      for (int i = 1; i <= stringItems.size(); ++i) {
+        String itemString = YailList.YailListElementToString(stringItems.get(i));
+        YailDictionary itemDict = new YailDictionary();
+        itemDict.put(Component.LISTVIEW_KEY_MAIN_TEXT, itemString);
+        items.add(itemDict);
+      }
+      listAdapterWithRecyclerView.setItems(items);
+    }
+  }
 
+  /**
+   * Sets the row layout and the orientation of the list. Legacy string elements are always
+   * shown as a vertical list of single texts.
+   */
+  private void updateLayout() {
+    if (!dictItems.isEmpty()) {
+      listAdapterWithRecyclerView.setLayoutType(layout);
       if (orientation == ComponentConstants.LAYOUT_ORIENTATION_HORIZONTAL) {
-        layoutManager = new LinearLayoutManager(container.$context(), LinearLayoutManager.HORIZONTAL, false);
+        layoutManager.setOrientation(LinearLayoutManager.HORIZONTAL);
       } else { // if (orientation == ComponentConstants.LAYOUT_ORIENTATION_VERTICAL) {
-        layoutManager = new LinearLayoutManager(container.$context(), LinearLayoutManager.VERTICAL, false);
+        layoutManager.setOrientation(LinearLayoutManager.VERTICAL);
       }
     } else {
-      // Legacy Support: if the data is not available in AddData property but is available in ElementsFromString property
-      listAdapterWithRecyclerView = new ListAdapterWithRecyclerView(container, stringItems, textColor, fontSizeMain, fontTypeface, backgroundColor, selectionColor);
-
-      layoutManager = new LinearLayoutManager(container.$context(), LinearLayoutManager.VERTICAL, false);
+      listAdapterWithRecyclerView.setLayoutType(ComponentConstants.LISTVIEW_LAYOUT_SINGLE_TEXT);
+      layoutManager.setOrientation(LinearLayoutManager.VERTICAL);
     }
-    listAdapterWithRecyclerView.setOnItemClickListener(new ListAdapterWithRecyclerView.ClickListener() {
-      @Override
-      public void onItemClick(int position, View v) {
-        listAdapterWithRecyclerView.toggleSelection(position);
-        SelectionIndex(position + 1);
-        AfterPicking();
-      }
-    });
-    recyclerView.setLayoutManager(layoutManager);
-    recyclerView.setAdapter(listAdapterWithRecyclerView);
   }
 
   /**
@@ -418,9 +435,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
       selection = ElementsUtil.setSelectionFromIndex(index, stringItems);
       selectionDetailText = "";
     }
-    if (listAdapterWithRecyclerView != null) {
-      listAdapterWithRecyclerView.toggleSelection(selectionIndex - 1);
-    }
+    listAdapterWithRecyclerView.toggleSelection(selectionIndex - 1);
   }
 
   /**
@@ -527,6 +542,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
     backgroundColor = argb;
     recyclerView.setBackgroundColor(backgroundColor);
     linearLayout.setBackgroundColor(backgroundColor);
+    listAdapterWithRecyclerView.setBackgroundColor(backgroundColor);
 //    setBackgroundColor(backgroundColor);
   }
 
@@ -560,7 +576,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   @SimpleProperty(category = PropertyCategory.APPEARANCE)
   public void SelectionColor(int argb) {
     selectionColor = argb;
-    setAdapterData();
+    listAdapterWithRecyclerView.setSelectionColor(argb);
   }
 
   /**
@@ -593,7 +609,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   @SimpleProperty
   public void TextColor(int argb) {
     textColor = argb;
-    setAdapterData();
+    listAdapterWithRecyclerView.setTextMainColor(argb);
   }
 
   /**
@@ -619,7 +635,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   @SimpleProperty
   public void TextColorDetail(int argb) {
     detailTextColor = argb;
-    setAdapterData();
+    listAdapterWithRecyclerView.setTextDetailColor(argb);
   }
 
   /**
@@ -681,7 +697,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
       fontSizeMain = 999;
     else
       fontSizeMain = fontSize;
-    setAdapterData();
+    listAdapterWithRecyclerView.setTextMainSize(fontSizeMain);
   }
   /**
    * Returns the listview's text font Size
@@ -709,7 +725,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
       fontSizeDetail = 999;
     else
       fontSizeDetail = fontSize;
-    setAdapterData();
+    listAdapterWithRecyclerView.setTextDetailSize(fontSizeDetail);
   }
 
   /**
@@ -743,7 +759,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
           userVisible = false)
   public void FontTypeface(String typeface) {
     fontTypeface = typeface;
-    setAdapterData();
+    listAdapterWithRecyclerView.setTextMainFont(typeface);
   }
 
   /**
@@ -777,7 +793,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
           userVisible = false)
   public void FontTypefaceDetail(String typeface) {
     fontTypeDetail = typeface;
-    setAdapterData();
+    listAdapterWithRecyclerView.setTextDetailFont(typeface);
   }
   /**
    * Returns the image width of ListView layouts containing images
@@ -801,7 +817,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   @SimpleProperty
   public void ImageWidth(int width) {
     imageWidth = width;
-    setAdapterData();
+    listAdapterWithRecyclerView.setImageSize(imageWidth, imageHeight);
   }
 
   /**
@@ -826,7 +842,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   @SimpleProperty
   public void ImageHeight(int height) {
     imageHeight = height;
-    setAdapterData();
+    listAdapterWithRecyclerView.setImageSize(imageWidth, imageHeight);
   }
 
   /**
@@ -849,7 +865,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   @SimpleProperty(userVisible = false)
   public void ListViewLayout(int value) {
     layout = value;
-    setAdapterData();
+    updateLayout();
   }
 
   /**
@@ -878,7 +894,7 @@ public final class ListView extends AndroidViewComponent implements AdapterView.
   @SimpleProperty(description = "Specifies the layout's orientation (vertical, horizontal). ")
   public void Orientation(int orientation) {
     this.orientation = orientation;
-    setAdapterData();
+    updateLayout();
   }
 
   /**
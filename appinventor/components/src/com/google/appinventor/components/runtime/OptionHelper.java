@@ -15,6 +15,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Includes helper methods for getting the abstract enum value associated with a concrete value for
@@ -23,6 +25,41 @@ import java.util.Map;
  */
 public class OptionHelper {
 
+  /**
+   * Coerces the arguments of the events of the built-in components without reflection. The
+   * implementation, {@code OptionCoercions}, is generated by the OptionCoercionGenerator
+   * annotation processor.
+   */
+  interface EventArgCoercer {
+    /**
+     * Returns true if the coercer knows about all events of the given component class.
+     * @param componentClass The fully qualified name of the component class.
+     */
+    boolean hasComponent(String componentClass);
+
+    /**
+     * Replaces the args of the event that are associated with an OptionList with the matching
+     * OptionList values, in place.
+     * @param componentClass The fully qualified name of a component class known to the coercer.
+     * @param eventName The name of the event.
+     * @param args The concrete args of the event.
+     */
+    void coerceEventArgs(String componentClass, String eventName, Object[] args);
+  }
+
+  private static final String COERCER_CLASS =
+      "com.google.appinventor.components.runtime.OptionCoercions";
+
+  private static final EventArgCoercer coercer = loadCoercer();
+
+  /**
+   * The class known to the coercer whose events a component class has, keyed by component class.
+   * The empty string means that the events of the component class need to be coerced through
+   * reflection.
+   */
+  private static final ConcurrentMap<Class<?>, String> coercionClasses =
+      new ConcurrentHashMap<Class<?>, String>();
+
   private static final Map<String, Map<String, Method>> componentMethods =
       new HashMap<String, Map<String, Method>>();
     
@@ -36,7 +73,7 @@ public class OptionHelper {
    *     concrete value.
    */
   public static <T> Object optionListFromValue(Component c, String func, T value) {
-    Method calledFunc = getMethod(c, func);
+    Method calledFunc = getMethod(c.getClass(), func);
     if (calledFunc == null) {
       // Doesn't exist or not relevant.
       return value;
@@ -75,10 +112,30 @@ public class OptionHelper {
    *     otherwise the concrete values of the args.
    */
   public static Object[] optionListsFromValues(Component c, String func, Object...args) {
+    return optionListsFromValues(c.getClass(), func, args);
+  }
+
+  static Object[] optionListsFromValues(Class<?> componentClass, String func, Object...args) {
     if (args.length == 0) {
       return args;
     }
-    Method calledFunc = getMethod(c, func);
+    String coercionClass = getCoercionClass(componentClass);
+    if (!coercionClass.isEmpty()) {
+      coercer.coerceEventArgs(coercionClass, func, args);
+      return args;
+    }
+    return optionListsFromValuesReflectively(componentClass, func, args);
+  }
+
+  /**
+   * Does what {@link #optionListsFromValues(Component, String, Object...)} does by looking up
+   * the @Options annotations of the function and the fromUnderlyingValue methods of the
+   * OptionLists through reflection. This is used for extensions and for component subclasses
+   * that declare their own events.
+   */
+  static Object[] optionListsFromValuesReflectively(Class<?> componentClass, String func,
+      Object...args) {
+    Method calledFunc = getMethod(componentClass, func);
     if (calledFunc == null) {
       return args;
     }
@@ -113,15 +170,62 @@ public class OptionHelper {
     return args;
   }
 
+  /**
+   * Returns the name of the class known to the coercer whose events the given component class
+   * has, or the empty string if its events have to be coerced through reflection. A subclass of
+   * a known class, such as a Screen of an app, has the events of the known class unless it
+   * declares events itself.
+   */
+  private static String getCoercionClass(Class<?> componentClass) {
+    String coercionClass = coercionClasses.get(componentClass);
+    if (coercionClass == null) {
+      coercionClass = "";
+      if (coercer != null) {
+        for (Class<?> clazz = componentClass; clazz != null; clazz = clazz.getSuperclass()) {
+          if (coercer.hasComponent(clazz.getName())) {
+            coercionClass = clazz.getName();
+            break;
+          }
+          if (declaresEvents(clazz)) {
+            break;
+          }
+        }
+      }
+      coercionClasses.put(componentClass, coercionClass);
+    }
+    return coercionClass;
+  }
+
+  private static boolean declaresEvents(Class<?> clazz) {
+    for (Method m : clazz.getDeclaredMethods()) {
+      if (m.getAnnotation(SimpleEvent.class) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static EventArgCoercer loadCoercer() {
+    try {
+      return (EventArgCoercer) Class.forName(COERCER_CLASS).newInstance();
+    } catch (ClassNotFoundException e) {
+      // Not generated, so all events are coerced through reflection.
+    } catch (InstantiationException e) {
+      // Fall back to reflection.
+    } catch (IllegalAccessException e) {
+      // Fall back to reflection.
+    }
+    return null;
+  }
+
   /**
    * Returns the Method associated with the given component and function name. Returns null if the
    * Method does not exist or shouldn't be operated on in this context (e.g. a void method).
-   * @param c The component to get the method of.
+   * @param componentClass The class of the component to get the method of.
    * @param func The function on the component we want to get the Method of.
    * @return The Method representation of the method.
    */
-  private static Method getMethod(Component c, String func) {
-    Class<?> componentClass = c.getClass();
+  private static Method getMethod(Class<?> componentClass, String func) {
     String componentKey = componentClass.getSimpleName();
     Map<String, Method> methodMap = componentMethods.get(componentKey);
 
@@ -45,6 +45,12 @@ public abstract class PointChartDataModel<
     super(data, view);
   }
 
+  @Override
+  protected boolean canDecimate() {
+    // Points are kept sorted by x value.
+    return true;
+  }
+
   @Override
   public Entry getEntryFromTuple(YailList tuple) {
     try {
@@ -46,12 +46,23 @@ public abstract class Sprite extends VisibleComponent
   private static final boolean DEFAULT_VISIBLE = true;
   private static final double DEFAULT_Z = 1.0;
   private static final int DIRECTION_NONE = 0;
+  // Limit on the moves made in a single frame of the canvas game loop by a
+  // sprite that has fallen behind its Interval.
+  private static final int MAX_MOVES_PER_FRAME = 4;
   protected static final boolean DEFAULT_ORIGIN_AT_CENTER = false;
 
   protected final Canvas canvas;              // enclosing Canvas
   private final TimerInternal timerInternal;  // timer to control movement
   private final Handler androidUIHandler;     // for posting actions
 
+  // Whether the sprite moves.  The sprite is moved by timerInternal, or by
+  // its canvas if the canvas game loop is on.
+  private boolean enabled;
+
+  // Time, in SystemClock.uptimeMillis(), at which the canvas game loop should
+  // next move the sprite, or -1 if the next frame should schedule it.
+  private long nextMoveTime = -1;
+
   // Keeps track of which other sprites are currently colliding with this one.
   // That way, we don't raise CollidedWith() more than once for each collision.
   // Events are only raised when sprites are added to this collision set.  They
@@ -167,7 +178,7 @@ public abstract class Sprite extends VisibleComponent
       description = "Controls whether the %type% moves and can be interacted with " +
           "through collisions, dragging, touching, and flinging.")
   public boolean Enabled() {
-    return timerInternal.Enabled();
+    return enabled;
   }
 
   /**
@@ -181,7 +192,9 @@ public abstract class Sprite extends VisibleComponent
       defaultValue = DEFAULT_ENABLED ? "True" : "False")
   @SimpleProperty(category = PropertyCategory.BEHAVIOR)
   public void Enabled(boolean enabled) {
-    timerInternal.Enabled(enabled);
+    this.enabled = enabled;
+    timerInternal.Enabled(enabled && !canvas.GameLoop());
+    nextMoveTime = -1;
   }
 
   /**
@@ -685,6 +698,14 @@ public abstract class Sprite extends VisibleComponent
     return registeredCollisions.contains(other);
   }
 
+  /**
+   * Returns the sprites this sprite has registered a collision with, for
+   * use by its canvas.  The set must not be modified.
+   */
+  Set<Sprite> getRegisteredCollisions() {
+    return registeredCollisions;
+  }
+
   /**
    * Moves the sprite back in bounds if part of it extends out of bounds,
    * having no effect otherwise. If the sprite is too wide to fit on the
@@ -1069,6 +1090,49 @@ public abstract class Sprite extends VisibleComponent
     }
   }
 
+  // Canvas game loop support
+
+  /**
+   * Called by the canvas when its game loop is turned on or off, so that the
+   * sprite is moved either by its own timer or by the canvas.
+   */
+  void gameLoopChanged() {
+    timerInternal.Enabled(enabled && !canvas.GameLoop());
+    nextMoveTime = -1;
+  }
+
+  /**
+   * Updates the coordinates of the sprite for a frame of the canvas game loop,
+   * once for each {@link #Interval()} elapsed since it last moved, up to
+   * {@link #MAX_MOVES_PER_FRAME} times.  The caller is responsible for calling
+   * {@link #registerChange()} if the sprite moved.
+   *
+   * @param now the time of the frame, in
+   *     {@link android.os.SystemClock#uptimeMillis()}
+   * @return {@code true} if the coordinates changed
+   */
+  boolean advanceFrame(long now) {
+    int interval = Interval();
+    if (!initialized || !enabled || speed == 0 || nextMoveTime < 0) {
+      nextMoveTime = now + interval;
+      return false;
+    }
+    if (now < nextMoveTime) {
+      return false;
+    }
+    int moves = interval <= 0 ? 1
+        : (int) Math.min(MAX_MOVES_PER_FRAME, (now - nextMoveTime) / interval + 1);
+    for (int i = 0; i < moves; i++) {
+      updateCoordinates();
+    }
+    nextMoveTime += (long) moves * interval;
+    if (nextMoveTime <= now) {
+      // Too far behind to catch up, so drop the missed moves.
+      nextMoveTime = now + Math.max(interval, 0);
+    }
+    return true;
+  }
+
   // Component implementation
 
   @Override
@@ -1080,14 +1144,14 @@ public abstract class Sprite extends VisibleComponent
 
   @Override
   public void onDestroy() {
-    timerInternal.Enabled(false);
+    Enabled(false);
   }
 
   // Deleteable implementation
 
   @Override
   public void onDelete() {
-    timerInternal.Enabled(false);
+    Enabled(false);
     canvas.removeSprite(this);
   }
 
@@ -0,0 +1,133 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A list backed by a ring buffer, so that elements can be added to and
+ * removed from both ends in constant time.  Inserting or removing in the
+ * middle moves the elements on the shorter side of the index.  This suits
+ * time series that drop their oldest sample whenever a new one is added.
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @param <E> the type of the elements
+ */
+public final class CircularArrayList<E> extends AbstractList<E> implements RandomAccess {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private Object[] elements;
+  private int head;  // index in elements of the first element
+  private int size;
+
+  /**
+   * Creates an empty list.
+   */
+  public CircularArrayList() {
+    elements = new Object[DEFAULT_CAPACITY];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    checkIndex(index, size);
+    return (E) elements[slot(index)];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E set(int index, E element) {
+    checkIndex(index, size);
+    int slot = slot(index);
+    E old = (E) elements[slot];
+    elements[slot] = element;
+    return old;
+  }
+
+  @Override
+  public void add(int index, E element) {
+    checkIndex(index, size + 1);
+    if (size == elements.length) {
+      grow();
+    }
+    if (index < size / 2) {
+      // Move the elements before the index one slot back.
+      head = (head - 1 + elements.length) % elements.length;
+      for (int i = 0; i < index; i++) {
+        elements[slot(i)] = elements[slot(i + 1)];
+      }
+    } else {
+      // Move the elements from the index one slot forward.
+      for (int i = size; i > index; i--) {
+        elements[slot(i)] = elements[slot(i - 1)];
+      }
+    }
+    elements[slot(index)] = element;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E remove(int index) {
+    checkIndex(index, size);
+    E old = (E) elements[slot(index)];
+    if (index < size / 2) {
+      // Move the elements before the index one slot forward.
+      for (int i = index; i > 0; i--) {
+        elements[slot(i)] = elements[slot(i - 1)];
+      }
+      elements[head] = null;
+      head = (head + 1) % elements.length;
+    } else {
+      // Move the elements after the index one slot back.
+      for (int i = index; i < size - 1; i++) {
+        elements[slot(i)] = elements[slot(i + 1)];
+      }
+      elements[slot(size - 1)] = null;
+    }
+    size--;
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      elements[slot(i)] = null;
+    }
+    head = 0;
+    size = 0;
+    modCount++;
+  }
+
+  private int slot(int index) {
+    int slot = head + index;
+    return slot < elements.length ? slot : slot - elements.length;
+  }
+
+  private void grow() {
+    Object[] grown = new Object[elements.length * 2];
+    for (int i = 0; i < size; i++) {
+      grown[i] = elements[slot(i)];
+    }
+    elements = grown;
+    head = 0;
+  }
+
+  private void checkIndex(int index, int limit) {
+    if (index < 0 || index >= limit) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
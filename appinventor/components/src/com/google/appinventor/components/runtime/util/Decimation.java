@@ -0,0 +1,148 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+/**
+ * Picks a bounded number of points of a series that is sorted by x, so that a
+ * chart of a long series draws about as fast as a chart of a short one while
+ * keeping its shape.  The methods return the indices of the points to keep, in
+ * increasing order, and always keep the first and the last point.
+ */
+public final class Decimation {
+
+  /**
+   * The ways of picking the points of a series.
+   */
+  public enum Mode {
+    /**
+     * Largest-Triangle-Three-Buckets: from every bucket of points, keeps the
+     * point that forms the largest triangle with the point kept from the
+     * previous bucket and the average of the next bucket.
+     */
+    LTTB,
+
+    /**
+     * Keeps the points with the smallest and the largest y of every bucket, so
+     * that no peak of the series is lost.
+     */
+    MIN_MAX
+  }
+
+  private Decimation() {
+  }
+
+  /**
+   * Picks at most {@code threshold} of the first {@code count} points with
+   * the given mode.  All points are kept if there are no more than that.
+   *
+   * @param mode how to pick the points
+   * @param xs the x values of the points, in increasing order
+   * @param ys the y values of the points
+   * @param count the number of points
+   * @param threshold the number of points to keep, at least 3
+   * @return the indices of the kept points
+   */
+  public static int[] decimate(Mode mode, float[] xs, float[] ys, int count, int threshold) {
+    if (threshold < 3) {
+      throw new IllegalArgumentException("threshold must be at least 3");
+    }
+    if (count <= threshold) {
+      int[] all = new int[count];
+      for (int i = 0; i < count; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+    switch (mode) {
+      case LTTB:
+        return largestTriangleThreeBuckets(xs, ys, count, threshold);
+      case MIN_MAX:
+        return minMax(ys, count, threshold);
+      default:
+        throw new IllegalArgumentException("Unknown mode: " + mode);
+    }
+  }
+
+  private static int[] largestTriangleThreeBuckets(float[] xs, float[] ys, int count,
+      int threshold) {
+    int[] kept = new int[threshold];
+    kept[0] = 0;
+    // The first and last points are kept on their own, and the points in
+    // between are split into threshold - 2 buckets.
+    double bucketSize = (double) (count - 2) / (threshold - 2);
+    int previous = 0;
+    for (int bucket = 0; bucket < threshold - 2; bucket++) {
+      int start = (int) (bucket * bucketSize) + 1;
+      int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+      // Average of the next bucket, or the last point after the last bucket.
+      int nextStart = end;
+      int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, count);
+      if (bucket == threshold - 3) {
+        nextStart = count - 1;
+        nextEnd = count;
+      }
+      double averageX = 0;
+      double averageY = 0;
+      for (int i = nextStart; i < nextEnd; i++) {
+        averageX += xs[i];
+        averageY += ys[i];
+      }
+      averageX /= nextEnd - nextStart;
+      averageY /= nextEnd - nextStart;
+
+      double maxArea = -1;
+      int picked = start;
+      for (int i = start; i < end; i++) {
+        // Twice the area of the triangle; the factor does not change the pick.
+        double area = Math.abs((xs[previous] - averageX) * (ys[i] - ys[previous])
+            - (xs[previous] - xs[i]) * (averageY - ys[previous]));
+        if (area > maxArea) {
+          maxArea = area;
+          picked = i;
+        }
+      }
+      kept[bucket + 1] = picked;
+      previous = picked;
+    }
+    kept[threshold - 1] = count - 1;
+    return kept;
+  }
+
+  private static int[] minMax(float[] ys, int count, int threshold) {
+    // Two points per bucket, besides the first and last points.
+    int buckets = (threshold - 2) / 2;
+    int[] kept = new int[buckets * 2 + 2];
+    int keptCount = 0;
+    kept[keptCount++] = 0;
+    double bucketSize = (double) (count - 2) / buckets;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      int start = (int) (bucket * bucketSize) + 1;
+      int end = (int) ((bucket + 1) * bucketSize) + 1;
+      int min = start;
+      int max = start;
+      for (int i = start + 1; i < end; i++) {
+        if (ys[i] < ys[min]) {
+          min = i;
+        }
+        if (ys[i] > ys[max]) {
+          max = i;
+        }
+      }
+      kept[keptCount++] = Math.min(min, max);
+      if (min != max) {
+        kept[keptCount++] = Math.max(min, max);
+      }
+    }
+    kept[keptCount++] = count - 1;
+    if (keptCount == kept.length) {
+      return kept;
+    }
+    int[] trimmed = new int[keptCount];
+    System.arraycopy(kept, 0, trimmed, 0, keptCount);
+    return trimmed;
+  }
+}
@@ -0,0 +1,159 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid of square cells indexing items by the cells their bounding
+ * boxes overlap, so that the items near a region can be found without looking
+ * at every item.  Two items whose bounding boxes overlap or abut always share
+ * at least one cell.
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @param <T> the type of the indexed items
+ */
+public final class SpatialHashGrid<T> {
+  private final double cellSize;
+
+  // Items in each cell, keyed by the packed cell coordinates.
+  private final Map<Long, List<T>> cells = new HashMap<Long, List<T>>();
+
+  // Range of cells covered by each item: first column, first row, last column, last row.
+  private final Map<T, int[]> ranges = new HashMap<T, int[]>();
+
+  /**
+   * Creates an empty grid.
+   *
+   * @param cellSize the width and height of a cell
+   */
+  public SpatialHashGrid(double cellSize) {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("cellSize must be positive");
+    }
+    this.cellSize = cellSize;
+  }
+
+  /**
+   * Adds an item to the grid, or moves it if it is already there.
+   *
+   * @param item the item
+   * @param box the bounding box of the item
+   */
+  public void update(T item, BoundingBox box) {
+    int firstColumn = cellOf(box.getLeft());
+    int firstRow = cellOf(box.getTop());
+    int lastColumn = cellOf(box.getRight());
+    int lastRow = cellOf(box.getBottom());
+    int[] range = ranges.get(item);
+    if (range != null) {
+      if (range[0] == firstColumn && range[1] == firstRow
+          && range[2] == lastColumn && range[3] == lastRow) {
+        // Most moves stay within the same cells.
+        return;
+      }
+      removeFromCells(item, range);
+    } else {
+      range = new int[4];
+      ranges.put(item, range);
+    }
+    range[0] = firstColumn;
+    range[1] = firstRow;
+    range[2] = lastColumn;
+    range[3] = lastRow;
+    for (int column = firstColumn; column <= lastColumn; column++) {
+      for (int row = firstRow; row <= lastRow; row++) {
+        Long key = key(column, row);
+        List<T> cell = cells.get(key);
+        if (cell == null) {
+          cell = new ArrayList<T>(2);
+          cells.put(key, cell);
+        }
+        cell.add(item);
+      }
+    }
+  }
+
+  /**
+   * Removes an item from the grid, having no effect if it is not there.
+   *
+   * @param item the item
+   */
+  public void remove(T item) {
+    int[] range = ranges.remove(item);
+    if (range != null) {
+      removeFromCells(item, range);
+    }
+  }
+
+  /**
+   * Indicates whether an item is in the grid.
+   *
+   * @param item the item
+   * @return {@code true} if the item has been added and not removed
+   */
+  public boolean contains(T item) {
+    return ranges.containsKey(item);
+  }
+
+  /**
+   * Adds the items sharing a cell with the given box to {@code result}.  The
+   * result contains every item whose bounding box overlaps or abuts
+   * {@code box}, and possibly others nearby.  An item spanning several cells
+   * is added once per shared cell, so callers wanting each item once should
+   * pass a {@link java.util.Set}.
+   *
+   * @param box the region to search
+   * @param result the collection the items are added to
+   */
+  public void query(BoundingBox box, Collection<? super T> result) {
+    int lastColumn = cellOf(box.getRight());
+    int lastRow = cellOf(box.getBottom());
+    for (int column = cellOf(box.getLeft()); column <= lastColumn; column++) {
+      for (int row = cellOf(box.getTop()); row <= lastRow; row++) {
+        List<T> cell = cells.get(key(column, row));
+        if (cell != null) {
+          result.addAll(cell);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of items in the grid.
+   */
+  public int size() {
+    return ranges.size();
+  }
+
+  private void removeFromCells(T item, int[] range) {
+    for (int column = range[0]; column <= range[2]; column++) {
+      for (int row = range[1]; row <= range[3]; row++) {
+        Long key = key(column, row);
+        List<T> cell = cells.get(key);
+        if (cell != null) {
+          cell.remove(item);
+          if (cell.isEmpty()) {
+            cells.remove(key);
+          }
+        }
+      }
+    }
+  }
+
+  private int cellOf(double coordinate) {
+    return (int) Math.floor(coordinate / cellSize);
+  }
+
+  private static Long key(int column, int row) {
+    return ((long) column << 32) | (row & 0xffffffffL);
+  }
+}
@@ -0,0 +1,154 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.scripts;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Modifier;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates the class that coerces the concrete values components pass to their events to
+ * OptionLists, so that {@link com.google.appinventor.components.runtime.OptionHelper} does not
+ * have to find the {@code @Options} annotations and {@code fromUnderlyingValue} methods through
+ * reflection every time an event is dispatched.
+ *
+ * <p>For every event parameter annotated with {@code @Options} the generated class calls the
+ * {@code fromUnderlyingValue} method of the OptionList directly. Parameters whose type is an
+ * OptionList are left alone, as the reflective code does.</p>
+ *
+ * <p>Only built-in components are included. External components are left out, and nothing is
+ * generated when an extension is compiled, so that an extension cannot replace the class of the
+ * companion or of the app. A component with an {@code @Options} event parameter whose
+ * coercion cannot be generated is left out as well, with a warning, so that its events keep
+ * being coerced through reflection.</p>
+ */
+public final class OptionCoercionGenerator extends ComponentProcessor {
+  private static final String OUTPUT_PACKAGE = "com.google.appinventor.components.runtime";
+  private static final String OUTPUT_CLASS = "OptionCoercions";
+
+  @Override
+  protected void outputResults() throws IOException {
+    StringBuilder known = new StringBuilder();
+    StringBuilder coercions = new StringBuilder();
+    for (ComponentInfo component : components.values()) {
+      if (component.getExternal()) {
+        continue;
+      }
+      StringBuilder events = new StringBuilder();
+      boolean complete = true;
+      for (Event event : component.events.values()) {
+        StringBuilder params = new StringBuilder();
+        for (int i = 0; i < event.parameters.size(); i++) {
+          if (!outputCoercion(params, event.parameters.get(i), i)) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "Unable to generate the OptionList "
+                + "coercion of parameter " + event.parameters.get(i).name + " of event "
+                + component.name + "." + event.name + ". Its events will be coerced through "
+                + "reflection.");
+            complete = false;
+          }
+        }
+        if (params.length() > 0) {
+          events.append("          case \"").append(event.name).append("\":\n")
+              .append(params)
+              .append("            break;\n");
+        }
+      }
+      if (!complete) {
+        continue;
+      }
+      known.append("      case \"").append(component.type).append("\":\n");
+      if (events.length() > 0) {
+        coercions.append("      case \"").append(component.type).append("\":\n")
+            .append("        switch (eventName) {\n")
+            .append(events)
+            .append("        }\n")
+            .append("        break;\n");
+      }
+    }
+    if (known.length() == 0) {
+      return;
+    }
+
+    JavaFileObject src = processingEnv.getFiler()
+        .createSourceFile(OUTPUT_PACKAGE + "." + OUTPUT_CLASS);
+    try (Writer writer = src.openWriter()) {
+      writer.write("// Generated by " + getClass().getSimpleName() + ". Do not edit.\n"
+          + "package " + OUTPUT_PACKAGE + ";\n"
+          + "\n"
+          + "final class " + OUTPUT_CLASS + " implements OptionHelper.EventArgCoercer {\n"
+          + "  @Override\n"
+          + "  public boolean hasComponent(String componentClass) {\n"
+          + "    switch (componentClass) {\n"
+          + known
+          + "        return true;\n"
+          + "      default:\n"
+          + "        return false;\n"
+          + "    }\n"
+          + "  }\n"
+          + "\n"
+          + "  @Override\n"
+          + "  public void coerceEventArgs(String componentClass, String eventName, "
+          + "Object[] args) {\n"
+          + "    switch (componentClass) {\n"
+          + coercions
+          + "    }\n"
+          + "  }\n"
+          + "}\n");
+      writer.flush();
+    }
+    messager.printMessage(Diagnostic.Kind.NOTE, "Wrote file " + src.toUri());
+  }
+
+  /*
+   * Appends the statements that coerce the parameter at the given index, if it is annotated
+   * with @Options. Returns false if the parameter needs a coercion that cannot be generated,
+   * because the OptionList is unknown or has no static fromUnderlyingValue method.
+   */
+  private boolean outputCoercion(StringBuilder sb, Parameter param, int index) {
+    HelperKey helper = param.getHelperKey();
+    if (helper == null || helper.getType() != HelperType.OPTION_LIST) {
+      return true;
+    }
+    OptionList optionList = optionLists.get(helper.getKey());
+    if (optionList == null || optionList.getUnderlyingType() == null) {
+      return false;
+    }
+    if (param.type.toString().equals(optionList.getClassName())) {
+      return true;
+    }
+    String optionClass = optionList.getClassName();
+    String underlyingType = optionList.getUnderlyingType().toString();
+    if (!hasFromUnderlyingValue(optionClass, underlyingType)) {
+      return false;
+    }
+    sb.append("            if (args.length > ").append(index)
+        .append(" && args[").append(index).append("] instanceof ").append(underlyingType)
+        .append(") {\n")
+        .append("              Object option = ").append(optionClass)
+        .append(".fromUnderlyingValue((").append(underlyingType).append(") args[")
+        .append(index).append("]);\n")
+        .append("              if (option != null) {\n")
+        .append("                args[").append(index).append("] = option;\n")
+        .append("              }\n")
+        .append("            }\n");
+    return true;
+  }
+
+  private static boolean hasFromUnderlyingValue(String optionClass, String underlyingType) {
+    try {
+      java.lang.reflect.Method fromValue = Class.forName(optionClass)
+          .getMethod("fromUnderlyingValue", Class.forName(underlyingType));
+      return Modifier.isStatic(fromValue.getModifiers());
+    } catch (ClassNotFoundException e) {
+      return false;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+}
@@ -311,6 +311,46 @@ public class ChartData2DTest extends RobolectricTestBase {
     assertNotSame(mode, ((LineDataSet)model.getDataset()).getMode());
   }
 
+  /**
+   * Test case to ensure that setting the Maximum Rendered Entries
+   * of the Data component draws at most that many entries, while
+   * the Data Series keeps all of them.
+   */
+  @Test
+  public void testSetMaximumRenderedEntries() {
+    assertEquals(0, data.MaximumRenderedEntries());
+    for (int i = 0; i < 50; i++) {
+      data.AddEntry(Integer.toString(i), Integer.toString(i % 7));
+    }
+    assertEquals(50, model.getEntriesToRender().size());
+
+    data.MaximumRenderedEntries(10);
+    assertEquals(10, data.MaximumRenderedEntries());
+    assertEquals(10, model.getEntriesToRender().size());
+    assertEquals(50, model.getEntries().size());
+
+    data.MaximumRenderedEntries(1);
+    assertEquals(3, data.MaximumRenderedEntries());
+
+    data.MaximumRenderedEntries(0);
+    assertEquals(50, model.getEntriesToRender().size());
+  }
+
+  /**
+   * Test case to ensure that the Maximum Rendered Entries are kept
+   * when the Chart type changes, which replaces the Data Series model.
+   */
+  @Test
+  public void testMaximumRenderedEntriesKeptOnTypeChange() {
+    data.MaximumRenderedEntries(10);
+    chartComponent.Type(ChartType.Scatter);
+    model = data.dataModel;
+    for (int i = 0; i < 50; i++) {
+      data.AddEntry(Integer.toString(i), Integer.toString(i % 7));
+    }
+    assertEquals(10, model.getEntriesToRender().size());
+  }
+
   /**
    * Test case to ensure that setting the elements from pairs
    * property with a null value imports no values.
@@ -0,0 +1,108 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the cost of {@link EventDispatcher#dispatchEvent(Component, String, Object...)} on a
+ * screen with 10, 100 and 500 components that each have a Click handler. The dispatch delegate
+ * checks the registered component name against the component the way the Screen's generated
+ * {@code dispatchEvent} does, and counts how often the dispatcher asks it to.
+ *
+ * <p>This is not run as part of the tests.  Run it with the components test
+ * class path:</p>
+ *
+ * <pre>
+ * java -cp ... com.google.appinventor.components.runtime.EventDispatcherBenchmark
+ * </pre>
+ */
+public final class EventDispatcherBenchmark {
+  private static final String EVENT = "Click";
+  private static final int[] HANDLERS = { 10, 100, 500 };
+  private static final int WARMUP_DISPATCHES = 200000;
+  private static final int DISPATCHES = 1000000;
+
+  private EventDispatcherBenchmark() {
+  }
+
+  public static void main(String[] args) {
+    System.out.println("handlers  ns/dispatch  delegate calls/dispatch");
+    for (int handlers : HANDLERS) {
+      Delegate delegate = new Delegate();
+      StubComponent[] components = new StubComponent[handlers];
+      for (int i = 0; i < handlers; i++) {
+        components[i] = new StubComponent(delegate);
+        delegate.components.put("Button" + i, components[i]);
+        EventDispatcher.registerEventForDelegation(delegate, "Button" + i, EVENT);
+      }
+      run(components, WARMUP_DISPATCHES);
+      delegate.calls = 0;
+      delegate.handled = 0;
+      long nanos = run(components, DISPATCHES);
+      if (delegate.handled != DISPATCHES) {
+        throw new AssertionError("Handled " + delegate.handled + " of " + DISPATCHES);
+      }
+      System.out.println(String.format("%8d  %11.1f  %23.2f", handlers,
+          (double) nanos / DISPATCHES, (double) delegate.calls / DISPATCHES));
+      EventDispatcher.removeDispatchDelegate(delegate);
+    }
+  }
+
+  private static long run(StubComponent[] components, int dispatches) {
+    long start = System.nanoTime();
+    for (int i = 0; i < dispatches; i++) {
+      EventDispatcher.dispatchEvent(components[i % components.length], EVENT);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static final class StubComponent implements Component {
+    private final HandlesEventDispatching delegate;
+
+    StubComponent(HandlesEventDispatching delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public HandlesEventDispatching getDispatchDelegate() {
+      return delegate;
+    }
+  }
+
+  private static final class Delegate implements HandlesEventDispatching {
+    private final Map<String, Component> components = new HashMap<String, Component>();
+    private long calls;
+    private long handled;
+
+    @Override
+    public boolean canDispatchEvent(Component component, String eventName) {
+      return true;
+    }
+
+    @Override
+    public boolean dispatchEvent(Component component, String componentName, String eventName,
+        Object[] args) {
+      calls++;
+      if (components.get(componentName) == component) {
+        handled++;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void dispatchErrorOccurredEvent(Component component, String functionName,
+        int errorCode, Object... args) {
+    }
+
+    @Override
+    public void dispatchGenericEvent(Component component, String eventName,
+        boolean notAlreadyHandled, Object[] args) {
+    }
+  }
+}
@@ -0,0 +1,201 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the component id cache of {@link EventDispatcher}.
+ */
+public class EventDispatcherTest {
+  private Delegate delegate;
+  private StubComponent button1;
+  private StubComponent button2;
+
+  @Before
+  public void setUp() {
+    delegate = new Delegate();
+    button1 = new StubComponent(delegate);
+    button2 = new StubComponent(delegate);
+    delegate.components.put("Button1", button1);
+    delegate.components.put("Button2", button2);
+    delegate.components.put("Button3", new StubComponent(delegate));
+    EventDispatcher.registerEventForDelegation(delegate, "Button1", "Click");
+    EventDispatcher.registerEventForDelegation(delegate, "Button2", "Click");
+    EventDispatcher.registerEventForDelegation(delegate, "Button3", "Click");
+  }
+
+  @After
+  public void tearDown() {
+    EventDispatcher.removeDispatchDelegate(delegate);
+  }
+
+  @Test
+  public void testFirstEventAsksAboutEveryClosure() {
+    assertTrue(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(3, delegate.calls.size());
+    assertEquals(1, delegate.handled.size());
+  }
+
+  @Test
+  public void testRepeatedEventAsksAboutOneClosure() {
+    EventDispatcher.dispatchEvent(button1, "Click");
+    delegate.reset();
+    assertTrue(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(listOf("Button1.Click"), delegate.calls);
+    assertEquals(listOf("Button1.Click"), delegate.handled);
+  }
+
+  @Test
+  public void testSecondEventOfSameComponentUsesCachedId() {
+    EventDispatcher.registerEventForDelegation(delegate, "Button1", "LongClick");
+    EventDispatcher.registerEventForDelegation(delegate, "Button2", "LongClick");
+    EventDispatcher.dispatchEvent(button1, "Click");
+    delegate.reset();
+    assertTrue(EventDispatcher.dispatchEvent(button1, "LongClick"));
+    assertEquals(listOf("Button1.LongClick"), delegate.calls);
+    assertEquals(listOf("Button1.LongClick"), delegate.handled);
+  }
+
+  @Test
+  public void testSecondEventWithoutHandlerSkipsDelegate() {
+    EventDispatcher.registerEventForDelegation(delegate, "Button2", "LongClick");
+    EventDispatcher.dispatchEvent(button1, "Click");
+    delegate.reset();
+    assertFalse(EventDispatcher.dispatchEvent(button1, "LongClick"));
+    assertTrue(delegate.calls.isEmpty());
+  }
+
+  @Test
+  public void testRegisterClearsCache() {
+    EventDispatcher.dispatchEvent(button1, "Click");
+    EventDispatcher.registerEventForDelegation(delegate, "Button4", "Click");
+    delegate.reset();
+    assertTrue(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(4, delegate.calls.size());
+    assertEquals(listOf("Button1.Click"), delegate.handled);
+  }
+
+  @Test
+  public void testUnregisterClearsCache() {
+    EventDispatcher.dispatchEvent(button1, "Click");
+    EventDispatcher.unregisterEventForDelegation(delegate, "Button3", "Click");
+    delegate.reset();
+    assertTrue(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(2, delegate.calls.size());
+    assertEquals(listOf("Button1.Click"), delegate.handled);
+  }
+
+  @Test
+  public void testUnregisterOfCachedIdStopsDispatch() {
+    EventDispatcher.dispatchEvent(button1, "Click");
+    EventDispatcher.unregisterEventForDelegation(delegate, "Button1", "Click");
+    delegate.reset();
+    assertFalse(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(2, delegate.calls.size());
+    assertTrue(delegate.handled.isEmpty());
+  }
+
+  @Test
+  public void testComponentReboundToAnotherId() {
+    EventDispatcher.dispatchEvent(button1, "Click");
+    EventDispatcher.dispatchEvent(button2, "Click");
+
+    // Swap the names in the REPL without touching the registered closures.
+    delegate.components.put("Button1", button2);
+    delegate.components.put("Button2", button1);
+    delegate.reset();
+    assertTrue(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(listOf("Button2.Click"), delegate.handled);
+
+    // The new id is remembered.
+    delegate.reset();
+    assertTrue(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(listOf("Button2.Click"), delegate.calls);
+  }
+
+  @Test
+  public void testComponentNoLongerBound() {
+    EventDispatcher.dispatchEvent(button1, "Click");
+    delegate.components.remove("Button1");
+    delegate.reset();
+    assertFalse(EventDispatcher.dispatchEvent(button1, "Click"));
+    assertEquals(3, delegate.calls.size());
+    assertTrue(delegate.handled.isEmpty());
+  }
+
+  private static List<String> listOf(String... values) {
+    List<String> list = new ArrayList<String>();
+    for (String value : values) {
+      list.add(value);
+    }
+    return list;
+  }
+
+  private static final class StubComponent implements Component {
+    private final HandlesEventDispatching delegate;
+
+    StubComponent(HandlesEventDispatching delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public HandlesEventDispatching getDispatchDelegate() {
+      return delegate;
+    }
+  }
+
+  /**
+   * Dispatches an event if the registered component name is bound to the component raising it,
+   * the way the Screen's generated {@code dispatchEvent} does, and records each call.
+   */
+  private static final class Delegate implements HandlesEventDispatching {
+    private final Map<String, Component> components = new HashMap<String, Component>();
+    private final List<String> calls = new ArrayList<String>();
+    private final List<String> handled = new ArrayList<String>();
+
+    void reset() {
+      calls.clear();
+      handled.clear();
+    }
+
+    @Override
+    public boolean canDispatchEvent(Component component, String eventName) {
+      return true;
+    }
+
+    @Override
+    public boolean dispatchEvent(Component component, String componentName, String eventName,
+        Object[] args) {
+      calls.add(componentName + "." + eventName);
+      if (components.get(componentName) == component) {
+        handled.add(componentName + "." + eventName);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void dispatchErrorOccurredEvent(Component component, String functionName,
+        int errorCode, Object... args) {
+    }
+
+    @Override
+    public void dispatchGenericEvent(Component component, String eventName,
+        boolean notAlreadyHandled, Object[] args) {
+    }
+  }
+}
@@ -7,6 +7,7 @@ package com.google.appinventor.components.runtime;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import android.view.View;
@@ -92,6 +93,83 @@ public class ListViewTest extends RobolectricTestBase {
     assertEquals(2, count);
   }
 
+  /**
+   * Test that rows hidden by the filter are removed from the adapter, and that they come back
+   * when the query is shortened.
+   */
+  @Test
+  public void testFilterHidesRows() throws InterruptedException {
+    ListView listView = new ListView(getForm());
+    listView.ElementsFromString("apple,banana,cantaloupe,date");
+    EditText filterBox = (EditText) ((LinearLayout) listView.getView()).getChildAt(0);
+    RecyclerView rv = (RecyclerView) ((LinearLayout) listView.getView()).getChildAt(1);
+
+    filterBox.setText("a");
+    Thread.sleep(100);  // Filtering runs on a separate thread for performance reasons
+    runAllEvents();
+    assertEquals(4, rv.getAdapter().getItemCount());
+
+    filterBox.setText("an");
+    Thread.sleep(100);
+    runAllEvents();
+    assertEquals(2, rv.getAdapter().getItemCount());
+
+    filterBox.setText("");
+    Thread.sleep(100);
+    runAllEvents();
+    assertEquals(4, rv.getAdapter().getItemCount());
+  }
+
+  /**
+   * Test that property and element changes update the rows of the existing adapter rather than
+   * replacing it.
+   */
+  @Test
+  public void testUpdatesKeepAdapter() {
+    ListView listView = new ListView(getForm());
+    listView.ElementsFromString("apple,banana,cantaloupe");
+    RecyclerView rv = (RecyclerView) ((LinearLayout) listView.getView()).getChildAt(1);
+    RecyclerView.Adapter<?> adapter = rv.getAdapter();
+
+    listView.TextColor(Component.COLOR_RED);
+    listView.FontSize(30);
+    listView.ElementsFromString("apple,cantaloupe,date,elderberry");
+    assertSame(adapter, rv.getAdapter());
+    assertEquals(4, adapter.getItemCount());
+  }
+
+  /**
+   * Test that the rows of a long list of new items are diffed off the UI thread, and that the
+   * old rows are shown until then while the new items can already be selected.
+   */
+  @Test
+  public void testLongListDiffedAsynchronously() {
+    ListView listView = new ListView(getForm());
+    listView.ElementsFromString(numbers(0, 600));
+    RecyclerView rv = (RecyclerView) ((LinearLayout) listView.getView()).getChildAt(1);
+    ListAdapterWithRecyclerView adapter = (ListAdapterWithRecyclerView) rv.getAdapter();
+    assertEquals(600, adapter.getItemCount());
+
+    listView.ElementsFromString(numbers(100, 800));
+    listView.SelectionIndex(1);
+    assertEquals(600, adapter.getItemCount());
+    assertEquals("100", adapter.getSelectedItems());
+
+    runAllAsynchronousCommandsAndEvents();
+    assertEquals(700, adapter.getItemCount());
+    assertEquals("100", adapter.getSelectedItems());
+  }
+
+  private static String numbers(int from, int to) {
+    StringBuilder sb = new StringBuilder();
+    String sep = "";
+    for (int i = from; i < to; i++) {
+      sb.append(sep).append(i);
+      sep = ",";
+    }
+    return sb.toString();
+  }
+
   private View getViewForPosition(ListView listView, int position) {
     RecyclerView rv = (RecyclerView) ((LinearLayout) listView.getView()).getChildAt(1);
     RecyclerView.ViewHolder vh = rv.findViewHolderForAdapterPosition(position);
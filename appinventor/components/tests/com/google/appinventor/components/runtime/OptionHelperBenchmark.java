@@ -0,0 +1,71 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the cost of coercing the arguments of an event to OptionLists through the
+ * generated {@code OptionCoercions} class and through reflection, in time and in bytes
+ * allocated per dispatch.  The event is {@link Form#PermissionGranted(String)}, whose argument
+ * is coerced to a {@link com.google.appinventor.components.common.Permission}.
+ *
+ * <p>This is not run as part of the tests.  Run it with the components test
+ * class path:</p>
+ *
+ * <pre>
+ * java -cp ... com.google.appinventor.components.runtime.OptionHelperBenchmark
+ * </pre>
+ */
+public final class OptionHelperBenchmark {
+  private static final String EVENT = "PermissionGranted";
+  private static final String PERMISSION = "CAMERA";
+  private static final int WARMUP_DISPATCHES = 200000;
+  private static final int DISPATCHES = 1000000;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private OptionHelperBenchmark() {
+  }
+
+  public static void main(String[] args) {
+    Object[] generated = new Object[1];
+    Object[] reflective = new Object[1];
+    run(generated, WARMUP_DISPATCHES, false);
+    run(reflective, WARMUP_DISPATCHES, true);
+    if (generated[0] != reflective[0]) {
+      throw new AssertionError("Paths disagree: " + generated[0] + " " + reflective[0]);
+    }
+
+    System.out.println("path        ns/dispatch  bytes/dispatch");
+    report("generated", generated, false);
+    report("reflection", reflective, true);
+  }
+
+  private static void report(String name, Object[] eventArgs, boolean reflectively) {
+    long threadId = Thread.currentThread().getId();
+    long bytes = THREADS.getThreadAllocatedBytes(threadId);
+    long nanos = run(eventArgs, DISPATCHES, reflectively);
+    bytes = THREADS.getThreadAllocatedBytes(threadId) - bytes;
+    System.out.println(String.format("%-10s  %11.1f  %14.1f", name,
+        (double) nanos / DISPATCHES, (double) bytes / DISPATCHES));
+  }
+
+  private static long run(Object[] eventArgs, int dispatches, boolean reflectively) {
+    long start = System.nanoTime();
+    for (int i = 0; i < dispatches; i++) {
+      // The args are coerced in place, so put the concrete value back every time.
+      eventArgs[0] = PERMISSION;
+      if (reflectively) {
+        OptionHelper.optionListsFromValuesReflectively(Form.class, EVENT, eventArgs);
+      } else {
+        OptionHelper.optionListsFromValues(Form.class, EVENT, eventArgs);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,189 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.appinventor.components.annotations.DesignerComponent;
+import com.google.appinventor.components.annotations.Options;
+import com.google.appinventor.components.annotations.SimpleEvent;
+import com.google.appinventor.components.annotations.SimpleObject;
+import com.google.appinventor.components.common.OptionList;
+import com.google.appinventor.components.common.Permission;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.junit.Test;
+
+/**
+ * Tests that the generated {@code OptionCoercions} class coerces event arguments the same way
+ * as the reflective code in {@link OptionHelper}.
+ */
+public class OptionHelperTest {
+  private static final String RUNTIME_PACKAGE = "com/google/appinventor/components/runtime/";
+
+  /**
+   * Test case to ensure that every option of every @Options event parameter of the built-in
+   * components is coerced to the same value by the generated and the reflective code.
+   */
+  @Test
+  public void testGeneratedCoercionsMatchReflection() throws Exception {
+    assertNotNull(Class.forName(OptionHelper.class.getPackage().getName() + ".OptionCoercions"));
+    int checked = 0;
+    for (Class<?> component : builtInComponents()) {
+      for (Method event : component.getMethods()) {
+        if (event.getAnnotation(SimpleEvent.class) == null) {
+          continue;
+        }
+        Annotation[][] annotations = event.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+          Options options = findOptions(annotations[i]);
+          if (options == null) {
+            continue;
+          }
+          for (Object value : sampleValues(options.value())) {
+            Object[] generated = new Object[annotations.length];
+            Object[] reflective = new Object[annotations.length];
+            generated[i] = value;
+            reflective[i] = value;
+            OptionHelper.optionListsFromValues(component, event.getName(), generated);
+            OptionHelper.optionListsFromValuesReflectively(component, event.getName(),
+                reflective);
+            assertArrayEquals(component.getSimpleName() + "." + event.getName() + " " + value,
+                reflective, generated);
+            checked++;
+          }
+        }
+      }
+    }
+    assertTrue("No @Options event parameters found", checked > 0);
+  }
+
+  /**
+   * Test case to ensure that a component class the generated code does not know about, such as
+   * an extension, has its event arguments coerced through reflection.
+   */
+  @Test
+  public void testUnknownComponentFallsBackToReflection() {
+    String value = Permission.Camera.toUnderlyingValue();
+    Object[] args = OptionHelper.optionListsFromValues(UnknownComponent.class, "Changed", value);
+    assertEquals(Permission.Camera, args[0]);
+  }
+
+  /**
+   * Test case to ensure that a subclass of a built-in component that declares no events of its
+   * own, such as the Screen of an app, has the events of the built-in component coerced.
+   */
+  @Test
+  public void testSubclassOfKnownComponent() {
+    String value = Permission.Camera.toUnderlyingValue();
+    Object[] args = OptionHelper.optionListsFromValues(Screen1.class, "PermissionGranted",
+        value);
+    assertEquals(Permission.Camera, args[0]);
+  }
+
+  private static Options findOptions(Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (annotation instanceof Options) {
+        return (Options) annotation;
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Returns the underlying values of all options of the OptionList, and a value of the wrong
+   * type, which neither path coerces.
+   */
+  private static List<Object> sampleValues(Class<?> optionListClass) {
+    List<Object> values = new ArrayList<Object>();
+    Object[] options = optionListClass.getEnumConstants();
+    if (options != null) {
+      for (Object option : options) {
+        values.add(((OptionList<?>) option).toUnderlyingValue());
+      }
+    }
+    values.add(new Object());
+    return values;
+  }
+
+  /*
+   * Returns the built-in components, which are the non-external classes in the runtime package
+   * annotated with @DesignerComponent. The classes are not initialized.
+   */
+  private static List<Class<?>> builtInComponents() throws IOException, URISyntaxException {
+    List<String> classNames = new ArrayList<String>();
+    File location = new File(Form.class.getProtectionDomain().getCodeSource().getLocation()
+        .toURI());
+    if (location.isDirectory()) {
+      File[] files = new File(location, RUNTIME_PACKAGE).listFiles();
+      if (files != null) {
+        for (File file : files) {
+          classNames.add(RUNTIME_PACKAGE + file.getName());
+        }
+      }
+    } else {
+      JarFile jar = new JarFile(location);
+      try {
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+          String name = entries.nextElement().getName();
+          if (name.startsWith(RUNTIME_PACKAGE)
+              && name.indexOf('/', RUNTIME_PACKAGE.length()) < 0) {
+            classNames.add(name);
+          }
+        }
+      } finally {
+        jar.close();
+      }
+    }
+
+    List<Class<?>> components = new ArrayList<Class<?>>();
+    ClassLoader loader = OptionHelperTest.class.getClassLoader();
+    for (String name : classNames) {
+      if (!name.endsWith(".class") || name.contains("$")) {
+        continue;
+      }
+      String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+      Class<?> clazz;
+      try {
+        clazz = Class.forName(className, false, loader);
+      } catch (ClassNotFoundException e) {
+        continue;
+      }
+      SimpleObject simpleObject = clazz.getAnnotation(SimpleObject.class);
+      if (clazz.getAnnotation(DesignerComponent.class) != null
+          && !Modifier.isAbstract(clazz.getModifiers())
+          && (simpleObject == null || !simpleObject.external())) {
+        components.add(clazz);
+      }
+    }
+    assertTrue("No built-in components found in " + location, !components.isEmpty());
+    return components;
+  }
+
+  private abstract static class Screen1 extends Form {
+  }
+
+  private abstract static class UnknownComponent implements Component {
+    @SimpleEvent
+    public void Changed(@Options(Permission.class) String permission) {
+    }
+  }
+}
@@ -295,4 +295,38 @@ public class SpriteTest {
     assertEquals(0.0, bigCat.X(), DELTA);
     assertEquals(0.0, bigCat.Y(), DELTA);
   }
+
+  @Test
+  public void testAdvanceFrameMovesOncePerInterval() throws Exception {
+    TestSprite sprite = TestSprite.createTestSprite(canvasMock, handlerMock, 10, 10);
+    sprite.Initialize();
+    sprite.MoveTo(0, 0);
+    sprite.Heading(0);
+    sprite.Interval(100);
+    sprite.Speed(5);
+
+    // The first frame only schedules the first move, 100 ms later.
+    assertFalse(sprite.advanceFrame(1000));
+    assertFalse(sprite.advanceFrame(1050));
+    assertTrue(sprite.advanceFrame(1100));
+    assertEquals(5.0, sprite.X(), DELTA);
+
+    // A late frame catches up on the moves it missed.
+    assertTrue(sprite.advanceFrame(1320));
+    assertEquals(15.0, sprite.X(), DELTA);
+    assertFalse(sprite.advanceFrame(1399));
+  }
+
+  @Test
+  public void testAdvanceFrameIgnoresDisabledSprites() throws Exception {
+    TestSprite sprite = TestSprite.createTestSprite(canvasMock, handlerMock, 10, 10);
+    sprite.Initialize();
+    sprite.MoveTo(0, 0);
+    sprite.Speed(5);
+    sprite.Enabled(false);
+
+    assertFalse(sprite.advanceFrame(1000));
+    assertFalse(sprite.advanceFrame(5000));
+    assertEquals(0.0, sprite.X(), DELTA);
+  }
 }
@@ -0,0 +1,78 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests CircularArrayList class.
+ */
+public class CircularArrayListTest extends TestCase {
+  public void testEvictsOldestAsRingBuffer() {
+    List<Integer> list = new CircularArrayList<Integer>();
+    for (int i = 0; i < 100; i++) {
+      if (list.size() >= 5) {
+        list.remove(0);
+      }
+      list.add(i);
+    }
+    assertEquals(Arrays.asList(95, 96, 97, 98, 99), list);
+  }
+
+  public void testMatchesArrayList() {
+    Random random = new Random(42);
+    List<Integer> expected = new ArrayList<Integer>();
+    List<Integer> actual = new CircularArrayList<Integer>();
+    for (int i = 0; i < 5000; i++) {
+      int op = random.nextInt(4);
+      if (op == 0 || expected.isEmpty()) {
+        int index = random.nextInt(expected.size() + 1);
+        expected.add(index, i);
+        actual.add(index, i);
+      } else if (op == 1) {
+        int index = random.nextInt(expected.size());
+        assertEquals(expected.remove(index), actual.remove(index));
+      } else if (op == 2) {
+        expected.add(i);
+        actual.add(i);
+      } else {
+        int index = random.nextInt(expected.size());
+        assertEquals(expected.set(index, -i), actual.set(index, -i));
+      }
+      assertEquals(expected, actual);
+    }
+    actual.clear();
+    assertTrue(actual.isEmpty());
+  }
+
+  public void testBinarySearch() {
+    List<Integer> list = new CircularArrayList<Integer>();
+    for (int i = 0; i < 20; i++) {
+      list.add(i * 2);
+    }
+    list.remove(0);
+    list.remove(0);
+    assertEquals(3, Collections.binarySearch(list, 10));
+    assertEquals(-4, Collections.binarySearch(list, 9));
+  }
+
+  public void testIndexOutOfBounds() {
+    List<Integer> list = new CircularArrayList<Integer>();
+    list.add(1);
+    try {
+      list.get(1);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+}
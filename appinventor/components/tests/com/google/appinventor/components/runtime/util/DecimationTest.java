@@ -0,0 +1,66 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests Decimation class.
+ */
+public class DecimationTest extends TestCase {
+  private static final int COUNT = 2000;
+
+  private final float[] xs = new float[COUNT];
+  private final float[] ys = new float[COUNT];
+
+  @Override
+  protected void setUp() {
+    for (int i = 0; i < COUNT; i++) {
+      xs[i] = i;
+      ys[i] = (float) Math.sin(i / 50.0);
+    }
+    // A single spike that decimation must not lose.
+    ys[1234] = 10;
+  }
+
+  public void testShortSeriesIsKept() {
+    int[] kept = Decimation.decimate(Decimation.Mode.LTTB, xs, ys, 10, 100);
+    assertTrue(Arrays.equals(new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, kept));
+  }
+
+  public void testLargestTriangleThreeBuckets() {
+    int[] kept = Decimation.decimate(Decimation.Mode.LTTB, xs, ys, COUNT, 100);
+    assertEquals(100, kept.length);
+    assertIncreasingWithEnds(kept);
+    assertTrue(Arrays.binarySearch(kept, 1234) >= 0);
+  }
+
+  public void testMinMax() {
+    int[] kept = Decimation.decimate(Decimation.Mode.MIN_MAX, xs, ys, COUNT, 100);
+    assertTrue(kept.length <= 100);
+    assertIncreasingWithEnds(kept);
+    assertTrue(Arrays.binarySearch(kept, 1234) >= 0);
+  }
+
+  public void testThresholdTooSmall() {
+    try {
+      Decimation.decimate(Decimation.Mode.LTTB, xs, ys, COUNT, 2);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private static void assertIncreasingWithEnds(int[] kept) {
+    assertEquals(0, kept[0]);
+    assertEquals(COUNT - 1, kept[kept.length - 1]);
+    for (int i = 1; i < kept.length; i++) {
+      assertTrue(kept[i - 1] < kept[i]);
+    }
+  }
+}
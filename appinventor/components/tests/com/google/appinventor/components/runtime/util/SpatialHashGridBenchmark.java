@@ -0,0 +1,131 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the collision checks Canvas makes per animation frame with and
+ * without a {@link SpatialHashGrid}.  Every sprite moves once per frame and
+ * is then checked against the other sprites, either all of them or those
+ * found in the grid.
+ *
+ * <p>This is not run as part of the tests.  Run it with the components test
+ * class path:</p>
+ *
+ * <pre>
+ * java -cp ... com.google.appinventor.components.runtime.util.SpatialHashGridBenchmark
+ * </pre>
+ */
+public final class SpatialHashGridBenchmark {
+  private static final int[] SPRITE_COUNTS = {50, 200, 1000};
+  private static final int CANVAS_WIDTH = 1080;
+  private static final int CANVAS_HEIGHT = 1920;
+  private static final int SPRITE_SIZE = 40;
+  private static final int CELL_SIZE = 64;
+  private static final int WARMUP_FRAMES = 500;
+  private static final int FRAMES = 200;
+
+  private final double[] x;
+  private final double[] y;
+  private final double[] dx;
+  private final double[] dy;
+  private long checks;
+
+  private SpatialHashGridBenchmark(int count, long seed) {
+    Random random = new Random(seed);
+    x = new double[count];
+    y = new double[count];
+    dx = new double[count];
+    dy = new double[count];
+    for (int i = 0; i < count; i++) {
+      x[i] = random.nextDouble() * (CANVAS_WIDTH - SPRITE_SIZE);
+      y[i] = random.nextDouble() * (CANVAS_HEIGHT - SPRITE_SIZE);
+      dx[i] = random.nextDouble() * 10 - 5;
+      dy[i] = random.nextDouble() * 10 - 5;
+    }
+  }
+
+  public static void main(String[] args) {
+    System.out.println("sprites  brute-force us/frame  grid us/frame  "
+        + "brute-force checks/frame  grid checks/frame");
+    for (int count : SPRITE_COUNTS) {
+      SpatialHashGridBenchmark bruteForce = new SpatialHashGridBenchmark(count, 42);
+      bruteForce.run(WARMUP_FRAMES, false);
+      bruteForce.checks = 0;
+      long bruteForceNanos = bruteForce.run(FRAMES, false);
+
+      SpatialHashGridBenchmark grid = new SpatialHashGridBenchmark(count, 42);
+      grid.run(WARMUP_FRAMES, true);
+      grid.checks = 0;
+      long gridNanos = grid.run(FRAMES, true);
+
+      System.out.println(String.format("%7d  %20.1f  %13.1f  %24d  %17d", count,
+          bruteForceNanos / 1000.0 / FRAMES, gridNanos / 1000.0 / FRAMES,
+          bruteForce.checks / FRAMES, grid.checks / FRAMES));
+    }
+  }
+
+  private long run(int frames, boolean useGrid) {
+    int count = x.length;
+    SpatialHashGrid<Integer> grid = new SpatialHashGrid<Integer>(CELL_SIZE);
+    if (useGrid) {
+      for (int i = 0; i < count; i++) {
+        grid.update(i, box(i));
+      }
+    }
+    Set<Integer> candidates = new HashSet<Integer>();
+    long start = System.nanoTime();
+    for (int frame = 0; frame < frames; frame++) {
+      for (int i = 0; i < count; i++) {
+        move(i);
+        BoundingBox moved = box(i);
+        if (useGrid) {
+          grid.update(i, moved);
+          candidates.clear();
+          grid.query(moved, candidates);
+          for (int other : candidates) {
+            if (other != i) {
+              check(i, other);
+            }
+          }
+        } else {
+          for (int other = 0; other < count; other++) {
+            if (other != i) {
+              check(i, other);
+            }
+          }
+        }
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private void move(int i) {
+    x[i] += dx[i];
+    y[i] += dy[i];
+    if (x[i] < 0 || x[i] > CANVAS_WIDTH - SPRITE_SIZE) {
+      dx[i] = -dx[i];
+    }
+    if (y[i] < 0 || y[i] > CANVAS_HEIGHT - SPRITE_SIZE) {
+      dy[i] = -dy[i];
+    }
+  }
+
+  private BoundingBox box(int i) {
+    // Like Sprite.getBoundingBox(1).
+    return new BoundingBox(x[i] - 1, y[i] - 1, x[i] + SPRITE_SIZE, y[i] + SPRITE_SIZE);
+  }
+
+  private void check(int sprite, int other) {
+    checks++;
+    // Like Sprite.colliding(), which intersects fresh boxes, since the
+    // intersection shrinks the box it is called on.
+    box(sprite).intersectDestructively(box(other));
+  }
+}
@@ -0,0 +1,115 @@
+// -*- mode: java; c-basic-offset: 2; -*-
+// Copyright 2026 MIT, All rights reserved
+// Released under the Apache License, Version 2.0
+// http://www.apache.org/licenses/LICENSE-2.0
+
+package com.google.appinventor.components.runtime.util;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests SpatialHashGrid class.
+ */
+public class SpatialHashGridTest extends TestCase {
+  private SpatialHashGrid<String> grid;
+
+  @Override
+  protected void setUp() throws Exception {
+    grid = new SpatialHashGrid<String>(10);
+  }
+
+  private Set<String> query(double left, double top, double right, double bottom) {
+    Set<String> result = new HashSet<String>();
+    grid.query(new BoundingBox(left, top, right, bottom), result);
+    return result;
+  }
+
+  public void testQueryFindsOverlappingItems() {
+    grid.update("a", new BoundingBox(0, 0, 5, 5));
+    grid.update("b", new BoundingBox(50, 50, 55, 55));
+    assertEquals(2, grid.size());
+    assertEquals(setOf("a"), query(3, 3, 8, 8));
+    assertEquals(setOf("b"), query(52, 40, 60, 51));
+    assertTrue(query(100, 100, 110, 110).isEmpty());
+  }
+
+  public void testQueryFindsAbuttingItems() {
+    // Boxes are inclusive, so these abut along x = 9.
+    grid.update("a", new BoundingBox(0, 0, 9, 9));
+    assertTrue(query(9, 0, 15, 9).contains("a"));
+  }
+
+  public void testItemsSpanningSeveralCellsAreFound() {
+    grid.update("wide", new BoundingBox(0, 0, 95, 5));
+    assertEquals(setOf("wide"), query(80, 0, 81, 1));
+    assertEquals(setOf("wide"), query(-3, -3, 0, 0));
+  }
+
+  public void testNegativeCoordinates() {
+    grid.update("a", new BoundingBox(-25, -25, -21, -21));
+    assertEquals(setOf("a"), query(-22, -22, -20, -20));
+    assertTrue(query(0, 0, 5, 5).isEmpty());
+  }
+
+  public void testUpdateMovesItem() {
+    grid.update("a", new BoundingBox(0, 0, 5, 5));
+    grid.update("a", new BoundingBox(100, 100, 105, 105));
+    assertEquals(1, grid.size());
+    assertTrue(query(0, 0, 5, 5).isEmpty());
+    assertEquals(setOf("a"), query(100, 100, 101, 101));
+  }
+
+  public void testRemove() {
+    grid.update("a", new BoundingBox(0, 0, 25, 25));
+    grid.update("b", new BoundingBox(0, 0, 5, 5));
+    grid.remove("a");
+    grid.remove("missing");
+    assertFalse(grid.contains("a"));
+    assertTrue(grid.contains("b"));
+    assertEquals(setOf("b"), query(0, 0, 25, 25));
+  }
+
+  public void testMatchesBruteForce() {
+    Random random = new Random(42);
+    int count = 200;
+    BoundingBox[] boxes = new BoundingBox[count];
+    for (int i = 0; i < count; i++) {
+      boxes[i] = randomBox(random);
+      grid.update(Integer.toString(i), boxes[i]);
+    }
+    for (int query = 0; query < 100; query++) {
+      BoundingBox box = randomBox(random);
+      Set<String> found = new HashSet<String>();
+      grid.query(box, found);
+      for (int i = 0; i < count; i++) {
+        if (overlap(box, boxes[i])) {
+          assertTrue(found.contains(Integer.toString(i)));
+        }
+      }
+    }
+  }
+
+  private static BoundingBox randomBox(Random random) {
+    double left = random.nextDouble() * 500 - 50;
+    double top = random.nextDouble() * 500 - 50;
+    return new BoundingBox(left, top, left + random.nextDouble() * 40,
+        top + random.nextDouble() * 40);
+  }
+
+  private static boolean overlap(BoundingBox a, BoundingBox b) {
+    return a.getLeft() <= b.getRight() && b.getLeft() <= a.getRight()
+        && a.getTop() <= b.getBottom() && b.getTop() <= a.getBottom();
+  }
+
+  private static Set<String> setOf(String... items) {
+    Set<String> set = new HashSet<String>();
+    for (String item : items) {
+      set.add(item);
+    }
+    return set;
+  }
+}